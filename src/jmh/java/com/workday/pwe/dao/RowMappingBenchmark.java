@@ -0,0 +1,163 @@
+package com.workday.pwe.dao;
+
+import com.workday.pwe.enums.TaskStatus;
+import com.workday.pwe.model.TaskInstance;
+import com.workday.pwe.util.EnumLookup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares mapping task_instances rows by column index with native UUID and time reads, as the DAOs
+ * do, against the earlier mapping by column label through strings and Timestamps.
+ * <p>
+ * The rows come from an in-memory H2 table shaped like task_instances, read through a scrollable
+ * result set that is rewound before every pass, so only the mapping is measured. H2 stands in for
+ * PostgreSQL here: like pgjdbc it resolves labels through a lazily built case-insensitive map, but
+ * absolute numbers differ from the production driver. Both mappers decode status the same way, so
+ * the difference is the label lookups and the intermediate conversions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    private static final EnumLookup<TaskStatus> TASK_STATUSES = EnumLookup.of(TaskStatus.class);
+
+    @Param({"100", "1000"})
+    private int rows;
+
+    private Connection connection;
+    private PreparedStatement select;
+    private ResultSet resultSet;
+    private TaskInstanceDAO taskInstanceDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:row_mapping");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE task_instances (id UUID PRIMARY KEY, workflow_instance_id UUID NOT NULL, " +
+                         "task_def_id UUID NOT NULL, task_group_instance_id UUID, assignee VARCHAR(255), " +
+                         "status SMALLINT NOT NULL, input_json VARCHAR, output_json VARCHAR, start_time TIMESTAMP, " +
+                         "end_time TIMESTAMP, due_date TIMESTAMP, failure_reason VARCHAR)");
+        }
+
+        UUID workflowInstanceId = UUID.randomUUID();
+        UUID taskGroupInstanceId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO task_instances VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                insert.setObject(1, UUID.randomUUID());
+                insert.setObject(2, workflowInstanceId);
+                insert.setObject(3, UUID.randomUUID());
+                insert.setObject(4, taskGroupInstanceId);
+                insert.setString(5, "user" + (i % 20));
+                insert.setShort(6, (i % 3 == 0 ? TaskStatus.COMPLETED : TaskStatus.IN_PROGRESS).getCode());
+                insert.setString(7, "{\"itemIndex\":" + i + ",\"amount\":" + (i * 10) + "}");
+                insert.setString(8, i % 3 == 0 ? "{\"approved\":true}" : null);
+                insert.setObject(9, now.minusHours(2));
+                insert.setObject(10, i % 3 == 0 ? now.minusHours(1) : null);
+                insert.setObject(11, now.plusDays(1));
+                insert.setString(12, null);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+
+        select = connection.prepareStatement(
+                "SELECT id, workflow_instance_id, task_def_id, task_group_instance_id, assignee, status, " +
+                "input_json, output_json, start_time, end_time, due_date, failure_reason FROM task_instances",
+                ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        resultSet = select.executeQuery();
+        taskInstanceDAO = new TaskInstanceDAO(connection);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        resultSet.close();
+        select.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public void byIndex(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            blackhole.consume(taskInstanceDAO.mapResultSetToTaskInstance(resultSet));
+        }
+    }
+
+    @Benchmark
+    public void byName(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            blackhole.consume(mapByName(resultSet));
+        }
+    }
+
+    /**
+     * The row mapping the DAOs used before reading by index
+     */
+    private static TaskInstance mapByName(ResultSet rs) throws SQLException {
+        TaskInstance taskInst = new TaskInstance();
+
+        taskInst.setId(UUID.fromString(rs.getString("id")));
+        taskInst.setWorkflowInstanceId(UUID.fromString(rs.getString("workflow_instance_id")));
+        taskInst.setTaskDefId(UUID.fromString(rs.getString("task_def_id")));
+
+        String taskGroupInstanceId = rs.getString("task_group_instance_id");
+        if (taskGroupInstanceId != null) {
+            taskInst.setTaskGroupInstanceId(UUID.fromString(taskGroupInstanceId));
+        }
+
+        taskInst.setAssignee(rs.getString("assignee"));
+        taskInst.setStatus(TASK_STATUSES.fromCode(rs.getShort("status")));
+        taskInst.setFailureReason(rs.getString("failure_reason"));
+
+        Timestamp startTime = rs.getTimestamp("start_time");
+        if (startTime != null) {
+            taskInst.setStartTime(startTime.toLocalDateTime());
+        }
+
+        Timestamp endTime = rs.getTimestamp("end_time");
+        if (endTime != null) {
+            taskInst.setEndTime(endTime.toLocalDateTime());
+        }
+
+        Timestamp dueDate = rs.getTimestamp("due_date");
+        if (dueDate != null) {
+            taskInst.setDueDate(dueDate.toLocalDateTime());
+        }
+
+        taskInst.setInputJsonRaw(rs.getString("input_json"));
+        taskInst.setOutputJsonRaw(rs.getString("output_json"));
+
+        return taskInst;
+    }
+}
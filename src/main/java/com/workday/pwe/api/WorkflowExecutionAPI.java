@@ -2,6 +2,7 @@ package com.workday.pwe.api;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.workday.pwe.model.WorkflowInstance;
+import com.workday.pwe.model.WorkflowSchedule;
 
 import java.util.List;
 import java.util.UUID;
@@ -20,6 +21,35 @@ public interface WorkflowExecutionAPI {
      */
     WorkflowInstance startWorkflow(UUID workflowDefId, JsonNode inputJson);
     
+    /**
+     * Starts many workflow instances of one definition in bulk
+     * 
+     * @param workflowDefId Workflow definition ID
+     * @param inputs Input data, one workflow per element
+     * @return The created workflow instances
+     */
+    List<WorkflowInstance> startWorkflows(UUID workflowDefId, List<JsonNode> inputs);
+    
+    /**
+     * Schedules recurring starts of a workflow definition
+     * 
+     * @param workflowDefId Workflow definition ID
+     * @param name Unique schedule name
+     * @param cronExpression Five-field cron expression
+     * @param timeZone Zone the expression is evaluated in, UTC if null
+     * @param inputJson Input data; an array starts one workflow per element on every firing
+     * @return The created schedule
+     */
+    WorkflowSchedule scheduleWorkflow(UUID workflowDefId, String name, String cronExpression, String timeZone, JsonNode inputJson);
+    
+    /**
+     * Deletes a workflow schedule
+     * 
+     * @param scheduleId Schedule ID
+     * @return True if deleted successfully, false otherwise
+     */
+    boolean unscheduleWorkflow(UUID scheduleId);
+    
     /**
      * Gets a workflow instance by ID
      * 
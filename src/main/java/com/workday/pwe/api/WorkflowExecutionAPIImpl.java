@@ -6,9 +6,11 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.workday.pwe.api.WorkflowExecutionAPI;
 import com.workday.pwe.model.WorkflowHistory;
 import com.workday.pwe.model.WorkflowInstance;
+import com.workday.pwe.model.WorkflowSchedule;
 import com.workday.pwe.service.HistoryAndAuditService;
 import com.workday.pwe.service.WorkflowControlService;
 import com.workday.pwe.service.WorkflowInstanceService;
+import com.workday.pwe.service.WorkflowScheduleService;
 
 import java.sql.Connection;
 import java.util.List;
@@ -28,6 +30,7 @@ public class WorkflowExecutionAPIImpl implements WorkflowExecutionAPI {
     private final WorkflowInstanceService workflowInstanceService;
     private final WorkflowControlService workflowControlService;
     private final HistoryAndAuditService historyService;
+    private final WorkflowScheduleService scheduleService;
     
     /**
      * Constructor with dependencies
@@ -39,6 +42,7 @@ public class WorkflowExecutionAPIImpl implements WorkflowExecutionAPI {
         this.workflowInstanceService = new WorkflowInstanceService();
         this.workflowControlService = new WorkflowControlService();
         this.historyService = new HistoryAndAuditService();
+        this.scheduleService = new WorkflowScheduleService();
     }
 
     @Override
@@ -51,6 +55,26 @@ public class WorkflowExecutionAPIImpl implements WorkflowExecutionAPI {
         }
     }
 
+    @Override
+    public List<WorkflowInstance> startWorkflows(UUID workflowDefId, List<JsonNode> inputs) {
+        try {
+            return workflowInstanceService.startWorkflows(connection, workflowDefId, inputs);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error starting workflows", e);
+            throw new RuntimeException("Error starting workflows", e);
+        }
+    }
+
+    @Override
+    public WorkflowSchedule scheduleWorkflow(UUID workflowDefId, String name, String cronExpression, String timeZone, JsonNode inputJson) {
+        return scheduleService.createSchedule(connection, workflowDefId, name, cronExpression, timeZone, inputJson);
+    }
+
+    @Override
+    public boolean unscheduleWorkflow(UUID scheduleId) {
+        return scheduleService.deleteSchedule(connection, scheduleId);
+    }
+
     @Override
     public WorkflowInstance getWorkflow(UUID id) {
         try {
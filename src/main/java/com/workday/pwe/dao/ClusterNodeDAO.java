@@ -0,0 +1,124 @@
+package com.workday.pwe.dao;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * DAO for cluster_nodes table operations.
+ */
+public class ClusterNodeDAO {
+
+    private static final Logger LOGGER = Logger.getLogger(ClusterNodeDAO.class.getName());
+
+    private final Connection connection;
+
+    /**
+     * Constructor with database connection
+     *
+     * @param connection The database connection
+     */
+    public ClusterNodeDAO(Connection connection) {
+        if (connection == null) {
+            throw new IllegalArgumentException("Connection cannot be null");
+        }
+        this.connection = connection;
+    }
+
+    /**
+     * Register a node or refresh its heartbeat
+     *
+     * @param nodeId The node ID
+     * @param hostName The host the node runs on
+     * @throws SQLException If a database error occurs
+     */
+    public void heartbeat(String nodeId, String hostName) throws SQLException {
+        final String sql = "INSERT INTO cluster_nodes (node_id, host_name, started_at, last_heartbeat) " +
+                           "VALUES (?, ?, ?, ?) " +
+                           "ON CONFLICT (node_id) DO UPDATE SET last_heartbeat = EXCLUDED.last_heartbeat";
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            stmt.setString(1, nodeId);
+            stmt.setString(2, hostName);
+            stmt.setTimestamp(3, now);
+            stmt.setTimestamp(4, now);
+
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error recording heartbeat for node: " + nodeId, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Get the nodes whose last heartbeat is at or after a point in time
+     *
+     * @param since The oldest heartbeat still considered alive
+     * @return List of node IDs, sorted
+     * @throws SQLException If a database error occurs
+     */
+    public List<String> getLiveNodes(Timestamp since) throws SQLException {
+        final String sql = "SELECT node_id FROM cluster_nodes WHERE last_heartbeat >= ? ORDER BY node_id";
+
+        List<String> nodeIds = new ArrayList<>();
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setTimestamp(1, since);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    nodeIds.add(rs.getString(1));
+                }
+            }
+
+            return nodeIds;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error getting live cluster nodes", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Remove a node, e.g. when it leaves the cluster
+     *
+     * @param nodeId The node ID
+     * @return The number of rows affected
+     * @throws SQLException If a database error occurs
+     */
+    public int removeNode(String nodeId) throws SQLException {
+        final String sql = "DELETE FROM cluster_nodes WHERE node_id = ?";
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, nodeId);
+
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error removing cluster node: " + nodeId, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Remove nodes that have not sent a heartbeat since a point in time
+     *
+     * @param before Remove nodes whose last heartbeat is older than this
+     * @return The number of rows affected
+     * @throws SQLException If a database error occurs
+     */
+    public int removeExpiredNodes(Timestamp before) throws SQLException {
+        final String sql = "DELETE FROM cluster_nodes WHERE last_heartbeat < ?";
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setTimestamp(1, before);
+
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error removing expired cluster nodes", e);
+            throw e;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.workday.pwe.enums.TaskType;
 import com.workday.pwe.model.TaskDefinition;
+import com.workday.pwe.util.EnumLookup;
+import com.workday.pwe.util.UUIDUtil;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -20,6 +22,7 @@ public class TaskDefinitionDAO {
 
     private static final Logger LOGGER = Logger.getLogger(TaskDefinitionDAO.class.getName());
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final EnumLookup<TaskType> TASK_TYPES = EnumLookup.of(TaskType.class);
     
     private final Connection connection;
     
@@ -48,13 +51,13 @@ public class TaskDefinitionDAO {
                            "VALUES (?, ?, ?, ?, ?, ?, ?::jsonb)";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            UUID id = taskDef.getId() != null ? taskDef.getId() : UUID.randomUUID();
+            UUID id = taskDef.getId() != null ? taskDef.getId() : UUIDUtil.newUUIDv7();
             
             stmt.setObject(1, id);
             stmt.setObject(2, taskDef.getWorkflowDefId());
             stmt.setObject(3, taskDef.getTaskGroupDefId()); // Can be null
             stmt.setString(4, taskDef.getName());
-            stmt.setString(5, taskDef.getTaskType().name());
+            stmt.setShort(5, taskDef.getTaskType().getCode());
             stmt.setInt(6, taskDef.getTaskOrder());
             stmt.setString(7, taskDef.getParametersJson() != null ? taskDef.getParametersJson().toString() : null);
             
@@ -204,7 +207,7 @@ public class TaskDefinitionDAO {
             stmt.setObject(1, taskDef.getWorkflowDefId());
             stmt.setObject(2, taskDef.getTaskGroupDefId());
             stmt.setString(3, taskDef.getName());
-            stmt.setString(4, taskDef.getTaskType().name());
+            stmt.setShort(4, taskDef.getTaskType().getCode());
             stmt.setInt(5, taskDef.getTaskOrder());
             stmt.setString(6, taskDef.getParametersJson() != null ? taskDef.getParametersJson().toString() : null);
             stmt.setObject(7, taskDef.getId());
@@ -237,7 +240,9 @@ public class TaskDefinitionDAO {
     }
     
     /**
-     * Map a result set row to a TaskDefinition object
+     * Map a result set row to a TaskDefinition object. Columns are read by position, so every query
+     * using this must select id, workflow_def_id, task_group_def_id, name, task_type, task_order,
+     * parameters_json in that order.
      * 
      * @param rs The result set
      * @return The mapped TaskDefinition
@@ -246,21 +251,16 @@ public class TaskDefinitionDAO {
     private TaskDefinition mapResultSetToTaskDefinition(ResultSet rs) throws SQLException {
         TaskDefinition taskDef = new TaskDefinition();
         
-        taskDef.setId(UUID.fromString(rs.getString("id")));
-        taskDef.setWorkflowDefId(UUID.fromString(rs.getString("workflow_def_id")));
-        
-        String taskGroupDefId = rs.getString("task_group_def_id");
-        if (taskGroupDefId != null) {
-            taskDef.setTaskGroupDefId(UUID.fromString(taskGroupDefId));
-        }
-        
-        taskDef.setName(rs.getString("name"));
-        taskDef.setTaskType(TaskType.valueOf(rs.getString("task_type")));
-        taskDef.setTaskOrder(rs.getInt("task_order"));
+        taskDef.setId(rs.getObject(1, UUID.class));
+        taskDef.setWorkflowDefId(rs.getObject(2, UUID.class));
+        taskDef.setTaskGroupDefId(rs.getObject(3, UUID.class));
+        taskDef.setName(rs.getString(4));
+        taskDef.setTaskType(TASK_TYPES.fromCode(rs.getShort(5)));
+        taskDef.setTaskOrder(rs.getInt(6));
         
         // Parse the JSON parameters
         try {
-            String jsonStr = rs.getString("parameters_json");
+            String jsonStr = rs.getString(7);
             if (jsonStr != null) {
                 JsonNode jsonNode = OBJECT_MAPPER.readTree(jsonStr);
                 taskDef.setParametersJson(jsonNode);
@@ -290,7 +290,7 @@ public class TaskDefinitionDAO {
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setObject(1, workflowDefId);
-            stmt.setString(2, taskType.name());
+            stmt.setShort(2, taskType.getCode());
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -6,6 +6,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.workday.pwe.enums.CompletionCriteria;
 import com.workday.pwe.enums.TaskGroupType;
 import com.workday.pwe.model.TaskGroupDefinition;
+import com.workday.pwe.util.EnumLookup;
+import com.workday.pwe.util.UUIDUtil;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -21,6 +23,8 @@ public class TaskGroupDefinitionDAO {
 
     private static final Logger LOGGER = Logger.getLogger(TaskGroupDefinitionDAO.class.getName());
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final EnumLookup<TaskGroupType> GROUP_TYPES = EnumLookup.of(TaskGroupType.class);
+    private static final EnumLookup<CompletionCriteria> COMPLETION_CRITERIA = EnumLookup.of(CompletionCriteria.class);
     
     private final Connection connection;
     
@@ -49,14 +53,14 @@ public class TaskGroupDefinitionDAO {
                            "VALUES (?, ?, ?, ?, ?, ?, ?, ?::jsonb)";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            UUID id = groupDef.getId() != null ? groupDef.getId() : UUID.randomUUID();
+            UUID id = groupDef.getId() != null ? groupDef.getId() : UUIDUtil.newUUIDv7();
             
             stmt.setObject(1, id);
             stmt.setObject(2, groupDef.getWorkflowDefId());
             stmt.setObject(3, groupDef.getParentGroupDefId()); // Can be null
             stmt.setString(4, groupDef.getName());
-            stmt.setString(5, groupDef.getGroupType().name());
-            stmt.setString(6, groupDef.getCompletionCriteria().name());
+            stmt.setShort(5, groupDef.getGroupType().getCode());
+            stmt.setShort(6, groupDef.getCompletionCriteria().getCode());
             stmt.setInt(7, groupDef.getGroupOrder());
             stmt.setString(8, groupDef.getParametersJson() != null ? groupDef.getParametersJson().toString() : null);
             
@@ -206,8 +210,8 @@ public class TaskGroupDefinitionDAO {
             stmt.setObject(1, groupDef.getWorkflowDefId());
             stmt.setObject(2, groupDef.getParentGroupDefId());
             stmt.setString(3, groupDef.getName());
-            stmt.setString(4, groupDef.getGroupType().name());
-            stmt.setString(5, groupDef.getCompletionCriteria().name());
+            stmt.setShort(4, groupDef.getGroupType().getCode());
+            stmt.setShort(5, groupDef.getCompletionCriteria().getCode());
             stmt.setInt(6, groupDef.getGroupOrder());
             stmt.setString(7, groupDef.getParametersJson() != null ? groupDef.getParametersJson().toString() : null);
             stmt.setObject(8, groupDef.getId());
@@ -240,7 +244,9 @@ public class TaskGroupDefinitionDAO {
     }
     
     /**
-     * Map a result set row to a TaskGroupDefinition object
+     * Map a result set row to a TaskGroupDefinition object. Columns are read by position, so every
+     * query using this must select id, workflow_def_id, parent_group_def_id, name, group_type,
+     * completion_criteria, group_order, parameters_json in that order.
      * 
      * @param rs The result set
      * @return The mapped TaskGroupDefinition
@@ -249,22 +255,17 @@ public class TaskGroupDefinitionDAO {
     private TaskGroupDefinition mapResultSetToTaskGroupDefinition(ResultSet rs) throws SQLException {
         TaskGroupDefinition groupDef = new TaskGroupDefinition();
         
-        groupDef.setId(UUID.fromString(rs.getString("id")));
-        groupDef.setWorkflowDefId(UUID.fromString(rs.getString("workflow_def_id")));
-        
-        String parentGroupDefId = rs.getString("parent_group_def_id");
-        if (parentGroupDefId != null) {
-            groupDef.setParentGroupDefId(UUID.fromString(parentGroupDefId));
-        }
-        
-        groupDef.setName(rs.getString("name"));
-        groupDef.setGroupType(TaskGroupType.valueOf(rs.getString("group_type")));
-        groupDef.setCompletionCriteria(CompletionCriteria.valueOf(rs.getString("completion_criteria")));
-        groupDef.setGroupOrder(rs.getInt("group_order"));
+        groupDef.setId(rs.getObject(1, UUID.class));
+        groupDef.setWorkflowDefId(rs.getObject(2, UUID.class));
+        groupDef.setParentGroupDefId(rs.getObject(3, UUID.class));
+        groupDef.setName(rs.getString(4));
+        groupDef.setGroupType(GROUP_TYPES.fromCode(rs.getShort(5)));
+        groupDef.setCompletionCriteria(COMPLETION_CRITERIA.fromCode(rs.getShort(6)));
+        groupDef.setGroupOrder(rs.getInt(7));
         
         // Parse the JSON parameters
         try {
-            String jsonStr = rs.getString("parameters_json");
+            String jsonStr = rs.getString(8);
             if (jsonStr != null) {
                 JsonNode jsonNode = OBJECT_MAPPER.readTree(jsonStr);
                 groupDef.setParametersJson(jsonNode);
@@ -312,7 +313,7 @@ public class TaskGroupDefinitionDAO {
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setObject(1, id);
-            stmt.setString(2, criteria);
+            stmt.setShort(2, COMPLETION_CRITERIA.fromName(criteria).getCode());
             
             try (ResultSet rs = stmt.executeQuery()) {
                 return rs.next();
@@ -331,7 +332,7 @@ public class TaskGroupDefinitionDAO {
      * @throws SQLException If a database error occurs
      */
     public boolean isVerticalGroup(UUID id) throws SQLException {
-        final String sql = "SELECT 1 FROM task_group_definitions WHERE id = ? AND group_type = 'VERTICAL'";
+        final String sql = "SELECT 1 FROM task_group_definitions WHERE id = ? AND group_type = " + TaskGroupType.VERTICAL.getCode();
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setObject(1, id);
@@ -353,7 +354,7 @@ public class TaskGroupDefinitionDAO {
      * @throws SQLException If a database error occurs
      */
     public boolean isHorizontalGroup(UUID id) throws SQLException {
-        final String sql = "SELECT 1 FROM task_group_definitions WHERE id = ? AND group_type = 'HORIZONTAL'";
+        final String sql = "SELECT 1 FROM task_group_definitions WHERE id = ? AND group_type = " + TaskGroupType.HORIZONTAL.getCode();
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setObject(1, id);
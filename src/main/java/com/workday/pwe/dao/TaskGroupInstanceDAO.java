@@ -1,11 +1,14 @@
 package com.workday.pwe.dao;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.workday.pwe.enums.TaskStatus;
 import com.workday.pwe.model.TaskGroupDefinition;
 import com.workday.pwe.model.TaskGroupInstance;
+import com.workday.pwe.model.TaskStatusView;
+import com.workday.pwe.util.EnumLookup;
+import com.workday.pwe.util.SQLUtil;
+import com.workday.pwe.util.UUIDUtil;
 
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -21,6 +24,11 @@ import java.util.logging.Logger;
 public class TaskGroupInstanceDAO {
 
     private static final Logger LOGGER = Logger.getLogger(TaskGroupInstanceDAO.class.getName());
+    private static final EnumLookup<TaskStatus> TASK_STATUSES = EnumLookup.of(TaskStatus.class);
+    
+    // Status codes of groups that can still change, and of groups that are done
+    private static final String ACTIVE_STATUSES = SQLUtil.codes(TaskStatus.NOT_STARTED, TaskStatus.IN_PROGRESS, TaskStatus.BLOCKED);
+    private static final String FINISHED_STATUSES = SQLUtil.codes(TaskStatus.COMPLETED, TaskStatus.FAILED, TaskStatus.SKIPPED);
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     
     private final Connection connection;
@@ -51,15 +59,15 @@ public class TaskGroupInstanceDAO {
                            "VALUES (?, ?, ?, ?, ?, ?, ?::jsonb, ?, ?)";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            UUID id = groupInst.getId() != null ? groupInst.getId() : UUID.randomUUID();
+            UUID id = groupInst.getId() != null ? groupInst.getId() : UUIDUtil.newUUIDv7();
             
             stmt.setObject(1, id);
             stmt.setObject(2, groupInst.getWorkflowInstanceId());
             stmt.setObject(3, groupInst.getTaskGroupDefId());
             stmt.setObject(4, groupInst.getParentGroupInstId()); // Can be null
-            stmt.setString(5, groupInst.getStatus().name());
+            stmt.setShort(5, groupInst.getStatus().getCode());
             stmt.setInt(6, groupInst.getMinCompletion());
-            stmt.setString(7, groupInst.getParametersJson() != null ? groupInst.getParametersJson().toString() : null);
+            stmt.setString(7, groupInst.getParametersJsonRaw());
             stmt.setTimestamp(8, groupInst.getStartTime() != null ? Timestamp.valueOf(groupInst.getStartTime()) : null);
             stmt.setTimestamp(9, groupInst.getEndTime() != null ? Timestamp.valueOf(groupInst.getEndTime()) : null);
             
@@ -75,6 +83,47 @@ public class TaskGroupInstanceDAO {
         }
     }
     
+    /**
+     * Create task group instances in a single JDBC batch. Parents must come before their children.
+     * 
+     * @param groupInsts The task group instances to create; IDs are assigned to instances that have none
+     * @return The IDs of the created task group instances, in input order
+     * @throws SQLException If a database error occurs
+     */
+    public List<UUID> createTaskGroupInstances(List<TaskGroupInstance> groupInsts) throws SQLException {
+        final String sql = "INSERT INTO task_group_instances " +
+                           "(id, workflow_instance_id, task_group_def_id, parent_group_inst_id, status, " +
+                           "min_completion, parameters_json, start_time, end_time) " +
+                           "VALUES (?, ?, ?, ?, ?, ?, ?::jsonb, ?, ?)";
+        
+        List<UUID> ids = new ArrayList<>(groupInsts.size());
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (TaskGroupInstance groupInst : groupInsts) {
+                UUID id = groupInst.getId() != null ? groupInst.getId() : UUIDUtil.newUUIDv7();
+                groupInst.setId(id);
+                ids.add(id);
+                
+                stmt.setObject(1, id);
+                stmt.setObject(2, groupInst.getWorkflowInstanceId());
+                stmt.setObject(3, groupInst.getTaskGroupDefId());
+                stmt.setObject(4, groupInst.getParentGroupInstId()); // Can be null
+                stmt.setShort(5, groupInst.getStatus().getCode());
+                stmt.setInt(6, groupInst.getMinCompletion());
+                stmt.setString(7, groupInst.getParametersJsonRaw());
+                stmt.setTimestamp(8, groupInst.getStartTime() != null ? Timestamp.valueOf(groupInst.getStartTime()) : null);
+                stmt.setTimestamp(9, groupInst.getEndTime() != null ? Timestamp.valueOf(groupInst.getEndTime()) : null);
+                stmt.addBatch();
+            }
+            
+            stmt.executeBatch();
+            return ids;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error creating task group instances in batch", e);
+            throw e;
+        }
+    }
+    
     /**
      * Get a task group instance by ID
      * 
@@ -202,6 +251,38 @@ public class TaskGroupInstanceDAO {
         }
     }
     
+    /**
+     * Get the id, status and order of the root task group instances of a workflow, in group order
+     * 
+     * @param workflowInstanceId The workflow instance ID
+     * @return List of group status views
+     * @throws SQLException If a database error occurs
+     */
+    public List<TaskStatusView> getRootTaskGroupStatuses(UUID workflowInstanceId) throws SQLException {
+        final String sql = "SELECT tgi.id, tgi.status, tgd.group_order " +
+                           "FROM task_group_instances tgi " +
+                           "JOIN task_group_definitions tgd ON tgi.task_group_def_id = tgd.id " +
+                           "WHERE tgi.workflow_instance_id = ? AND tgi.parent_group_inst_id IS NULL " +
+                           "ORDER BY tgd.group_order ASC";
+        
+        List<TaskStatusView> views = new ArrayList<>();
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setObject(1, workflowInstanceId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    views.add(new TaskStatusView(rs.getObject(1, UUID.class), TASK_STATUSES.fromCode(rs.getShort(2)), rs.getInt(3)));
+                }
+            }
+            
+            return views;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error getting root task group statuses", e);
+            throw e;
+        }
+    }
+    
     /**
      * Update a task group instance
      * 
@@ -219,9 +300,9 @@ public class TaskGroupInstanceDAO {
             stmt.setObject(1, groupInst.getWorkflowInstanceId());
             stmt.setObject(2, groupInst.getTaskGroupDefId());
             stmt.setObject(3, groupInst.getParentGroupInstId());
-            stmt.setString(4, groupInst.getStatus().name());
+            stmt.setShort(4, groupInst.getStatus().getCode());
             stmt.setInt(5, groupInst.getMinCompletion());
-            stmt.setString(6, groupInst.getParametersJson() != null ? groupInst.getParametersJson().toString() : null);
+            stmt.setString(6, groupInst.getParametersJsonRaw());
             stmt.setTimestamp(7, groupInst.getStartTime() != null ? Timestamp.valueOf(groupInst.getStartTime()) : null);
             stmt.setTimestamp(8, groupInst.getEndTime() != null ? Timestamp.valueOf(groupInst.getEndTime()) : null);
             stmt.setObject(9, groupInst.getId());
@@ -243,12 +324,12 @@ public class TaskGroupInstanceDAO {
      */
     public int updateTaskGroupStatus(UUID id, TaskStatus status) throws SQLException {
         final String sql = "UPDATE task_group_instances SET status = ?, " +
-                           "end_time = CASE WHEN ? IN ('COMPLETED', 'FAILED', 'SKIPPED') AND end_time IS NULL THEN ? ELSE end_time END " +
+                           "end_time = CASE WHEN ? IN (" + FINISHED_STATUSES + ") AND end_time IS NULL THEN ? ELSE end_time END " +
                            "WHERE id = ?";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, status.name());
-            stmt.setString(2, status.name());
+            stmt.setShort(1, status.getCode());
+            stmt.setShort(2, status.getCode());
             stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
             stmt.setObject(4, id);
             
@@ -318,7 +399,7 @@ public class TaskGroupInstanceDAO {
         final String sql = "SELECT id, workflow_instance_id, task_group_def_id, parent_group_inst_id, status, " +
                            "min_completion, parameters_json, start_time, end_time " +
                            "FROM task_group_instances " +
-                           "WHERE workflow_instance_id = ? AND status IN ('COMPLETED', 'FAILED', 'SKIPPED')";
+                           "WHERE workflow_instance_id = ? AND status IN (" + FINISHED_STATUSES + ")";
         
         List<TaskGroupInstance> groupInsts = new ArrayList<>();
         
@@ -350,7 +431,7 @@ public class TaskGroupInstanceDAO {
         final String sql = "SELECT id, workflow_instance_id, task_group_def_id, parent_group_inst_id, status, " +
                            "min_completion, parameters_json, start_time, end_time " +
                            "FROM task_group_instances " +
-                           "WHERE workflow_instance_id = ? AND status IN ('COMPLETED', 'FAILED', 'SKIPPED') " +
+                           "WHERE workflow_instance_id = ? AND status IN (" + FINISHED_STATUSES + ") " +
                            "AND end_time > ?";
         
         List<TaskGroupInstance> groupInsts = new ArrayList<>();
@@ -384,7 +465,9 @@ public class TaskGroupInstanceDAO {
     }
     
     /**
-     * Map a result set row to a TaskGroupInstance object
+     * Map a result set row to a TaskGroupInstance object. Columns are read by position, so every
+     * query using this must select id, workflow_instance_id, task_group_def_id, parent_group_inst_id,
+     * status, min_completion, parameters_json, start_time, end_time in that order.
      * 
      * @param rs The result set
      * @return The mapped TaskGroupInstance
@@ -393,39 +476,18 @@ public class TaskGroupInstanceDAO {
     private TaskGroupInstance mapResultSetToTaskGroupInstance(ResultSet rs) throws SQLException {
         TaskGroupInstance groupInst = new TaskGroupInstance();
         
-        groupInst.setId(UUID.fromString(rs.getString("id")));
-        groupInst.setWorkflowInstanceId(UUID.fromString(rs.getString("workflow_instance_id")));
-        groupInst.setTaskGroupDefId(UUID.fromString(rs.getString("task_group_def_id")));
+        groupInst.setId(rs.getObject(1, UUID.class));
+        groupInst.setWorkflowInstanceId(rs.getObject(2, UUID.class));
+        groupInst.setTaskGroupDefId(rs.getObject(3, UUID.class));
+        groupInst.setParentGroupInstId(rs.getObject(4, UUID.class));
+        groupInst.setStatus(TASK_STATUSES.fromCode(rs.getShort(5)));
+        groupInst.setMinCompletion(rs.getInt(6));
         
-        String parentGroupInstId = rs.getString("parent_group_inst_id");
-        if (parentGroupInstId != null) {
-            groupInst.setParentGroupInstId(UUID.fromString(parentGroupInstId));
-        }
-        
-        groupInst.setStatus(TaskStatus.valueOf(rs.getString("status")));
-        groupInst.setMinCompletion(rs.getInt("min_completion"));
-        
-        Timestamp startTime = rs.getTimestamp("start_time");
-        if (startTime != null) {
-            groupInst.setStartTime(startTime.toLocalDateTime());
-        }
+        // JSON parameters are parsed on first access
+        groupInst.setParametersJsonRaw(rs.getString(7));
         
-        Timestamp endTime = rs.getTimestamp("end_time");
-        if (endTime != null) {
-            groupInst.setEndTime(endTime.toLocalDateTime());
-        }
-        
-        // Parse the JSON parameters
-        try {
-            String jsonStr = rs.getString("parameters_json");
-            if (jsonStr != null) {
-                JsonNode jsonNode = OBJECT_MAPPER.readTree(jsonStr);
-                groupInst.setParametersJson(jsonNode);
-            }
-        } catch (JsonProcessingException e) {
-            LOGGER.log(Level.SEVERE, "Error parsing parameters JSON", e);
-            throw new SQLException("Error parsing parameters JSON", e);
-        }
+        groupInst.setStartTime(rs.getObject(8, LocalDateTime.class));
+        groupInst.setEndTime(rs.getObject(9, LocalDateTime.class));
         
         return groupInst;
     }
@@ -439,7 +501,7 @@ public class TaskGroupInstanceDAO {
      */
     public boolean hasInProgressChildren(UUID parentGroupInstId) throws SQLException {
         final String sql = "SELECT 1 FROM task_group_instances " +
-                           "WHERE parent_group_inst_id = ? AND status IN ('NOT_STARTED', 'IN_PROGRESS', 'BLOCKED')";
+                           "WHERE parent_group_inst_id = ? AND status IN (" + ACTIVE_STATUSES + ")";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setObject(1, parentGroupInstId);
@@ -453,6 +515,33 @@ public class TaskGroupInstanceDAO {
         }
     }
     
+    /**
+     * Move every pending descendant group of a group to SKIPPED in one statement
+     * 
+     * @param parentGroupInstId The parent task group instance ID
+     * @return The number of rows affected
+     * @throws SQLException If a database error occurs
+     */
+    public int skipPendingChildGroups(UUID parentGroupInstId) throws SQLException {
+        final String sql = "WITH RECURSIVE groups AS (" +
+                           "  SELECT id FROM task_group_instances WHERE parent_group_inst_id = ? " +
+                           "  UNION ALL " +
+                           "  SELECT g.id FROM task_group_instances g JOIN groups p ON g.parent_group_inst_id = p.id" +
+                           ") " +
+                           "UPDATE task_group_instances SET status = " + TaskStatus.SKIPPED.getCode() + ", end_time = ? " +
+                           "WHERE id IN (SELECT id FROM groups) AND status IN (" + ACTIVE_STATUSES + ")";
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setObject(1, parentGroupInstId);
+            stmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error skipping pending child groups", e);
+            throw e;
+        }
+    }
+    
     /**
      * Get task group instances by status
      * 
@@ -471,7 +560,7 @@ public class TaskGroupInstanceDAO {
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setObject(1, workflowInstanceId);
-            stmt.setString(2, status.name());
+            stmt.setShort(2, status.getCode());
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.workday.pwe.model.WorkflowDefinition;
+import com.workday.pwe.util.UUIDUtil;
 
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -48,7 +49,7 @@ public class WorkflowDefinitionDAO {
                            "VALUES (?, ?, ?, ?::jsonb, ?, ?, ?)";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            UUID id = workflowDef.getId() != null ? workflowDef.getId() : UUID.randomUUID();
+            UUID id = workflowDef.getId() != null ? workflowDef.getId() : UUIDUtil.newUUIDv7();
             
             stmt.setObject(1, id);
             stmt.setString(2, workflowDef.getName());
@@ -127,6 +128,35 @@ public class WorkflowDefinitionDAO {
         }
     }
     
+    /**
+     * Get a specific version of a workflow definition by name
+     * 
+     * @param name The workflow definition name
+     * @param version The version
+     * @return The workflow definition, or null if not found
+     * @throws SQLException If a database error occurs
+     */
+    public WorkflowDefinition getWorkflowDefinitionByNameAndVersion(String name, int version) throws SQLException {
+        final String sql = "SELECT id, name, version, definition_json, description, created_at, updated_at " +
+                           "FROM workflow_definitions WHERE name = ? AND version = ?";
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, name);
+            stmt.setInt(2, version);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapResultSetToWorkflowDefinition(rs);
+                } else {
+                    return null;
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error getting workflow definition by name and version", e);
+            throw e;
+        }
+    }
+    
     /**
      * Get all workflow definitions
      * 
@@ -201,7 +231,9 @@ public class WorkflowDefinitionDAO {
     }
     
     /**
-     * Map a result set row to a WorkflowDefinition object
+     * Map a result set row to a WorkflowDefinition object. Columns are read by position, so every
+     * query using this must select id, name, version, definition_json, description, created_at,
+     * updated_at in that order.
      * 
      * @param rs The result set
      * @return The mapped WorkflowDefinition
@@ -210,16 +242,16 @@ public class WorkflowDefinitionDAO {
     private WorkflowDefinition mapResultSetToWorkflowDefinition(ResultSet rs) throws SQLException {
         WorkflowDefinition workflowDef = new WorkflowDefinition();
         
-        workflowDef.setId(UUID.fromString(rs.getString("id")));
-        workflowDef.setName(rs.getString("name"));
-        workflowDef.setVersion(rs.getInt("version"));
-        workflowDef.setDescription(rs.getString("description"));
-        workflowDef.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-        workflowDef.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+        workflowDef.setId(rs.getObject(1, UUID.class));
+        workflowDef.setName(rs.getString(2));
+        workflowDef.setVersion(rs.getInt(3));
+        workflowDef.setDescription(rs.getString(5));
+        workflowDef.setCreatedAt(rs.getObject(6, LocalDateTime.class));
+        workflowDef.setUpdatedAt(rs.getObject(7, LocalDateTime.class));
         
         // Parse the JSON definition
         try {
-            String jsonStr = rs.getString("definition_json");
+            String jsonStr = rs.getString(4);
             JsonNode jsonNode = OBJECT_MAPPER.readTree(jsonStr);
             workflowDef.setDefinitionJson(jsonNode);
         } catch (JsonProcessingException e) {
@@ -2,6 +2,9 @@ package com.workday.pwe.dao;
 
 import com.workday.pwe.enums.QueueStatus;
 import com.workday.pwe.model.WorkflowExecutionQueue;
+import com.workday.pwe.util.EnumLookup;
+import com.workday.pwe.util.SQLUtil;
+import com.workday.pwe.util.UUIDUtil;
 
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -17,6 +20,12 @@ import java.util.logging.Logger;
 public class WorkflowExecutionQueueDAO {
 
     private static final Logger LOGGER = Logger.getLogger(WorkflowExecutionQueueDAO.class.getName());
+    private static final EnumLookup<QueueStatus> QUEUE_STATUSES = EnumLookup.of(QueueStatus.class);
+    
+    /**
+     * Number of shards workflow ownership is divided into; a power of two
+     */
+    public static final int SHARD_COUNT = 1024;
     
     private final Connection connection;
     
@@ -41,19 +50,20 @@ public class WorkflowExecutionQueueDAO {
      */
     public UUID addToQueue(WorkflowExecutionQueue queueEntry) throws SQLException {
         final String sql = "INSERT INTO workflow_execution_queue " +
-                           "(id, workflow_instance_id, status, priority, last_updated, created_at) " +
-                           "VALUES (?, ?, ?, ?, ?, ?)";
+                           "(id, workflow_instance_id, status, priority, shard, last_updated, created_at) " +
+                           "VALUES (?, ?, ?, ?, ?, ?, ?)";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            UUID id = queueEntry.getId() != null ? queueEntry.getId() : UUID.randomUUID();
+            UUID id = queueEntry.getId() != null ? queueEntry.getId() : UUIDUtil.newUUIDv7();
             
             stmt.setObject(1, id);
             stmt.setObject(2, queueEntry.getWorkflowInstanceId());
-            stmt.setString(3, queueEntry.getStatus().name());
+            stmt.setShort(3, queueEntry.getStatus().getCode());
             stmt.setInt(4, queueEntry.getPriority());
-            stmt.setTimestamp(5, Timestamp.valueOf(queueEntry.getLastUpdated() != null ? 
+            stmt.setInt(5, shardOf(queueEntry.getWorkflowInstanceId()));
+            stmt.setTimestamp(6, Timestamp.valueOf(queueEntry.getLastUpdated() != null ? 
                                                   queueEntry.getLastUpdated() : LocalDateTime.now()));
-            stmt.setTimestamp(6, Timestamp.valueOf(queueEntry.getCreatedAt() != null ? 
+            stmt.setTimestamp(7, Timestamp.valueOf(queueEntry.getCreatedAt() != null ? 
                                                   queueEntry.getCreatedAt() : LocalDateTime.now()));
             
             int affectedRows = stmt.executeUpdate();
@@ -68,6 +78,37 @@ public class WorkflowExecutionQueueDAO {
         }
     }
     
+    /**
+     * Add workflows that are not yet queued to the execution queue in a single JDBC batch
+     * 
+     * @param queueEntries The queue entries to add
+     * @throws SQLException If a database error occurs
+     */
+    public void addToQueue(List<WorkflowExecutionQueue> queueEntries) throws SQLException {
+        final String sql = "INSERT INTO workflow_execution_queue " +
+                           "(id, workflow_instance_id, status, priority, shard, last_updated, created_at) " +
+                           "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (WorkflowExecutionQueue queueEntry : queueEntries) {
+                stmt.setObject(1, queueEntry.getId() != null ? queueEntry.getId() : UUIDUtil.newUUIDv7());
+                stmt.setObject(2, queueEntry.getWorkflowInstanceId());
+                stmt.setShort(3, queueEntry.getStatus().getCode());
+                stmt.setInt(4, queueEntry.getPriority());
+                stmt.setInt(5, shardOf(queueEntry.getWorkflowInstanceId()));
+                stmt.setTimestamp(6, now);
+                stmt.setTimestamp(7, now);
+                stmt.addBatch();
+            }
+            
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error adding workflows to execution queue in batch", e);
+            throw e;
+        }
+    }
+    
     /**
      * Update a queue entry's status
      * 
@@ -81,7 +122,7 @@ public class WorkflowExecutionQueueDAO {
                            "WHERE workflow_instance_id = ?";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, status.name());
+            stmt.setShort(1, status.getCode());
             stmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
             stmt.setObject(3, workflowInstanceId);
             
@@ -106,7 +147,7 @@ public class WorkflowExecutionQueueDAO {
                            "WHERE workflow_instance_id = ?";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, status.name());
+            stmt.setShort(1, status.getCode());
             stmt.setInt(2, priority);
             stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
             stmt.setObject(4, workflowInstanceId);
@@ -118,6 +159,121 @@ public class WorkflowExecutionQueueDAO {
         }
     }
     
+    /**
+     * Put a workflow back to PENDING after a failed attempt, not to be claimed before the given time
+     * 
+     * @param workflowInstanceId The workflow instance ID
+     * @param nextAttemptAt Earliest time of the next attempt
+     * @return The number of rows affected
+     * @throws SQLException If a database error occurs
+     */
+    public int scheduleRetry(UUID workflowInstanceId, Timestamp nextAttemptAt) throws SQLException {
+        final String sql = "UPDATE workflow_execution_queue SET status = " + QueueStatus.PENDING.getCode() + ", attempt_count = attempt_count + 1, " +
+                           "next_attempt_at = ?, last_updated = ? WHERE workflow_instance_id = ?";
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setTimestamp(1, nextAttemptAt);
+            stmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.setObject(3, workflowInstanceId);
+            
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error scheduling workflow retry", e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Hand PROCESSING entries back to PENDING in one statement, e.g. for decides stopped by a draining node
+     * 
+     * @param workflowInstanceIds The workflow instance IDs
+     * @return The number of rows affected
+     * @throws SQLException If a database error occurs
+     */
+    public int releaseClaims(List<UUID> workflowInstanceIds) throws SQLException {
+        final String sql = "UPDATE workflow_execution_queue SET status = " + QueueStatus.PENDING.getCode() + ", last_updated = ? " +
+                           "WHERE workflow_instance_id = ANY(?) AND status = " + QueueStatus.PROCESSING.getCode();
+        
+        if (workflowInstanceIds.isEmpty()) {
+            return 0;
+        }
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.setArray(2, connection.createArrayOf("uuid", workflowInstanceIds.toArray()));
+            
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error releasing queue claims", e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Refresh last_updated of PROCESSING entries whose decides are still running, so they are not taken for orphans
+     * 
+     * @param workflowInstanceIds The workflow instance IDs
+     * @return The number of rows affected
+     * @throws SQLException If a database error occurs
+     */
+    public int touchClaims(List<UUID> workflowInstanceIds) throws SQLException {
+        final String sql = "UPDATE workflow_execution_queue SET last_updated = ? " +
+                           "WHERE workflow_instance_id = ANY(?) AND status = " + QueueStatus.PROCESSING.getCode();
+        
+        if (workflowInstanceIds.isEmpty()) {
+            return 0;
+        }
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.setArray(2, connection.createArrayOf("uuid", workflowInstanceIds.toArray()));
+            
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error refreshing queue claims", e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Claim a batch of PROCESSING entries left behind by a node that stopped mid-decide, highest priority first.
+     * Nodes refresh the entries of running decides, so only entries of stopped nodes go stale. Claimed entries
+     * have last_updated refreshed so that concurrent recoveries skip them.
+     * 
+     * @param staleBefore Entries last updated before this time are considered orphaned
+     * @param limit Maximum number of entries to claim
+     * @return The workflow instance IDs of the claimed entries
+     * @throws SQLException If a database error occurs
+     */
+    public List<UUID> claimOrphans(Timestamp staleBefore, int limit) throws SQLException {
+        final String sql = "UPDATE workflow_execution_queue SET last_updated = ? " +
+                           "WHERE id IN (" +
+                           "  SELECT id FROM workflow_execution_queue " +
+                           "  WHERE status = " + QueueStatus.PROCESSING.getCode() + " AND last_updated < ? " +
+                           "  ORDER BY priority DESC, created_at ASC LIMIT ? FOR UPDATE SKIP LOCKED" +
+                           ") " +
+                           "RETURNING workflow_instance_id";
+        
+        List<UUID> workflowIds = new ArrayList<>();
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.setTimestamp(2, staleBefore);
+            stmt.setInt(3, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    workflowIds.add(rs.getObject(1, UUID.class));
+                }
+            }
+            
+            return workflowIds;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error claiming orphaned queue entries", e);
+            throw e;
+        }
+    }
+    
     /**
      * Remove a workflow from the queue
      * 
@@ -167,7 +323,7 @@ public class WorkflowExecutionQueueDAO {
      * @throws SQLException If a database error occurs
      */
     public Timestamp getLatestPollTime() throws SQLException {
-        final String sql = "SELECT MAX(last_updated) FROM workflow_execution_queue WHERE status = 'PROCESSING'";
+        final String sql = "SELECT MAX(last_updated) FROM workflow_execution_queue WHERE status = " + QueueStatus.PROCESSING.getCode();
         
         try (PreparedStatement stmt = connection.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
@@ -184,26 +340,51 @@ public class WorkflowExecutionQueueDAO {
     }
     
     /**
-     * Fetch queued workflows
+     * Fetch queued workflows that are due; entries waiting out a retry backoff are skipped
      * 
      * @param includeProcessing Whether to include workflows with PROCESSING status
      * @return List of workflow instance IDs
      * @throws SQLException If a database error occurs
      */
     public List<String> fetchQueuedWorkflows(boolean includeProcessing) throws SQLException {
-        String sql = "SELECT workflow_instance_id FROM workflow_execution_queue WHERE status = 'PENDING'";
+        return fetchQueuedWorkflows(includeProcessing, null);
+    }
+    
+    /**
+     * Fetch queued workflows that are due and belong to the given shards
+     * 
+     * @param includeProcessing Whether to include workflows with PROCESSING status
+     * @param shards The shards to fetch, or null for all shards
+     * @return List of workflow instance IDs
+     * @throws SQLException If a database error occurs
+     */
+    public List<String> fetchQueuedWorkflows(boolean includeProcessing, int[] shards) throws SQLException {
+        String sql = "SELECT workflow_instance_id FROM workflow_execution_queue WHERE (status = " + QueueStatus.PENDING.getCode();
         if (includeProcessing) {
-            sql += " OR status = 'PROCESSING'";
+            sql += " OR status = " + QueueStatus.PROCESSING.getCode();
+        }
+        sql += ") AND (next_attempt_at IS NULL OR next_attempt_at <= ?)";
+        if (shards != null) {
+            sql += " AND shard = ANY(?)";
         }
         sql += " ORDER BY priority DESC, created_at ASC";
         
         List<String> workflowIds = new ArrayList<>();
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            if (shards != null) {
+                Integer[] boxed = new Integer[shards.length];
+                for (int i = 0; i < shards.length; i++) {
+                    boxed[i] = shards[i];
+                }
+                stmt.setArray(2, connection.createArrayOf("integer", boxed));
+            }
             
-            while (rs.next()) {
-                workflowIds.add(rs.getObject("workflow_instance_id").toString());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    workflowIds.add(rs.getString(1));
+                }
             }
             
             return workflowIds;
@@ -221,7 +402,7 @@ public class WorkflowExecutionQueueDAO {
      * @throws SQLException If a database error occurs
      */
     public WorkflowExecutionQueue getQueueEntry(UUID workflowInstanceId) throws SQLException {
-        final String sql = "SELECT id, workflow_instance_id, status, priority, last_updated, created_at " +
+        final String sql = "SELECT id, workflow_instance_id, status, priority, shard, attempt_count, next_attempt_at, last_updated, created_at " +
                            "FROM workflow_execution_queue WHERE workflow_instance_id = ?";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -247,7 +428,7 @@ public class WorkflowExecutionQueueDAO {
      * @throws SQLException If a database error occurs
      */
     public List<WorkflowExecutionQueue> getAllQueueEntries() throws SQLException {
-        final String sql = "SELECT id, workflow_instance_id, status, priority, last_updated, created_at " +
+        final String sql = "SELECT id, workflow_instance_id, status, priority, shard, attempt_count, next_attempt_at, last_updated, created_at " +
                            "FROM workflow_execution_queue ORDER BY priority DESC, created_at ASC";
         
         List<WorkflowExecutionQueue> entries = new ArrayList<>();
@@ -267,7 +448,9 @@ public class WorkflowExecutionQueueDAO {
     }
     
     /**
-     * Map a result set row to a WorkflowExecutionQueue object
+     * Map a result set row to a WorkflowExecutionQueue object. Columns are read by position, so every
+     * query using this must select id, workflow_instance_id, status, priority, shard, attempt_count,
+     * next_attempt_at, last_updated, created_at in that order.
      * 
      * @param rs The result set
      * @return The mapped WorkflowExecutionQueue
@@ -276,12 +459,15 @@ public class WorkflowExecutionQueueDAO {
     private WorkflowExecutionQueue mapResultSetToQueueEntry(ResultSet rs) throws SQLException {
         WorkflowExecutionQueue entry = new WorkflowExecutionQueue();
         
-        entry.setId(UUID.fromString(rs.getString("id")));
-        entry.setWorkflowInstanceId(UUID.fromString(rs.getString("workflow_instance_id")));
-        entry.setStatus(QueueStatus.valueOf(rs.getString("status")));
-        entry.setPriority(rs.getInt("priority"));
-        entry.setLastUpdated(rs.getTimestamp("last_updated").toLocalDateTime());
-        entry.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        entry.setId(rs.getObject(1, UUID.class));
+        entry.setWorkflowInstanceId(rs.getObject(2, UUID.class));
+        entry.setStatus(QUEUE_STATUSES.fromCode(rs.getShort(3)));
+        entry.setPriority(rs.getInt(4));
+        entry.setShard(rs.getInt(5));
+        entry.setAttemptCount(rs.getInt(6));
+        entry.setNextAttemptAt(rs.getObject(7, LocalDateTime.class));
+        entry.setLastUpdated(rs.getObject(8, LocalDateTime.class));
+        entry.setCreatedAt(rs.getObject(9, LocalDateTime.class));
         
         return entry;
     }
@@ -295,7 +481,7 @@ public class WorkflowExecutionQueueDAO {
      */
     public int cleanupOldEntries(LocalDateTime olderThan) throws SQLException {
         final String sql = "DELETE FROM workflow_execution_queue " +
-                           "WHERE status IN ('COMPLETED', 'FAILED') AND last_updated < ?";
+                           "WHERE status IN (" + SQLUtil.codes(QueueStatus.COMPLETED, QueueStatus.FAILED) + ") AND last_updated < ?";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setTimestamp(1, Timestamp.valueOf(olderThan));
@@ -306,4 +492,26 @@ public class WorkflowExecutionQueueDAO {
             throw e;
         }
     }
+    
+    /**
+     * Get the shard of a workflow instance: the low bits of its ID, which are random for both
+     * version 4 and version 7 UUIDs. Kept trivial so it can be reproduced in SQL when backfilling.
+     * 
+     * @param workflowInstanceId The workflow instance ID
+     * @return The shard, between 0 and SHARD_COUNT - 1
+     */
+    public static int shardOf(UUID workflowInstanceId) {
+        return (int) (workflowInstanceId.getLeastSignificantBits() & (SHARD_COUNT - 1));
+    }
+    
+    /**
+     * Get the SQL expression computing {@link #shardOf(UUID)} from a UUID column: the last three hex
+     * digits of the ID hold its low 12 bits, enough for up to 4096 shards.
+     * 
+     * @param uuidColumn The column holding the workflow instance ID
+     * @return The SQL expression
+     */
+    public static String shardSql(String uuidColumn) {
+        return "(('x' || right(" + uuidColumn + "::text, 3))::bit(12)::int & " + (SHARD_COUNT - 1) + ")";
+    }
 }
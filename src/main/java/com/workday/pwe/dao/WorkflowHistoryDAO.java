@@ -3,10 +3,16 @@ package com.workday.pwe.dao;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.workday.pwe.enums.HistoryChangeType;
+import com.workday.pwe.enums.HistoryEntityType;
 import com.workday.pwe.model.WorkflowHistory;
+import com.workday.pwe.util.EnumLookup;
+import com.workday.pwe.util.UUIDUtil;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -20,6 +26,10 @@ public class WorkflowHistoryDAO {
 
     private static final Logger LOGGER = Logger.getLogger(WorkflowHistoryDAO.class.getName());
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final EnumLookup<HistoryEntityType> ENTITY_TYPES = EnumLookup.of(HistoryEntityType.class);
+    private static final EnumLookup<HistoryChangeType> CHANGE_TYPES = EnumLookup.of(HistoryChangeType.class);
+    private static final String HISTORY_ARCHIVE = "workflow_history"; // archive_progress name of the history cursor
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
     
     private final Connection connection;
     
@@ -48,13 +58,13 @@ public class WorkflowHistoryDAO {
                            "VALUES (?, ?, ?, ?, ?, ?::jsonb, ?, ?)";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            UUID id = historyRecord.getId() != null ? historyRecord.getId() : UUID.randomUUID();
+            UUID id = historyRecord.getId() != null ? historyRecord.getId() : UUIDUtil.newUUIDv7();
             
             stmt.setObject(1, id);
             stmt.setObject(2, historyRecord.getWorkflowInstanceId());
-            stmt.setString(3, historyRecord.getEntityType());
+            stmt.setShort(3, ENTITY_TYPES.fromName(historyRecord.getEntityType()).getCode());
             stmt.setObject(4, historyRecord.getEntityId());
-            stmt.setString(5, historyRecord.getChangeType());
+            stmt.setShort(5, CHANGE_TYPES.fromName(historyRecord.getChangeType()).getCode());
             stmt.setString(6, historyRecord.getDetailsJson() != null ? historyRecord.getDetailsJson().toString() : null);
             stmt.setTimestamp(7, Timestamp.valueOf(historyRecord.getTimestamp() != null ? 
                                                   historyRecord.getTimestamp() : LocalDateTime.now()));
@@ -73,7 +83,7 @@ public class WorkflowHistoryDAO {
     }
     
     /**
-     * Get history records for a workflow
+     * Get history records for a workflow, including those moved to the archive table
      * 
      * @param workflowInstanceId The workflow instance ID
      * @return List of history records
@@ -82,12 +92,16 @@ public class WorkflowHistoryDAO {
     public List<WorkflowHistory> getHistoryForWorkflow(UUID workflowInstanceId) throws SQLException {
         final String sql = "SELECT id, workflow_instance_id, entity_type, entity_id, change_type, details_json, timestamp, username " +
                            "FROM workflow_history WHERE workflow_instance_id = ? " +
+                           "UNION ALL " +
+                           "SELECT id, workflow_instance_id, entity_type, entity_id, change_type, details_json, timestamp, username " +
+                           "FROM workflow_history_archive WHERE workflow_instance_id = ? " +
                            "ORDER BY timestamp DESC";
         
         List<WorkflowHistory> historyRecords = new ArrayList<>();
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setObject(1, workflowInstanceId);
+            stmt.setObject(2, workflowInstanceId);
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -103,7 +117,7 @@ public class WorkflowHistoryDAO {
     }
     
     /**
-     * Get history records for an entity
+     * Get history records for an entity, including those moved to the archive table
      * 
      * @param entityType The entity type
      * @param entityId The entity ID
@@ -113,13 +127,19 @@ public class WorkflowHistoryDAO {
     public List<WorkflowHistory> getHistoryForEntity(String entityType, UUID entityId) throws SQLException {
         final String sql = "SELECT id, workflow_instance_id, entity_type, entity_id, change_type, details_json, timestamp, username " +
                            "FROM workflow_history WHERE entity_type = ? AND entity_id = ? " +
+                           "UNION ALL " +
+                           "SELECT id, workflow_instance_id, entity_type, entity_id, change_type, details_json, timestamp, username " +
+                           "FROM workflow_history_archive WHERE entity_type = ? AND entity_id = ? " +
                            "ORDER BY timestamp DESC";
         
         List<WorkflowHistory> historyRecords = new ArrayList<>();
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, entityType);
+            short entityTypeCode = ENTITY_TYPES.fromName(entityType).getCode();
+            stmt.setShort(1, entityTypeCode);
             stmt.setObject(2, entityId);
+            stmt.setShort(3, entityTypeCode);
+            stmt.setObject(4, entityId);
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -135,7 +155,7 @@ public class WorkflowHistoryDAO {
     }
     
     /**
-     * Get history records by change type
+     * Get history records by change type, including those moved to the archive table
      * 
      * @param workflowInstanceId The workflow instance ID
      * @param changeType The change type
@@ -145,13 +165,19 @@ public class WorkflowHistoryDAO {
     public List<WorkflowHistory> getHistoryByChangeType(UUID workflowInstanceId, String changeType) throws SQLException {
         final String sql = "SELECT id, workflow_instance_id, entity_type, entity_id, change_type, details_json, timestamp, username " +
                            "FROM workflow_history WHERE workflow_instance_id = ? AND change_type = ? " +
+                           "UNION ALL " +
+                           "SELECT id, workflow_instance_id, entity_type, entity_id, change_type, details_json, timestamp, username " +
+                           "FROM workflow_history_archive WHERE workflow_instance_id = ? AND change_type = ? " +
                            "ORDER BY timestamp DESC";
         
         List<WorkflowHistory> historyRecords = new ArrayList<>();
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            short changeTypeCode = CHANGE_TYPES.fromName(changeType).getCode();
             stmt.setObject(1, workflowInstanceId);
-            stmt.setString(2, changeType);
+            stmt.setShort(2, changeTypeCode);
+            stmt.setObject(3, workflowInstanceId);
+            stmt.setShort(4, changeTypeCode);
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -196,19 +222,25 @@ public class WorkflowHistoryDAO {
     }
     
     /**
-     * Delete history records for a workflow
+     * Delete history records for a workflow, from both the live and the archive table in one statement
      * 
      * @param workflowInstanceId The workflow instance ID
      * @return The number of rows affected
      * @throws SQLException If a database error occurs
      */
     public int deleteHistoryForWorkflow(UUID workflowInstanceId) throws SQLException {
-        final String sql = "DELETE FROM workflow_history WHERE workflow_instance_id = ?";
+        final String sql = "WITH live AS (DELETE FROM workflow_history WHERE workflow_instance_id = ? RETURNING 1), " +
+                           "archived AS (DELETE FROM workflow_history_archive WHERE workflow_instance_id = ? RETURNING 1) " +
+                           "SELECT (SELECT COUNT(*) FROM live) + (SELECT COUNT(*) FROM archived)";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setObject(1, workflowInstanceId);
+            stmt.setObject(2, workflowInstanceId);
             
-            return stmt.executeUpdate();
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting history for workflow", e);
             throw e;
@@ -216,27 +248,82 @@ public class WorkflowHistoryDAO {
     }
     
     /**
-     * Archive old history records
+     * Move the next chunk of history records older than a certain time to the archive table.
+     * <p>
+     * Records are moved in (timestamp, id) order. The key of the last record moved is kept in
+     * archive_progress by the same statement that moves the chunk, so every chunk starts where the
+     * previous one stopped, on any node and after a restart, instead of rescanning the index entries
+     * of records already moved. Records locked by another archiver are skipped. A chunk that comes
+     * back short ends the pass and clears the cursor, so the next pass starts from the oldest record
+     * again. The archive partitions the records fall into must exist, see
+     * {@link #createArchivePartitions}.
      * 
      * @param olderThan Records older than this time
-     * @return The number of rows affected
+     * @param limit Maximum number of records to move
+     * @return The number of records moved
      * @throws SQLException If a database error occurs
      */
-    public int archiveOldHistory(LocalDateTime olderThan) throws SQLException {
-        // In a real implementation, this would move records to an archive table
-        // For now, we'll just simulate it by returning a count
-        final String sql = "SELECT COUNT(*) FROM workflow_history WHERE timestamp < ?";
+    public int archiveOldHistory(LocalDateTime olderThan, int limit) throws SQLException {
+        final String cursorSql = "SELECT last_timestamp, last_id FROM archive_progress WHERE name = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setTimestamp(1, Timestamp.valueOf(olderThan));
+        try {
+            Timestamp lastTimestamp = null;
+            UUID lastId = null;
+            try (PreparedStatement stmt = connection.prepareStatement(cursorSql)) {
+                stmt.setString(1, HISTORY_ARCHIVE);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        lastTimestamp = rs.getTimestamp(1);
+                        lastId = rs.getObject(2, UUID.class);
+                    }
+                }
+            }
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1);
-                } else {
-                    return 0;
+            boolean resume = lastTimestamp != null && lastId != null;
+            final String sql = "WITH chunk AS (" +
+                               "  SELECT id FROM workflow_history WHERE timestamp < ? " +
+                               (resume ? "AND (timestamp, id) > (?, ?) " : "") +
+                               "  ORDER BY timestamp, id LIMIT ? " +
+                               "  FOR UPDATE SKIP LOCKED" +
+                               "), moved AS (" +
+                               "  DELETE FROM workflow_history WHERE id IN (SELECT id FROM chunk) RETURNING *" +
+                               "), archived AS (" +
+                               "  INSERT INTO workflow_history_archive SELECT * FROM moved" +
+                               "), last AS (" +
+                               "  SELECT timestamp, id, COUNT(*) OVER () AS moved_count FROM moved " +
+                               "  ORDER BY timestamp DESC, id DESC LIMIT 1" +
+                               "), progress AS (" +
+                               "  INSERT INTO archive_progress (name, last_timestamp, last_id, rows_archived, updated_at) " +
+                               "  SELECT ?, timestamp, id, moved_count, NOW() FROM last " +
+                               "  ON CONFLICT (name) DO UPDATE SET last_timestamp = EXCLUDED.last_timestamp, " +
+                               "  last_id = EXCLUDED.last_id, rows_archived = archive_progress.rows_archived + EXCLUDED.rows_archived, " +
+                               "  updated_at = EXCLUDED.updated_at" +
+                               ") " +
+                               "SELECT moved_count FROM last";
+            
+            int moved = 0;
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                int paramIndex = 1;
+                stmt.setTimestamp(paramIndex++, Timestamp.valueOf(olderThan));
+                if (resume) {
+                    stmt.setTimestamp(paramIndex++, lastTimestamp);
+                    stmt.setObject(paramIndex++, lastId);
+                }
+                stmt.setInt(paramIndex++, limit);
+                stmt.setString(paramIndex, HISTORY_ARCHIVE);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        moved = rs.getInt(1);
+                    }
                 }
             }
+            
+            if (moved < limit) {
+                resetArchiveCursor();
+            }
+            return moved;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error archiving old history", e);
             throw e;
@@ -244,7 +331,65 @@ public class WorkflowHistoryDAO {
     }
     
     /**
-     * Map a result set row to a WorkflowHistory object
+     * Clear the history archival cursor at the end of a pass
+     * 
+     * @throws SQLException If a database error occurs
+     */
+    private void resetArchiveCursor() throws SQLException {
+        final String sql = "UPDATE archive_progress SET last_timestamp = NULL, last_id = NULL, updated_at = NOW() WHERE name = ?";
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, HISTORY_ARCHIVE);
+            
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Create the monthly partitions of the history archive table that records can be moved to: every
+     * month from that of the oldest live record through the given time. Existing partitions are left
+     * as they are.
+     * 
+     * @param through The time the last partition must cover
+     * @return The number of months checked
+     * @throws SQLException If a database error occurs
+     */
+    public int createArchivePartitions(LocalDateTime through) throws SQLException {
+        final String sql = "SELECT MIN(timestamp) FROM workflow_history";
+        
+        try {
+            LocalDate month = through.toLocalDate().withDayOfMonth(1);
+            try (PreparedStatement stmt = connection.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next() && rs.getTimestamp(1) != null) {
+                    LocalDate oldest = rs.getTimestamp(1).toLocalDateTime().toLocalDate().withDayOfMonth(1);
+                    if (oldest.isBefore(month)) {
+                        month = oldest;
+                    }
+                }
+            }
+            
+            int months = 0;
+            // DDL with generated names, not parameterized and not worth caching as a prepared statement
+            try (Statement stmt = connection.createStatement()) {
+                for (; !month.isAfter(through.toLocalDate()); month = month.plusMonths(1)) {
+                    stmt.execute("CREATE TABLE IF NOT EXISTS workflow_history_archive_" + month.format(PARTITION_SUFFIX) + " " +
+                                 "PARTITION OF workflow_history_archive " +
+                                 "FOR VALUES FROM ('" + month + "') TO ('" + month.plusMonths(1) + "')");
+                    months++;
+                }
+            }
+            return months;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error creating history archive partitions", e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Map a result set row to a WorkflowHistory object. Columns are read by position, so every query
+     * using this must select id, workflow_instance_id, entity_type, entity_id, change_type,
+     * details_json, timestamp, username in that order.
      * 
      * @param rs The result set
      * @return The mapped WorkflowHistory
@@ -253,17 +398,17 @@ public class WorkflowHistoryDAO {
     private WorkflowHistory mapResultSetToHistoryRecord(ResultSet rs) throws SQLException {
         WorkflowHistory historyRecord = new WorkflowHistory();
         
-        historyRecord.setId(UUID.fromString(rs.getString("id")));
-        historyRecord.setWorkflowInstanceId(UUID.fromString(rs.getString("workflow_instance_id")));
-        historyRecord.setEntityType(rs.getString("entity_type"));
-        historyRecord.setEntityId(UUID.fromString(rs.getString("entity_id")));
-        historyRecord.setChangeType(rs.getString("change_type"));
-        historyRecord.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
-        historyRecord.setUsername(rs.getString("username"));
+        historyRecord.setId(rs.getObject(1, UUID.class));
+        historyRecord.setWorkflowInstanceId(rs.getObject(2, UUID.class));
+        historyRecord.setEntityType(ENTITY_TYPES.fromCode(rs.getShort(3)).name());
+        historyRecord.setEntityId(rs.getObject(4, UUID.class));
+        historyRecord.setChangeType(CHANGE_TYPES.fromCode(rs.getShort(5)).name());
+        historyRecord.setTimestamp(rs.getObject(7, LocalDateTime.class));
+        historyRecord.setUsername(rs.getString(8));
         
         // Parse the JSON details
         try {
-            String jsonStr = rs.getString("details_json");
+            String jsonStr = rs.getString(6);
             if (jsonStr != null) {
                 JsonNode jsonNode = OBJECT_MAPPER.readTree(jsonStr);
                 historyRecord.setDetailsJson(jsonNode);
@@ -307,15 +452,14 @@ public class WorkflowHistoryDAO {
         }
     }
 
+    /**
+     * Delete history records for a workflow, including archived ones
+     * 
+     * @param workflowInstanceId The workflow instance ID
+     * @return The number of rows affected
+     * @throws SQLException If a database error occurs
+     */
     public int deleteHistoryByWorkflowId(UUID workflowInstanceId) throws SQLException {
-        final String sql = "DELETE FROM workflow_history WHERE workflow_instance_id = ?";
-    
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setObject(1, workflowInstanceId);
-            return stmt.executeUpdate();
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error deleting history for workflow", e);
-            throw e;
-        } 
+        return deleteHistoryForWorkflow(workflowInstanceId);
     }
 }
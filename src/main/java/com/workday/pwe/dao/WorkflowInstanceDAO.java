@@ -1,15 +1,18 @@
 package com.workday.pwe.dao;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.workday.pwe.enums.WorkflowStatus;
 import com.workday.pwe.model.WorkflowInstance;
+import com.workday.pwe.util.EnumLookup;
+import com.workday.pwe.util.SQLUtil;
+import com.workday.pwe.util.UUIDUtil;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -20,7 +23,11 @@ import java.util.logging.Logger;
 public class WorkflowInstanceDAO {
 
     private static final Logger LOGGER = Logger.getLogger(WorkflowInstanceDAO.class.getName());
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final EnumLookup<WorkflowStatus> WORKFLOW_STATUSES = EnumLookup.of(WorkflowStatus.class);
+    private static final String ACTIVE_STATUSES = SQLUtil.codes(
+            WorkflowStatus.NOT_STARTED, WorkflowStatus.RUNNING, WorkflowStatus.PAUSED);
+    private static final String FINISHED_STATUSES = SQLUtil.codes(
+            WorkflowStatus.COMPLETED, WorkflowStatus.FAILED, WorkflowStatus.TERMINATED, WorkflowStatus.ARCHIVED);
     
     private final Connection connection;
     
@@ -45,23 +52,24 @@ public class WorkflowInstanceDAO {
      */
     public UUID createWorkflowInstance(WorkflowInstance workflowInst) throws SQLException {
         final String sql = "INSERT INTO workflow_instances " +
-                           "(id, workflow_def_id, status, input_json, output_json, start_time, end_time, created_at, updated_at) " +
-                           "VALUES (?, ?, ?, ?::jsonb, ?::jsonb, ?, ?, ?, ?)";
+                           "(id, workflow_def_id, status, input_json, output_json, start_time, end_time, created_at, updated_at, parent_task_inst_id) " +
+                           "VALUES (?, ?, ?, ?::jsonb, ?::jsonb, ?, ?, ?, ?, ?)";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            UUID id = workflowInst.getId() != null ? workflowInst.getId() : UUID.randomUUID();
+            UUID id = workflowInst.getId() != null ? workflowInst.getId() : UUIDUtil.newUUIDv7();
             
             stmt.setObject(1, id);
             stmt.setObject(2, workflowInst.getWorkflowDefId());
-            stmt.setString(3, workflowInst.getStatus().name());
-            stmt.setString(4, workflowInst.getInputJson() != null ? workflowInst.getInputJson().toString() : null);
-            stmt.setString(5, workflowInst.getOutputJson() != null ? workflowInst.getOutputJson().toString() : null);
+            stmt.setShort(3, workflowInst.getStatus().getCode());
+            stmt.setString(4, workflowInst.getInputJsonRaw());
+            stmt.setString(5, workflowInst.getOutputJsonRaw());
             stmt.setTimestamp(6, workflowInst.getStartTime() != null ? Timestamp.valueOf(workflowInst.getStartTime()) : null);
             stmt.setTimestamp(7, workflowInst.getEndTime() != null ? Timestamp.valueOf(workflowInst.getEndTime()) : null);
             stmt.setTimestamp(8, Timestamp.valueOf(workflowInst.getCreatedAt() != null ? 
                                                  workflowInst.getCreatedAt() : LocalDateTime.now()));
             stmt.setTimestamp(9, Timestamp.valueOf(workflowInst.getUpdatedAt() != null ? 
                                                  workflowInst.getUpdatedAt() : LocalDateTime.now()));
+            stmt.setObject(10, workflowInst.getParentTaskInstId());
             
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
@@ -75,6 +83,49 @@ public class WorkflowInstanceDAO {
         }
     }
     
+    /**
+     * Create workflow instances in a single JDBC batch
+     * 
+     * @param workflowInsts The workflow instances to create; IDs are assigned to instances that have none
+     * @return The IDs of the created workflow instances, in input order
+     * @throws SQLException If a database error occurs
+     */
+    public List<UUID> createWorkflowInstances(List<WorkflowInstance> workflowInsts) throws SQLException {
+        final String sql = "INSERT INTO workflow_instances " +
+                           "(id, workflow_def_id, status, input_json, output_json, start_time, end_time, created_at, updated_at, parent_task_inst_id) " +
+                           "VALUES (?, ?, ?, ?::jsonb, ?::jsonb, ?, ?, ?, ?, ?)";
+        
+        List<UUID> ids = new ArrayList<>(workflowInsts.size());
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (WorkflowInstance workflowInst : workflowInsts) {
+                UUID id = workflowInst.getId() != null ? workflowInst.getId() : UUIDUtil.newUUIDv7();
+                workflowInst.setId(id);
+                ids.add(id);
+                
+                stmt.setObject(1, id);
+                stmt.setObject(2, workflowInst.getWorkflowDefId());
+                stmt.setShort(3, workflowInst.getStatus().getCode());
+                stmt.setString(4, workflowInst.getInputJsonRaw());
+                stmt.setString(5, workflowInst.getOutputJsonRaw());
+                stmt.setTimestamp(6, workflowInst.getStartTime() != null ? Timestamp.valueOf(workflowInst.getStartTime()) : null);
+                stmt.setTimestamp(7, workflowInst.getEndTime() != null ? Timestamp.valueOf(workflowInst.getEndTime()) : null);
+                stmt.setTimestamp(8, Timestamp.valueOf(workflowInst.getCreatedAt() != null ? 
+                                                     workflowInst.getCreatedAt() : LocalDateTime.now()));
+                stmt.setTimestamp(9, Timestamp.valueOf(workflowInst.getUpdatedAt() != null ? 
+                                                     workflowInst.getUpdatedAt() : LocalDateTime.now()));
+                stmt.setObject(10, workflowInst.getParentTaskInstId());
+                stmt.addBatch();
+            }
+            
+            stmt.executeBatch();
+            return ids;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error creating workflow instances in batch", e);
+            throw e;
+        }
+    }
+    
     /**
      * Get a workflow instance by ID
      * 
@@ -83,7 +134,8 @@ public class WorkflowInstanceDAO {
      * @throws SQLException If a database error occurs
      */
     public WorkflowInstance getWorkflowInstance(UUID id) throws SQLException {
-        final String sql = "SELECT id, workflow_def_id, status, input_json, output_json, start_time, end_time, created_at, updated_at " +
+        final String sql = "SELECT id, workflow_def_id, status, input_json, output_json, start_time, end_time, created_at, updated_at, parent_task_inst_id, " +
+                           "last_decided_at " +
                            "FROM workflow_instances WHERE id = ?";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -102,6 +154,96 @@ public class WorkflowInstanceDAO {
         }
     }
     
+    /**
+     * Get the sub-workflow started by a task instance
+     * 
+     * @param parentTaskInstId The parent task instance ID
+     * @return The child workflow instance, or null if the task has not started one
+     * @throws SQLException If a database error occurs
+     */
+    public WorkflowInstance getWorkflowInstanceByParentTask(UUID parentTaskInstId) throws SQLException {
+        final String sql = "SELECT id, workflow_def_id, status, input_json, output_json, start_time, end_time, created_at, updated_at, parent_task_inst_id, " +
+                           "last_decided_at " +
+                           "FROM workflow_instances WHERE parent_task_inst_id = ?";
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setObject(1, parentTaskInstId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapResultSetToWorkflowInstance(rs);
+                } else {
+                    return null;
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error getting workflow instance by parent task", e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Get which of the given workflow instances are still in the live table
+     * 
+     * @param ids The workflow instance IDs
+     * @return The IDs still in workflow_instances; archived or deleted workflows are left out
+     * @throws SQLException If a database error occurs
+     */
+    public Set<UUID> getLiveWorkflowIds(List<UUID> ids) throws SQLException {
+        final String sql = "SELECT id FROM workflow_instances WHERE id = ANY(?)";
+        
+        Set<UUID> live = new HashSet<>();
+        if (ids.isEmpty()) {
+            return live;
+        }
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setArray(1, connection.createArrayOf("uuid", ids.toArray()));
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    live.add(rs.getObject(1, UUID.class));
+                }
+            }
+            
+            return live;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error getting live workflow IDs", e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Get the sub-workflows started by a workflow's tasks that have not finished yet
+     * 
+     * @param workflowInstanceId The parent workflow instance ID
+     * @return List of not started, running or paused child workflow instances
+     * @throws SQLException If a database error occurs
+     */
+    public List<WorkflowInstance> getActiveChildWorkflows(UUID workflowInstanceId) throws SQLException {
+        final String sql = "SELECT w.id, w.workflow_def_id, w.status, w.input_json, w.output_json, w.start_time, w.end_time, " +
+                           "w.created_at, w.updated_at, w.parent_task_inst_id, w.last_decided_at " +
+                           "FROM workflow_instances w JOIN task_instances t ON t.id = w.parent_task_inst_id " +
+                           "WHERE t.workflow_instance_id = ? AND w.status IN (" + ACTIVE_STATUSES + ")";
+        
+        List<WorkflowInstance> instances = new ArrayList<>();
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setObject(1, workflowInstanceId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    instances.add(mapResultSetToWorkflowInstance(rs));
+                }
+            }
+            
+            return instances;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error getting active child workflows", e);
+            throw e;
+        }
+    }
+    
     /**
      * Get all workflow instances for a workflow definition
      * 
@@ -110,7 +252,8 @@ public class WorkflowInstanceDAO {
      * @throws SQLException If a database error occurs
      */
     public List<WorkflowInstance> getWorkflowInstancesByDefinitionId(UUID workflowDefId) throws SQLException {
-        final String sql = "SELECT id, workflow_def_id, status, input_json, output_json, start_time, end_time, created_at, updated_at " +
+        final String sql = "SELECT id, workflow_def_id, status, input_json, output_json, start_time, end_time, created_at, updated_at, parent_task_inst_id, " +
+                           "last_decided_at " +
                            "FROM workflow_instances WHERE workflow_def_id = ?";
         
         List<WorkflowInstance> instances = new ArrayList<>();
@@ -139,13 +282,14 @@ public class WorkflowInstanceDAO {
      * @throws SQLException If a database error occurs
      */
     public List<WorkflowInstance> getWorkflowInstancesByStatus(WorkflowStatus status) throws SQLException {
-        final String sql = "SELECT id, workflow_def_id, status, input_json, output_json, start_time, end_time, created_at, updated_at " +
+        final String sql = "SELECT id, workflow_def_id, status, input_json, output_json, start_time, end_time, created_at, updated_at, parent_task_inst_id, " +
+                           "last_decided_at " +
                            "FROM workflow_instances WHERE status = ?";
         
         List<WorkflowInstance> instances = new ArrayList<>();
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, status.name());
+            stmt.setShort(1, status.getCode());
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -175,9 +319,9 @@ public class WorkflowInstanceDAO {
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setObject(1, workflowInst.getWorkflowDefId());
-            stmt.setString(2, workflowInst.getStatus().name());
-            stmt.setString(3, workflowInst.getInputJson() != null ? workflowInst.getInputJson().toString() : null);
-            stmt.setString(4, workflowInst.getOutputJson() != null ? workflowInst.getOutputJson().toString() : null);
+            stmt.setShort(2, workflowInst.getStatus().getCode());
+            stmt.setString(3, workflowInst.getInputJsonRaw());
+            stmt.setString(4, workflowInst.getOutputJsonRaw());
             stmt.setTimestamp(5, workflowInst.getStartTime() != null ? Timestamp.valueOf(workflowInst.getStartTime()) : null);
             stmt.setTimestamp(6, workflowInst.getEndTime() != null ? Timestamp.valueOf(workflowInst.getEndTime()) : null);
             stmt.setTimestamp(7, Timestamp.valueOf(LocalDateTime.now()));
@@ -202,7 +346,7 @@ public class WorkflowInstanceDAO {
         final String sql = "UPDATE workflow_instances SET status = ?, updated_at = ? WHERE id = ?";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, status.name());
+            stmt.setShort(1, status.getCode());
             stmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
             stmt.setObject(3, id);
             
@@ -213,6 +357,28 @@ public class WorkflowInstanceDAO {
         }
     }
     
+    /**
+     * Record the start of a successful decide; completions after it have not been processed yet
+     * 
+     * @param id The workflow instance ID
+     * @param decidedAt When the decide started
+     * @return The number of rows affected
+     * @throws SQLException If a database error occurs
+     */
+    public int updateDecideWatermark(UUID id, Timestamp decidedAt) throws SQLException {
+        final String sql = "UPDATE workflow_instances SET last_decided_at = ? WHERE id = ?";
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setTimestamp(1, decidedAt);
+            stmt.setObject(2, id);
+            
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error updating decide watermark", e);
+            throw e;
+        }
+    }
+    
     /**
      * Update workflow output and status
      * 
@@ -227,7 +393,7 @@ public class WorkflowInstanceDAO {
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, outputJson != null ? outputJson.toString() : null);
-            stmt.setString(2, status.name());
+            stmt.setShort(2, status.getCode());
             stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
             stmt.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
             stmt.setObject(5, id);
@@ -260,7 +426,9 @@ public class WorkflowInstanceDAO {
     }
     
     /**
-     * Map a result set row to a WorkflowInstance object
+     * Map a result set row to a WorkflowInstance object. Columns are read by position, so every query
+     * using this must select id, workflow_def_id, status, input_json, output_json, start_time,
+     * end_time, created_at, updated_at, parent_task_inst_id, last_decided_at in that order.
      * 
      * @param rs The result set
      * @return The mapped WorkflowInstance
@@ -269,39 +437,20 @@ public class WorkflowInstanceDAO {
     private WorkflowInstance mapResultSetToWorkflowInstance(ResultSet rs) throws SQLException {
         WorkflowInstance workflowInst = new WorkflowInstance();
         
-        workflowInst.setId(UUID.fromString(rs.getString("id")));
-        workflowInst.setWorkflowDefId(UUID.fromString(rs.getString("workflow_def_id")));
-        workflowInst.setStatus(WorkflowStatus.valueOf(rs.getString("status")));
-        workflowInst.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-        workflowInst.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+        workflowInst.setId(rs.getObject(1, UUID.class));
+        workflowInst.setWorkflowDefId(rs.getObject(2, UUID.class));
+        workflowInst.setStatus(WORKFLOW_STATUSES.fromCode(rs.getShort(3)));
         
-        Timestamp startTime = rs.getTimestamp("start_time");
-        if (startTime != null) {
-            workflowInst.setStartTime(startTime.toLocalDateTime());
-        }
+        // JSON data is parsed on first access
+        workflowInst.setInputJsonRaw(rs.getString(4));
+        workflowInst.setOutputJsonRaw(rs.getString(5));
         
-        Timestamp endTime = rs.getTimestamp("end_time");
-        if (endTime != null) {
-            workflowInst.setEndTime(endTime.toLocalDateTime());
-        }
-        
-        // Parse the JSON data
-        try {
-            String inputJsonStr = rs.getString("input_json");
-            if (inputJsonStr != null) {
-                JsonNode inputJson = OBJECT_MAPPER.readTree(inputJsonStr);
-                workflowInst.setInputJson(inputJson);
-            }
-            
-            String outputJsonStr = rs.getString("output_json");
-            if (outputJsonStr != null) {
-                JsonNode outputJson = OBJECT_MAPPER.readTree(outputJsonStr);
-                workflowInst.setOutputJson(outputJson);
-            }
-        } catch (JsonProcessingException e) {
-            LOGGER.log(Level.SEVERE, "Error parsing JSON data", e);
-            throw new SQLException("Error parsing JSON data", e);
-        }
+        workflowInst.setStartTime(rs.getObject(6, LocalDateTime.class));
+        workflowInst.setEndTime(rs.getObject(7, LocalDateTime.class));
+        workflowInst.setCreatedAt(rs.getObject(8, LocalDateTime.class));
+        workflowInst.setUpdatedAt(rs.getObject(9, LocalDateTime.class));
+        workflowInst.setParentTaskInstId(rs.getObject(10, UUID.class));
+        workflowInst.setLastDecidedAt(rs.getObject(11, LocalDateTime.class));
         
         return workflowInst;
     }
@@ -314,7 +463,7 @@ public class WorkflowInstanceDAO {
      * @throws SQLException If a database error occurs
      */
     public boolean isWorkflowInProgress(UUID id) throws SQLException {
-        final String sql = "SELECT 1 FROM workflow_instances WHERE id = ? AND status IN ('RUNNING', 'PAUSED')";
+        final String sql = "SELECT 1 FROM workflow_instances WHERE id = ? AND status IN (" + SQLUtil.codes(WorkflowStatus.RUNNING, WorkflowStatus.PAUSED) + ")";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setObject(1, id);
@@ -329,19 +478,52 @@ public class WorkflowInstanceDAO {
     }
     
     /**
-     * Archive completed workflows older than a certain date
+     * Move one batch of finished workflows older than a certain date, with their task groups, tasks
+     * and history, from the live tables to the archive tables. The batch is moved by a single
+     * statement, so it is atomic without a transaction, and rows locked by another archiver are
+     * skipped. A workflow is kept while it is the sub-workflow of a workflow still active, or has an
+     * active sub-workflow, because the two look each other up when the child finishes. Queue entries
+     * of the moved workflows are deleted.
      * 
-     * @param olderThan The date before which to archive workflows
-     * @return The number of rows affected
+     * @param olderThan The end time before which to archive workflows
+     * @param limit Maximum number of workflows to move
+     * @return The number of workflows moved
      * @throws SQLException If a database error occurs
      */
-    public int archiveOldWorkflows(LocalDateTime olderThan) throws SQLException {
-        final String sql = "UPDATE workflow_instances SET status = 'ARCHIVED' " +
-                           "WHERE status IN ('COMPLETED', 'FAILED', 'TERMINATED') " +
-                           "AND end_time < ?";
+    public int archiveOldWorkflows(LocalDateTime olderThan, int limit) throws SQLException {
+        final String sql = "WITH batch AS (" +
+                           "  SELECT w.id FROM workflow_instances w " +
+                           "  WHERE w.status IN (" + FINISHED_STATUSES + ") AND w.end_time < ? " +
+                           "  AND NOT EXISTS (SELECT 1 FROM task_instances pt " +
+                           "                  JOIN workflow_instances pw ON pw.id = pt.workflow_instance_id " +
+                           "                  WHERE pt.id = w.parent_task_inst_id AND pw.status IN (" + ACTIVE_STATUSES + ")) " +
+                           "  AND NOT EXISTS (SELECT 1 FROM task_instances ct " +
+                           "                  JOIN workflow_instances cw ON cw.parent_task_inst_id = ct.id " +
+                           "                  WHERE ct.workflow_instance_id = w.id AND cw.status IN (" + ACTIVE_STATUSES + ")) " +
+                           "  ORDER BY w.end_time LIMIT ? " +
+                           "  FOR UPDATE OF w SKIP LOCKED" +
+                           "), history AS (" +
+                           "  DELETE FROM workflow_history WHERE workflow_instance_id IN (SELECT id FROM batch) RETURNING *" +
+                           "), tasks AS (" +
+                           "  DELETE FROM task_instances WHERE workflow_instance_id IN (SELECT id FROM batch) RETURNING *" +
+                           "), task_groups AS (" +
+                           "  DELETE FROM task_group_instances WHERE workflow_instance_id IN (SELECT id FROM batch) RETURNING *" +
+                           "), queue AS (" +
+                           "  DELETE FROM workflow_execution_queue WHERE workflow_instance_id IN (SELECT id FROM batch)" +
+                           "), workflows AS (" +
+                           "  DELETE FROM workflow_instances WHERE id IN (SELECT id FROM batch) RETURNING *" +
+                           "), archived_history AS (" +
+                           "  INSERT INTO workflow_history_archive SELECT * FROM history" +
+                           "), archived_tasks AS (" +
+                           "  INSERT INTO task_instances_archive SELECT * FROM tasks" +
+                           "), archived_task_groups AS (" +
+                           "  INSERT INTO task_group_instances_archive SELECT * FROM task_groups" +
+                           ") " +
+                           "INSERT INTO workflow_instances_archive SELECT * FROM workflows";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setTimestamp(1, Timestamp.valueOf(olderThan));
+            stmt.setInt(2, limit);
             
             return stmt.executeUpdate();
         } catch (SQLException e) {
@@ -349,4 +531,37 @@ public class WorkflowInstanceDAO {
             throw e;
         }
     }
+    
+    /**
+     * Get workflow instances by status from both the live and the archive table
+     * 
+     * @param status The workflow status
+     * @return List of workflow instances with the given status, live ones first
+     * @throws SQLException If a database error occurs
+     */
+    public List<WorkflowInstance> getWorkflowInstancesByStatusIncludingArchived(WorkflowStatus status) throws SQLException {
+        final String columns = "SELECT id, workflow_def_id, status, input_json, output_json, start_time, end_time, created_at, updated_at, parent_task_inst_id, " +
+                               "last_decided_at ";
+        final String sql = columns + "FROM workflow_instances WHERE status = ? " +
+                           "UNION ALL " +
+                           columns + "FROM workflow_instances_archive WHERE status = ?";
+        
+        List<WorkflowInstance> instances = new ArrayList<>();
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setShort(1, status.getCode());
+            stmt.setShort(2, status.getCode());
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    instances.add(mapResultSetToWorkflowInstance(rs));
+                }
+            }
+            
+            return instances;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error getting workflow instances by status including archived", e);
+            throw e;
+        }
+    }
 }
\ No newline at end of file
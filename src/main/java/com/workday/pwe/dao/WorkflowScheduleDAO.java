@@ -0,0 +1,291 @@
+package com.workday.pwe.dao;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.workday.pwe.model.WorkflowSchedule;
+import com.workday.pwe.util.UUIDUtil;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * DAO for workflow_schedules table operations.
+ */
+public class WorkflowScheduleDAO {
+
+    private static final Logger LOGGER = Logger.getLogger(WorkflowScheduleDAO.class.getName());
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String SELECT_COLUMNS = "SELECT id, workflow_def_id, name, cron_expression, time_zone, input_json, " +
+                                                 "enabled, next_fire_time, last_fire_time, created_at, updated_at " +
+                                                 "FROM workflow_schedules ";
+
+    private final Connection connection;
+
+    /**
+     * Constructor with database connection
+     *
+     * @param connection The database connection
+     */
+    public WorkflowScheduleDAO(Connection connection) {
+        if (connection == null) {
+            throw new IllegalArgumentException("Connection cannot be null");
+        }
+        this.connection = connection;
+    }
+
+    /**
+     * Create a new schedule
+     *
+     * @param schedule The schedule to create
+     * @return The ID of the created schedule
+     * @throws SQLException If a database error occurs
+     */
+    public UUID createSchedule(WorkflowSchedule schedule) throws SQLException {
+        final String sql = "INSERT INTO workflow_schedules " +
+                           "(id, workflow_def_id, name, cron_expression, time_zone, input_json, enabled, " +
+                           "next_fire_time, last_fire_time, created_at, updated_at) " +
+                           "VALUES (?, ?, ?, ?, ?, ?::jsonb, ?, ?, ?, ?, ?)";
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            UUID id = schedule.getId() != null ? schedule.getId() : UUIDUtil.newUUIDv7();
+
+            stmt.setObject(1, id);
+            stmt.setObject(2, schedule.getWorkflowDefId());
+            stmt.setString(3, schedule.getName());
+            stmt.setString(4, schedule.getCronExpression());
+            stmt.setString(5, schedule.getTimeZone());
+            stmt.setString(6, schedule.getInputJson() != null ? schedule.getInputJson().toString() : null);
+            stmt.setBoolean(7, schedule.isEnabled());
+            stmt.setTimestamp(8, schedule.getNextFireTime() != null ? Timestamp.valueOf(schedule.getNextFireTime()) : null);
+            stmt.setTimestamp(9, schedule.getLastFireTime() != null ? Timestamp.valueOf(schedule.getLastFireTime()) : null);
+            stmt.setTimestamp(10, Timestamp.valueOf(schedule.getCreatedAt() != null ?
+                                                   schedule.getCreatedAt() : LocalDateTime.now()));
+            stmt.setTimestamp(11, Timestamp.valueOf(schedule.getUpdatedAt() != null ?
+                                                   schedule.getUpdatedAt() : LocalDateTime.now()));
+
+            int affectedRows = stmt.executeUpdate();
+            if (affectedRows == 0) {
+                throw new SQLException("Creating workflow schedule failed, no rows affected.");
+            }
+
+            return id;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error creating workflow schedule", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Get a schedule by ID
+     *
+     * @param id The schedule ID
+     * @return The schedule, or null if not found
+     * @throws SQLException If a database error occurs
+     */
+    public WorkflowSchedule getSchedule(UUID id) throws SQLException {
+        final String sql = SELECT_COLUMNS + "WHERE id = ?";
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setObject(1, id);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapResultSetToSchedule(rs);
+                }
+                return null;
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error getting workflow schedule", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Get all schedules of a workflow definition
+     *
+     * @param workflowDefId The workflow definition ID
+     * @return List of schedules
+     * @throws SQLException If a database error occurs
+     */
+    public List<WorkflowSchedule> getSchedulesByDefinitionId(UUID workflowDefId) throws SQLException {
+        final String sql = SELECT_COLUMNS + "WHERE workflow_def_id = ? ORDER BY name";
+
+        List<WorkflowSchedule> schedules = new ArrayList<>();
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setObject(1, workflowDefId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    schedules.add(mapResultSetToSchedule(rs));
+                }
+            }
+
+            return schedules;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error getting workflow schedules by definition", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Get enabled schedules that fire at or before a point in time, earliest first
+     *
+     * @param until The end of the horizon
+     * @return List of schedules
+     * @throws SQLException If a database error occurs
+     */
+    public List<WorkflowSchedule> getSchedulesDueBefore(Timestamp until) throws SQLException {
+        final String sql = SELECT_COLUMNS + "WHERE enabled AND next_fire_time <= ? ORDER BY next_fire_time ASC";
+
+        List<WorkflowSchedule> schedules = new ArrayList<>();
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setTimestamp(1, until);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    schedules.add(mapResultSetToSchedule(rs));
+                }
+            }
+
+            return schedules;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error getting workflow schedules due before " + until, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Update a schedule's definition, input, state and next fire time
+     *
+     * @param schedule The schedule to update
+     * @return The number of rows affected
+     * @throws SQLException If a database error occurs
+     */
+    public int updateSchedule(WorkflowSchedule schedule) throws SQLException {
+        final String sql = "UPDATE workflow_schedules SET cron_expression = ?, time_zone = ?, input_json = ?::jsonb, " +
+                           "enabled = ?, next_fire_time = ?, updated_at = ? WHERE id = ?";
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, schedule.getCronExpression());
+            stmt.setString(2, schedule.getTimeZone());
+            stmt.setString(3, schedule.getInputJson() != null ? schedule.getInputJson().toString() : null);
+            stmt.setBoolean(4, schedule.isEnabled());
+            stmt.setTimestamp(5, schedule.getNextFireTime() != null ? Timestamp.valueOf(schedule.getNextFireTime()) : null);
+            stmt.setTimestamp(6, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.setObject(7, schedule.getId());
+
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error updating workflow schedule", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Claim a batch of firings in one JDBC batch. Each schedule's last fire time must hold the fire
+     * time being claimed and its next fire time the one after it; a firing is claimed only if the
+     * stored next fire time still equals the claimed fire time, so each firing happens once even
+     * when several nodes run the scheduler.
+     *
+     * @param schedules The fired schedules
+     * @return The schedules whose firing was claimed
+     * @throws SQLException If a database error occurs
+     */
+    public List<WorkflowSchedule> claimFirings(List<WorkflowSchedule> schedules) throws SQLException {
+        final String sql = "UPDATE workflow_schedules SET next_fire_time = ?, last_fire_time = ?, updated_at = ? " +
+                           "WHERE id = ? AND enabled AND next_fire_time = ?";
+
+        List<WorkflowSchedule> claimed = new ArrayList<>();
+        if (schedules.isEmpty()) {
+            return claimed;
+        }
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (WorkflowSchedule schedule : schedules) {
+                Timestamp firedAt = Timestamp.valueOf(schedule.getLastFireTime());
+                stmt.setTimestamp(1, schedule.getNextFireTime() != null ? Timestamp.valueOf(schedule.getNextFireTime()) : null);
+                stmt.setTimestamp(2, firedAt);
+                stmt.setTimestamp(3, now);
+                stmt.setObject(4, schedule.getId());
+                stmt.setTimestamp(5, firedAt);
+                stmt.addBatch();
+            }
+
+            int[] counts = stmt.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                // SUCCESS_NO_INFO means the driver did not report counts; assume the row was claimed
+                if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                    claimed.add(schedules.get(i));
+                }
+            }
+            return claimed;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error claiming workflow schedule firings", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Delete a schedule
+     *
+     * @param id The schedule ID
+     * @return The number of rows affected
+     * @throws SQLException If a database error occurs
+     */
+    public int deleteSchedule(UUID id) throws SQLException {
+        final String sql = "DELETE FROM workflow_schedules WHERE id = ?";
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setObject(1, id);
+
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error deleting workflow schedule", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Map a result set row to a WorkflowSchedule object. Columns are read by position, in the order
+     * of {@link #SELECT_COLUMNS}.
+     *
+     * @param rs The result set
+     * @return The mapped WorkflowSchedule
+     * @throws SQLException If a database error occurs
+     */
+    private WorkflowSchedule mapResultSetToSchedule(ResultSet rs) throws SQLException {
+        WorkflowSchedule schedule = new WorkflowSchedule();
+
+        schedule.setId(rs.getObject(1, UUID.class));
+        schedule.setWorkflowDefId(rs.getObject(2, UUID.class));
+        schedule.setName(rs.getString(3));
+        schedule.setCronExpression(rs.getString(4));
+        schedule.setTimeZone(rs.getString(5));
+        schedule.setEnabled(rs.getBoolean(7));
+        schedule.setNextFireTime(rs.getObject(8, LocalDateTime.class));
+        schedule.setLastFireTime(rs.getObject(9, LocalDateTime.class));
+        schedule.setCreatedAt(rs.getObject(10, LocalDateTime.class));
+        schedule.setUpdatedAt(rs.getObject(11, LocalDateTime.class));
+
+        try {
+            String inputJsonStr = rs.getString(6);
+            if (inputJsonStr != null) {
+                schedule.setInputJson(OBJECT_MAPPER.readTree(inputJsonStr));
+            }
+        } catch (JsonProcessingException e) {
+            LOGGER.log(Level.SEVERE, "Error parsing JSON data", e);
+            throw new SQLException("Error parsing JSON data", e);
+        }
+
+        return schedule;
+    }
+}
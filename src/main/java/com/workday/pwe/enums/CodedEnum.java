@@ -0,0 +1,17 @@
+package com.workday.pwe.enums;
+
+/**
+ * An enum stored in the database as a SMALLINT code instead of its name.
+ * <p>
+ * Codes are part of the schema: once assigned, a code must never be changed or reused, and new
+ * constants get the next unused code. The name can change freely.
+ */
+public interface CodedEnum {
+
+    /**
+     * Get the code stored in the database for this constant
+     *
+     * @return The code
+     */
+    short getCode();
+}
@@ -3,19 +3,30 @@ package com.workday.pwe.enums;
 /**
  * Represents the criteria for determining when a task group is considered complete.
  */
-public enum CompletionCriteria {
+public enum CompletionCriteria implements CodedEnum {
     /**
      * All tasks/groups within the group must complete
      */
-    ALL,
+    ALL(0),
     
     /**
      * Any one task/group within the group must complete
      */
-    ANY,
+    ANY(1),
     
     /**
      * A specific number of tasks/groups must complete
      */
-    N_OF_M
-}
\ No newline at end of file
+    N_OF_M(2);
+
+    private final short code;
+
+    CompletionCriteria(int code) {
+        this.code = (short) code;
+    }
+
+    @Override
+    public short getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,37 @@
+package com.workday.pwe.enums;
+
+/**
+ * Represents the kinds of change recorded in workflow history.
+ */
+public enum HistoryChangeType implements CodedEnum {
+    /**
+     * The entity moved to a new status
+     */
+    STATUS_CHANGE(0),
+    
+    /**
+     * A task was assigned to someone else
+     */
+    ASSIGNMENT_CHANGE(1),
+    
+    /**
+     * Parameters of the entity were changed
+     */
+    PARAMETER_CHANGE(2),
+    
+    /**
+     * A task was completed with its output
+     */
+    COMPLETION(3);
+
+    private final short code;
+
+    HistoryChangeType(int code) {
+        this.code = (short) code;
+    }
+
+    @Override
+    public short getCode() {
+        return code;
+    }
+}
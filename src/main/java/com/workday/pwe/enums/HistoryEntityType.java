@@ -0,0 +1,32 @@
+package com.workday.pwe.enums;
+
+/**
+ * Represents the kinds of entity a workflow history record can describe.
+ */
+public enum HistoryEntityType implements CodedEnum {
+    /**
+     * A workflow instance
+     */
+    WORKFLOW(0),
+    
+    /**
+     * A task group instance
+     */
+    TASK_GROUP(1),
+    
+    /**
+     * A task instance
+     */
+    TASK(2);
+
+    private final short code;
+
+    HistoryEntityType(int code) {
+        this.code = (short) code;
+    }
+
+    @Override
+    public short getCode() {
+        return code;
+    }
+}
@@ -3,24 +3,35 @@ package com.workday.pwe.enums;
 /**
  * Represents the possible states of a workflow execution queue entry.
  */
-public enum QueueStatus {
+public enum QueueStatus implements CodedEnum {
     /**
      * Entry is waiting to be processed
      */
-    PENDING,
+    PENDING(0),
     
     /**
      * Entry is currently being processed
      */
-    PROCESSING,
+    PROCESSING(1),
     
     /**
      * Entry was processed successfully
      */
-    COMPLETED,
+    COMPLETED(2),
     
     /**
      * Processing encountered an error
      */
-    FAILED
-}
\ No newline at end of file
+    FAILED(3);
+
+    private final short code;
+
+    QueueStatus(int code) {
+        this.code = (short) code;
+    }
+
+    @Override
+    public short getCode() {
+        return code;
+    }
+}
@@ -3,14 +3,30 @@ package com.workday.pwe.enums;
 /**
  * Represents the possible types of task groups.
  */
-public enum TaskGroupType {
+public enum TaskGroupType implements CodedEnum {
     /**
      * Sequential execution - tasks execute one after another in order
      */
-    VERTICAL,
+    VERTICAL(0),
     
     /**
      * Parallel execution - tasks execute simultaneously
      */
-    HORIZONTAL
-}
\ No newline at end of file
+    HORIZONTAL(1),
+    
+    /**
+     * Dynamic fan-out - one task per element of an input array, created at runtime with bounded parallelism
+     */
+    FOR_EACH(2);
+
+    private final short code;
+
+    TaskGroupType(int code) {
+        this.code = (short) code;
+    }
+
+    @Override
+    public short getCode() {
+        return code;
+    }
+}
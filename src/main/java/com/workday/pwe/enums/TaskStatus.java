@@ -3,59 +3,70 @@ package com.workday.pwe.enums;
 /**
  * Represents the possible states of a task instance.
  */
-public enum TaskStatus {
+public enum TaskStatus implements CodedEnum {
     /**
      * Task is created but not yet started
      */
-    NOT_STARTED,
+    NOT_STARTED(0),
     
     /**
      * Task is currently being processed
      */
-    IN_PROGRESS,
+    IN_PROGRESS(1),
     
     /**
      * Generic completion status for tasks
      */
-    COMPLETED,
+    COMPLETED(2),
     
     /**
      * Specific completion status for Submit tasks
      */
-    SUBMITTED,
+    SUBMITTED(3),
     
     /**
      * Specific completion status for Approve tasks
      */
-    APPROVED,
+    APPROVED(4),
     
     /**
      * Specific completion status for Review tasks
      */
-    REVIEWED,
+    REVIEWED(5),
     
     /**
      * Specific completion status for HTTP tasks
      */
-    API_CALL_COMPLETE,
+    API_CALL_COMPLETE(6),
     
     /**
      * Task execution encountered an error
      */
-    FAILED,
+    FAILED(7),
     
     /**
      * Task was not processed within the allowed time
      */
-    EXPIRED,
+    EXPIRED(8),
     
     /**
      * Task was manually bypassed
      */
-    SKIPPED,
+    SKIPPED(9),
     
     /**
      * Task is waiting for other tasks to complete
      */
-    BLOCKED
-}
\ No newline at end of file
+    BLOCKED(10);
+
+    private final short code;
+
+    TaskStatus(int code) {
+        this.code = (short) code;
+    }
+
+    @Override
+    public short getCode() {
+        return code;
+    }
+}
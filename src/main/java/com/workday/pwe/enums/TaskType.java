@@ -3,29 +3,45 @@ package com.workday.pwe.enums;
 /**
  * Represents the possible types of tasks.
  */
-public enum TaskType {
+public enum TaskType implements CodedEnum {
     /**
      * To-Do task for simple human actions
      */
-    TODO,
+    TODO(0),
     
     /**
      * Submit task for submitting work products
      */
-    SUBMIT,
+    SUBMIT(1),
     
     /**
      * Approve task for approval workflows
      */
-    APPROVE,
+    APPROVE(2),
     
     /**
      * Review task for review workflows
      */
-    REVIEW,
+    REVIEW(3),
     
     /**
      * HTTP task for system-to-system integrations
      */
-    HTTP
-}
\ No newline at end of file
+    HTTP(4),
+    
+    /**
+     * Sub-workflow task that runs another workflow definition as a child instance
+     */
+    SUBWORKFLOW(5);
+
+    private final short code;
+
+    TaskType(int code) {
+        this.code = (short) code;
+    }
+
+    @Override
+    public short getCode() {
+        return code;
+    }
+}
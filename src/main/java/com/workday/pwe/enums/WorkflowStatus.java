@@ -3,39 +3,50 @@ package com.workday.pwe.enums;
 /**
  * Represents the possible states of a workflow instance.
  */
-public enum WorkflowStatus {
+public enum WorkflowStatus implements CodedEnum {
     /**
      * Initial state when a workflow is created but not yet started
      */
-    NOT_STARTED,
+    NOT_STARTED(0),
     
     /**
      * Workflow is actively executing and processing tasks
      */
-    RUNNING,
+    RUNNING(1),
     
     /**
      * Workflow execution is temporarily suspended
      */
-    PAUSED,
+    PAUSED(2),
     
     /**
      * All tasks in the workflow have been completed successfully
      */
-    COMPLETED,
+    COMPLETED(3),
     
     /**
      * Workflow has encountered a critical error and cannot continue
      */
-    FAILED,
+    FAILED(4),
     
     /**
      * Workflow was manually stopped before completion
      */
-    TERMINATED,
+    TERMINATED(5),
     
     /**
      * Workflow has been moved to archive storage
      */
-    ARCHIVED
-}
\ No newline at end of file
+    ARCHIVED(6);
+
+    private final short code;
+
+    WorkflowStatus(int code) {
+        this.code = (short) code;
+    }
+
+    @Override
+    public short getCode() {
+        return code;
+    }
+}
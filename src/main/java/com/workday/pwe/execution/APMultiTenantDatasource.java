@@ -0,0 +1,15 @@
+package com.workday.pwe.execution;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Multi-tenant datasource of the engine's background services. Connections for the current tenant
+ * are borrowed from the configured {@link TenantDataSourceProvider}, pooled unless the host's
+ * provider pools itself; closing a connection returns it.
+ */
+class APMultiTenantDatasource {
+    public Connection getConnection() throws SQLException {
+        return TenantDataSources.getProvider().getConnection(TenantInfoHolder.getCurrentTenant());
+    }
+}
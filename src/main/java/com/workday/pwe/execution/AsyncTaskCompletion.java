@@ -0,0 +1,109 @@
+package com.workday.pwe.execution;
+
+import com.workday.pwe.handler.TaskHandler;
+import com.workday.pwe.model.TaskInstance;
+
+import java.sql.Connection;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Completes tasks whose work finished outside the decide that started them.
+ * Each completion borrows a fresh connection for the tenant only for the duration of the status update.
+ */
+public class AsyncTaskCompletion {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncTaskCompletion.class.getName());
+
+    private static final int COMPLETION_THREADS;
+
+    // Load configuration properties
+    static {
+        Properties properties = new Properties();
+        // In a real implementation, we would load from a properties file
+        // For now, we'll use default values
+        COMPLETION_THREADS = Integer.parseInt(properties.getProperty("async.completion.threads", "4"));
+    }
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    // Bounded so that callbacks never hold more than COMPLETION_THREADS connections at once
+    private static final ExecutorService COMPLETION_EXECUTOR = Executors.newFixedThreadPool(COMPLETION_THREADS, r -> {
+        Thread t = new Thread(r, "async-task-completion-" + THREAD_COUNTER.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final APMultiTenantDatasource DATA_SOURCE = new APMultiTenantDatasource();
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private AsyncTaskCompletion() {
+        // Do not instantiate
+    }
+
+    /**
+     * Get the executor that asynchronous callbacks should complete on
+     *
+     * @return The completion executor
+     */
+    public static ExecutorService getExecutor() {
+        return COMPLETION_EXECUTOR;
+    }
+
+    /**
+     * Get the tenant of the current decide, to be captured before going asynchronous
+     *
+     * @return The current tenant, or null if none is set
+     */
+    public static String currentTenant() {
+        return TenantInfoHolder.getCurrentTenant();
+    }
+
+    /**
+     * Complete or fail a task on a short-lived connection for the given tenant
+     *
+     * @param tenant The tenant the task belongs to
+     * @param taskInstance The task instance to complete (its output JSON is persisted if set)
+     * @param reasonForFailure Optional failure reason, null for success
+     */
+    public static void complete(String tenant, TaskInstance taskInstance, String reasonForFailure) {
+        try {
+            TenantInfoHolder.setCurrentTenant(tenant);
+            try (Connection connection = DATA_SOURCE.getConnection()) {
+                TaskHandler.completeAndClose(connection, taskInstance, reasonForFailure);
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error completing asynchronous task: " + taskInstance.getId(), e);
+        } finally {
+            TenantInfoHolder.clearCurrentTenant();
+        }
+    }
+
+    /**
+     * Schedule another attempt of a failed task on a short-lived connection for the given tenant
+     *
+     * @param tenant The tenant the task belongs to
+     * @param taskInstance The task instance that failed
+     * @param reason The failure
+     * @return true if a retry was scheduled, false if the task should be failed
+     */
+    public static boolean retry(String tenant, TaskInstance taskInstance, String reason) {
+        try {
+            TenantInfoHolder.setCurrentTenant(tenant);
+            try (Connection connection = DATA_SOURCE.getConnection()) {
+                return TaskHandler.retryLater(connection, taskInstance, reason);
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error scheduling retry of asynchronous task: " + taskInstance.getId(), e);
+            return false;
+        } finally {
+            TenantInfoHolder.clearCurrentTenant();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.workday.pwe.execution;
+
+import com.workday.pwe.dao.ClusterNodeDAO;
+
+import java.net.InetAddress;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cluster membership through heartbeats in the cluster_nodes table, and the queue shards this node
+ * owns as a result.
+ * <p>
+ * Every heartbeat interval the node refreshes its row in each tenant's database and reads the nodes
+ * whose heartbeat is recent enough. Whenever that list changes the shards are reassigned over a
+ * {@link ShardRing}, so nodes that join take over a share of the shards and the shards of nodes
+ * that leave or stop heartbeating move to the survivors. A node that shuts down removes its row so
+ * its shards move right away instead of after the node timeout. Until the first membership read of
+ * a tenant succeeds the node claims none of its shards, and it lets go of them again once its
+ * heartbeats have failed for longer than the node timeout, since by then its peers have taken
+ * them over.
+ */
+class ClusterMembership {
+
+    private static final Logger LOGGER = Logger.getLogger(ClusterMembership.class.getName());
+
+    private static final String NODE_ID;
+    private static final boolean SHARDING_ENABLED;
+    private static final int HEARTBEAT_INTERVAL_MS;
+    private static final int NODE_TIMEOUT_MS;
+    private static final int VIRTUAL_NODES;
+    private static final int[] NO_SHARDS = new int[0];
+
+    // Load configuration properties
+    static {
+        Properties properties = new Properties();
+        // In a real implementation, we would load from a properties file
+        // For now, we'll use default values
+        NODE_ID = properties.getProperty("cluster.node.id");
+        SHARDING_ENABLED = Boolean.parseBoolean(properties.getProperty("cluster.sharding.enabled", "true"));
+        HEARTBEAT_INTERVAL_MS = Integer.parseInt(properties.getProperty("cluster.heartbeat.interval.ms", "5000"));
+        NODE_TIMEOUT_MS = Integer.parseInt(properties.getProperty("cluster.node.timeout.ms", "30000"));
+        VIRTUAL_NODES = Integer.parseInt(properties.getProperty("cluster.virtual.nodes", "160"));
+    }
+
+    private final APMultiTenantDatasource dataSource;
+    private final String nodeId;
+    private final String hostName;
+    private final ScheduledExecutorService scheduler;
+    // Per tenant, the live nodes last seen and the shards this node owns among them
+    private final Map<String, List<String>> members = new ConcurrentHashMap<>();
+    private final Map<String, int[]> ownedShards = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastHeartbeatAt = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor with the datasource the membership is kept in
+     *
+     * @param dataSource The multi-tenant datasource
+     */
+    ClusterMembership(APMultiTenantDatasource dataSource) {
+        this.dataSource = dataSource;
+        this.hostName = resolveHostName();
+        this.nodeId = NODE_ID != null ? NODE_ID : hostName + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cluster-membership");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Join the cluster: send a first heartbeat right away, then keep heartbeating
+     */
+    void start() {
+        if (!SHARDING_ENABLED) {
+            LOGGER.info("Cluster sharding disabled, this node sweeps all shards");
+            return;
+        }
+        LOGGER.info("Joining cluster as node " + nodeId);
+        heartbeat();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                heartbeat();
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error in cluster heartbeat", e);
+            }
+        }, HEARTBEAT_INTERVAL_MS, HEARTBEAT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Leave the cluster so the other nodes take over this node's shards immediately
+     */
+    void stop() {
+        scheduler.shutdownNow();
+        if (!SHARDING_ENABLED) {
+            return;
+        }
+        for (String tenant : TenantInfoHolder.getTenants()) {
+            TenantInfoHolder.setCurrentTenant(tenant);
+            try (Connection connection = dataSource.getConnection()) {
+                new ClusterNodeDAO(connection).removeNode(nodeId);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Error leaving cluster for tenant: " + tenant, e);
+            } finally {
+                TenantInfoHolder.clearCurrentTenant();
+            }
+        }
+        ownedShards.clear();
+        members.clear();
+        lastHeartbeatAt.clear();
+        LOGGER.info("Node " + nodeId + " left the cluster");
+    }
+
+    /**
+     * Get the shards of a tenant's queue this node should claim
+     *
+     * @param tenant The tenant
+     * @return The owned shards, empty while membership is unknown or lost, or null to claim all
+     *         shards when sharding is disabled
+     */
+    int[] getOwnedShards(String tenant) {
+        if (!SHARDING_ENABLED) {
+            return null;
+        }
+        int[] shards = ownedShards.get(tenant);
+        Long heartbeatAt = lastHeartbeatAt.get(tenant);
+        if (shards == null || heartbeatAt == null || System.currentTimeMillis() - heartbeatAt > NODE_TIMEOUT_MS) {
+            return NO_SHARDS;
+        }
+        return shards;
+    }
+
+    /**
+     * Refresh this node's heartbeat in every tenant and reassign shards where membership changed
+     */
+    private void heartbeat() {
+        for (String tenant : TenantInfoHolder.getTenants()) {
+            TenantInfoHolder.setCurrentTenant(tenant);
+            try (Connection connection = dataSource.getConnection()) {
+                ClusterNodeDAO nodeDAO = new ClusterNodeDAO(connection);
+                long now = System.currentTimeMillis();
+                nodeDAO.heartbeat(nodeId, hostName);
+
+                nodeDAO.removeExpiredNodes(new Timestamp(now - 10L * NODE_TIMEOUT_MS));
+                List<String> live = nodeDAO.getLiveNodes(new Timestamp(now - NODE_TIMEOUT_MS));
+                if (!live.equals(members.get(tenant))) {
+                    rebalance(tenant, live);
+                }
+                // Peers time this node out from its last heartbeat, so ownership is counted from it too
+                lastHeartbeatAt.put(tenant, now);
+            } catch (Exception e) {
+                // Keep the last known assignment until the node timeout, when peers drop this node
+                LOGGER.log(Level.SEVERE, "Error sending cluster heartbeat for tenant: " + tenant, e);
+            } finally {
+                TenantInfoHolder.clearCurrentTenant();
+            }
+        }
+    }
+
+    /**
+     * Reassign a tenant's shards over the current live nodes
+     *
+     * @param tenant The tenant
+     * @param live The live node IDs
+     */
+    private void rebalance(String tenant, List<String> live) {
+        int[] shards = new ShardRing(live, VIRTUAL_NODES).shardsOwnedBy(nodeId);
+        ownedShards.put(tenant, shards);
+        members.put(tenant, live);
+        LOGGER.info("Cluster membership changed for tenant " + tenant + ": " + live.size() +
+                   " live nodes, node " + nodeId + " owns " + shards.length + " shards");
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+}
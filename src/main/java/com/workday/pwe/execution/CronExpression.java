@@ -0,0 +1,220 @@
+package com.workday.pwe.execution;
+
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Locale;
+
+/**
+ * Five-field cron expression: minute, hour, day of month, month and day of week.
+ * Fields accept {@code *}, {@code ?}, values, ranges ({@code 1-5}), lists ({@code 1,15}) and steps
+ * ({@code *}{@code /15}, {@code 9-17/2}); months and days of week also accept three-letter names, and
+ * Sunday is both 0 and 7. When both day fields are restricted a day matching either one fires, as in
+ * standard cron. The macros {@code @yearly}, {@code @monthly}, {@code @weekly}, {@code @daily} and
+ * {@code @hourly} are also supported.
+ * <p>
+ * Fire times follow the local clock of the zone. A time skipped when clocks spring forward fires
+ * shifted by the length of the gap (02:30 becomes 03:30), and a time repeated when clocks fall back
+ * fires only once.
+ */
+public class CronExpression {
+
+    private static final String[] MONTH_NAMES = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN",
+                                                 "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+    private static final String[] DAY_NAMES = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+
+    // Expressions such as "0 0 30 2 *" never fire; stop searching after this many years
+    private static final int MAX_YEARS_AHEAD = 5;
+
+    private final String expression;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final boolean dayOfMonthRestricted;
+    private final boolean dayOfWeekRestricted;
+
+    /**
+     * Parse a cron expression
+     *
+     * @param expression The expression
+     * @throws IllegalArgumentException If the expression is malformed
+     */
+    public CronExpression(String expression) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Cron expression cannot be null");
+        }
+        this.expression = expression.trim();
+
+        String[] fields = expandMacro(this.expression).split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Cron expression must have 5 fields: " + expression);
+        }
+
+        this.minutes = parseField(fields[0], 0, 59, null);
+        this.hours = parseField(fields[1], 0, 23, null);
+        this.daysOfMonth = parseField(fields[2], 1, 31, null);
+        this.months = parseField(fields[3], 1, 12, MONTH_NAMES);
+        this.daysOfWeek = parseField(fields[4], 0, 7, DAY_NAMES);
+        if (daysOfWeek.get(7)) {
+            daysOfWeek.set(0);
+        }
+        this.dayOfMonthRestricted = !isWildcard(fields[2]);
+        this.dayOfWeekRestricted = !isWildcard(fields[4]);
+    }
+
+    /**
+     * Check whether an expression is valid
+     *
+     * @param expression The expression
+     * @return true if the expression parses
+     */
+    public static boolean isValid(String expression) {
+        try {
+            new CronExpression(expression);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Compute the first fire time strictly after a point in time.
+     * Fields that do not match skip ahead by whole months, days or hours rather than minute by minute.
+     * The search runs on local date-times so that daylight saving changes neither skip nor repeat days.
+     *
+     * @param after The point in time, in the zone the expression is evaluated in
+     * @return The next fire time, or null if the expression never fires
+     */
+    public ZonedDateTime next(ZonedDateTime after) {
+        LocalDateTime time = after.toLocalDateTime().truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        int lastYear = time.getYear() + MAX_YEARS_AHEAD;
+
+        while (time.getYear() <= lastYear) {
+            if (!months.get(time.getMonthValue())) {
+                time = time.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+                continue;
+            }
+            if (!matchesDay(time)) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+                continue;
+            }
+            int hour = hours.nextSetBit(time.getHour());
+            if (hour < 0) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+                continue;
+            }
+            if (hour != time.getHour()) {
+                time = time.withHour(hour).withMinute(0);
+                continue;
+            }
+            int minute = minutes.nextSetBit(time.getMinute());
+            if (minute < 0) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                continue;
+            }
+            // Resolves a time in a gap past the gap, and a repeated time to the offset of the previous fire
+            return ZonedDateTime.ofLocal(time.withMinute(minute), after.getZone(), after.getOffset());
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private boolean matchesDay(LocalDateTime time) {
+        boolean dayOfMonth = daysOfMonth.get(time.getDayOfMonth());
+        boolean dayOfWeek = daysOfWeek.get(time.getDayOfWeek().getValue() % 7);
+        if (dayOfMonthRestricted && dayOfWeekRestricted) {
+            return dayOfMonth || dayOfWeek;
+        }
+        return dayOfMonth && dayOfWeek;
+    }
+
+    private static boolean isWildcard(String field) {
+        return field.equals("*") || field.equals("?");
+    }
+
+    private static String expandMacro(String expression) {
+        switch (expression.toLowerCase(Locale.ROOT)) {
+            case "@yearly":
+            case "@annually":
+                return "0 0 1 1 *";
+            case "@monthly":
+                return "0 0 1 * *";
+            case "@weekly":
+                return "0 0 * * 0";
+            case "@daily":
+            case "@midnight":
+                return "0 0 * * *";
+            case "@hourly":
+                return "0 * * * *";
+            default:
+                return expression;
+        }
+    }
+
+    /**
+     * Parse one field into the set of values it matches
+     */
+    private static BitSet parseField(String field, int min, int max, String[] names) {
+        BitSet values = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            int step = 1;
+            String range = part;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = parseValue(part.substring(slash + 1), 1, Integer.MAX_VALUE, null, field);
+                range = part.substring(0, slash);
+            }
+
+            int start;
+            int end;
+            if (isWildcard(range)) {
+                start = min;
+                end = max;
+            } else {
+                int dash = range.indexOf('-');
+                if (dash > 0) {
+                    start = parseValue(range.substring(0, dash), min, max, names, field);
+                    end = parseValue(range.substring(dash + 1), min, max, names, field);
+                } else {
+                    start = parseValue(range, min, max, names, field);
+                    // "5/15" means every 15 starting at 5
+                    end = slash >= 0 ? max : start;
+                }
+            }
+            if (start > end) {
+                throw new IllegalArgumentException("Invalid range in cron field: " + field);
+            }
+            for (int value = start; value <= end; value += step) {
+                values.set(value);
+            }
+        }
+        return values;
+    }
+
+    private static int parseValue(String value, int min, int max, String[] names, String field) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(value)) {
+                    // Months are 1-based, days of week 0-based
+                    return names.length == 12 ? i + 1 : i;
+                }
+            }
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed < min || parsed > max) {
+                throw new IllegalArgumentException("Value " + parsed + " out of range in cron field: " + field);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value in cron field: " + field, e);
+        }
+    }
+}
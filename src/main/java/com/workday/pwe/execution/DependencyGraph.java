@@ -0,0 +1,244 @@
+package com.workday.pwe.execution;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.workday.pwe.dao.TaskGroupInstanceDAO;
+import com.workday.pwe.dao.TaskInstanceDAO;
+import com.workday.pwe.enums.TaskStatus;
+import com.workday.pwe.handler.GroupCompletionEvaluator;
+import com.workday.pwe.handler.TaskGroupHandler;
+import com.workday.pwe.handler.TaskHandler;
+import com.workday.pwe.model.TaskDefinition;
+import com.workday.pwe.model.TaskGroupDefinition;
+import com.workday.pwe.model.TaskGroupInstance;
+import com.workday.pwe.model.TaskInstance;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Dependency graph over sibling nodes (tasks and groups) linked by "dependsOn" edges.
+ * Each node keeps an in-degree counter of unsatisfied dependencies; a node becomes ready
+ * when its counter drops to zero. Nodes are identified by their definition id (name).
+ */
+public class DependencyGraph {
+
+    private static final Logger LOGGER = Logger.getLogger(DependencyGraph.class.getName());
+
+    public static final String DEPENDS_ON = "dependsOn";
+
+    private final Map<String, TaskStatus> statuses = new LinkedHashMap<>();
+    private final Map<String, List<String>> dependencies = new HashMap<>();
+    private final Map<String, List<String>> dependents = new HashMap<>();
+    private final Map<String, Integer> inDegree = new HashMap<>();
+    private boolean built;
+
+    /**
+     * Add a node to the graph
+     *
+     * @param name The node's definition id
+     * @param parametersJson The node's definition parameters, holding "dependsOn"
+     * @param status The node's current status
+     */
+    public void addNode(String name, JsonNode parametersJson, TaskStatus status) {
+        statuses.put(name, status);
+        dependencies.put(name, getDependencies(parametersJson));
+        built = false;
+    }
+
+    /**
+     * Update the status of a node already in the graph
+     *
+     * @param name The node name
+     * @param status The new status
+     */
+    public void setStatus(String name, TaskStatus status) {
+        statuses.put(name, status);
+        built = false;
+    }
+
+    /**
+     * Get the nodes that have not started and whose dependencies are all satisfied, in insertion order
+     *
+     * @return Names of the ready nodes
+     */
+    public List<String> getReadyNodes() {
+        build();
+        List<String> ready = new ArrayList<>();
+        for (Map.Entry<String, TaskStatus> entry : statuses.entrySet()) {
+            if (entry.getValue() == TaskStatus.NOT_STARTED && inDegree.get(entry.getKey()) == 0) {
+                ready.add(entry.getKey());
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * Check whether a node can never become ready because a dependency ended unsuccessfully
+     *
+     * @param name The node name
+     * @return true if any dependency failed, expired or was skipped
+     */
+    public boolean isBlocked(String name) {
+        for (String dependency : dependencies.getOrDefault(name, Collections.emptyList())) {
+            TaskStatus status = statuses.get(dependency);
+            if (status != null && GroupCompletionEvaluator.isTerminalStatus(status) && !isSatisfied(status)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Start every sibling whose dependencies are satisfied and skip those that can never start.
+     * Nodes without "dependsOn" are always ready, so siblings without edges all start together.
+     *
+     * @param connection Database connection
+     * @param groups Sibling group instances
+     * @param groupDefs Definitions of the sibling groups
+     * @param tasks Sibling task instances
+     * @param taskDefs Definitions of the sibling tasks
+     * @return Number of nodes started
+     * @throws SQLException If a database error occurs
+     */
+    public static int schedule(Connection connection, List<TaskGroupInstance> groups, List<TaskGroupDefinition> groupDefs,
+                               List<TaskInstance> tasks, List<TaskDefinition> taskDefs) throws SQLException {
+        Map<UUID, TaskGroupDefinition> groupDefsById = new HashMap<>();
+        for (TaskGroupDefinition groupDef : groupDefs) {
+            groupDefsById.put(groupDef.getId(), groupDef);
+        }
+        Map<UUID, TaskDefinition> taskDefsById = new HashMap<>();
+        for (TaskDefinition taskDef : taskDefs) {
+            taskDefsById.put(taskDef.getId(), taskDef);
+        }
+
+        DependencyGraph graph = new DependencyGraph();
+        Map<String, TaskGroupInstance> groupsByName = new HashMap<>();
+        Map<String, TaskInstance> tasksByName = new HashMap<>();
+        for (TaskGroupInstance group : groups) {
+            TaskGroupDefinition groupDef = groupDefsById.get(group.getTaskGroupDefId());
+            String name = groupDef != null ? groupDef.getName() : group.getId().toString();
+            graph.addNode(name, groupDef != null ? groupDef.getParametersJson() : null, group.getStatus());
+            groupsByName.put(name, group);
+        }
+        for (TaskInstance task : tasks) {
+            TaskDefinition taskDef = taskDefsById.get(task.getTaskDefId());
+            String name = taskDef != null ? taskDef.getName() : task.getId().toString();
+            graph.addNode(name, taskDef != null ? taskDef.getParametersJson() : null, task.getStatus());
+            tasksByName.put(name, task);
+        }
+
+        // Skip nodes whose dependencies failed, repeating so the skip reaches every transitive dependent
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Map.Entry<String, TaskStatus> entry : new ArrayList<>(graph.statuses.entrySet())) {
+                if (entry.getValue() == TaskStatus.NOT_STARTED && graph.isBlocked(entry.getKey())) {
+                    skip(connection, entry.getKey(), groupsByName.get(entry.getKey()), tasksByName.get(entry.getKey()));
+                    graph.setStatus(entry.getKey(), TaskStatus.SKIPPED);
+                    changed = true;
+                }
+            }
+        }
+
+        List<String> ready = graph.getReadyNodes();
+        for (String name : ready) {
+            TaskGroupInstance group = groupsByName.get(name);
+            if (group != null) {
+                TaskGroupHandler.getHandler(connection, group).run();
+            } else {
+                TaskHandler.run(connection, tasksByName.get(name));
+            }
+        }
+        return ready.size();
+    }
+
+    /**
+     * Skip a node that can never start, including everything beneath it if it is a group
+     */
+    private static void skip(Connection connection, String name, TaskGroupInstance group, TaskInstance task) throws SQLException {
+        LOGGER.info("Skipping " + name + ": a dependency did not complete successfully");
+        if (group != null) {
+            TaskGroupInstanceDAO groupDAO = new TaskGroupInstanceDAO(connection);
+            groupDAO.updateTaskGroupStatus(group.getId(), TaskStatus.SKIPPED);
+            new TaskInstanceDAO(connection).skipPendingTasks(group.getId());
+            groupDAO.skipPendingChildGroups(group.getId());
+            group.setStatus(TaskStatus.SKIPPED);
+        } else {
+            new TaskInstanceDAO(connection).updateTask(task.getId(), TaskStatus.SKIPPED,
+                    "Dependency did not complete successfully");
+            task.setStatus(TaskStatus.SKIPPED);
+        }
+    }
+
+    /**
+     * Compute the in-degree counters: one per dependency that is part of the graph and not yet satisfied
+     */
+    private void build() {
+        if (built) {
+            return;
+        }
+        inDegree.clear();
+        dependents.clear();
+        for (String name : statuses.keySet()) {
+            inDegree.put(name, 0);
+        }
+        for (Map.Entry<String, List<String>> entry : dependencies.entrySet()) {
+            for (String dependency : entry.getValue()) {
+                if (!statuses.containsKey(dependency)) {
+                    // Unknown ids are rejected by the validator; ignore them at runtime
+                    continue;
+                }
+                dependents.computeIfAbsent(dependency, d -> new ArrayList<>()).add(entry.getKey());
+                inDegree.merge(entry.getKey(), 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<String, TaskStatus> entry : statuses.entrySet()) {
+            if (isSatisfied(entry.getValue())) {
+                for (String dependent : dependents.getOrDefault(entry.getKey(), Collections.emptyList())) {
+                    inDegree.merge(dependent, -1, Integer::sum);
+                }
+            }
+        }
+        built = true;
+    }
+
+    /**
+     * A dependency is satisfied only when it actually ran to success; a skipped dependency
+     * blocks its dependents so that skips propagate down the graph
+     *
+     * @param status The dependency's status
+     * @return true if the dependency is satisfied
+     */
+    private static boolean isSatisfied(TaskStatus status) {
+        return status != TaskStatus.SKIPPED && GroupCompletionEvaluator.isTerminalSuccessStatus(status);
+    }
+
+    /**
+     * Read the "dependsOn" edges of a node
+     *
+     * @param parametersJson The node's definition parameters
+     * @return The ids the node depends on, empty if none
+     */
+    public static List<String> getDependencies(JsonNode parametersJson) {
+        JsonNode dependsOn = parametersJson != null ? parametersJson.get(DEPENDS_ON) : null;
+        if (dependsOn == null || dependsOn.isNull()) {
+            return Collections.emptyList();
+        }
+        if (dependsOn.isTextual()) {
+            return Collections.singletonList(dependsOn.asText());
+        }
+        List<String> result = new ArrayList<>(dependsOn.size());
+        for (JsonNode dependency : dependsOn) {
+            result.add(dependency.asText());
+        }
+        return result;
+    }
+}
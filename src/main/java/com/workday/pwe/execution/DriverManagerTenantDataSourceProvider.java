@@ -0,0 +1,40 @@
+package com.workday.pwe.execution;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * Provider of unpooled connections through {@link DriverManager}. The JDBC URL may contain a
+ * {@code {tenant}} placeholder to point each tenant at its own database or schema. Statements
+ * switch to server-side prepared statements after {@code pwe.db.prepare-threshold} executions,
+ * which cached statements reach quickly.
+ */
+public class DriverManagerTenantDataSourceProvider implements TenantDataSourceProvider {
+
+    private static final String URL;
+    private static final String USERNAME;
+    private static final String PASSWORD;
+    private static final String PREPARE_THRESHOLD;
+
+    // Load configuration properties
+    static {
+        Properties properties = new Properties();
+        // In a real implementation, we would load from a properties file
+        // For now, we'll use default values
+        URL = properties.getProperty("pwe.db.url", "jdbc:postgresql://localhost:5432/pwe_db");
+        USERNAME = properties.getProperty("pwe.db.username", "pwe_user");
+        PASSWORD = properties.getProperty("pwe.db.password", "");
+        PREPARE_THRESHOLD = properties.getProperty("pwe.db.prepare-threshold", "3");
+    }
+
+    @Override
+    public Connection getConnection(String tenant) throws SQLException {
+        Properties info = new Properties();
+        info.setProperty("user", USERNAME);
+        info.setProperty("password", PASSWORD);
+        info.setProperty("prepareThreshold", PREPARE_THRESHOLD);
+        return DriverManager.getConnection(URL.replace("{tenant}", tenant), info);
+    }
+}
@@ -0,0 +1,494 @@
+package com.workday.pwe.execution;
+
+import com.workday.pwe.util.StatementCache;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Connection pool per tenant on top of another provider's physical connections.
+ * <p>
+ * Each tenant gets its own pool with a minimum number of idle connections kept open and a maximum
+ * number of connections in total; borrowers wait up to the connection timeout for one to free up.
+ * Idle connections are validated before reuse once they have been idle for a while, and closed
+ * after the idle timeout as long as the minimum remains. A connection borrowed for longer than the
+ * leak detection threshold is reported once with the stack trace of the code that borrowed it.
+ * Each physical connection caches its prepared statements (see {@link StatementCache}) for as long
+ * as it stays open, so they survive across decides and reach the driver's server-side prepare
+ * threshold. Wait times, statement cache hits and other counters are available per tenant through
+ * {@link #getStats(String)}.
+ */
+public class PooledTenantDataSourceProvider implements TenantDataSourceProvider {
+
+    private static final Logger LOGGER = Logger.getLogger(PooledTenantDataSourceProvider.class.getName());
+
+    private static final int MIN_SIZE;
+    private static final int MAX_SIZE;
+    private static final int CONNECTION_TIMEOUT_MS;
+    private static final int VALIDATION_TIMEOUT_SECONDS;
+    private static final int VALIDATE_AFTER_IDLE_MS;
+    private static final int IDLE_TIMEOUT_MS;
+    private static final int LEAK_DETECTION_MS;
+    private static final int MAINTENANCE_INTERVAL_MS;
+    private static final int STATEMENT_CACHE_SIZE;
+
+    // Load configuration properties
+    static {
+        Properties properties = new Properties();
+        // In a real implementation, we would load from a properties file
+        // For now, we'll use default values
+        MIN_SIZE = Integer.parseInt(properties.getProperty("pwe.db.pool-min-size", "2"));
+        MAX_SIZE = Integer.parseInt(properties.getProperty("pwe.db.pool-size", "10"));
+        CONNECTION_TIMEOUT_MS = Integer.parseInt(properties.getProperty("pwe.db.connection-timeout-ms", "30000"));
+        VALIDATION_TIMEOUT_SECONDS = Integer.parseInt(properties.getProperty("pwe.db.validation-timeout-seconds", "5"));
+        VALIDATE_AFTER_IDLE_MS = Integer.parseInt(properties.getProperty("pwe.db.validate-after-idle-ms", "5000"));
+        IDLE_TIMEOUT_MS = Integer.parseInt(properties.getProperty("pwe.db.idle-timeout-ms", "600000"));
+        LEAK_DETECTION_MS = Integer.parseInt(properties.getProperty("pwe.db.leak-detection-ms", "60000"));
+        MAINTENANCE_INTERVAL_MS = Integer.parseInt(properties.getProperty("pwe.db.maintenance-interval-ms", "30000"));
+        STATEMENT_CACHE_SIZE = Integer.parseInt(properties.getProperty("pwe.db.statement-cache-size", "64"));
+    }
+
+    private final TenantDataSourceProvider physical;
+    private final Map<String, TenantPool> pools = new ConcurrentHashMap<>();
+    private final Map<String, int[]> tenantLimits = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService maintenance;
+
+    /**
+     * Constructor with the provider of physical connections
+     *
+     * @param physical The provider to pool
+     */
+    public PooledTenantDataSourceProvider(TenantDataSourceProvider physical) {
+        this.physical = physical;
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "tenant-pool-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        maintenance.scheduleWithFixedDelay(() -> {
+            for (TenantPool pool : pools.values()) {
+                try {
+                    pool.maintain();
+                } catch (Exception e) {
+                    LOGGER.log(Level.SEVERE, "Error maintaining connection pool for tenant: " + pool.tenant, e);
+                }
+            }
+        }, MAINTENANCE_INTERVAL_MS, MAINTENANCE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Override the pool limits of a tenant; takes effect when the tenant's pool is created
+     *
+     * @param tenant The tenant
+     * @param minSize Idle connections kept open
+     * @param maxSize Maximum connections in total
+     */
+    public void setTenantLimits(String tenant, int minSize, int maxSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool limits for tenant " + tenant + ": " + minSize + ".." + maxSize);
+        }
+        tenantLimits.put(tenant, new int[] {minSize, maxSize});
+    }
+
+    @Override
+    public Connection getConnection(String tenant) throws SQLException {
+        if (tenant == null) {
+            throw new SQLException("No tenant set for connection request");
+        }
+        return pools.computeIfAbsent(tenant, TenantPool::new).borrow();
+    }
+
+    @Override
+    public boolean isPooled() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        maintenance.shutdownNow();
+        for (TenantPool pool : pools.values()) {
+            pool.close();
+        }
+        pools.clear();
+        physical.close();
+    }
+
+    /**
+     * Get the pool statistics of a tenant
+     *
+     * @param tenant The tenant
+     * @return The statistics, or null if the tenant has no pool yet
+     */
+    public PoolStats getStats(String tenant) {
+        TenantPool pool = pools.get(tenant);
+        return pool != null ? pool.stats() : null;
+    }
+
+    /**
+     * The connections of one tenant
+     */
+    private final class TenantPool {
+        private final String tenant;
+        private final int minSize;
+        private final int maxSize;
+        private final Semaphore permits;
+        // Most recently returned first, so surplus connections at the tail go idle and get closed
+        private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+        private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger total = new AtomicInteger();
+        private final StatementCache.Metrics statementMetrics = new StatementCache.Metrics();
+
+        private final LongAdder borrowCount = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final LongAdder timeoutCount = new LongAdder();
+        private final LongAdder createdCount = new LongAdder();
+        private final LongAdder destroyedCount = new LongAdder();
+        private final LongAdder validationFailureCount = new LongAdder();
+        private final LongAdder leakCount = new LongAdder();
+
+        TenantPool(String tenant) {
+            int[] limits = tenantLimits.getOrDefault(tenant, new int[] {MIN_SIZE, MAX_SIZE});
+            this.tenant = tenant;
+            this.minSize = limits[0];
+            this.maxSize = limits[1];
+            this.permits = new Semaphore(maxSize, true);
+        }
+
+        Connection borrow() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                if (!permits.tryAcquire(CONNECTION_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    timeoutCount.increment();
+                    throw new SQLTimeoutException("Timed out after " + CONNECTION_TIMEOUT_MS + " ms waiting for a connection for tenant " +
+                                                  tenant + " (" + borrowed.size() + " of " + maxSize + " in use)");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection for tenant " + tenant, e);
+            }
+            long waited = System.nanoTime() - start;
+            borrowCount.increment();
+            waitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+            try {
+                PooledConnection pooled;
+                while ((pooled = idle.pollFirst()) != null && !isUsable(pooled)) {
+                    validationFailureCount.increment();
+                    destroy(pooled);
+                }
+                if (pooled == null) {
+                    pooled = create();
+                }
+                borrowed.add(pooled);
+                return pooled.lease();
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        void release(PooledConnection pooled) {
+            borrowed.remove(pooled);
+            try {
+                Connection connection = pooled.connection;
+                if (connection.isClosed()) {
+                    destroy(pooled);
+                    return;
+                }
+                // Hand the next borrower a connection in the default state
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                pooled.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Discarding connection that could not be reset for tenant: " + tenant, e);
+                destroy(pooled);
+            } finally {
+                permits.release();
+            }
+        }
+
+        /**
+         * Close surplus idle connections, top up to the minimum and report leaked connections
+         */
+        void maintain() {
+            long now = System.currentTimeMillis();
+
+            Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+            while (oldestFirst.hasNext() && total.get() > minSize) {
+                PooledConnection pooled = oldestFirst.next();
+                if (now - pooled.lastUsed > IDLE_TIMEOUT_MS && idle.remove(pooled)) {
+                    destroy(pooled);
+                }
+            }
+
+            while (total.get() < minSize) {
+                try {
+                    PooledConnection pooled = create();
+                    pooled.lastUsed = now;
+                    idle.offerLast(pooled);
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Error opening idle connection for tenant: " + tenant, e);
+                    break;
+                }
+            }
+
+            if (LEAK_DETECTION_MS > 0) {
+                for (PooledConnection pooled : borrowed) {
+                    if (!pooled.leakReported && now - pooled.borrowedAt > LEAK_DETECTION_MS) {
+                        pooled.leakReported = true;
+                        leakCount.increment();
+                        LOGGER.log(Level.WARNING, "Connection for tenant " + tenant + " borrowed " + (now - pooled.borrowedAt) +
+                                   " ms ago and not returned, possible leak", pooled.borrowSite);
+                    }
+                }
+            }
+        }
+
+        void close() {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                destroy(pooled);
+            }
+            if (!borrowed.isEmpty()) {
+                LOGGER.warning("Closing pool for tenant " + tenant + " with " + borrowed.size() + " connections still borrowed");
+            }
+        }
+
+        PoolStats stats() {
+            return new PoolStats(tenant, borrowed.size(), idle.size(), maxSize, borrowCount.sum(), timeoutCount.sum(),
+                                 waitNanos.sum(), maxWaitNanos.get(), createdCount.sum(), destroyedCount.sum(),
+                                 validationFailureCount.sum(), leakCount.sum(), statementMetrics);
+        }
+
+        private boolean isUsable(PooledConnection pooled) {
+            try {
+                if (System.currentTimeMillis() - pooled.lastUsed < VALIDATE_AFTER_IDLE_MS) {
+                    return !pooled.connection.isClosed();
+                }
+                return pooled.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private PooledConnection create() throws SQLException {
+            Connection connection = physical.getConnection(tenant);
+            if (STATEMENT_CACHE_SIZE > 0) {
+                connection = StatementCache.wrap(connection, STATEMENT_CACHE_SIZE, statementMetrics);
+            }
+            PooledConnection pooled = new PooledConnection(this, connection);
+            total.incrementAndGet();
+            createdCount.increment();
+            return pooled;
+        }
+
+        private void destroy(PooledConnection pooled) {
+            total.decrementAndGet();
+            destroyedCount.increment();
+            try {
+                pooled.connection.close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.FINE, "Error closing pooled connection for tenant: " + tenant, e);
+            }
+        }
+    }
+
+    /**
+     * A physical connection and its pool bookkeeping. Each lease hands out a new proxy whose close()
+     * returns the connection to the pool, so a stale reference cannot use it after it was returned.
+     */
+    private static final class PooledConnection {
+        private final TenantPool pool;
+        private final Connection connection;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile long borrowedAt;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+
+        PooledConnection(TenantPool pool, Connection connection) {
+            this.pool = pool;
+            this.connection = connection;
+        }
+
+        Connection lease() {
+            borrowedAt = System.currentTimeMillis();
+            borrowSite = LEAK_DETECTION_MS > 0 ? new Throwable("Connection borrowed here") : null;
+            leakReported = false;
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                                                       new LeaseHandler(this));
+        }
+    }
+
+    /**
+     * Delegates to the physical connection until the lease is closed
+     */
+    private static final class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean closed;
+
+        LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pooled.pool.release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pooled.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled connection for tenant " + pooled.pool.tenant;
+                default:
+                    if (closed) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(pooled.connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+
+    /**
+     * Point-in-time statistics of a tenant's pool
+     */
+    public static final class PoolStats {
+        private final String tenant;
+        private final int active;
+        private final int idle;
+        private final int maxSize;
+        private final long borrowCount;
+        private final long timeoutCount;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final long createdCount;
+        private final long destroyedCount;
+        private final long validationFailureCount;
+        private final long leakCount;
+        private final long statementCacheHits;
+        private final long statementCacheMisses;
+        private final long statementCacheEvictions;
+
+        PoolStats(String tenant, int active, int idle, int maxSize, long borrowCount, long timeoutCount,
+                  long totalWaitNanos, long maxWaitNanos, long createdCount, long destroyedCount,
+                  long validationFailureCount, long leakCount, StatementCache.Metrics statementMetrics) {
+            this.tenant = tenant;
+            this.active = active;
+            this.idle = idle;
+            this.maxSize = maxSize;
+            this.borrowCount = borrowCount;
+            this.timeoutCount = timeoutCount;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.createdCount = createdCount;
+            this.destroyedCount = destroyedCount;
+            this.validationFailureCount = validationFailureCount;
+            this.leakCount = leakCount;
+            this.statementCacheHits = statementMetrics.getHits();
+            this.statementCacheMisses = statementMetrics.getMisses();
+            this.statementCacheEvictions = statementMetrics.getEvictions();
+        }
+
+        public String getTenant() {
+            return tenant;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public long getBorrowCount() {
+            return borrowCount;
+        }
+
+        public long getTimeoutCount() {
+            return timeoutCount;
+        }
+
+        public double getAverageWaitMillis() {
+            return borrowCount == 0 ? 0 : totalWaitNanos / 1_000_000.0 / borrowCount;
+        }
+
+        public double getMaxWaitMillis() {
+            return maxWaitNanos / 1_000_000.0;
+        }
+
+        public long getCreatedCount() {
+            return createdCount;
+        }
+
+        public long getDestroyedCount() {
+            return destroyedCount;
+        }
+
+        public long getValidationFailureCount() {
+            return validationFailureCount;
+        }
+
+        public long getLeakCount() {
+            return leakCount;
+        }
+
+        public long getStatementCacheHits() {
+            return statementCacheHits;
+        }
+
+        public long getStatementCacheMisses() {
+            return statementCacheMisses;
+        }
+
+        public long getStatementCacheEvictions() {
+            return statementCacheEvictions;
+        }
+
+        public double getStatementCacheHitRatio() {
+            long lookups = statementCacheHits + statementCacheMisses;
+            return lookups == 0 ? 0 : (double) statementCacheHits / lookups;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.workday.pwe.execution;
+
+import com.workday.pwe.dao.WorkflowExecutionQueueDAO;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The queue entries this node holds PROCESSING while it decides their workflows. A decide does not
+ * touch its entry between claiming and removing it, so {@link #heartbeat()} refreshes last_updated
+ * of every held entry, one statement per tenant. Orphan recovery on other nodes only claims entries
+ * that have gone stale, which then means their node stopped rather than that the decide is slow.
+ */
+class QueueClaims {
+
+    private static final Logger LOGGER = Logger.getLogger(QueueClaims.class.getName());
+
+    private final APMultiTenantDatasource dataSource;
+    // Held entries by workflow instance ID, with the tenant they belong to
+    private final Map<UUID, String> held = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor with the datasource to refresh claims through
+     *
+     * @param dataSource The multi-tenant datasource
+     */
+    QueueClaims(APMultiTenantDatasource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Start refreshing the entry of a workflow being decided on this node
+     *
+     * @param tenant The tenant the workflow belongs to
+     * @param workflowInstanceId The workflow instance ID
+     */
+    void hold(String tenant, UUID workflowInstanceId) {
+        held.put(workflowInstanceId, tenant);
+    }
+
+    /**
+     * Stop refreshing the entry of a workflow once its decide has finished
+     *
+     * @param workflowInstanceId The workflow instance ID
+     */
+    void release(UUID workflowInstanceId) {
+        held.remove(workflowInstanceId);
+    }
+
+    /**
+     * Refresh last_updated of every held entry
+     */
+    void heartbeat() {
+        Map<String, List<UUID>> byTenant = new HashMap<>();
+        for (Map.Entry<UUID, String> entry : held.entrySet()) {
+            byTenant.computeIfAbsent(entry.getValue(), t -> new ArrayList<>()).add(entry.getKey());
+        }
+
+        for (Map.Entry<String, List<UUID>> entry : byTenant.entrySet()) {
+            String tenant = entry.getKey();
+            TenantInfoHolder.setCurrentTenant(tenant);
+            try (Connection connection = dataSource.getConnection()) {
+                new WorkflowExecutionQueueDAO(connection).touchClaims(entry.getValue());
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error refreshing queue claims for tenant: " + tenant, e);
+            } finally {
+                TenantInfoHolder.clearCurrentTenant();
+            }
+        }
+    }
+}
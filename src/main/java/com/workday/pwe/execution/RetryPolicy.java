@@ -0,0 +1,224 @@
+package com.workday.pwe.execution;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.workday.pwe.dao.TaskGroupDefinitionDAO;
+import com.workday.pwe.dao.WorkflowInstanceDAO;
+import com.workday.pwe.enums.TaskType;
+import com.workday.pwe.model.TaskGroupDefinition;
+import com.workday.pwe.model.WorkflowInstance;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Retry policy for failed decides and tasks: a maximum number of attempts and a jittered
+ * exponential backoff between them.
+ * <p>
+ * Policies resolve from the most specific source: a "retry" object on the task parameters, then a
+ * "retry" object on the workflow definition's root group, then the default for the task type (or
+ * for decides). All retries also draw on a shared retry budget so that an outage cannot turn
+ * into a retry storm.
+ */
+public class RetryPolicy {
+
+    private static final Logger LOGGER = Logger.getLogger(RetryPolicy.class.getName());
+
+    public static final String RETRY = "retry";
+
+    private static final RetryPolicy NO_RETRY = new RetryPolicy(1, 0, 0, 1);
+    private static final RetryPolicy DECIDE_POLICY;
+    private static final Map<String, RetryPolicy> TASK_TYPE_POLICIES = new HashMap<>();
+
+    private static final double BUDGET_RATIO;
+    private static final double BUDGET_MIN_PER_SECOND;
+    private static final double BUDGET_MAX;
+
+    // Load configuration properties
+    static {
+        Properties properties = new Properties();
+        // In a real implementation, we would load from a properties file
+        // For now, we'll use default values
+        DECIDE_POLICY = new RetryPolicy(
+                Integer.parseInt(properties.getProperty("retry.decide.max.attempts", "5")),
+                Long.parseLong(properties.getProperty("retry.decide.initial.delay.ms", "1000")),
+                Long.parseLong(properties.getProperty("retry.decide.max.delay.ms", "300000")),
+                2.0);
+        TASK_TYPE_POLICIES.put(TaskType.HTTP.name(), new RetryPolicy(
+                Integer.parseInt(properties.getProperty("retry.http.max.attempts", "3")),
+                Long.parseLong(properties.getProperty("retry.http.initial.delay.ms", "2000")),
+                Long.parseLong(properties.getProperty("retry.http.max.delay.ms", "300000")),
+                2.0));
+        BUDGET_RATIO = Double.parseDouble(properties.getProperty("retry.budget.ratio", "0.2"));
+        BUDGET_MIN_PER_SECOND = Double.parseDouble(properties.getProperty("retry.budget.min.per.second", "10"));
+        BUDGET_MAX = Double.parseDouble(properties.getProperty("retry.budget.max", "1000"));
+    }
+
+    private static double budgetTokens = BUDGET_MIN_PER_SECOND;
+    private static long budgetRefilledAt = System.nanoTime();
+
+    private final int maxAttempts;
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+    private final double multiplier;
+
+    /**
+     * Constructor with all fields
+     *
+     * @param maxAttempts Total attempts including the first one
+     * @param initialDelayMs Backoff ceiling before the first retry
+     * @param maxDelayMs Upper bound of the backoff ceiling
+     * @param multiplier Growth of the ceiling per attempt
+     */
+    public RetryPolicy(int maxAttempts, long initialDelayMs, long maxDelayMs, double multiplier) {
+        this.maxAttempts = maxAttempts;
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.multiplier = multiplier;
+    }
+
+    /**
+     * Resolve the policy of a task
+     *
+     * @param connection Database connection
+     * @param taskType The task type
+     * @param taskParameters The task input parameters
+     * @param workflowInstanceId The workflow instance the task belongs to
+     * @return The retry policy
+     */
+    public static RetryPolicy forTask(Connection connection, String taskType, JsonNode taskParameters, UUID workflowInstanceId) {
+        RetryPolicy fallback = TASK_TYPE_POLICIES.getOrDefault(taskType, NO_RETRY);
+        if (taskParameters != null && taskParameters.has(RETRY)) {
+            return fromJson(taskParameters.get(RETRY), fallback);
+        }
+        return fromJson(getDefinitionRetry(connection, workflowInstanceId), fallback);
+    }
+
+    /**
+     * Resolve the policy for decides of a workflow
+     *
+     * @param connection Database connection
+     * @param workflowInstanceId The workflow instance
+     * @return The retry policy
+     */
+    public static RetryPolicy forWorkflow(Connection connection, UUID workflowInstanceId) {
+        return fromJson(getDefinitionRetry(connection, workflowInstanceId), DECIDE_POLICY);
+    }
+
+    /**
+     * Check whether another attempt is allowed and, if so, take it from the retry budget
+     *
+     * @param attemptsSoFar Number of attempts already made
+     * @return true if the caller may retry
+     */
+    public boolean allowRetry(int attemptsSoFar) {
+        return attemptsSoFar < maxAttempts && tryAcquireBudget();
+    }
+
+    /**
+     * Backoff before the next attempt: a random delay between half and all of an exponentially growing ceiling
+     *
+     * @param attemptsSoFar Number of attempts already made (at least 1)
+     * @return Delay in milliseconds
+     */
+    public long nextDelayMillis(int attemptsSoFar) {
+        double ceiling = Math.min(maxDelayMs, initialDelayMs * Math.pow(multiplier, Math.max(0, attemptsSoFar - 1)));
+        long half = (long) (ceiling / 2);
+        return half + ThreadLocalRandom.current().nextLong(Math.max(1, (long) ceiling - half + 1));
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Record a first attempt, which earns a fraction of a retry for the budget
+     */
+    public static synchronized void recordAttempt() {
+        budgetTokens = Math.min(BUDGET_MAX, budgetTokens + BUDGET_RATIO);
+    }
+
+    /**
+     * Take one retry from the budget. The budget refills by a fraction of every first attempt
+     * plus a small fixed rate, so retries stay a bounded share of the load.
+     *
+     * @return true if a retry was available
+     */
+    private static synchronized boolean tryAcquireBudget() {
+        long now = System.nanoTime();
+        budgetTokens = Math.min(BUDGET_MAX, budgetTokens + (now - budgetRefilledAt) / 1_000_000_000d * BUDGET_MIN_PER_SECOND);
+        budgetRefilledAt = now;
+        if (budgetTokens >= 1) {
+            budgetTokens -= 1;
+            return true;
+        }
+        LOGGER.warning("Retry budget exhausted");
+        return false;
+    }
+
+    /**
+     * Classify a failure as transient: deadlocks, serialization failures, lost connections and I/O errors
+     *
+     * @param error The failure
+     * @return true if the failure is worth retrying
+     */
+    public static boolean isTransient(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException || cause instanceof SQLRecoverableException
+                    || cause instanceof IOException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                String sqlState = ((SQLException) cause).getSQLState();
+                // 40xxx: transaction rollback (deadlock, serialization); 08xxx: connection exception
+                if (sqlState != null && (sqlState.startsWith("40") || sqlState.startsWith("08"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Read a policy from JSON, falling back field by field
+     */
+    private static RetryPolicy fromJson(JsonNode json, RetryPolicy fallback) {
+        if (json == null || !json.isObject()) {
+            return fallback;
+        }
+        return new RetryPolicy(
+                json.path("maxAttempts").asInt(fallback.maxAttempts),
+                json.path("initialDelayMs").asLong(fallback.initialDelayMs),
+                json.path("maxDelayMs").asLong(fallback.maxDelayMs),
+                json.path("multiplier").asDouble(fallback.multiplier));
+    }
+
+    /**
+     * Get the "retry" object of the workflow definition's root group
+     */
+    private static JsonNode getDefinitionRetry(Connection connection, UUID workflowInstanceId) {
+        try {
+            WorkflowInstance workflow = new WorkflowInstanceDAO(connection).getWorkflowInstance(workflowInstanceId);
+            if (workflow == null) {
+                return null;
+            }
+            List<TaskGroupDefinition> roots = new TaskGroupDefinitionDAO(connection).getRootTaskGroups(workflow.getWorkflowDefId());
+            return !roots.isEmpty() && roots.get(0).getParametersJson() != null
+                    ? roots.get(0).getParametersJson().get(RETRY)
+                    : null;
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error reading definition retry policy, using defaults", e);
+            return null;
+        }
+    }
+}
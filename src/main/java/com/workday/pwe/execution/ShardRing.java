@@ -0,0 +1,86 @@
+package com.workday.pwe.execution;
+
+import com.workday.pwe.dao.WorkflowExecutionQueueDAO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring assigning queue shards to cluster nodes.
+ * <p>
+ * Each node is placed on the ring at several points; a shard belongs to the first node point at or
+ * after the shard's own hash. When a node joins or leaves only the shards next to its points move,
+ * so the other nodes keep their shards and the caches that go with them. Every node builds the same
+ * ring from the same membership, so no coordination is needed beyond agreeing on who is alive.
+ */
+public class ShardRing {
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    /**
+     * Build a ring over the given nodes
+     *
+     * @param nodeIds The live node IDs
+     * @param virtualNodes Number of points per node
+     */
+    public ShardRing(List<String> nodeIds, int virtualNodes) {
+        for (String nodeId : nodeIds) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(nodeId + "#" + i), nodeId);
+            }
+        }
+    }
+
+    /**
+     * Get the node that owns a shard
+     *
+     * @param shard The shard
+     * @return The owning node ID, or null if the ring is empty
+     */
+    public String ownerOf(int shard) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash("shard#" + shard));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * Get the shards owned by a node
+     *
+     * @param nodeId The node ID
+     * @return The owned shards in ascending order
+     */
+    public int[] shardsOwnedBy(String nodeId) {
+        List<Integer> owned = new ArrayList<>();
+        for (int shard = 0; shard < WorkflowExecutionQueueDAO.SHARD_COUNT; shard++) {
+            if (nodeId.equals(ownerOf(shard))) {
+                owned.add(shard);
+            }
+        }
+        return owned.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 64-bit FNV-1a followed by a murmur finalizer, so every node computes the same, evenly spread ring
+     *
+     * @param key The key
+     * @return The hash
+     */
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,424 @@
+package com.workday.pwe.execution;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.workday.pwe.dao.TaskInstanceDAO;
+import com.workday.pwe.dao.WorkflowExecutionQueueDAO;
+import com.workday.pwe.enums.TaskStatus;
+import com.workday.pwe.handler.TaskHandler;
+import com.workday.pwe.model.TaskInstance;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drives task due dates: expiry at the due date and optional escalation before it.
+ * Tasks with a timer within the next horizon are loaded per tenant through the index on their first
+ * timer, the earlier of due_date and escalate_at, into an in-memory {@link TimingWheel}; fired timers
+ * are applied in batches, one statement per batch.
+ * Due date changes are pushed in through {@link #onDueDateChanged(String, TaskInstance)}.
+ * <p>
+ * Escalation is configured on the task parameters as
+ * {@code "escalation": {"leadMinutes": 60, "assignee": "manager"}} and reassigns the task
+ * {@code leadMinutes} before it is due. A task is escalated once; the time is kept on the task so
+ * later reloads leave it alone.
+ * <p>
+ * When started by the sweeper, each node only loads and fires the timers of tasks whose workflow is
+ * in one of the queue shards it owns, and reloads when its shards change. A due date change pushed
+ * on a node that does not own the workflow is picked up by the owner's next reload.
+ */
+public class TaskTimerService {
+
+    private static final Logger LOGGER = Logger.getLogger(TaskTimerService.class.getName());
+
+    private static final int TICK_MS;
+    private static final int WHEEL_SIZE;
+    private static final int WHEEL_LEVELS;
+    private static final int HORIZON_MINUTES;
+    private static final int BATCH_SIZE;
+
+    // Load configuration properties
+    static {
+        Properties properties = new Properties();
+        // In a real implementation, we would load from a properties file
+        // For now, we'll use default values
+        TICK_MS = Integer.parseInt(properties.getProperty("timer.tick.ms", "1000"));
+        WHEEL_SIZE = Integer.parseInt(properties.getProperty("timer.wheel.size", "60"));
+        WHEEL_LEVELS = Integer.parseInt(properties.getProperty("timer.wheel.levels", "3"));
+        HORIZON_MINUTES = Integer.parseInt(properties.getProperty("timer.horizon.minutes", "60"));
+        BATCH_SIZE = Integer.parseInt(properties.getProperty("timer.batch.size", "500"));
+    }
+
+    private final TimingWheel<TimerKey> wheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+    private final Map<TimerKey, String> escalationAssignees = new ConcurrentHashMap<>();
+    private final APMultiTenantDatasource dataSource;
+    private final ScheduledExecutorService scheduler;
+    private volatile ClusterMembership membership;
+    // Per tenant, the owned shards the wheel was last loaded for; only used on the timer thread
+    private final Map<String, int[]> loadedShards = new HashMap<>();
+    private volatile long loadedUntil;
+    private boolean isRunning = false;
+
+    /**
+     * Private constructor for singleton pattern
+     */
+    private TaskTimerService() {
+        this.dataSource = new APMultiTenantDatasource();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "task-timer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Singleton instance holder
+     */
+    private static class InstanceHolder {
+        static final TaskTimerService INSTANCE = new TaskTimerService();
+    }
+
+    /**
+     * Get the singleton instance
+     *
+     * @return The singleton instance
+     */
+    public static TaskTimerService getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Load the first horizon and start turning the wheel, firing the timers of every task
+     */
+    public void init() {
+        init(null);
+    }
+
+    /**
+     * Load the first horizon and start turning the wheel, firing only the timers of tasks in the
+     * shards this node owns
+     *
+     * @param membership The cluster membership that decides shard ownership, or null for all shards
+     */
+    synchronized void init(ClusterMembership membership) {
+        if (isRunning) {
+            LOGGER.warning("TaskTimerService is already running");
+            return;
+        }
+
+        LOGGER.info("Starting TaskTimerService with a " + HORIZON_MINUTES + " minute horizon");
+
+        this.membership = membership;
+        long horizonMs = TimeUnit.MINUTES.toMillis(HORIZON_MINUTES);
+        scheduler.scheduleAtFixedRate(this::reload, 0, horizonMs / 2, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                if (shardsChanged()) {
+                    // Load the timers of shards taken over from other nodes right away
+                    reload();
+                }
+                fire(wheel.advanceTo(System.currentTimeMillis()));
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error in TaskTimerService tick", e);
+            }
+        }, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+
+        isRunning = true;
+    }
+
+    /**
+     * Stop the timer service
+     */
+    public synchronized void shutdown() {
+        if (!isRunning) {
+            LOGGER.warning("TaskTimerService is not running");
+            return;
+        }
+
+        LOGGER.info("Shutting down TaskTimerService");
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.SEVERE, "Interrupted while shutting down timer service", e);
+        }
+        isRunning = false;
+    }
+
+    /**
+     * Reschedule the timers of a task after its due date was set or changed
+     *
+     * @param tenant The tenant the task belongs to
+     * @param taskInstance The task instance with its new due date
+     */
+    public void onDueDateChanged(String tenant, TaskInstance taskInstance) {
+        TimerKey expiry = new TimerKey(tenant, taskInstance, false);
+        TimerKey escalation = new TimerKey(tenant, taskInstance, true);
+
+        if (taskInstance.getDueDate() == null || firstTimerMillis(taskInstance) > loadedUntil
+                || !owns(tenant, taskInstance.getWorkflowInstanceId())) {
+            // Outside the loaded horizon; a later reload picks it up
+            wheel.cancel(expiry);
+            wheel.cancel(escalation);
+            escalationAssignees.remove(escalation);
+            return;
+        }
+        schedule(tenant, taskInstance);
+    }
+
+    /**
+     * @return Number of pending timers
+     */
+    public int getPendingTimerCount() {
+        return wheel.size();
+    }
+
+    /**
+     * Load every active task with a timer within the next horizon, for all tenants
+     */
+    private void reload() {
+        long until = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(HORIZON_MINUTES);
+
+        for (String tenant : TenantInfoHolder.getTenants()) {
+            TenantInfoHolder.setCurrentTenant(tenant);
+            try (Connection connection = dataSource.getConnection()) {
+                int[] shards = ownedShards(tenant);
+                loadedShards.put(tenant, shards);
+                List<TaskInstance> due = new TaskInstanceDAO(connection).getTasksDueBefore(new Timestamp(until), shards);
+                for (TaskInstance task : due) {
+                    schedule(tenant, task);
+                }
+                LOGGER.info("Loaded " + due.size() + " task timers for tenant: " + tenant);
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error loading task timers for tenant: " + tenant, e);
+            } finally {
+                TenantInfoHolder.clearCurrentTenant();
+            }
+        }
+        loadedUntil = until;
+    }
+
+    /**
+     * Put the expiry timer and, if configured, the escalation timer of a task on the wheel
+     *
+     * @param tenant The tenant the task belongs to
+     * @param task The task instance
+     */
+    private void schedule(String tenant, TaskInstance task) {
+        wheel.schedule(new TimerKey(tenant, task, false), toMillis(task));
+
+        Long escalationMillis = escalationMillis(task);
+        TimerKey escalationKey = new TimerKey(tenant, task, true);
+        if (escalationMillis != null) {
+            escalationAssignees.put(escalationKey, task.getInputJson().get("escalation").get("assignee").asText());
+            wheel.schedule(escalationKey, escalationMillis);
+        } else {
+            wheel.cancel(escalationKey);
+            escalationAssignees.remove(escalationKey);
+        }
+    }
+
+    /**
+     * Apply fired timers, grouped by tenant
+     *
+     * @param fired Keys of the fired timers
+     */
+    private void fire(List<TimerKey> fired) {
+        if (fired.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<TimerKey>> byTenant = new LinkedHashMap<>();
+        for (TimerKey key : fired) {
+            if (!owns(key.tenant, key.workflowInstanceId)) {
+                // The shard moved to another node, which loads the timer itself
+                escalationAssignees.remove(key);
+                continue;
+            }
+            byTenant.computeIfAbsent(key.tenant, t -> new ArrayList<>()).add(key);
+        }
+
+        for (Map.Entry<String, List<TimerKey>> entry : byTenant.entrySet()) {
+            String tenant = entry.getKey();
+            TenantInfoHolder.setCurrentTenant(tenant);
+            try (Connection connection = dataSource.getConnection()) {
+                List<TimerKey> keys = entry.getValue();
+                for (int start = 0; start < keys.size(); start += BATCH_SIZE) {
+                    fireBatch(connection, keys.subList(start, Math.min(keys.size(), start + BATCH_SIZE)));
+                }
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error firing task timers for tenant: " + tenant, e);
+            } finally {
+                TenantInfoHolder.clearCurrentTenant();
+            }
+        }
+    }
+
+    /**
+     * Apply one batch of fired timers for a tenant: one reassignment batch and one expiry statement
+     *
+     * @param connection Database connection for the tenant
+     * @param keys The fired timers
+     * @throws Exception If a database error occurs
+     */
+    private void fireBatch(Connection connection, List<TimerKey> keys) throws Exception {
+        TaskInstanceDAO taskDAO = new TaskInstanceDAO(connection);
+
+        Map<UUID, String> escalations = new HashMap<>();
+        List<UUID> expiries = new ArrayList<>();
+        for (TimerKey key : keys) {
+            if (key.escalation) {
+                String assignee = escalationAssignees.remove(key);
+                if (assignee != null) {
+                    escalations.put(key.taskId, assignee);
+                }
+            } else {
+                expiries.add(key.taskId);
+            }
+        }
+
+        if (!escalations.isEmpty()) {
+            int escalated = taskDAO.escalateTasks(escalations);
+            LOGGER.info("Escalated " + escalated + " tasks");
+        }
+
+        List<TaskInstance> expired = taskDAO.expireTasks(expiries);
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        Set<String> workflowIds = new LinkedHashSet<>();
+        for (TaskInstance task : expired) {
+            workflowIds.add(task.getWorkflowInstanceId().toString());
+            if (task.getStatus() == TaskStatus.IN_PROGRESS) {
+                // Let stateful handlers abandon external work
+                TaskHandler.cancel(connection, task);
+            }
+        }
+        ExecutionQueuingInterceptor.queueForStateManagement(connection, new ArrayList<>(workflowIds));
+        LOGGER.info("Expired " + expired.size() + " tasks across " + workflowIds.size() + " workflows");
+    }
+
+    /**
+     * Get the shards of a tenant whose timers this node fires
+     *
+     * @param tenant The tenant
+     * @return The owned shards, or null for all shards
+     */
+    private int[] ownedShards(String tenant) {
+        return membership != null ? membership.getOwnedShards(tenant) : null;
+    }
+
+    /**
+     * Check whether this node fires the timers of a workflow's tasks
+     *
+     * @param tenant The tenant
+     * @param workflowInstanceId The workflow instance ID
+     * @return true if the workflow's shard is owned by this node
+     */
+    private boolean owns(String tenant, UUID workflowInstanceId) {
+        int[] shards = ownedShards(tenant);
+        return shards == null || Arrays.binarySearch(shards, WorkflowExecutionQueueDAO.shardOf(workflowInstanceId)) >= 0;
+    }
+
+    /**
+     * Check whether any tenant's owned shards changed since the wheel was loaded
+     *
+     * @return true if a reload is needed
+     */
+    private boolean shardsChanged() {
+        if (membership == null) {
+            return false;
+        }
+        for (Map.Entry<String, int[]> entry : loadedShards.entrySet()) {
+            if (!Arrays.equals(entry.getValue(), membership.getOwnedShards(entry.getKey()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long toMillis(TaskInstance task) {
+        return task.getDueDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Get when the pending escalation of a task fires, as the escalate_at column computes it
+     *
+     * @param task The task instance
+     * @return The escalation time, or null if the task has no pending escalation
+     */
+    private static Long escalationMillis(TaskInstance task) {
+        JsonNode escalation = task.getInputJson() != null ? task.getInputJson().get("escalation") : null;
+        if (escalation == null || !escalation.hasNonNull("assignee") || task.getEscalatedAt() != null) {
+            return null;
+        }
+        JsonNode leadMinutes = escalation.path("leadMinutes");
+        return toMillis(task) - TimeUnit.MINUTES.toMillis(leadMinutes.isNumber() ? leadMinutes.asLong() : 0);
+    }
+
+    /**
+     * Get when the first timer of a task fires
+     *
+     * @param task The task instance
+     * @return The earlier of its escalation and its due date
+     */
+    private static long firstTimerMillis(TaskInstance task) {
+        Long escalationMillis = escalationMillis(task);
+        return escalationMillis != null ? Math.min(escalationMillis, toMillis(task)) : toMillis(task);
+    }
+
+    /**
+     * Identity of a timer: one expiry and at most one escalation timer per task
+     */
+    private static class TimerKey {
+        private final String tenant;
+        private final UUID taskId;
+        private final UUID workflowInstanceId; // decides the shard, not part of the identity
+        private final boolean escalation;
+
+        TimerKey(String tenant, TaskInstance task, boolean escalation) {
+            this.tenant = tenant;
+            this.taskId = task.getId();
+            this.workflowInstanceId = task.getWorkflowInstanceId();
+            this.escalation = escalation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TimerKey)) {
+                return false;
+            }
+            TimerKey other = (TimerKey) o;
+            return escalation == other.escalation && taskId.equals(other.taskId) && Objects.equals(tenant, other.tenant);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenant, taskId, escalation);
+        }
+    }
+}
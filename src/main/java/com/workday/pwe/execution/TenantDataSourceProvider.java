@@ -0,0 +1,40 @@
+package com.workday.pwe.execution;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Service provider interface through which the engine's background services (sweeper, recovery,
+ * timers, scheduler and asynchronous completions) obtain tenant connections.
+ * <p>
+ * A host application registers its implementation with {@link TenantDataSources#setProvider} or
+ * through {@link java.util.ServiceLoader} (META-INF/services). Connections are closed by the engine
+ * as soon as a unit of work is done, so an implementation that does not pool should be wrapped in a
+ * {@link PooledTenantDataSourceProvider}.
+ */
+public interface TenantDataSourceProvider {
+
+    /**
+     * Get a connection to a tenant's database
+     *
+     * @param tenant The tenant
+     * @return An open connection; closing it releases it
+     * @throws SQLException If no connection can be obtained
+     */
+    Connection getConnection(String tenant) throws SQLException;
+
+    /**
+     * Whether the connections handed out are already pooled, so they need no pool of the engine's own
+     *
+     * @return true if pooled, false otherwise
+     */
+    default boolean isPooled() {
+        return false;
+    }
+
+    /**
+     * Release the provider's resources on shutdown
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,82 @@
+package com.workday.pwe.execution;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+import java.util.logging.Logger;
+
+/**
+ * Holds the {@link TenantDataSourceProvider} the engine draws connections from.
+ * <p>
+ * Unless the host sets one, the first provider found through {@link ServiceLoader} is used, falling
+ * back to {@link DriverManagerTenantDataSourceProvider}. Providers that do not pool are wrapped in a
+ * {@link PooledTenantDataSourceProvider}.
+ */
+public final class TenantDataSources {
+
+    private static final Logger LOGGER = Logger.getLogger(TenantDataSources.class.getName());
+
+    private static volatile TenantDataSourceProvider provider;
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private TenantDataSources() {
+        // Do not instantiate
+    }
+
+    /**
+     * Get the provider, loading the default one on first use
+     *
+     * @return The provider
+     */
+    public static TenantDataSourceProvider getProvider() {
+        TenantDataSourceProvider current = provider;
+        if (current == null) {
+            synchronized (TenantDataSources.class) {
+                if (provider == null) {
+                    provider = pooled(loadProvider());
+                }
+                current = provider;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Set the provider, closing the previous one. Unpooled providers are pooled.
+     *
+     * @param newProvider The provider
+     */
+    public static synchronized void setProvider(TenantDataSourceProvider newProvider) {
+        TenantDataSourceProvider previous = provider;
+        provider = pooled(newProvider);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Close the provider, e.g. on host shutdown
+     */
+    public static synchronized void close() {
+        if (provider != null) {
+            provider.close();
+            provider = null;
+        }
+    }
+
+    private static TenantDataSourceProvider loadProvider() {
+        Iterator<TenantDataSourceProvider> providers = ServiceLoader.load(TenantDataSourceProvider.class).iterator();
+        if (providers.hasNext()) {
+            TenantDataSourceProvider loaded = providers.next();
+            LOGGER.info("Using tenant data source provider " + loaded.getClass().getName());
+            return loaded;
+        }
+        LOGGER.info("No tenant data source provider registered, using DriverManager");
+        return new DriverManagerTenantDataSourceProvider();
+    }
+
+    private static TenantDataSourceProvider pooled(TenantDataSourceProvider provider) {
+        return provider.isPooled() ? provider : new PooledTenantDataSourceProvider(provider);
+    }
+}
@@ -0,0 +1,27 @@
+package com.workday.pwe.execution;
+
+import java.util.List;
+
+/**
+ * This is a placeholder for the tenant information holder.
+ * In a real implementation, this would be provided by the host application.
+ */
+class TenantInfoHolder {
+    private static final ThreadLocal<String> CURRENT_TENANT = new ThreadLocal<>();
+    
+    public static List<String> getTenants() {
+        return List.of("tenant1", "tenant2"); // In a real implementation, this would return the actual tenants
+    }
+    
+    public static void setCurrentTenant(String tenant) {
+        CURRENT_TENANT.set(tenant); // In a real implementation, this would also switch the tenant context
+    }
+    
+    public static String getCurrentTenant() {
+        return CURRENT_TENANT.get();
+    }
+    
+    public static void clearCurrentTenant() {
+        CURRENT_TENANT.remove();
+    }
+}
@@ -0,0 +1,183 @@
+package com.workday.pwe.execution;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel. Level 0 has one slot per tick; each higher level has slots as wide as a
+ * full revolution of the level below. Timers far in the future sit in a coarse slot and cascade down
+ * as the wheel turns, so scheduling, rescheduling and cancelling are O(1) and advancing costs
+ * O(levels) per tick plus the timers that actually fire.
+ * Rescheduled or cancelled timers are discarded lazily when their old slot is reached.
+ *
+ * @param <K> The timer key type
+ */
+public class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] slotTicks;
+    private final List<List<List<Timer<K>>>> levels = new ArrayList<>();
+    private final Map<K, Long> deadlines = new HashMap<>();
+    private final List<Timer<K>> overdue = new ArrayList<>();
+    private long currentTick;
+
+    /**
+     * Constructor with wheel geometry
+     *
+     * @param tickMillis Duration of one level-0 slot
+     * @param wheelSize Number of slots per level
+     * @param levelCount Number of levels; the wheel spans tickMillis * wheelSize^levelCount
+     * @param startMillis The current time
+     */
+    public TimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.slotTicks = new long[levelCount];
+        this.currentTick = startMillis / tickMillis;
+
+        long width = 1;
+        for (int level = 0; level < levelCount; level++) {
+            slotTicks[level] = width;
+            width *= wheelSize;
+
+            List<List<Timer<K>>> slots = new ArrayList<>(wheelSize);
+            for (int slot = 0; slot < wheelSize; slot++) {
+                slots.add(new ArrayList<>());
+            }
+            levels.add(slots);
+        }
+    }
+
+    /**
+     * @return The furthest time from now that the wheel can hold
+     */
+    public long getSpanMillis() {
+        return slotTicks[slotTicks.length - 1] * wheelSize * tickMillis;
+    }
+
+    /**
+     * Schedule or reschedule a timer
+     *
+     * @param key The timer key; an existing timer with the same key is replaced
+     * @param deadlineMillis When the timer fires
+     * @return false if the deadline is beyond the span of the wheel and was not scheduled
+     */
+    public synchronized boolean schedule(K key, long deadlineMillis) {
+        Long existing = deadlines.get(key);
+        if (existing != null && existing == deadlineMillis) {
+            return true;
+        }
+        if (toTick(deadlineMillis) - currentTick >= slotTicks[slotTicks.length - 1] * wheelSize) {
+            deadlines.remove(key);
+            return false;
+        }
+        deadlines.put(key, deadlineMillis);
+        insert(new Timer<>(key, deadlineMillis, toTick(deadlineMillis)));
+        return true;
+    }
+
+    /**
+     * Cancel a timer
+     *
+     * @param key The timer key
+     */
+    public synchronized void cancel(K key) {
+        deadlines.remove(key);
+    }
+
+    /**
+     * @return Number of live timers
+     */
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Turn the wheel up to a point in time and collect every timer that fired
+     *
+     * @param nowMillis The current time
+     * @return Keys of the timers that fired, in deadline order per tick
+     */
+    public synchronized List<K> advanceTo(long nowMillis) {
+        List<K> fired = new ArrayList<>();
+        drain(overdue, fired);
+
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            // Cascade coarse slots whose window starts now, highest level first
+            for (int level = levels.size() - 1; level > 0; level--) {
+                if (currentTick % slotTicks[level] == 0) {
+                    List<Timer<K>> slot = slotFor(level, currentTick);
+                    List<Timer<K>> cascading = new ArrayList<>(slot);
+                    slot.clear();
+                    for (Timer<K> timer : cascading) {
+                        insert(timer);
+                    }
+                }
+            }
+
+            drain(slotFor(0, currentTick), fired);
+            drain(overdue, fired);
+        }
+        return fired;
+    }
+
+    private void insert(Timer<K> timer) {
+        long delta = timer.deadlineTick - currentTick;
+        if (delta <= 0) {
+            overdue.add(timer);
+            return;
+        }
+        for (int level = 0; level < levels.size(); level++) {
+            if (delta < slotTicks[level] * wheelSize) {
+                slotFor(level, timer.deadlineTick).add(timer);
+                return;
+            }
+        }
+        // Callers check the span; keep the timer at the coarsest level rather than lose it
+        slotFor(levels.size() - 1, timer.deadlineTick).add(timer);
+    }
+
+    /**
+     * Round a deadline up to a tick so that timers never fire early
+     */
+    private long toTick(long timeMillis) {
+        return (timeMillis + tickMillis - 1) / tickMillis;
+    }
+
+    private List<Timer<K>> slotFor(int level, long tick) {
+        return levels.get(level).get((int) ((tick / slotTicks[level]) % wheelSize));
+    }
+
+    private void drain(List<Timer<K>> slot, List<K> fired) {
+        for (Timer<K> timer : slot) {
+            Long deadline = deadlines.get(timer.key);
+            // Skip timers that were cancelled or rescheduled since they were inserted
+            if (deadline != null && deadline == timer.deadlineMillis) {
+                deadlines.remove(timer.key);
+                fired.add(timer.key);
+            }
+        }
+        slot.clear();
+    }
+
+    /**
+     * A scheduled timer
+     */
+    private static class Timer<K> {
+        private final K key;
+        private final long deadlineMillis;
+        private final long deadlineTick;
+
+        Timer(K key, long deadlineMillis, long deadlineTick) {
+            this.key = key;
+            this.deadlineMillis = deadlineMillis;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
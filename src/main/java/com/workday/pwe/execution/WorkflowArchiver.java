@@ -0,0 +1,272 @@
+package com.workday.pwe.execution;
+
+import com.workday.pwe.dao.WorkflowHistoryDAO;
+import com.workday.pwe.dao.WorkflowInstanceDAO;
+import com.workday.pwe.handler.HttpSpillStore;
+
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Moves finished workflows and old history out of the live tables.
+ * <p>
+ * Every archive interval it moves, for each tenant, the workflows that finished more than the
+ * retention window ago into the archive tables, together with their task groups, tasks and
+ * history, so the live tables and their indexes only hold running and recently finished work.
+ * Workflows are moved in small batches, one statement each, pausing between batches so the
+ * archiver never holds many locks or competes with decides for long. Every node runs it; batches
+ * skip rows another node is moving.
+ * <p>
+ * History of workflows that are still live is moved on its own once it is older than the history
+ * retention window, in chunks that resume from a cursor kept in the database. History is moved no
+ * faster than the configured rate, and progress is logged while a long pass runs.
+ * <p>
+ * Finally the spilled HTTP response bodies of workflows that are no longer in the live tables are
+ * deleted from the spill store.
+ */
+class WorkflowArchiver {
+
+    private static final Logger LOGGER = Logger.getLogger(WorkflowArchiver.class.getName());
+
+    private static final int RETENTION_DAYS;
+    private static final int BATCH_SIZE;
+    private static final int BATCH_PAUSE_MS;
+    private static final int INTERVAL_MS;
+    private static final int HISTORY_RETENTION_DAYS;
+    private static final int HISTORY_CHUNK_SIZE;
+    private static final int HISTORY_ROWS_PER_SECOND;
+    private static final int PROGRESS_INTERVAL_MS;
+
+    // Load configuration properties
+    static {
+        Properties properties = new Properties();
+        // In a real implementation, we would load from a properties file
+        // For now, we'll use default values
+        RETENTION_DAYS = Integer.parseInt(properties.getProperty("archive.retention.days", "30"));
+        BATCH_SIZE = Integer.parseInt(properties.getProperty("archive.batch.size", "100"));
+        BATCH_PAUSE_MS = Integer.parseInt(properties.getProperty("archive.batch.pause.ms", "500"));
+        INTERVAL_MS = Integer.parseInt(properties.getProperty("archive.interval.ms", "3600000"));
+        HISTORY_RETENTION_DAYS = Integer.parseInt(properties.getProperty("archive.history.retention.days", "90"));
+        HISTORY_CHUNK_SIZE = Integer.parseInt(properties.getProperty("archive.history.chunk.size", "1000"));
+        HISTORY_ROWS_PER_SECOND = Integer.parseInt(properties.getProperty("archive.history.rows.per.second", "2000"));
+        PROGRESS_INTERVAL_MS = Integer.parseInt(properties.getProperty("archive.progress.interval.ms", "60000"));
+    }
+
+    private final APMultiTenantDatasource dataSource;
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean stopped = false;
+
+    /**
+     * Constructor with the datasource to archive through
+     *
+     * @param dataSource The multi-tenant datasource
+     */
+    WorkflowArchiver(APMultiTenantDatasource dataSource) {
+        this.dataSource = dataSource;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "workflow-archiver");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Start archiving periodically
+     */
+    void start() {
+        scheduler.scheduleWithFixedDelay(this::runPass, INTERVAL_MS, INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop archiving; the batch being moved finishes
+     *
+     * @param timeoutMs How long to wait for the current batch
+     */
+    void stop(long timeoutMs) {
+        stopped = true;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.SEVERE, "Interrupted while stopping workflow archiver", e);
+        }
+    }
+
+    /**
+     * Archive every tenant's workflows and history that are past their retention windows
+     */
+    private void runPass() {
+        LocalDateTime now = LocalDateTime.now();
+        for (String tenant : TenantInfoHolder.getTenants()) {
+            if (stopped) {
+                break;
+            }
+            if (!createPartitions(tenant, now)) {
+                continue;
+            }
+            int archived = archiveTenant(tenant, now.minusDays(RETENTION_DAYS));
+            if (archived > 0) {
+                LOGGER.info("Archived " + archived + " workflows for tenant: " + tenant);
+            }
+            archiveHistory(tenant, now.minusDays(HISTORY_RETENTION_DAYS));
+            deleteSpilledBodies(tenant);
+        }
+    }
+
+    /**
+     * Create the history archive partitions both kinds of move can write to
+     *
+     * @param tenant The tenant
+     * @param now The start of the pass
+     * @return true if the partitions exist, false if creating them failed
+     */
+    private boolean createPartitions(String tenant, LocalDateTime now) {
+        TenantInfoHolder.setCurrentTenant(tenant);
+        try (Connection connection = dataSource.getConnection()) {
+            // Through next month, so history written while the pass runs into a new month has a partition
+            new WorkflowHistoryDAO(connection).createArchivePartitions(now.plusMonths(1));
+            return true;
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error creating history archive partitions for tenant: " + tenant, e);
+            return false;
+        } finally {
+            TenantInfoHolder.clearCurrentTenant();
+        }
+    }
+
+    /**
+     * Move a tenant's old workflows batch by batch until a batch comes back short
+     *
+     * @param tenant The tenant
+     * @param olderThan The end time before which to archive workflows
+     * @return Number of workflows archived
+     */
+    private int archiveTenant(String tenant, LocalDateTime olderThan) {
+        int archived = 0;
+        int moved = BATCH_SIZE;
+        while (!stopped && moved == BATCH_SIZE) {
+            TenantInfoHolder.setCurrentTenant(tenant);
+            try (Connection connection = dataSource.getConnection()) {
+                moved = new WorkflowInstanceDAO(connection).archiveOldWorkflows(olderThan, BATCH_SIZE);
+                archived += moved;
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error archiving workflows for tenant: " + tenant, e);
+                break;
+            } finally {
+                TenantInfoHolder.clearCurrentTenant();
+            }
+            if (moved == BATCH_SIZE) {
+                pause();
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Move a tenant's old history chunk by chunk until a chunk comes back short, sleeping as needed
+     * to stay under the configured rate
+     *
+     * @param tenant The tenant
+     * @param olderThan The time before which to archive history
+     * @return Number of history records archived
+     */
+    private int archiveHistory(String tenant, LocalDateTime olderThan) {
+        long startedAt = System.currentTimeMillis();
+        long lastReport = startedAt;
+        int archived = 0;
+        int moved = HISTORY_CHUNK_SIZE;
+        while (!stopped && moved == HISTORY_CHUNK_SIZE) {
+            TenantInfoHolder.setCurrentTenant(tenant);
+            try (Connection connection = dataSource.getConnection()) {
+                moved = new WorkflowHistoryDAO(connection).archiveOldHistory(olderThan, HISTORY_CHUNK_SIZE);
+                archived += moved;
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error archiving history for tenant: " + tenant, e);
+                break;
+            } finally {
+                TenantInfoHolder.clearCurrentTenant();
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - lastReport >= PROGRESS_INTERVAL_MS) {
+                LOGGER.info("Archiving history for tenant: " + tenant + ", " + archived + " records moved at "
+                            + rate(archived, now - startedAt) + " records/s");
+                lastReport = now;
+            }
+            if (moved == HISTORY_CHUNK_SIZE) {
+                // Time the records moved so far should have taken at the configured rate
+                long due = startedAt + archived * 1000L / HISTORY_ROWS_PER_SECOND;
+                sleep(due - now);
+            }
+        }
+        if (archived > 0) {
+            LOGGER.info("Archived " + archived + " history records for tenant: " + tenant + " at "
+                        + rate(archived, System.currentTimeMillis() - startedAt) + " records/s");
+        }
+        return archived;
+    }
+
+    /**
+     * Delete the spilled HTTP response bodies of a tenant's archived workflows, a batch of workflows
+     * at a time
+     *
+     * @param tenant The tenant
+     */
+    private void deleteSpilledBodies(String tenant) {
+        int deleted = 0;
+        try {
+            List<UUID> workflowIds = HttpSpillStore.getWorkflowIds(tenant);
+            for (int start = 0; !stopped && start < workflowIds.size(); start += BATCH_SIZE) {
+                List<UUID> batch = workflowIds.subList(start, Math.min(workflowIds.size(), start + BATCH_SIZE));
+                Set<UUID> live;
+                TenantInfoHolder.setCurrentTenant(tenant);
+                try (Connection connection = dataSource.getConnection()) {
+                    live = new WorkflowInstanceDAO(connection).getLiveWorkflowIds(batch);
+                } finally {
+                    TenantInfoHolder.clearCurrentTenant();
+                }
+                for (UUID workflowId : batch) {
+                    if (!live.contains(workflowId)) {
+                        HttpSpillStore.deleteWorkflow(tenant, workflowId);
+                        deleted++;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error deleting spilled HTTP bodies for tenant: " + tenant, e);
+        }
+        if (deleted > 0) {
+            LOGGER.info("Deleted spilled HTTP bodies of " + deleted + " archived workflows for tenant: " + tenant);
+        }
+    }
+
+    private static long rate(int records, long elapsedMs) {
+        return records * 1000L / Math.max(1, elapsedMs);
+    }
+
+    private void pause() {
+        sleep(BATCH_PAUSE_MS);
+    }
+
+    private void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package com.workday.pwe.execution;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.workday.pwe.enums.CompletionCriteria;
+import com.workday.pwe.enums.TaskGroupType;
+import com.workday.pwe.enums.TaskType;
+import com.workday.pwe.handler.TaskHandlerRegistry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Validates JSON workflow definitions in a single streaming pass.
+ * Results are cached by content hash so re-submitting an unchanged definition is free.
+ */
+public class WorkflowDefinitionValidator {
+
+    private static final Logger LOGGER = Logger.getLogger(WorkflowDefinitionValidator.class.getName());
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final int MAX_CACHE_ENTRIES = 256;
+    private static final int MAX_NESTING_DEPTH = 64;
+
+    // Compiled rule tables, built once
+    private static final Set<String> TASK_TYPES = new HashSet<>();
+    private static final Set<String> GROUP_TYPES = new HashSet<>();
+    private static final Set<String> COMPLETION_CRITERIA = new HashSet<>();
+
+    static {
+        for (TaskType taskType : TaskType.values()) {
+            TASK_TYPES.add(taskType.name());
+        }
+        for (TaskGroupType groupType : TaskGroupType.values()) {
+            GROUP_TYPES.add(groupType.name().replace("_", ""));
+        }
+        for (CompletionCriteria criteria : CompletionCriteria.values()) {
+            COMPLETION_CRITERIA.add(criteria.name());
+        }
+    }
+
+    private static final Map<String, ValidationResult> RESULT_CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<String, ValidationResult>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ValidationResult> eldest) {
+                    return size() > MAX_CACHE_ENTRIES;
+                }
+            });
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private WorkflowDefinitionValidator() {
+        // Do not instantiate
+    }
+
+    /**
+     * Validate a JSON workflow definition, using the cached result when the content is unchanged
+     *
+     * @param jsonDefinition The JSON workflow definition
+     * @return The validation result
+     */
+    public static ValidationResult validate(String jsonDefinition) {
+        if (jsonDefinition == null || jsonDefinition.isEmpty()) {
+            return new ValidationResult(Collections.singletonList("Workflow definition is empty"));
+        }
+
+        String contentHash = hash(jsonDefinition);
+        ValidationResult cached = RESULT_CACHE.get(contentHash);
+        if (cached != null) {
+            return cached;
+        }
+
+        ValidationResult result = compile(jsonDefinition);
+        RESULT_CACHE.put(contentHash, result);
+
+        if (!result.isValid()) {
+            LOGGER.info("Workflow definition failed validation: " + result.getErrors());
+        }
+        return result;
+    }
+
+    /**
+     * Discard all cached results, e.g. after the set of registered task handlers changes
+     */
+    public static void invalidateCache() {
+        RESULT_CACHE.clear();
+    }
+
+    /**
+     * Walk the definition token by token and collect all rule violations
+     *
+     * @param jsonDefinition The JSON workflow definition
+     * @return The validation result
+     */
+    private static ValidationResult compile(String jsonDefinition) {
+        List<String> errors = new ArrayList<>();
+        Set<String> nodeIds = new HashSet<>();
+
+        try (JsonParser parser = JSON_FACTORY.createParser(jsonDefinition)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                errors.add("Workflow definition root must be a JSON object");
+            } else {
+                NodeSummary root = readNode(parser, 0, nodeIds, errors);
+                if (!"group".equals(root.type)) {
+                    errors.add("Workflow definition root must be a group");
+                }
+                validateDependencies(Collections.singletonList(root), errors);
+                if (parser.nextToken() != null) {
+                    errors.add("Unexpected content after workflow definition root");
+                }
+            }
+        } catch (JsonProcessingException e) {
+            errors.add("Malformed workflow definition JSON: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            errors.add("Error reading workflow definition: " + e.getMessage());
+        }
+
+        return new ValidationResult(errors);
+    }
+
+    /**
+     * Read one node (the parser is positioned on its START_OBJECT) and validate it
+     *
+     * @param parser The streaming parser
+     * @param depth Nesting depth of the node
+     * @param nodeIds Node IDs seen so far
+     * @param errors Collected validation errors
+     * @return Summary of the node
+     * @throws IOException If the JSON cannot be read
+     */
+    private static NodeSummary readNode(JsonParser parser, int depth, Set<String> nodeIds,
+                                        List<String> errors) throws IOException {
+        NodeSummary node = new NodeSummary();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+
+            switch (fieldName) {
+                case "id":
+                    node.id = readString(parser, fieldName, errors);
+                    break;
+                case "type":
+                    node.type = readString(parser, fieldName, errors);
+                    break;
+                case "taskType":
+                    node.taskType = readString(parser, fieldName, errors);
+                    break;
+                case "groupType":
+                    node.groupType = readString(parser, fieldName, errors);
+                    break;
+                case "completionCriteria":
+                    node.completionCriteria = readString(parser, fieldName, errors);
+                    break;
+                case "items":
+                    node.items = readString(parser, fieldName, errors);
+                    break;
+                case "workflow":
+                    node.workflow = readString(parser, fieldName, errors);
+                    break;
+                case "dependsOn":
+                    if (valueToken == JsonToken.VALUE_STRING) {
+                        node.dependsOn.add(parser.getText());
+                    } else if (valueToken == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                                node.dependsOn.add(parser.getText());
+                            } else {
+                                errors.add("dependsOn entries must be node ids");
+                                parser.skipChildren();
+                            }
+                        }
+                    } else {
+                        errors.add("dependsOn must be a node id or an array of node ids");
+                        parser.skipChildren();
+                    }
+                    break;
+                case "minCompletion":
+                    node.minCompletion = valueToken == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : null;
+                    if (node.minCompletion == null) {
+                        errors.add("minCompletion must be an integer");
+                        parser.skipChildren();
+                    }
+                    break;
+                case "children":
+                    if (valueToken != JsonToken.START_ARRAY) {
+                        errors.add("children must be an array");
+                        parser.skipChildren();
+                        break;
+                    }
+                    if (depth + 1 > MAX_NESTING_DEPTH) {
+                        errors.add("Definition exceeds maximum nesting depth of " + MAX_NESTING_DEPTH);
+                        parser.skipChildren();
+                        break;
+                    }
+                    List<NodeSummary> children = new ArrayList<>();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        if (parser.currentToken() == JsonToken.START_OBJECT) {
+                            NodeSummary child = readNode(parser, depth + 1, nodeIds, errors);
+                            if ("task".equals(child.type)) {
+                                node.taskChildCount++;
+                            }
+                            if (child.id != null && !child.dependsOn.isEmpty()) {
+                                node.dependentChildIds.add(child.id);
+                            }
+                            children.add(child);
+                        } else {
+                            errors.add("children entries must be JSON objects");
+                            parser.skipChildren();
+                        }
+                        node.childCount++;
+                    }
+                    node.hasChildren = true;
+                    validateDependencies(children, errors);
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+
+        validateNode(node, nodeIds, errors);
+        return node;
+    }
+
+    /**
+     * Read a scalar field value. Objects and arrays are skipped whole, so their contents are never
+     * mistaken for fields of the node.
+     *
+     * @param parser The streaming parser, positioned on the value
+     * @param fieldName The field name
+     * @param errors Collected validation errors
+     * @return The value as text, or null if it is null or not a scalar
+     * @throws IOException If the JSON cannot be read
+     */
+    private static String readString(JsonParser parser, String fieldName, List<String> errors) throws IOException {
+        if (parser.currentToken().isScalarValue()) {
+            return parser.getValueAsString();
+        }
+        errors.add(fieldName + " must be a string");
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * Apply the compiled rules to a fully read node
+     *
+     * @param node The node summary
+     * @param nodeIds Node IDs seen so far
+     * @param errors Collected validation errors
+     */
+    private static void validateNode(NodeSummary node, Set<String> nodeIds, List<String> errors) {
+        String label = node.id != null ? "'" + node.id + "'" : "<unnamed>";
+
+        if (node.id == null || node.id.isEmpty()) {
+            errors.add("Node is missing an id");
+        } else if (!nodeIds.add(node.id)) {
+            errors.add("Duplicate node id " + label);
+        }
+
+        if ("group".equals(node.type)) {
+            String groupType = node.groupType != null ? node.groupType.toUpperCase().replace("_", "") : null;
+            if (groupType != null && !GROUP_TYPES.contains(groupType)) {
+                errors.add("Group " + label + " has unknown groupType: " + node.groupType);
+                return;
+            }
+            // Only horizontal groups schedule children by their dependencies; others would ignore the edges
+            if (!TaskGroupType.HORIZONTAL.name().equals(groupType)) {
+                for (String childId : node.dependentChildIds) {
+                    errors.add("Node '" + childId + "' uses dependsOn, which is only supported in horizontal groups, but " +
+                               label + " is " + (groupType != null ? node.groupType : "vertical"));
+                }
+            }
+            if ("FOREACH".equals(groupType)) {
+                if (node.items == null || !node.items.startsWith("/")) {
+                    errors.add("forEach group " + label + " requires an items JSON pointer into the workflow input");
+                }
+                if (node.childCount != 1 || node.taskChildCount != 1) {
+                    errors.add("forEach group " + label + " must have exactly one task child as its template");
+                }
+            }
+
+            String criteria = node.completionCriteria != null ? node.completionCriteria.toUpperCase() : CompletionCriteria.ALL.name();
+            if (!COMPLETION_CRITERIA.contains(criteria)) {
+                errors.add("Group " + label + " has unknown completionCriteria: " + node.completionCriteria);
+            } else if (CompletionCriteria.N_OF_M.name().equals(criteria)) {
+                // forEach groups only know their child count at runtime
+                int minCompletion = node.minCompletion != null ? node.minCompletion : 1;
+                if (minCompletion < 1 || (!"FOREACH".equals(groupType) && minCompletion > node.childCount)) {
+                    errors.add("Group " + label + " minCompletion " + minCompletion +
+                               " is outside 1.." + node.childCount);
+                }
+            }
+        } else if ("task".equals(node.type)) {
+            if (node.hasChildren) {
+                errors.add("Task " + label + " cannot have children");
+            }
+
+            String taskType = node.taskType != null ? node.taskType.toUpperCase() : null;
+            if (taskType == null || !TASK_TYPES.contains(taskType)) {
+                errors.add("Task " + label + " has unknown taskType: " + node.taskType);
+            } else if (!TaskHandlerRegistry.hasHandler(taskType)) {
+                errors.add("Task " + label + " has no registered handler for taskType: " + taskType);
+            } else if (TaskType.SUBWORKFLOW.name().equals(taskType) && (node.workflow == null || node.workflow.isEmpty())) {
+                errors.add("Sub-workflow task " + label + " requires a workflow name");
+            }
+        } else {
+            errors.add("Node " + label + " has unknown type: " + node.type);
+        }
+    }
+
+    /**
+     * Check the dependsOn edges among siblings: every edge must name a sibling and the edges
+     * must form a DAG. Cycles are found with Kahn's algorithm using in-degree counters.
+     *
+     * @param siblings The children of one group
+     * @param errors Collected validation errors
+     */
+    private static void validateDependencies(List<NodeSummary> siblings, List<String> errors) {
+        Map<String, Integer> inDegree = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (NodeSummary sibling : siblings) {
+            if (sibling.id != null) {
+                inDegree.put(sibling.id, 0);
+            }
+        }
+
+        boolean hasEdges = false;
+        for (NodeSummary sibling : siblings) {
+            if (sibling.id == null) {
+                continue;
+            }
+            for (String dependency : sibling.dependsOn) {
+                if (!inDegree.containsKey(dependency)) {
+                    errors.add("Node '" + sibling.id + "' depends on '" + dependency + "', which is not a sibling");
+                    continue;
+                }
+                dependents.computeIfAbsent(dependency, d -> new ArrayList<>()).add(sibling.id);
+                inDegree.merge(sibling.id, 1, Integer::sum);
+                hasEdges = true;
+            }
+        }
+        if (!hasEdges) {
+            return;
+        }
+
+        Deque<String> ready = new ArrayDeque<>();
+        for (Map.Entry<String, Integer> entry : inDegree.entrySet()) {
+            if (entry.getValue() == 0) {
+                ready.add(entry.getKey());
+            }
+        }
+        int visited = 0;
+        while (!ready.isEmpty()) {
+            String id = ready.poll();
+            visited++;
+            for (String dependent : dependents.getOrDefault(id, Collections.emptyList())) {
+                if (inDegree.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (visited < inDegree.size()) {
+            Set<String> blocked = new HashSet<>();
+            for (Map.Entry<String, Integer> entry : inDegree.entrySet()) {
+                if (entry.getValue() > 0) {
+                    blocked.add(entry.getKey());
+                }
+            }
+            // Peel off nodes that only wait on the cycle; nodes with no blocked dependents cannot be on it
+            boolean peeled = true;
+            while (peeled) {
+                peeled = blocked.removeIf(id -> Collections.disjoint(dependents.getOrDefault(id, Collections.emptyList()), blocked));
+            }
+            List<String> cycle = new ArrayList<>(blocked);
+            Collections.sort(cycle);
+            errors.add("dependsOn edges form a cycle among " + cycle);
+        }
+    }
+
+    /**
+     * Compute the content hash used as the cache key
+     *
+     * @param jsonDefinition The JSON workflow definition
+     * @return Hex encoded SHA-256 of the definition
+     */
+    private static String hash(String jsonDefinition) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hashBytes = digest.digest(jsonDefinition.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hashBytes.length * 2);
+            for (byte b : hashBytes) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Fields of a definition node that the rules look at
+     */
+    private static class NodeSummary {
+        private String id;
+        private String type;
+        private String taskType;
+        private String groupType;
+        private String completionCriteria;
+        private String items;
+        private String workflow;
+        private Integer minCompletion;
+        private final List<String> dependsOn = new ArrayList<>();
+        private final List<String> dependentChildIds = new ArrayList<>();
+        private int childCount;
+        private int taskChildCount;
+        private boolean hasChildren;
+    }
+
+    /**
+     * Immutable outcome of validating a workflow definition
+     */
+    public static class ValidationResult {
+        private final List<String> errors;
+
+        public ValidationResult(List<String> errors) {
+            this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+        }
+
+        public boolean isValid() {
+            return errors.isEmpty();
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+}
@@ -4,14 +4,17 @@ import java.sql.Connection;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.workday.pwe.dao.TaskInstanceDAO;
 import com.workday.pwe.dao.WorkflowExecutionQueueDAO;
-import com.workday.pwe.util.TenantInfoHolder;
+import com.workday.pwe.handler.TaskHandler;
+import com.workday.pwe.model.TaskInstance;
 
 /**
  * Periodically sweeps pending workflows for execution per tenant.
@@ -23,6 +26,10 @@ public class WorkflowExecutionSweeper {
 
     private static final int MAX_VIRTUAL_THREADS;
     private static final int SWEEP_INTERVAL_MS;
+    private static final int DRAIN_TIMEOUT_MS;
+    private static final int STOP_GRACE_MS;
+    private static final int CLAIM_HEARTBEAT_MS;
+    private static final int RETRY_LEASE_MS;
     private static boolean isFirstSweep = true;
     private static Timestamp lastPollTime = null;
     
@@ -33,12 +40,24 @@ public class WorkflowExecutionSweeper {
         // For now, we'll use default values
         MAX_VIRTUAL_THREADS = Integer.parseInt(properties.getProperty("max.virtual.threads", "50"));
         SWEEP_INTERVAL_MS = Integer.parseInt(properties.getProperty("sweep.interval.ms", "10000"));
+        DRAIN_TIMEOUT_MS = Integer.parseInt(properties.getProperty("sweep.drain.timeout.ms", "30000"));
+        STOP_GRACE_MS = Integer.parseInt(properties.getProperty("sweep.stop.grace.ms", "5000"));
+        // Well below recovery.orphan.age.ms, so a running decide's entry never looks orphaned
+        CLAIM_HEARTBEAT_MS = Integer.parseInt(properties.getProperty("sweep.claim.heartbeat.ms", "30000"));
+        RETRY_LEASE_MS = Integer.parseInt(properties.getProperty("task.retry.lease.ms", "300000"));
     }
 
     private final ExecutorService virtualThreadPool = Executors.newVirtualThreadPerTaskExecutor();
     private final Semaphore threadLimitSemaphore = new Semaphore(MAX_VIRTUAL_THREADS);
     private final APMultiTenantDatasource dataSource;
     private final ScheduledExecutorService scheduler;
+    private final WorkflowRecovery recovery;
+    private final WorkflowArchiver archiver;
+    private final ClusterMembership membership;
+    private final QueueClaims claims;
+    // Decides and task retries dispatched by this node that have not finished, by workflow or task instance ID
+    private final Map<String, InFlightWork> inFlight = new ConcurrentHashMap<>();
+    private volatile boolean draining = false;
     private boolean isRunning = false;
 
     /**
@@ -51,6 +70,10 @@ public class WorkflowExecutionSweeper {
             t.setDaemon(true);
             return t;
         });
+        this.claims = new QueueClaims(dataSource);
+        this.recovery = new WorkflowRecovery(dataSource, claims);
+        this.archiver = new WorkflowArchiver(dataSource);
+        this.membership = new ClusterMembership(dataSource);
     }
     
     /**
@@ -79,6 +102,7 @@ public class WorkflowExecutionSweeper {
         }
         
         LOGGER.info("Starting WorkflowExecutionSweeper with max virtual threads: " + MAX_VIRTUAL_THREADS);
+        membership.start();
         
         scheduler.scheduleAtFixedRate(() -> {
             try {
@@ -88,12 +112,27 @@ public class WorkflowExecutionSweeper {
                 LOGGER.log(Level.SEVERE, "Error in WorkflowExecutionSweeper loop", e);
             }
         }, 0, SWEEP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                claims.heartbeat();
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error refreshing queue claims", e);
+            }
+        }, CLAIM_HEARTBEAT_MS, CLAIM_HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+        recovery.start();
+        archiver.start();
+        TaskTimerService.getInstance().init(membership);
+        WorkflowScheduler.getInstance().init();
         
         isRunning = true;
     }
     
     /**
-     * Shutdown the sweeper
+     * Drain and shut down the sweeper: stop claiming work and wait up to the drain deadline for in-flight
+     * decides to finish. Decides still running then are asked to stop before their next step, and each
+     * one that stops hands its queue entry back to PENDING so another node picks it up immediately.
+     * Decides are never interrupted, since an interrupted decide would fail its workflow; one stuck in
+     * a step keeps its entry PROCESSING until orphan recovery on another node claims it.
      */
     public void shutdown() {
         if (!isRunning) {
@@ -101,30 +140,103 @@ public class WorkflowExecutionSweeper {
             return;
         }
         
-        LOGGER.info("Shutting down WorkflowExecutionSweeper");
+        LOGGER.info("Draining WorkflowExecutionSweeper with " + inFlight.size() + " decides and retries in flight");
+        draining = true;
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
         
         scheduler.shutdown();
-        virtualThreadPool.shutdown();
+        recovery.stop(Math.max(0, deadline - System.currentTimeMillis()));
+        archiver.stop(Math.max(0, deadline - System.currentTimeMillis()));
+        TaskTimerService.getInstance().shutdown();
+        WorkflowScheduler.getInstance().shutdown();
         
         try {
-            if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
-            if (!virtualThreadPool.awaitTermination(10, TimeUnit.SECONDS)) {
-                virtualThreadPool.shutdownNow();
-            }
+            // Let a sweep that is dispatching finish; it stops at the next workflow
+            scheduler.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            virtualThreadPool.shutdown();
+            awaitInFlight(deadline);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            LOGGER.log(Level.SEVERE, "Interrupted while shutting down sweeper", e);
+            LOGGER.log(Level.SEVERE, "Interrupted while draining sweeper", e);
+        }
+        
+        if (!inFlight.isEmpty()) {
+            stopUnfinished();
         }
+        membership.stop();
         
+        LOGGER.info("WorkflowExecutionSweeper drained");
         isRunning = false;
     }
+    
+    /**
+     * Get the number of decides and retries dispatched by this node that have not finished
+     * 
+     * @return The in-flight count
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+    
+    /**
+     * Wait until every in-flight decide and retry has finished or the deadline has passed
+     * 
+     * @param deadline Deadline in epoch milliseconds
+     * @throws InterruptedException If interrupted while waiting
+     */
+    private void awaitInFlight(long deadline) throws InterruptedException {
+        synchronized (inFlight) {
+            long remaining;
+            while (!inFlight.isEmpty() && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                inFlight.wait(remaining);
+            }
+        }
+    }
+    
+    /**
+     * Ask unfinished decides to stop and give them a short grace period to do so
+     */
+    private void stopUnfinished() {
+        LOGGER.warning("Drain deadline passed, stopping " + inFlight.size() + " unfinished decides");
+        for (InFlightWork work : inFlight.values()) {
+            work.stopRequested = true;
+        }
+        
+        try {
+            awaitInFlight(System.currentTimeMillis() + STOP_GRACE_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.SEVERE, "Interrupted while stopping unfinished decides", e);
+        }
+        
+        if (!inFlight.isEmpty()) {
+            // Releasing these would let another node decide the same workflow alongside them; unfinished
+            // retries run again elsewhere once their lease has passed
+            LOGGER.warning(inFlight.size() + " decides and retries did not stop, leaving them for orphan recovery: " +
+                           inFlight.keySet());
+        }
+    }
+    
+    /**
+     * Stop tracking a decide or retry and wake up a drain waiting for it
+     * 
+     * @param id The workflow instance ID of a decide, or the task instance ID of a retry
+     */
+    private void finished(String id) {
+        synchronized (inFlight) {
+            inFlight.remove(id);
+            inFlight.notifyAll();
+        }
+    }
 
     /**
      * Sweep for pending workflows across all tenants
      */
     private void sweepWorkflows() {
+        if (draining) {
+            return;
+        }
+        
         List<String> tenants = TenantInfoHolder.getTenants();
         LOGGER.info("Sweeping workflows for " + tenants.size() + " tenants");
         
@@ -156,17 +268,35 @@ public class WorkflowExecutionSweeper {
                 lastPollTime = queueDAO.getLatestPollTime();
             }
 
-            List<String> workflowExecutionIds = queueDAO.fetchQueuedWorkflows(!isFirstSweep);
+            // Entries left PROCESSING by a crashed node are picked up by the recovery phase, and
+            // only the shards this node owns are claimed so nodes do not compete for the same rows
+            List<String> workflowExecutionIds = queueDAO.fetchQueuedWorkflows(false, membership.getOwnedShards(tenant));
             LOGGER.info("Processing " + workflowExecutionIds.size() + " workflows for tenant: " + tenant);
 
             for (String workflowId : workflowExecutionIds) {
+                if (draining) {
+                    LOGGER.info("Sweeper draining, no longer claiming workflows for tenant: " + tenant);
+                    return;
+                }
+                if (inFlight.containsKey(workflowId)) {
+                    // Still being decided on this node; the next sweep picks up any new work
+                    continue;
+                }
                 if (threadLimitSemaphore.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                    InFlightWork decide = new InFlightWork();
+                    inFlight.put(workflowId, decide);
+                    claims.hold(tenant, UUID.fromString(workflowId));
                     virtualThreadPool.execute(() -> {
                         Connection threadConnection = null;
                         try {
                             TenantInfoHolder.setCurrentTenant(tenant);
                             threadConnection = dataSource.getConnection();
-                            WorkflowStateManager.decide(workflowId, threadConnection, lastPollTime);
+                            if (!WorkflowStateManager.decide(workflowId, threadConnection, lastPollTime,
+                                                             () -> decide.stopRequested)) {
+                                // The decide has stopped, so the entry can go to another node right away
+                                new WorkflowExecutionQueueDAO(threadConnection).releaseClaims(List.of(UUID.fromString(workflowId)));
+                                LOGGER.info("Released stopped decide for another node: " + workflowId);
+                            }
                         } catch (Exception e) {
                             LOGGER.log(Level.SEVERE, "Error processing workflow: " + workflowId, e);
                         } finally {
@@ -178,6 +308,8 @@ public class WorkflowExecutionSweeper {
                                     LOGGER.log(Level.WARNING, "Error closing connection", e);
                                 }
                             }
+                            claims.release(UUID.fromString(workflowId));
+                            finished(workflowId);
                             threadLimitSemaphore.release();
                         }
                     });
@@ -186,6 +318,8 @@ public class WorkflowExecutionSweeper {
                     break;
                 }
             }
+
+            runDueTaskRetries(tenant, connection);
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error processing tenant workflows: " + tenant, e);
         } finally {
@@ -199,6 +333,47 @@ public class WorkflowExecutionSweeper {
         }
     }
     
+    /**
+     * Dispatch the tasks whose retry backoff has elapsed, in the shards this node owns, as many as there
+     * are free threads. Each claim is leased, so a retry lost with this node runs again elsewhere.
+     * 
+     * @param tenant The tenant identifier
+     * @param connection Database connection for the tenant
+     * @throws Exception If a database error occurs
+     */
+    private void runDueTaskRetries(String tenant, Connection connection) throws Exception {
+        Timestamp leaseUntil = Timestamp.valueOf(LocalDateTime.now().plusNanos(RETRY_LEASE_MS * 1_000_000L));
+        List<TaskInstance> retries = new TaskInstanceDAO(connection).claimDueRetries(
+                threadLimitSemaphore.availablePermits(), membership.getOwnedShards(tenant), leaseUntil);
+        
+        for (TaskInstance task : retries) {
+            if (!threadLimitSemaphore.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                LOGGER.warning("Max virtual thread limit reached. Retrying task once its lease passes: " + task.getId());
+                continue;
+            }
+            String retryId = task.getId().toString();
+            inFlight.put(retryId, new InFlightWork());
+            virtualThreadPool.execute(() -> {
+                TenantInfoHolder.setCurrentTenant(tenant);
+                try (Connection threadConnection = dataSource.getConnection()) {
+                    LOGGER.info("Retrying task: " + task.getId());
+                    try {
+                        TaskHandler.run(threadConnection, task);
+                    } catch (Exception e) {
+                        LOGGER.log(Level.SEVERE, "Error retrying task: " + task.getId(), e);
+                        TaskHandler.completeAndClose(threadConnection, task, "Error retrying task: " + e.getMessage());
+                    }
+                } catch (Exception e) {
+                    LOGGER.log(Level.SEVERE, "Error retrying task: " + task.getId(), e);
+                } finally {
+                    TenantInfoHolder.clearCurrentTenant();
+                    finished(retryId);
+                    threadLimitSemaphore.release();
+                }
+            });
+        }
+    }
+    
     /**
      * Force an immediate sweep of all tenants
      */
@@ -212,6 +387,13 @@ public class WorkflowExecutionSweeper {
         });
     }
     
+    /**
+     * A decide or task retry dispatched by this node; only decides stop when asked
+     */
+    private static final class InFlightWork {
+        private volatile boolean stopRequested = false;
+    }
+    
     /**
      * Check if the sweeper is currently running
      * 
@@ -221,31 +403,3 @@ public class WorkflowExecutionSweeper {
         return isRunning;
     }
 }
-
-/**
- * This is a placeholder for the multi-tenant datasource.
- * In a real implementation, this would be provided by the host application.
- */
-class APMultiTenantDatasource {
-    public Connection getConnection() {
-        return null; // In a real implementation, this would return a connection for the current tenant
-    }
-}
-
-/**
- * This is a placeholder for the tenant information holder.
- * In a real implementation, this would be provided by the host application.
- */
-class TenantInfoHolder {
-    public static List<String> getTenants() {
-        return List.of("tenant1", "tenant2"); // In a real implementation, this would return the actual tenants
-    }
-    
-    public static void setCurrentTenant(String tenant) {
-        // In a real implementation, this would set the current tenant
-    }
-    
-    public static void clearCurrentTenant() {
-        // In a real implementation, this would clear the current tenant
-    }
-}
\ No newline at end of file
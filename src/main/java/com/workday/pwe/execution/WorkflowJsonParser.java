@@ -116,6 +116,8 @@ public class WorkflowJsonParser {
             TaskGroupType groupType = TaskGroupType.VERTICAL; // Default
             if ("horizontal".equalsIgnoreCase(groupTypeName)) {
                 groupType = TaskGroupType.HORIZONTAL;
+            } else if ("forEach".equalsIgnoreCase(groupTypeName) || "for_each".equalsIgnoreCase(groupTypeName)) {
+                groupType = TaskGroupType.FOR_EACH;
             }
             
             // Determine completion criteria
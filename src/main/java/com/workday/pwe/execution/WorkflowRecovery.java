@@ -0,0 +1,209 @@
+package com.workday.pwe.execution;
+
+import com.workday.pwe.dao.WorkflowExecutionQueueDAO;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Recovers queue entries left PROCESSING by a node that stopped mid-decide.
+ * <p>
+ * At startup it works through orphaned entries of every tenant in small batches, highest priority
+ * first, taking one batch per tenant per round and pausing between rounds so that a large backlog
+ * never monopolizes the database while normal sweeping carries on alongside it. Each recovered
+ * decide resumes from its workflow's own watermark (the start of its last successful decide)
+ * instead of rescanning every completed task. Entries only count as orphaned once they have not
+ * been touched for the orphan age; every node refreshes the entries of the decides it is running
+ * through {@link QueueClaims}, so decides still running on live nodes are left alone. After
+ * the startup phase the same scan repeats every orphan age to pick up entries from nodes that
+ * crash later.
+ */
+class WorkflowRecovery {
+
+    private static final Logger LOGGER = Logger.getLogger(WorkflowRecovery.class.getName());
+
+    private static final int BATCH_SIZE;
+    private static final int BATCH_PAUSE_MS;
+    private static final int PARALLELISM;
+    private static final int ORPHAN_AGE_MS;
+
+    // Load configuration properties
+    static {
+        Properties properties = new Properties();
+        // In a real implementation, we would load from a properties file
+        // For now, we'll use default values
+        BATCH_SIZE = Integer.parseInt(properties.getProperty("recovery.batch.size", "50"));
+        BATCH_PAUSE_MS = Integer.parseInt(properties.getProperty("recovery.batch.pause.ms", "1000"));
+        PARALLELISM = Integer.parseInt(properties.getProperty("recovery.parallelism", "4"));
+        ORPHAN_AGE_MS = Integer.parseInt(properties.getProperty("recovery.orphan.age.ms", "120000"));
+    }
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final APMultiTenantDatasource dataSource;
+    private final QueueClaims claims;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService decidePool;
+    private volatile boolean stopped = false;
+
+    /**
+     * Constructor with the datasource to recover through
+     *
+     * @param dataSource The multi-tenant datasource
+     * @param claims The claims this node keeps fresh while it decides
+     */
+    WorkflowRecovery(APMultiTenantDatasource dataSource, QueueClaims claims) {
+        this.dataSource = dataSource;
+        this.claims = claims;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "workflow-recovery");
+            t.setDaemon(true);
+            return t;
+        });
+        this.decidePool = Executors.newFixedThreadPool(PARALLELISM, r -> {
+            Thread t = new Thread(r, "workflow-recovery-decide-" + THREAD_COUNTER.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Start the recovery phase, then keep scanning for orphans periodically
+     */
+    void start() {
+        long startedAt = System.currentTimeMillis();
+        scheduler.execute(() -> {
+            LOGGER.info("Starting crash recovery of orphaned workflow queue entries");
+            int recovered = 0;
+            // Entries claimed just before this node started only become stale after the orphan age
+            while (!stopped) {
+                int round = runRound();
+                recovered += round;
+                if (round == 0 && System.currentTimeMillis() - startedAt >= ORPHAN_AGE_MS) {
+                    break;
+                }
+                pause();
+            }
+            LOGGER.info("Crash recovery finished, recovered " + recovered + " workflows");
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            int recovered;
+            while (!stopped && (recovered = runRound()) > 0) {
+                LOGGER.info("Recovered " + recovered + " orphaned workflows");
+                pause();
+            }
+        }, ORPHAN_AGE_MS, ORPHAN_AGE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop recovering; batches already started finish
+     *
+     * @param timeoutMs How long to wait for the current batch
+     */
+    void stop(long timeoutMs) {
+        stopped = true;
+        scheduler.shutdown();
+        decidePool.shutdown();
+        try {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            scheduler.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+            decidePool.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.SEVERE, "Interrupted while stopping workflow recovery", e);
+        }
+    }
+
+    /**
+     * Recover one batch for every tenant
+     *
+     * @return Number of workflows recovered
+     */
+    private int runRound() {
+        int recovered = 0;
+        for (String tenant : TenantInfoHolder.getTenants()) {
+            if (stopped) {
+                break;
+            }
+            recovered += recoverBatch(tenant);
+        }
+        return recovered;
+    }
+
+    /**
+     * Claim one batch of orphaned entries of a tenant and decide them with bounded parallelism
+     *
+     * @param tenant The tenant
+     * @return Number of workflows recovered
+     */
+    private int recoverBatch(String tenant) {
+        List<UUID> orphans;
+        TenantInfoHolder.setCurrentTenant(tenant);
+        try (Connection connection = dataSource.getConnection()) {
+            Timestamp staleBefore = new Timestamp(System.currentTimeMillis() - ORPHAN_AGE_MS);
+            orphans = new WorkflowExecutionQueueDAO(connection).claimOrphans(staleBefore, BATCH_SIZE);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error claiming orphaned workflows for tenant: " + tenant, e);
+            return 0;
+        } finally {
+            TenantInfoHolder.clearCurrentTenant();
+        }
+
+        if (orphans.isEmpty()) {
+            return 0;
+        }
+
+        List<Callable<Void>> decides = new ArrayList<>(orphans.size());
+        for (UUID workflowId : orphans) {
+            // Held from the claim on, since a decide may wait a while for a pool thread
+            claims.hold(tenant, workflowId);
+            decides.add(() -> {
+                TenantInfoHolder.setCurrentTenant(tenant);
+                try (Connection connection = dataSource.getConnection()) {
+                    // No poll time: the decide resumes from the workflow's own watermark
+                    WorkflowStateManager.decide(workflowId.toString(), connection, null);
+                } catch (Exception e) {
+                    LOGGER.log(Level.SEVERE, "Error recovering workflow: " + workflowId, e);
+                } finally {
+                    TenantInfoHolder.clearCurrentTenant();
+                    claims.release(workflowId);
+                }
+                return null;
+            });
+        }
+
+        try {
+            decidePool.invokeAll(decides);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Decides that never ran, because the pool stopped, must go stale for another node to claim
+            for (UUID workflowId : orphans) {
+                claims.release(workflowId);
+            }
+        }
+        LOGGER.info("Recovered " + orphans.size() + " orphaned workflows for tenant: " + tenant);
+        return orphans.size();
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(BATCH_PAUSE_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.workday.pwe.execution;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.workday.pwe.dao.WorkflowScheduleDAO;
+import com.workday.pwe.model.WorkflowSchedule;
+import com.workday.pwe.service.WorkflowInstanceService;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Starts workflows on their cron schedules.
+ * Schedules firing within the next horizon are loaded per tenant into a priority queue ordered by
+ * next fire time, so each tick only looks at the head of the queue. Everything due in a tick is
+ * claimed in one batch per tenant and started through the bulk start path, grouped by definition,
+ * so a burst of schedules at the top of the hour costs a handful of batched statements rather than
+ * one round trip per workflow. A firing is claimed by compare-and-set on its fire time, so running
+ * the scheduler on several nodes never starts a firing twice. Missed firings (for example while no
+ * node was running) fire once and the schedule resumes from the current time.
+ */
+public class WorkflowScheduler {
+
+    private static final Logger LOGGER = Logger.getLogger(WorkflowScheduler.class.getName());
+
+    private static final int TICK_MS;
+    private static final int HORIZON_MINUTES;
+    private static final int BATCH_SIZE;
+
+    // Load configuration properties
+    static {
+        Properties properties = new Properties();
+        // In a real implementation, we would load from a properties file
+        // For now, we'll use default values
+        TICK_MS = Integer.parseInt(properties.getProperty("schedule.tick.ms", "1000"));
+        HORIZON_MINUTES = Integer.parseInt(properties.getProperty("schedule.horizon.minutes", "10"));
+        BATCH_SIZE = Integer.parseInt(properties.getProperty("schedule.batch.size", "500"));
+    }
+
+    private final PriorityQueue<Firing> queue = new PriorityQueue<>((a, b) -> Long.compare(a.fireAtMillis, b.fireAtMillis));
+    // Latest firing per schedule; queued firings that no longer match are stale and skipped
+    private final Map<FiringKey, Firing> current = new HashMap<>();
+    private final APMultiTenantDatasource dataSource;
+    private final ScheduledExecutorService scheduler;
+    private final WorkflowInstanceService workflowInstanceService = new WorkflowInstanceService();
+    private volatile long loadedUntil;
+    private boolean isRunning = false;
+
+    /**
+     * Private constructor for singleton pattern
+     */
+    private WorkflowScheduler() {
+        this.dataSource = new APMultiTenantDatasource();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "workflow-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Singleton instance holder
+     */
+    private static class InstanceHolder {
+        static final WorkflowScheduler INSTANCE = new WorkflowScheduler();
+    }
+
+    /**
+     * Get the singleton instance
+     *
+     * @return The singleton instance
+     */
+    public static WorkflowScheduler getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Load the first horizon and start firing schedules
+     */
+    public synchronized void init() {
+        if (isRunning) {
+            LOGGER.warning("WorkflowScheduler is already running");
+            return;
+        }
+
+        LOGGER.info("Starting WorkflowScheduler with a " + HORIZON_MINUTES + " minute horizon");
+
+        long horizonMs = TimeUnit.MINUTES.toMillis(HORIZON_MINUTES);
+        scheduler.scheduleAtFixedRate(this::reload, 0, horizonMs / 2, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                fire(pollDue(System.currentTimeMillis()));
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error in WorkflowScheduler tick", e);
+            }
+        }, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+
+        isRunning = true;
+    }
+
+    /**
+     * Stop the scheduler
+     */
+    public synchronized void shutdown() {
+        if (!isRunning) {
+            LOGGER.warning("WorkflowScheduler is not running");
+            return;
+        }
+
+        LOGGER.info("Shutting down WorkflowScheduler");
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.SEVERE, "Interrupted while shutting down scheduler", e);
+        }
+        isRunning = false;
+    }
+
+    /**
+     * Compute the next fire time of a schedule after a point in time
+     *
+     * @param schedule The schedule
+     * @param after The point in time, in server local time like all stored timestamps
+     * @return The next fire time in server local time, or null if the expression never fires again
+     */
+    public static LocalDateTime nextFireTime(WorkflowSchedule schedule, LocalDateTime after) {
+        ZoneId zone = ZoneId.of(schedule.getTimeZone() != null ? schedule.getTimeZone() : "UTC");
+        ZonedDateTime next = new CronExpression(schedule.getCronExpression())
+                .next(after.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone));
+        return next != null ? next.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime() : null;
+    }
+
+    /**
+     * Queue, requeue or drop a schedule after it was created, changed or deleted
+     *
+     * @param tenant The tenant the schedule belongs to
+     * @param schedule The schedule in its new state, or a schedule with only its ID set if it was deleted
+     */
+    public synchronized void onScheduleChanged(String tenant, WorkflowSchedule schedule) {
+        FiringKey key = new FiringKey(tenant, schedule.getId());
+        if (!schedule.isEnabled() || schedule.getNextFireTime() == null || toMillis(schedule.getNextFireTime()) > loadedUntil) {
+            // Disabled, deleted or outside the loaded horizon; a later reload picks it up
+            current.remove(key);
+            return;
+        }
+        offer(tenant, schedule);
+    }
+
+    /**
+     * @return Number of schedules waiting to fire within the loaded horizon
+     */
+    public synchronized int getPendingCount() {
+        return current.size();
+    }
+
+    /**
+     * Load every enabled schedule firing within the next horizon, for all tenants
+     */
+    private void reload() {
+        long until = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(HORIZON_MINUTES);
+
+        for (String tenant : TenantInfoHolder.getTenants()) {
+            TenantInfoHolder.setCurrentTenant(tenant);
+            try (Connection connection = dataSource.getConnection()) {
+                List<WorkflowSchedule> due = new WorkflowScheduleDAO(connection).getSchedulesDueBefore(new Timestamp(until));
+                synchronized (this) {
+                    for (WorkflowSchedule schedule : due) {
+                        offer(tenant, schedule);
+                    }
+                }
+                LOGGER.info("Loaded " + due.size() + " workflow schedules for tenant: " + tenant);
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error loading workflow schedules for tenant: " + tenant, e);
+            } finally {
+                TenantInfoHolder.clearCurrentTenant();
+            }
+        }
+        loadedUntil = until;
+    }
+
+    private void offer(String tenant, WorkflowSchedule schedule) {
+        Firing firing = new Firing(tenant, schedule, toMillis(schedule.getNextFireTime()));
+        current.put(firing.key, firing);
+        queue.add(firing);
+    }
+
+    /**
+     * Take every firing that is due from the head of the queue
+     *
+     * @param nowMillis The current time
+     * @return The due firings, earliest first
+     */
+    private synchronized List<Firing> pollDue(long nowMillis) {
+        List<Firing> due = new ArrayList<>();
+        while (!queue.isEmpty() && queue.peek().fireAtMillis <= nowMillis) {
+            Firing firing = queue.poll();
+            if (current.get(firing.key) == firing) {
+                current.remove(firing.key);
+                due.add(firing);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Fire due schedules, grouped by tenant
+     *
+     * @param due The due firings
+     */
+    private void fire(List<Firing> due) {
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<Firing>> byTenant = new LinkedHashMap<>();
+        for (Firing firing : due) {
+            byTenant.computeIfAbsent(firing.key.tenant, t -> new ArrayList<>()).add(firing);
+        }
+
+        for (Map.Entry<String, List<Firing>> entry : byTenant.entrySet()) {
+            String tenant = entry.getKey();
+            TenantInfoHolder.setCurrentTenant(tenant);
+            try (Connection connection = dataSource.getConnection()) {
+                fireTenant(tenant, connection, entry.getValue());
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error firing workflow schedules for tenant: " + tenant, e);
+            } finally {
+                TenantInfoHolder.clearCurrentTenant();
+            }
+        }
+    }
+
+    /**
+     * Claim the due firings of a tenant in one batch and start their workflows in bulk per definition
+     *
+     * @param tenant The tenant
+     * @param connection Database connection for the tenant
+     * @param due The tenant's due firings
+     * @throws Exception If a database error occurs
+     */
+    private void fireTenant(String tenant, Connection connection, List<Firing> due) throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        List<WorkflowSchedule> fired = new ArrayList<>(due.size());
+        for (Firing firing : due) {
+            WorkflowSchedule schedule = firing.schedule;
+            LocalDateTime firedAt = schedule.getNextFireTime();
+            schedule.setLastFireTime(firedAt);
+            // Resume from now rather than replaying every firing that was missed
+            schedule.setNextFireTime(nextFireTime(schedule, firedAt.isAfter(now) ? firedAt : now));
+            fired.add(schedule);
+        }
+
+        List<WorkflowSchedule> claimed = new WorkflowScheduleDAO(connection).claimFirings(fired);
+
+        Map<UUID, List<JsonNode>> inputsByDefinition = new LinkedHashMap<>();
+        for (WorkflowSchedule schedule : claimed) {
+            List<JsonNode> inputs = inputsByDefinition.computeIfAbsent(schedule.getWorkflowDefId(), d -> new ArrayList<>());
+            JsonNode inputJson = schedule.getInputJson();
+            if (inputJson != null && inputJson.isArray()) {
+                inputJson.forEach(inputs::add);
+            } else {
+                inputs.add(inputJson);
+            }
+        }
+
+        int started = 0;
+        for (Map.Entry<UUID, List<JsonNode>> entry : inputsByDefinition.entrySet()) {
+            List<JsonNode> inputs = entry.getValue();
+            for (int start = 0; start < inputs.size(); start += BATCH_SIZE) {
+                try {
+                    started += workflowInstanceService.startWorkflows(connection, entry.getKey(),
+                            inputs.subList(start, Math.min(inputs.size(), start + BATCH_SIZE))).size();
+                } catch (Exception e) {
+                    LOGGER.log(Level.SEVERE, "Error starting scheduled workflows of definition: " + entry.getKey(), e);
+                }
+            }
+        }
+        LOGGER.info("Fired " + claimed.size() + " of " + due.size() + " due schedules, started " + started +
+                   " workflows for tenant: " + tenant);
+
+        synchronized (this) {
+            for (WorkflowSchedule schedule : claimed) {
+                if (schedule.getNextFireTime() != null && toMillis(schedule.getNextFireTime()) <= loadedUntil) {
+                    offer(tenant, schedule);
+                }
+            }
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Identity of a schedule across tenants
+     */
+    private static class FiringKey {
+        private final String tenant;
+        private final UUID scheduleId;
+
+        FiringKey(String tenant, UUID scheduleId) {
+            this.tenant = tenant;
+            this.scheduleId = scheduleId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FiringKey)) {
+                return false;
+            }
+            FiringKey other = (FiringKey) o;
+            return scheduleId.equals(other.scheduleId) && Objects.equals(tenant, other.tenant);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenant, scheduleId);
+        }
+    }
+
+    /**
+     * A pending firing of a schedule
+     */
+    private static class Firing {
+        private final FiringKey key;
+        private final WorkflowSchedule schedule;
+        private final long fireAtMillis;
+
+        Firing(String tenant, WorkflowSchedule schedule, long fireAtMillis) {
+            this.key = new FiringKey(tenant, schedule.getId());
+            this.schedule = schedule;
+            this.fireAtMillis = fireAtMillis;
+        }
+    }
+}
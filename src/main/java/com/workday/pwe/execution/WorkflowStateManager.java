@@ -1,5 +1,7 @@
 package com.workday.pwe.execution;
 
+import com.workday.pwe.dao.TaskDefinitionDAO;
+import com.workday.pwe.dao.TaskGroupDefinitionDAO;
 import com.workday.pwe.dao.TaskGroupInstanceDAO;
 import com.workday.pwe.dao.TaskInstanceDAO;
 import com.workday.pwe.dao.WorkflowExecutionQueueDAO;
@@ -8,10 +10,13 @@ import com.workday.pwe.enums.QueueStatus;
 import com.workday.pwe.enums.TaskStatus;
 import com.workday.pwe.enums.WorkflowStatus;
 import com.workday.pwe.handler.GroupCompletionEvaluator;
+import com.workday.pwe.handler.SubWorkflowTaskHandler;
 import com.workday.pwe.handler.TaskGroupHandler;
 import com.workday.pwe.handler.TaskHandler;
 import com.workday.pwe.model.TaskGroupInstance;
 import com.workday.pwe.model.TaskInstance;
+import com.workday.pwe.model.TaskStatusView;
+import com.workday.pwe.model.WorkflowExecutionQueue;
 import com.workday.pwe.model.WorkflowInstance;
 
 import java.sql.Connection;
@@ -20,6 +25,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.UUID;
@@ -32,6 +38,8 @@ public class WorkflowStateManager {
 
     private static final Logger LOGGER = Logger.getLogger(WorkflowStateManager.class.getName());
 
+    private static final long WATERMARK_MARGIN_MS = 5000;
+
     /**
      * Private constructor to prevent instantiation
      */
@@ -47,10 +55,28 @@ public class WorkflowStateManager {
      * @param lastPollTime The last time the workflow was processed (can be null)
      */
     public static void decide(String workflowId, Connection connection, Timestamp lastPollTime) {
+        decide(workflowId, connection, lastPollTime, () -> false);
+    }
+
+    /**
+     * Process a workflow execution, checking between steps whether to stop early. A decide that stops
+     * leaves its queue entry PROCESSING and its watermark unchanged, so the next decide of the workflow
+     * repeats the steps it skipped.
+     * 
+     * @param workflowId The workflow instance ID to process
+     * @param connection Database connection
+     * @param lastPollTime The last time the workflow was processed (can be null)
+     * @param stopRequested Whether the decide should stop at the next step
+     * @return false if the decide stopped early, true otherwise
+     */
+    public static boolean decide(String workflowId, Connection connection, Timestamp lastPollTime,
+                                 BooleanSupplier stopRequested) {
         WorkflowExecutionQueueDAO queueDAO = new WorkflowExecutionQueueDAO(connection);
         WorkflowInstanceDAO workflowDAO = new WorkflowInstanceDAO(connection);
         TaskGroupInstanceDAO groupDAO = new TaskGroupInstanceDAO(connection);
         TaskInstanceDAO taskDAO = new TaskInstanceDAO(connection);
+        RetryPolicy.recordAttempt();
+        Timestamp decideStart = Timestamp.valueOf(LocalDateTime.now());
 
         try {
             // Update queue status to PROCESSING
@@ -62,7 +88,13 @@ public class WorkflowStateManager {
                 // Workflow is not runnable, remove from queue
                 queueDAO.removeFromQueue(UUID.fromString(workflowId));
                 LOGGER.info("Workflow not in RUNNING state, removed from queue: " + workflowId);
-                return;
+                return true;
+            }
+            
+            // Without a poll time, only completions since the workflow's last successful decide are new;
+            // the margin covers completions stamped just before that decide but committed after it read
+            if (lastPollTime == null && workflow.getLastDecidedAt() != null) {
+                lastPollTime = Timestamp.valueOf(workflow.getLastDecidedAt().minusNanos(WATERMARK_MARGIN_MS * 1_000_000));
             }
 
             // Get completed tasks/groups since last poll
@@ -82,36 +114,104 @@ public class WorkflowStateManager {
 
             // Process task groups first
             for (TaskGroupInstance group : completedGroups) {
+                if (stopped(workflowId, stopRequested)) {
+                    return false;
+                }
                 processTaskGroup(connection, group);
             }
 
             // Process individual tasks not in groups
             for (TaskInstance task : completedTasks) {
+                if (stopped(workflowId, stopRequested)) {
+                    return false;
+                }
                 if (task.getTaskGroupInstanceId() == null) {
                     processTask(connection, task);
                 }
             }
 
             // Now check if we need to start new tasks or groups
+            if (stopped(workflowId, stopRequested)) {
+                return false;
+            }
             startEligibleTasksAndGroups(connection, workflow);
 
             // Check if the workflow is complete
+            if (stopped(workflowId, stopRequested)) {
+                return false;
+            }
             checkWorkflowCompletion(connection, workflow);
 
             // Remove from queue if done processing
             queueDAO.removeFromQueue(UUID.fromString(workflowId));
+            workflowDAO.updateDecideWatermark(UUID.fromString(workflowId), decideStart);
 
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error processing workflow: " + workflowId, e);
             
+            // Transient errors (deadlocks, lost connections) put the workflow back on the queue with backoff
+            if (scheduleRetry(connection, queueDAO, UUID.fromString(workflowId), e)) {
+                return true;
+            }
+            
             // Mark as FAILED if there was an error
             try {
                 workflowDAO.updateWorkflowStatus(UUID.fromString(workflowId), WorkflowStatus.FAILED);
                 queueDAO.removeFromQueue(UUID.fromString(workflowId));
+                SubWorkflowTaskHandler.propagateToParent(connection, UUID.fromString(workflowId));
             } catch (Exception ex) {
                 LOGGER.log(Level.SEVERE, "Error updating workflow status after error", ex);
             }
         }
+        return true;
+    }
+
+    /**
+     * Check whether a decide has been asked to stop before its next step
+     * 
+     * @param workflowId The workflow instance ID
+     * @param stopRequested Whether the decide should stop
+     * @return true if the decide should stop
+     */
+    private static boolean stopped(String workflowId, BooleanSupplier stopRequested) {
+        if (stopRequested.getAsBoolean()) {
+            LOGGER.info("Stopping decide before its next step: " + workflowId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Schedule another decide of a workflow after a transient failure, if its retry policy allows it
+     * 
+     * @param connection Database connection
+     * @param queueDAO The queue DAO
+     * @param workflowInstanceId The workflow instance ID
+     * @param error The failure
+     * @return true if a retry was scheduled
+     */
+    private static boolean scheduleRetry(Connection connection, WorkflowExecutionQueueDAO queueDAO,
+                                         UUID workflowInstanceId, Exception error) {
+        if (!RetryPolicy.isTransient(error)) {
+            return false;
+        }
+        try {
+            WorkflowExecutionQueue entry = queueDAO.getQueueEntry(workflowInstanceId);
+            int attempts = (entry != null ? entry.getAttemptCount() : 0) + 1;
+            RetryPolicy policy = RetryPolicy.forWorkflow(connection, workflowInstanceId);
+            if (!policy.allowRetry(attempts)) {
+                return false;
+            }
+            
+            long delay = policy.nextDelayMillis(attempts);
+            queueDAO.scheduleRetry(workflowInstanceId, Timestamp.valueOf(LocalDateTime.now().plusNanos(delay * 1_000_000)));
+            LOGGER.warning("Decide attempt " + attempts + " of workflow " + workflowInstanceId +
+                          " failed transiently, retrying in " + delay + "ms");
+            return true;
+        } catch (Exception ex) {
+            LOGGER.log(Level.SEVERE, "Error scheduling decide retry for workflow: " + workflowInstanceId, ex);
+            return false;
+        }
     }
 
     /**
@@ -129,12 +229,18 @@ public class WorkflowStateManager {
                 TaskGroupInstanceDAO groupDAO = new TaskGroupInstanceDAO(connection);
                 TaskGroupInstance group = groupDAO.getTaskGroupInstance(task.getTaskGroupInstanceId());
                 
-                if (group != null) {
+                if (group != null && TaskGroupHandler.getHandler(connection, group).advance()) {
+                    // The group handler manages its own progress (e.g. for-each fan-out)
+                    LOGGER.info("Task group advanced by its handler: " + group.getId());
+                } else if (group != null) {
                     boolean isComplete = GroupCompletionEvaluator.evaluateCompletion(connection, group);
                     if (isComplete) {
                         groupDAO.updateTaskGroupStatus(group.getId(), TaskStatus.COMPLETED);
                         LOGGER.info("Task group completed: " + group.getId());
                         
+                        // ANY / N_OF_M can be satisfied while siblings are still pending
+                        cancelRemaining(connection, group);
+                        
                         // Queue for state management to process the completed group
                         ExecutionQueuingInterceptor.queueForStateManagement(connection, task.getWorkflowInstanceId());
                     }
@@ -166,11 +272,15 @@ public class WorkflowStateManager {
                 TaskGroupInstanceDAO groupDAO = new TaskGroupInstanceDAO(connection);
                 TaskGroupInstance parentGroup = groupDAO.getTaskGroupInstance(group.getParentGroupInstId());
                 
-                if (parentGroup != null) {
+                if (parentGroup != null && TaskGroupHandler.getHandler(connection, parentGroup).advance()) {
+                    // The parent's handler manages its own progress (e.g. starting dependents of this group)
+                    LOGGER.info("Parent task group advanced by its handler: " + parentGroup.getId());
+                } else if (parentGroup != null) {
                     boolean isComplete = GroupCompletionEvaluator.evaluateCompletion(connection, parentGroup);
                     if (isComplete) {
                         groupDAO.updateTaskGroupStatus(parentGroup.getId(), TaskStatus.COMPLETED);
                         LOGGER.info("Parent task group completed: " + parentGroup.getId());
+                        cancelRemaining(connection, parentGroup);
                         
                         // Queue for state management to process the completed parent group
                         ExecutionQueuingInterceptor.queueForStateManagement(connection, group.getWorkflowInstanceId());
@@ -201,13 +311,15 @@ public class WorkflowStateManager {
             // If task is part of a group, check the group's completion criteria
             if (task.getTaskGroupInstanceId() != null) {
                 TaskGroupInstanceDAO groupDAO = new TaskGroupInstanceDAO(connection);
+                TaskGroupDefinitionDAO groupDefDAO = new TaskGroupDefinitionDAO(connection);
                 TaskGroupInstance group = groupDAO.getTaskGroupInstance(task.getTaskGroupInstanceId());
                 
-                if (group != null) {
+                if (group != null && !GroupCompletionEvaluator.isTerminalStatus(group.getStatus())) {
                     // For vertical groups, a single failure fails the group
-                    if (groupDAO.isVerticalGroup(group.getTaskGroupDefId())) {
+                    if (groupDefDAO.isVerticalGroup(group.getTaskGroupDefId())) {
                         groupDAO.updateTaskGroupStatus(group.getId(), TaskStatus.FAILED);
                         LOGGER.warning("Vertical task group failed due to task failure: " + group.getId());
+                        cancelRemaining(connection, group);
                         
                         // Queue for state management to process the failed group
                         ExecutionQueuingInterceptor.queueForStateManagement(connection, task.getWorkflowInstanceId());
@@ -215,8 +327,10 @@ public class WorkflowStateManager {
                         // For horizontal groups, check if failure violates completion criteria
                         boolean canStillComplete = canGroupStillComplete(connection, group);
                         if (!canStillComplete) {
+                            // Fail fast: the criteria can no longer be met, so stop the remaining work
                             groupDAO.updateTaskGroupStatus(group.getId(), TaskStatus.FAILED);
                             LOGGER.warning("Horizontal task group failed due to task failure: " + group.getId());
+                            cancelRemaining(connection, group);
                             
                             // Queue for state management to process the failed group
                             ExecutionQueuingInterceptor.queueForStateManagement(connection, task.getWorkflowInstanceId());
@@ -249,13 +363,15 @@ public class WorkflowStateManager {
             // If group is part of a parent group, check the parent's completion criteria
             if (group.getParentGroupInstId() != null) {
                 TaskGroupInstanceDAO groupDAO = new TaskGroupInstanceDAO(connection);
+                TaskGroupDefinitionDAO groupDefDAO = new TaskGroupDefinitionDAO(connection);
                 TaskGroupInstance parentGroup = groupDAO.getTaskGroupInstance(group.getParentGroupInstId());
                 
-                if (parentGroup != null) {
+                if (parentGroup != null && !GroupCompletionEvaluator.isTerminalStatus(parentGroup.getStatus())) {
                     // For vertical groups, a single failure fails the group
-                    if (groupDAO.isVerticalGroup(parentGroup.getTaskGroupDefId())) {
+                    if (groupDefDAO.isVerticalGroup(parentGroup.getTaskGroupDefId())) {
                         groupDAO.updateTaskGroupStatus(parentGroup.getId(), TaskStatus.FAILED);
                         LOGGER.warning("Vertical parent task group failed due to child group failure: " + parentGroup.getId());
+                        cancelRemaining(connection, parentGroup);
                         
                         // Queue for state management to process the failed parent group
                         ExecutionQueuingInterceptor.queueForStateManagement(connection, group.getWorkflowInstanceId());
@@ -265,6 +381,7 @@ public class WorkflowStateManager {
                         if (!canStillComplete) {
                             groupDAO.updateTaskGroupStatus(parentGroup.getId(), TaskStatus.FAILED);
                             LOGGER.warning("Horizontal parent task group failed due to child group failure: " + parentGroup.getId());
+                            cancelRemaining(connection, parentGroup);
                             
                             // Queue for state management to process the failed parent group
                             ExecutionQueuingInterceptor.queueForStateManagement(connection, group.getWorkflowInstanceId());
@@ -293,16 +410,16 @@ public class WorkflowStateManager {
      */
     private static boolean canGroupStillComplete(Connection connection, TaskGroupInstance group) {
         try {
-            TaskGroupInstanceDAO groupDAO = new TaskGroupInstanceDAO(connection);
+            TaskGroupDefinitionDAO groupDAO = new TaskGroupDefinitionDAO(connection);
             TaskInstanceDAO taskDAO = new TaskInstanceDAO(connection);
             
             // For horizontal groups with ANY criteria, we just need one success
             if (groupDAO.hasCompletionCriteria(group.getTaskGroupDefId(), "ANY")) {
-                List<TaskInstance> tasks = taskDAO.getTaskInstancesByGroupId(group.getId());
+                List<TaskStatusView> tasks = taskDAO.getTaskStatusesByGroupId(group.getId());
                 
                 // Count tasks that are already successful or could still succeed
                 int possibleSuccesses = 0;
-                for (TaskInstance task : tasks) {
+                for (TaskStatusView task : tasks) {
                     if (GroupCompletionEvaluator.isTerminalSuccessStatus(task.getStatus())) {
                         possibleSuccesses++;
                     } else if (!GroupCompletionEvaluator.isTerminalFailureStatus(task.getStatus())) {
@@ -315,12 +432,12 @@ public class WorkflowStateManager {
             
             // For horizontal groups with N_OF_M criteria, we need at least N successes
             if (groupDAO.hasCompletionCriteria(group.getTaskGroupDefId(), "N_OF_M")) {
-                List<TaskInstance> tasks = taskDAO.getTaskInstancesByGroupId(group.getId());
+                List<TaskStatusView> tasks = taskDAO.getTaskStatusesByGroupId(group.getId());
                 int minRequired = group.getMinCompletion();
                 
                 // Count tasks that are already successful or could still succeed
                 int possibleSuccesses = 0;
-                for (TaskInstance task : tasks) {
+                for (TaskStatusView task : tasks) {
                     if (GroupCompletionEvaluator.isTerminalSuccessStatus(task.getStatus())) {
                         possibleSuccesses++;
                     } else if (!GroupCompletionEvaluator.isTerminalFailureStatus(task.getStatus())) {
@@ -332,10 +449,10 @@ public class WorkflowStateManager {
             }
             
             // For ALL criteria, all tasks must succeed
-            List<TaskInstance> tasks = taskDAO.getTaskInstancesByGroupId(group.getId());
+            List<TaskStatusView> tasks = taskDAO.getTaskStatusesByGroupId(group.getId());
             
             // If any task has already failed, the group cannot complete
-            for (TaskInstance task : tasks) {
+            for (TaskStatusView task : tasks) {
                 if (GroupCompletionEvaluator.isTerminalFailureStatus(task.getStatus())) {
                     return false;
                 }
@@ -350,7 +467,43 @@ public class WorkflowStateManager {
     }
 
     /**
-     * Start eligible tasks and groups in a workflow
+     * Skip everything still pending under a group that has just completed or failed.
+     * Pending tasks and descendant groups are moved to SKIPPED in one batched update each,
+     * then the handlers of tasks that were already running get their cancellation hook.
+     * 
+     * @param connection Database connection
+     * @param group The group that reached a terminal state
+     */
+    private static void cancelRemaining(Connection connection, TaskGroupInstance group) {
+        try {
+            TaskInstanceDAO taskDAO = new TaskInstanceDAO(connection);
+            TaskGroupInstanceDAO groupDAO = new TaskGroupInstanceDAO(connection);
+            
+            List<TaskInstance> skippedTasks = taskDAO.skipPendingTasks(group.getId());
+            int skippedGroups = groupDAO.skipPendingChildGroups(group.getId());
+            
+            if (!skippedTasks.isEmpty() || skippedGroups > 0) {
+                LOGGER.info("Skipped " + skippedTasks.size() + " tasks and " + skippedGroups +
+                           " groups remaining in group: " + group.getId());
+            }
+            
+            for (TaskInstance task : skippedTasks) {
+                if (task.getStatus() == TaskStatus.IN_PROGRESS || task.getStatus() == TaskStatus.BLOCKED) {
+                    try {
+                        TaskHandler.cancel(connection, task);
+                    } catch (Exception e) {
+                        LOGGER.log(Level.WARNING, "Error cancelling task: " + task.getId(), e);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error cancelling remaining work in group: " + group.getId(), e);
+        }
+    }
+
+    /**
+     * Start eligible tasks and groups in a workflow: every root group and top-level task
+     * whose dependencies are satisfied
      * 
      * @param connection Database connection
      * @param workflow The workflow instance
@@ -362,26 +515,14 @@ public class WorkflowStateManager {
             TaskGroupInstanceDAO groupDAO = new TaskGroupInstanceDAO(connection);
             TaskInstanceDAO taskDAO = new TaskInstanceDAO(connection);
             
-            // First, get all root task groups (those without a parent)
+            // Root task groups and top-level tasks are siblings linked by their dependsOn edges
             List<TaskGroupInstance> rootGroups = groupDAO.getRootTaskGroups(workflow.getId());
-            
-            // Start any root groups that are not yet started
-            for (TaskGroupInstance group : rootGroups) {
-                if (group.getStatus() == TaskStatus.NOT_STARTED) {
-                    TaskGroupHandler handler = TaskGroupHandler.getHandler(connection, group);
-                    handler.run();
-                }
-            }
-            
-            // Now, get all top-level tasks (those not in any group)
             List<TaskInstance> topLevelTasks = taskDAO.getTopLevelTasks(workflow.getId());
-            
-            // Start any top-level tasks that are not yet started
-            for (TaskInstance task : topLevelTasks) {
-                if (task.getStatus() == TaskStatus.NOT_STARTED) {
-                    TaskHandler.run(connection, task);
-                }
-            }
+
+            int started = DependencyGraph.schedule(connection,
+                    rootGroups, new TaskGroupDefinitionDAO(connection).getRootTaskGroups(workflow.getWorkflowDefId()),
+                    topLevelTasks, new TaskDefinitionDAO(connection).getTopLevelTasks(workflow.getWorkflowDefId()));
+            LOGGER.info("Started " + started + " tasks and groups for workflow: " + workflow.getId());
             
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error starting eligible tasks and groups: " + workflow.getId(), e);
@@ -402,14 +543,14 @@ public class WorkflowStateManager {
             TaskInstanceDAO taskDAO = new TaskInstanceDAO(connection);
             WorkflowInstanceDAO workflowDAO = new WorkflowInstanceDAO(connection);
             
-            // Get all root task groups and top-level tasks
-            List<TaskGroupInstance> rootGroups = groupDAO.getRootTaskGroups(workflow.getId());
-            List<TaskInstance> topLevelTasks = taskDAO.getTopLevelTasks(workflow.getId());
+            // Get the status of all root task groups and top-level tasks
+            List<TaskStatusView> rootGroups = groupDAO.getRootTaskGroupStatuses(workflow.getId());
+            List<TaskStatusView> topLevelTasks = taskDAO.getTopLevelTaskStatuses(workflow.getId());
             
             // Check if all are in a terminal state
             boolean allComplete = true;
             
-            for (TaskGroupInstance group : rootGroups) {
+            for (TaskStatusView group : rootGroups) {
                 if (!GroupCompletionEvaluator.isTerminalStatus(group.getStatus())) {
                     allComplete = false;
                     break;
@@ -417,7 +558,7 @@ public class WorkflowStateManager {
             }
             
             if (allComplete) {
-                for (TaskInstance task : topLevelTasks) {
+                for (TaskStatusView task : topLevelTasks) {
                     if (!GroupCompletionEvaluator.isTerminalStatus(task.getStatus())) {
                         allComplete = false;
                         break;
@@ -429,7 +570,7 @@ public class WorkflowStateManager {
             if (allComplete) {
                 boolean anyFailed = false;
                 
-                for (TaskGroupInstance group : rootGroups) {
+                for (TaskStatusView group : rootGroups) {
                     if (group.getStatus() == TaskStatus.FAILED) {
                         anyFailed = true;
                         break;
@@ -437,7 +578,7 @@ public class WorkflowStateManager {
                 }
                 
                 if (!anyFailed) {
-                    for (TaskInstance task : topLevelTasks) {
+                    for (TaskStatusView task : topLevelTasks) {
                         if (GroupCompletionEvaluator.isTerminalFailureStatus(task.getStatus())) {
                             anyFailed = true;
                             break;
@@ -453,6 +594,9 @@ public class WorkflowStateManager {
                     workflowDAO.updateWorkflowStatus(workflow.getId(), WorkflowStatus.COMPLETED);
                     LOGGER.info("Workflow completed successfully: " + workflow.getId());
                 }
+                
+                // A sub-workflow completes its parent task, which queues the parent workflow
+                SubWorkflowTaskHandler.propagateToParent(connection, workflow.getId());
             }
             
         } catch (Exception e) {
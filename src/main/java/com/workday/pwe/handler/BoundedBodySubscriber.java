@@ -0,0 +1,208 @@
+package com.workday.pwe.handler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams an HTTP response body into memory up to a size cap.
+ * Beyond the cap the body is either spilled to a file or truncated and the download cancelled.
+ */
+public class BoundedBodySubscriber implements HttpResponse.BodySubscriber<BoundedBodySubscriber.Body> {
+
+    private static final Logger LOGGER = Logger.getLogger(BoundedBodySubscriber.class.getName());
+
+    private final int maxInMemoryBytes;
+    private final Path spillFile;
+    private final CompletableFuture<Body> result = new CompletableFuture<>();
+
+    private Flow.Subscription subscription;
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private OutputStream spillOut;
+    private long totalBytes;
+    private boolean truncated;
+
+    /**
+     * Constructor with limits
+     *
+     * @param maxInMemoryBytes Maximum number of bytes kept in memory
+     * @param spillFile File to spill oversized bodies to, or null to truncate instead
+     */
+    public BoundedBodySubscriber(int maxInMemoryBytes, Path spillFile) {
+        this.maxInMemoryBytes = maxInMemoryBytes;
+        this.spillFile = spillFile;
+    }
+
+    @Override
+    public CompletionStage<Body> getBody() {
+        return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            for (ByteBuffer item : items) {
+                write(item);
+                if (truncated) {
+                    // Nothing more will be kept, stop downloading
+                    subscription.cancel();
+                    complete();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            subscription.cancel();
+            onError(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        closeSpill();
+        if (spillOut != null) {
+            deleteSpill();
+        }
+        result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        if (!result.isDone()) {
+            complete();
+        }
+    }
+
+    /**
+     * Append one chunk to memory, the spill file, or truncate
+     *
+     * @param item The chunk
+     * @throws IOException If the spill file cannot be written
+     */
+    private void write(ByteBuffer item) throws IOException {
+        int length = item.remaining();
+        totalBytes += length;
+
+        if (spillOut == null && buffer.size() + length > maxInMemoryBytes) {
+            if (spillFile == null) {
+                int keep = maxInMemoryBytes - buffer.size();
+                byte[] bytes = new byte[keep];
+                item.get(bytes);
+                buffer.write(bytes, 0, keep);
+                truncated = true;
+                return;
+            }
+            Files.createDirectories(spillFile.getParent());
+            spillOut = Files.newOutputStream(spillFile);
+            buffer.writeTo(spillOut);
+            buffer = null;
+        }
+
+        byte[] bytes = new byte[length];
+        item.get(bytes);
+        if (spillOut != null) {
+            spillOut.write(bytes);
+        } else {
+            buffer.write(bytes, 0, length);
+        }
+    }
+
+    private void complete() {
+        closeSpill();
+        if (spillOut != null) {
+            result.complete(new Body(null, spillFile, totalBytes, false));
+        } else {
+            result.complete(new Body(buffer.toByteArray(), null, totalBytes, truncated));
+        }
+    }
+
+    private void closeSpill() {
+        if (spillOut != null) {
+            try {
+                spillOut.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Error closing spill file: " + spillFile, e);
+            }
+        }
+    }
+
+    private void deleteSpill() {
+        try {
+            Files.deleteIfExists(spillFile);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error deleting spill file: " + spillFile, e);
+        }
+    }
+
+    /**
+     * A response body held either in memory or in a spill file
+     */
+    public static class Body {
+        private final byte[] bytes;
+        private final Path spillFile;
+        private final long size;
+        private final boolean truncated;
+
+        public Body(byte[] bytes, Path spillFile, long size, boolean truncated) {
+            this.bytes = bytes;
+            this.spillFile = spillFile;
+            this.size = size;
+            this.truncated = truncated;
+        }
+
+        /**
+         * @return The in-memory bytes, or null if the body was spilled
+         */
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return The spill file, or null if the body is in memory
+         */
+        public Path getSpillFile() {
+            return spillFile;
+        }
+
+        /**
+         * @return Number of bytes received (before truncation)
+         */
+        public long getSize() {
+            return size;
+        }
+
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        public boolean isSpilled() {
+            return spillFile != null;
+        }
+
+        /**
+         * @return The in-memory body decoded as UTF-8
+         */
+        public String asString() {
+            return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.workday.pwe.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.workday.pwe.dao.TaskDefinitionDAO;
+import com.workday.pwe.dao.WorkflowInstanceDAO;
+import com.workday.pwe.enums.CompletionCriteria;
+import com.workday.pwe.enums.TaskStatus;
+import com.workday.pwe.execution.ExecutionQueuingInterceptor;
+import com.workday.pwe.model.TaskDefinition;
+import com.workday.pwe.model.TaskGroupInstance;
+import com.workday.pwe.model.TaskInstance;
+import com.workday.pwe.model.TaskStatusView;
+import com.workday.pwe.model.WorkflowInstance;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handler for for-each (dynamic fan-out) task groups.
+ * The group's single child task is a template instantiated once per element of the array at the
+ * "items" JSON pointer in the workflow input. Children are created in batches of "batchSize" and at
+ * most "maxParallel" of them run at once. Progress is tracked on status-only rows; child outputs
+ * are read once, when the last child finishes, and aggregated into the group's "output" up to
+ * {@code foreach.output.max.bytes}. Past that the remaining entries are left null and
+ * "outputTruncated" is set; the full outputs stay on the child tasks, by their "itemIndex".
+ */
+public class ForEachGroupHandler extends TaskGroupHandler {
+
+    private static final Logger LOGGER = Logger.getLogger(ForEachGroupHandler.class.getName());
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final int DEFAULT_MAX_PARALLEL = 10;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int MAX_OUTPUT_BYTES;
+
+    // Load configuration properties
+    static {
+        Properties properties = new Properties();
+        // In a real implementation, we would load from a properties file
+        // For now, we'll use default values
+        MAX_OUTPUT_BYTES = Integer.parseInt(properties.getProperty("foreach.output.max.bytes", String.valueOf(1024 * 1024)));
+    }
+
+    // Expansion progress, kept in the group instance's parameters_json
+    public static final String ITEM_COUNT = "itemCount";
+    public static final String EXPANDED_COUNT = "expandedCount";
+
+    /**
+     * Constructor with required parameters
+     *
+     * @param connection Database connection
+     * @param groupInstance The task group instance to handle
+     */
+    public ForEachGroupHandler(Connection connection, TaskGroupInstance groupInstance) {
+        super(connection, groupInstance);
+    }
+
+    @Override
+    public void execute() {
+        try {
+            ObjectNode state = getState();
+            if (!state.has(ITEM_COUNT)) {
+                ArrayNode items = resolveItems();
+                state.put(ITEM_COUNT, items.size());
+                state.put(EXPANDED_COUNT, 0);
+                groupInstanceDAO.updateTaskGroupInstance(groupInstance);
+                LOGGER.info("Expanding for-each group " + groupInstance.getId() + " over " + items.size() + " items");
+            }
+
+            advance();
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error executing for-each group", e);
+            moveToFailed("Error executing for-each group: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean advance() {
+        try {
+            if (GroupCompletionEvaluator.isTerminalStatus(groupInstance.getStatus())) {
+                return true;
+            }
+
+            ObjectNode state = getState();
+            int itemCount = state.path(ITEM_COUNT).asInt();
+            int expandedCount = state.path(EXPANDED_COUNT).asInt();
+            int maxParallel = state.path("maxParallel").asInt(DEFAULT_MAX_PARALLEL);
+
+            // Statuses only; full rows are loaded just for the children about to start
+            List<TaskStatusView> statuses = getTaskStatusesInGroup();
+            List<UUID> notStarted = new ArrayList<>();
+            int active = 0;
+            int terminal = 0;
+            int succeeded = 0;
+
+            for (TaskStatusView task : statuses) {
+                TaskStatus status = task.getStatus();
+                if (status == TaskStatus.NOT_STARTED) {
+                    notStarted.add(task.getId());
+                } else if (GroupCompletionEvaluator.isTerminalStatus(status)) {
+                    terminal++;
+                    if (GroupCompletionEvaluator.isTerminalSuccessStatus(status)) {
+                        succeeded++;
+                    }
+                } else {
+                    active++;
+                }
+            }
+
+            int freeSlots = maxParallel - active;
+            int childCount = statuses.size();
+            List<TaskInstance> toStart = new ArrayList<>();
+            for (int i = 0; i < freeSlots && i < notStarted.size(); i++) {
+                TaskInstance task = taskInstanceDAO.getTaskInstance(notStarted.get(i));
+                if (task != null) {
+                    toStart.add(task);
+                }
+            }
+
+            // Create the next batch only when the already-created children cannot fill the free slots
+            if (toStart.size() < freeSlots && expandedCount < itemCount) {
+                List<TaskInstance> created = expandBatch(state, expandedCount, itemCount);
+                for (int i = 0; toStart.size() < freeSlots && i < created.size(); i++) {
+                    toStart.add(created.get(i));
+                }
+                childCount += created.size();
+                expandedCount += created.size();
+            }
+
+            for (TaskInstance task : toStart) {
+                startTask(task);
+            }
+
+            if (expandedCount == itemCount && terminal == childCount) {
+                finish(childCount, succeeded);
+            }
+            return true;
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error advancing for-each group", e);
+            moveToFailed("Error advancing for-each group: " + e.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public boolean evaluateCompletion() {
+        return GroupCompletionEvaluator.evaluateCompletion(connection, groupInstance);
+    }
+
+    /**
+     * Create the next batch of child task instances from the template
+     *
+     * @param state The group state
+     * @param expandedCount Number of children created so far
+     * @param itemCount Total number of items
+     * @return The created task instances
+     * @throws SQLException If a database error occurs
+     */
+    private List<TaskInstance> expandBatch(ObjectNode state, int expandedCount, int itemCount) throws SQLException {
+        ArrayNode items = resolveItems();
+        TaskDefinition template = getTemplate();
+        int batchSize = state.path("batchSize").asInt(DEFAULT_BATCH_SIZE);
+        int end = Math.min(itemCount, Math.min(items.size(), expandedCount + batchSize));
+
+        List<TaskInstance> batch = new ArrayList<>(end - expandedCount);
+        for (int index = expandedCount; index < end; index++) {
+            JsonNode item = items.get(index);
+
+            ObjectNode inputJson = template.getParametersJson() != null
+                    ? template.getParametersJson().deepCopy()
+                    : OBJECT_MAPPER.createObjectNode();
+            inputJson.set("item", item);
+            inputJson.put("itemIndex", index);
+
+            String assignee = item.hasNonNull("assignee")
+                    ? item.get("assignee").asText()
+                    : inputJson.path("assignee").asText(null);
+
+            TaskInstance taskInst = new TaskInstance(groupInstance.getWorkflowInstanceId(), template.getId(), assignee);
+            taskInst.setTaskGroupInstanceId(groupInstance.getId());
+            taskInst.setInputJson(inputJson);
+            batch.add(taskInst);
+        }
+
+        taskInstanceDAO.createTaskInstances(batch);
+
+        state.put(EXPANDED_COUNT, end);
+        groupInstanceDAO.updateTaskGroupInstance(groupInstance);
+
+        LOGGER.info("Created " + batch.size() + " children for for-each group " + groupInstance.getId() +
+                   " (" + end + "/" + itemCount + ")");
+        return batch;
+    }
+
+    /**
+     * Aggregate child outputs and complete or fail the group according to its criteria
+     *
+     * @param childCount Number of children, all in a terminal state
+     * @param succeeded Number of children that succeeded
+     * @throws SQLException If a database error occurs
+     * @throws IOException If a child output cannot be parsed
+     */
+    private void finish(int childCount, int succeeded) throws SQLException, IOException {
+        ObjectNode state = getState();
+        ArrayNode output = OBJECT_MAPPER.createArrayNode();
+        for (int i = 0; i < state.path(ITEM_COUNT).asInt(); i++) {
+            output.addNull();
+        }
+
+        long outputBytes = 0;
+        for (Map.Entry<Integer, String> entry : taskInstanceDAO.getOutputsByItemIndex(groupInstance.getId()).entrySet()) {
+            int index = entry.getKey();
+            if (index < 0 || index >= output.size()) {
+                continue;
+            }
+            outputBytes += entry.getValue().length();
+            if (outputBytes > MAX_OUTPUT_BYTES) {
+                state.put("outputTruncated", true);
+                LOGGER.warning("for-each group " + groupInstance.getId() + " output exceeds " + MAX_OUTPUT_BYTES +
+                               " bytes, keeping items before index " + index);
+                break;
+            }
+            output.set(index, OBJECT_MAPPER.readTree(entry.getValue()));
+        }
+        state.set("output", output);
+
+        CompletionCriteria criteria = getTaskGroupDefinition().getCompletionCriteria();
+        boolean satisfied;
+        switch (criteria) {
+            case ANY:
+                satisfied = succeeded > 0 || childCount == 0;
+                break;
+            case N_OF_M:
+                satisfied = succeeded >= Math.min(groupInstance.getMinCompletion(), childCount);
+                break;
+            default:
+                satisfied = succeeded == childCount;
+                break;
+        }
+
+        if (satisfied) {
+            moveToComplete();
+        } else {
+            moveToFailed(succeeded + " of " + childCount + " for-each children succeeded");
+        }
+        ExecutionQueuingInterceptor.queueForStateManagement(connection, groupInstance.getWorkflowInstanceId());
+    }
+
+    /**
+     * Resolve the items array from the workflow input
+     *
+     * @return The items, empty if the pointer does not resolve to an array
+     * @throws SQLException If a database error occurs
+     */
+    private ArrayNode resolveItems() throws SQLException {
+        String pointer = getState().path("items").asText("");
+        WorkflowInstance workflow = new WorkflowInstanceDAO(connection).getWorkflowInstance(groupInstance.getWorkflowInstanceId());
+        JsonNode items = workflow != null && workflow.getInputJson() != null
+                ? workflow.getInputJson().at(pointer)
+                : null;
+
+        if (items == null || !items.isArray()) {
+            LOGGER.warning("for-each items pointer " + pointer + " did not resolve to an array for group: " + groupInstance.getId());
+            return OBJECT_MAPPER.createArrayNode();
+        }
+        return (ArrayNode) items;
+    }
+
+    /**
+     * Get the template task definition of this group
+     *
+     * @return The template task definition
+     * @throws SQLException If a database error occurs
+     */
+    private TaskDefinition getTemplate() throws SQLException {
+        List<TaskDefinition> templates = new TaskDefinitionDAO(connection).getTasksByGroupId(groupInstance.getTaskGroupDefId());
+        if (templates.isEmpty()) {
+            throw new IllegalStateException("for-each group has no template task: " + groupInstance.getId());
+        }
+        return templates.get(0);
+    }
+
+    /**
+     * Get the mutable parameters of the group instance, creating them if absent
+     *
+     * @return The group parameters
+     */
+    private ObjectNode getState() {
+        if (!(groupInstance.getParametersJson() instanceof ObjectNode)) {
+            groupInstance.setParametersJson(OBJECT_MAPPER.createObjectNode());
+        }
+        return (ObjectNode) groupInstance.getParametersJson();
+    }
+}
@@ -1,12 +1,13 @@
 package com.workday.pwe.handler;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.workday.pwe.dao.TaskGroupDefinitionDAO;
 import com.workday.pwe.dao.TaskInstanceDAO;
 import com.workday.pwe.enums.CompletionCriteria;
 import com.workday.pwe.enums.TaskStatus;
 import com.workday.pwe.model.TaskGroupDefinition;
 import com.workday.pwe.model.TaskGroupInstance;
-import com.workday.pwe.model.TaskInstance;
+import com.workday.pwe.model.TaskStatusView;
 
 import java.sql.Connection;
 import java.util.List;
@@ -39,8 +40,19 @@ public class GroupCompletionEvaluator {
             TaskGroupDefinitionDAO groupDefDAO = new TaskGroupDefinitionDAO(connection);
             TaskInstanceDAO taskInstanceDAO = new TaskInstanceDAO(connection);
             
+            // A for-each group that has not created all of its children yet cannot be complete; other
+            // groups' parameters are not parsed
+            String rawParameters = groupInstance.getParametersJsonRaw();
+            if (rawParameters != null && rawParameters.contains(ForEachGroupHandler.ITEM_COUNT)) {
+                JsonNode parameters = groupInstance.getParametersJson();
+                if (parameters.has(ForEachGroupHandler.ITEM_COUNT) &&
+                    parameters.path(ForEachGroupHandler.EXPANDED_COUNT).asInt() < parameters.path(ForEachGroupHandler.ITEM_COUNT).asInt()) {
+                    return false;
+                }
+            }
+            
             TaskGroupDefinition groupDef = groupDefDAO.getTaskGroupDefinition(groupInstance.getTaskGroupDefId());
-            List<TaskInstance> tasks = taskInstanceDAO.getTaskInstancesByGroupId(groupInstance.getId());
+            List<TaskStatusView> tasks = taskInstanceDAO.getTaskStatusesByGroupId(groupInstance.getId());
             
             if (tasks.isEmpty()) {
                 // Empty groups are considered complete
@@ -52,7 +64,7 @@ public class GroupCompletionEvaluator {
             int completedTasks = 0;
             int failedTasks = 0;
             
-            for (TaskInstance task : tasks) {
+            for (TaskStatusView task : tasks) {
                 TaskStatus status = task.getStatus();
                 
                 if (isTerminalSuccessStatus(status)) {
@@ -138,9 +150,9 @@ public class GroupCompletionEvaluator {
     public static boolean hasFailedTasks(Connection connection, TaskGroupInstance groupInstance) {
         try {
             TaskInstanceDAO taskInstanceDAO = new TaskInstanceDAO(connection);
-            List<TaskInstance> tasks = taskInstanceDAO.getTaskInstancesByGroupId(groupInstance.getId());
+            List<TaskStatusView> tasks = taskInstanceDAO.getTaskStatusesByGroupId(groupInstance.getId());
             
-            for (TaskInstance task : tasks) {
+            for (TaskStatusView task : tasks) {
                 if (isTerminalFailureStatus(task.getStatus())) {
                     return true;
                 }
@@ -1,12 +1,16 @@
 package com.workday.pwe.handler;
 
+import com.workday.pwe.dao.TaskDefinitionDAO;
 import com.workday.pwe.enums.CompletionCriteria;
 import com.workday.pwe.enums.TaskStatus;
+import com.workday.pwe.execution.DependencyGraph;
 import com.workday.pwe.model.TaskGroupDefinition;
 import com.workday.pwe.model.TaskGroupInstance;
 import com.workday.pwe.model.TaskInstance;
+import com.workday.pwe.model.TaskStatusView;
 
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -37,13 +41,8 @@ public class HorizontalGroupHandler extends TaskGroupHandler {
             LOGGER.info("Executing horizontal group: " + groupInstance.getId() + 
                        " with " + tasks.size() + " tasks");
             
-            // In a horizontal group, all tasks are started in parallel
-            for (TaskInstance task : tasks) {
-                if (task.getStatus() == TaskStatus.NOT_STARTED) {
-                    LOGGER.info("Starting task: " + task.getId() + " in horizontal group");
-                    startTask(task);
-                }
-            }
+            // In a horizontal group, all children are started in parallel unless held back by dependsOn
+            scheduleChildren(groupDef, tasks);
             
             // Check if the group is already complete
             if (evaluateCompletion()) {
@@ -56,11 +55,40 @@ public class HorizontalGroupHandler extends TaskGroupHandler {
         }
     }
 
+    @Override
+    public boolean advance() {
+        try {
+            // A finished child may release dependents; completion is still left to the evaluator
+            if (!GroupCompletionEvaluator.isTerminalStatus(groupInstance.getStatus())) {
+                scheduleChildren(getTaskGroupDefinition(), getTasksInGroup());
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error advancing horizontal group", e);
+        }
+        return false;
+    }
+
+    /**
+     * Start every child task and group whose dependencies are satisfied
+     *
+     * @param groupDef The group definition
+     * @param tasks The tasks in the group
+     * @throws SQLException If a database error occurs
+     */
+    private void scheduleChildren(TaskGroupDefinition groupDef, List<TaskInstance> tasks) throws SQLException {
+        int started = DependencyGraph.schedule(connection,
+                groupInstanceDAO.getChildGroups(groupInstance.getId()), groupDefinitionDAO.getChildGroups(groupDef.getId()),
+                tasks, new TaskDefinitionDAO(connection).getTasksByGroupId(groupDef.getId()));
+        if (started > 0) {
+            LOGGER.info("Started " + started + " children in horizontal group: " + groupInstance.getId());
+        }
+    }
+
     @Override
     public boolean evaluateCompletion() {
         try {
             TaskGroupDefinition groupDef = getTaskGroupDefinition();
-            List<TaskInstance> tasks = getTasksInGroup();
+            List<TaskStatusView> tasks = getTaskStatusesInGroup();
             
             if (tasks.isEmpty()) {
                 // Empty groups are considered complete
@@ -72,7 +100,7 @@ public class HorizontalGroupHandler extends TaskGroupHandler {
             int completedTasks = 0;
             int failedTasks = 0;
             
-            for (TaskInstance task : tasks) {
+            for (TaskStatusView task : tasks) {
                 TaskStatus status = task.getStatus();
                 
                 if (status == TaskStatus.COMPLETED || 
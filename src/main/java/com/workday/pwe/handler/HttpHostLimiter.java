@@ -0,0 +1,287 @@
+package com.workday.pwe.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+
+/**
+ * Per-host protection for HTTP tasks: a concurrency bulkhead, a token-bucket rate limit and a circuit breaker.
+ * <p>
+ * Limits are read from the "limits" object of the task parameters. Limiters are keyed by host and the
+ * resolved limits, so every task gets exactly the limits it asked for regardless of dispatch order;
+ * tasks that call one host with different limits each draw on their own limiter, which is logged once
+ * per configuration. Limiters left idle with a closed circuit are dropped after
+ * {@code http.limiter.idle.ms}.
+ */
+public class HttpHostLimiter {
+
+    private static final Logger LOGGER = Logger.getLogger(HttpHostLimiter.class.getName());
+
+    private static final int DEFAULT_MAX_CONCURRENT = 50;
+    private static final double DEFAULT_RATE_PER_SECOND = 0; // 0 = unlimited
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    private static final int DEFAULT_OPEN_SECONDS = 30;
+
+    private static final long IDLE_MS;
+    private static final int MAX_LIMITERS;
+
+    // Load configuration properties
+    static {
+        Properties properties = new Properties();
+        // In a real implementation, we would load from a properties file
+        // For now, we'll use default values
+        IDLE_MS = Long.parseLong(properties.getProperty("http.limiter.idle.ms", "600000"));
+        MAX_LIMITERS = Integer.parseInt(properties.getProperty("http.limiter.max.entries", "10000"));
+    }
+
+    private static final Map<String, HttpHostLimiter> LIMITERS = new ConcurrentHashMap<>();
+    private static final Map<String, Set<String>> CONFIGS_BY_HOST = new ConcurrentHashMap<>();
+    private static volatile long lastEvictionAt = System.currentTimeMillis();
+
+    private final String host;
+    private final int maxConcurrent;
+    private volatile long lastUsedAt = System.currentTimeMillis();
+    private final Semaphore bulkhead;
+    private final TokenBucket rateLimiter;
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * Constructor with resolved limits
+     *
+     * @param host The destination host
+     * @param config The resolved limits
+     */
+    private HttpHostLimiter(String host, Config config) {
+        this.host = host;
+        this.maxConcurrent = config.maxConcurrent;
+        this.bulkhead = new Semaphore(config.maxConcurrent);
+        this.rateLimiter = config.ratePerSecond > 0 ? new TokenBucket(config.ratePerSecond, config.burst) : null;
+        this.circuitBreaker = new CircuitBreaker(config.failureThreshold, config.openSeconds * 1000L);
+    }
+
+    /**
+     * Get the limiter for a host and the task's limits, creating it on first use
+     *
+     * @param host The destination host
+     * @param inputJson The task input parameters
+     * @return The limiter for the host and limits
+     */
+    public static HttpHostLimiter forHost(String host, JsonNode inputJson) {
+        Config config = new Config(inputJson != null ? inputJson.get("limits") : null);
+        String key = host + " " + config;
+        HttpHostLimiter limiter = LIMITERS.get(key);
+        if (limiter == null) {
+            evictIdle();
+            limiter = LIMITERS.computeIfAbsent(key, k -> {
+                Set<String> configs = CONFIGS_BY_HOST.computeIfAbsent(host, h -> ConcurrentHashMap.newKeySet());
+                configs.add(config.toString());
+                if (configs.size() > 1) {
+                    LOGGER.warning("HTTP tasks call host " + host + " with different limits " + configs +
+                                   "; each configuration gets its own limiter");
+                } else {
+                    LOGGER.info("Created HTTP limiter for host: " + host + " with " + config);
+                }
+                return new HttpHostLimiter(host, config);
+            });
+        }
+        limiter.lastUsedAt = System.currentTimeMillis();
+        return limiter;
+    }
+
+    /**
+     * Drop limiters that have been idle for the idle timeout, have no call in flight and a closed
+     * circuit, so nothing they hold is lost. Runs at most every half idle timeout unless the map is full.
+     */
+    private static void evictIdle() {
+        long now = System.currentTimeMillis();
+        if (now - lastEvictionAt < IDLE_MS / 2 && LIMITERS.size() < MAX_LIMITERS) {
+            return;
+        }
+        lastEvictionAt = now;
+        for (Map.Entry<String, HttpHostLimiter> entry : LIMITERS.entrySet()) {
+            HttpHostLimiter limiter = entry.getValue();
+            if (now - limiter.lastUsedAt >= IDLE_MS && limiter.isIdle() && LIMITERS.remove(entry.getKey(), limiter)) {
+                Set<String> configs = CONFIGS_BY_HOST.get(limiter.host);
+                if (configs != null) {
+                    configs.remove(entry.getKey().substring(limiter.host.length() + 1));
+                    CONFIGS_BY_HOST.remove(limiter.host, Collections.emptySet());
+                }
+            }
+        }
+        if (LIMITERS.size() >= MAX_LIMITERS) {
+            LOGGER.warning("HTTP limiter map holds " + LIMITERS.size() + " active limiters");
+        }
+    }
+
+    private boolean isIdle() {
+        return bulkhead.availablePermits() == maxConcurrent && circuitBreaker.isClosed();
+    }
+
+    /**
+     * Try to obtain permission for one call. On success the caller must call {@link #release(boolean)}
+     * or {@link #releaseWithoutOutcome()}.
+     *
+     * @return null if the call may proceed, otherwise the reason it was rejected
+     */
+    public String tryAcquire() {
+        if (!bulkhead.tryAcquire()) {
+            return "Concurrency limit reached for host " + host;
+        }
+        if (!circuitBreaker.allowRequest()) {
+            bulkhead.release();
+            return "Circuit open for host " + host;
+        }
+        // Checked after the breaker, so calls it rejects do not use up the host's rate
+        if (rateLimiter != null && !rateLimiter.tryConsume()) {
+            circuitBreaker.abandonTrial();
+            bulkhead.release();
+            return "Rate limit exceeded for host " + host;
+        }
+        return null;
+    }
+
+    /**
+     * Release a permit obtained from {@link #tryAcquire()} and record the call outcome
+     *
+     * @param success true if the destination responded healthily
+     */
+    public void release(boolean success) {
+        bulkhead.release();
+        if (success) {
+            circuitBreaker.recordSuccess();
+        } else if (circuitBreaker.recordFailure()) {
+            LOGGER.warning("Circuit opened for host: " + host);
+        }
+    }
+
+    /**
+     * Release a permit obtained from {@link #tryAcquire()} for a call that says nothing about the
+     * destination's health, such as one cancelled before it finished. A half-open trial is given back
+     * so the next call can probe the host.
+     */
+    public void releaseWithoutOutcome() {
+        bulkhead.release();
+        circuitBreaker.abandonTrial();
+    }
+
+    private static int getIntParam(JsonNode json, String paramName, int defaultValue) {
+        JsonNode node = json != null ? json.get(paramName) : null;
+        return (node != null && !node.isNull()) ? node.asInt() : defaultValue;
+    }
+
+    private static double getDoubleParam(JsonNode json, String paramName, double defaultValue) {
+        JsonNode node = json != null ? json.get(paramName) : null;
+        return (node != null && !node.isNull()) ? node.asDouble() : defaultValue;
+    }
+
+    /**
+     * Limits resolved from a task's "limits" object, with defaults filled in
+     */
+    private static class Config {
+        private final int maxConcurrent;
+        private final double ratePerSecond;
+        private final int burst;
+        private final int failureThreshold;
+        private final int openSeconds;
+
+        Config(JsonNode limits) {
+            this.maxConcurrent = getIntParam(limits, "maxConcurrent", DEFAULT_MAX_CONCURRENT);
+            this.ratePerSecond = getDoubleParam(limits, "ratePerSecond", DEFAULT_RATE_PER_SECOND);
+            this.burst = ratePerSecond > 0 ? getIntParam(limits, "burst", (int) Math.max(1, Math.ceil(ratePerSecond))) : 0;
+            this.failureThreshold = getIntParam(limits, "failureThreshold", DEFAULT_FAILURE_THRESHOLD);
+            this.openSeconds = getIntParam(limits, "openSeconds", DEFAULT_OPEN_SECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return "maxConcurrent=" + maxConcurrent + ",ratePerSecond=" + ratePerSecond + ",burst=" + burst +
+                   ",failureThreshold=" + failureThreshold + ",openSeconds=" + openSeconds;
+        }
+    }
+
+    /**
+     * Token bucket refilled continuously at a fixed rate
+     */
+    private static class TokenBucket {
+        private final double ratePerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(double ratePerSecond, int capacity) {
+            this.ratePerNano = ratePerSecond / 1_000_000_000d;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        synchronized boolean tryConsume() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * ratePerNano);
+            lastRefillNanos = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Consecutive-failure circuit breaker with a single half-open trial call
+     */
+    private static class CircuitBreaker {
+        private final int failureThreshold;
+        private final long openMillis;
+        private int consecutiveFailures;
+        private long openedAt = -1;
+        private boolean trialInFlight;
+
+        CircuitBreaker(int failureThreshold, long openMillis) {
+            this.failureThreshold = failureThreshold;
+            this.openMillis = openMillis;
+        }
+
+        synchronized boolean allowRequest() {
+            if (openedAt < 0) {
+                return true;
+            }
+            if (System.currentTimeMillis() - openedAt < openMillis || trialInFlight) {
+                return false;
+            }
+            trialInFlight = true; // Half-open: let one call through
+            return true;
+        }
+
+        synchronized void recordSuccess() {
+            consecutiveFailures = 0;
+            openedAt = -1;
+            trialInFlight = false;
+        }
+
+        synchronized boolean isClosed() {
+            return openedAt < 0;
+        }
+
+        synchronized void abandonTrial() {
+            trialInFlight = false;
+        }
+
+        synchronized boolean recordFailure() {
+            consecutiveFailures++;
+            boolean wasClosed = openedAt < 0;
+            if (trialInFlight || consecutiveFailures >= failureThreshold) {
+                openedAt = System.currentTimeMillis();
+                trialInFlight = false;
+                return wasClosed;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.workday.pwe.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Opt-in response cache for idempotent HTTP tasks.
+ * Entries are keyed by tenant, method, URL, body hash and the task's body limits, expire by TTL or Cache-Control max-age,
+ * are revalidated with ETag / Last-Modified, and are evicted by entry count and total size.
+ * Concurrent identical requests are coalesced into a single call.
+ */
+public class HttpResponseCache {
+
+    private static final Logger LOGGER = Logger.getLogger(HttpResponseCache.class.getName());
+
+    private static final int MAX_ENTRIES;
+    private static final long MAX_BYTES;
+    private static final int DEFAULT_TTL_SECONDS = 60;
+
+    // Load configuration properties
+    static {
+        Properties properties = new Properties();
+        // In a real implementation, we would load from a properties file
+        // For now, we'll use default values
+        MAX_ENTRIES = Integer.parseInt(properties.getProperty("http.cache.max.entries", "1000"));
+        MAX_BYTES = Long.parseLong(properties.getProperty("http.cache.max.bytes", String.valueOf(64L * 1024 * 1024)));
+    }
+
+    private static final LinkedHashMap<String, Entry> ENTRIES = new LinkedHashMap<>(16, 0.75f, true);
+    private static final Map<String, CompletableFuture<HttpTaskResponse>> IN_FLIGHT = new ConcurrentHashMap<>();
+    private static long totalBytes;
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private HttpResponseCache() {
+        // Do not instantiate
+    }
+
+    /**
+     * Get the TTL for a request if the task opted into caching
+     *
+     * @param method The HTTP method
+     * @param inputJson The task input parameters
+     * @return TTL in seconds, or -1 if the request must not be cached
+     */
+    public static int ttlSeconds(String method, JsonNode inputJson) {
+        JsonNode cache = inputJson != null ? inputJson.get("cache") : null;
+        if (cache == null || !"GET".equalsIgnoreCase(method)) {
+            return -1;
+        }
+        if (cache.isBoolean()) {
+            return cache.asBoolean() ? DEFAULT_TTL_SECONDS : -1;
+        }
+        JsonNode ttl = cache.get("ttlSeconds");
+        return ttl != null ? ttl.asInt() : DEFAULT_TTL_SECONDS;
+    }
+
+    /**
+     * Build the cache key for a request. The tenant is part of the key, so responses are never
+     * shared across tenants, and so are the body limits, so a task never receives a body cut or
+     * spilled under another task's limits, or larger than its own.
+     *
+     * @param tenant The tenant issuing the request, may be null
+     * @param method The HTTP method
+     * @param url The request URL
+     * @param body The request body, may be null
+     * @param maxResponseBytes The task's in-memory body limit
+     * @param spillOversized true if the task spills bodies over the limit, false if it truncates them
+     * @return The cache key
+     */
+    public static String key(String tenant, String method, String url, String body, int maxResponseBytes,
+                             boolean spillOversized) {
+        return tenant + " " + method.toUpperCase() + " " + url + " " + (body != null ? sha256(body) : "-")
+               + " " + maxResponseBytes + (spillOversized ? " spill" : " truncate");
+    }
+
+    /**
+     * Get a cached response that is still fresh
+     *
+     * @param key The cache key
+     * @return The response, or null if absent or stale
+     */
+    public static HttpTaskResponse getFresh(String key) {
+        synchronized (ENTRIES) {
+            Entry entry = ENTRIES.get(key);
+            return entry != null && entry.expiresAt > System.currentTimeMillis() ? entry.response : null;
+        }
+    }
+
+    /**
+     * Register the caller as the one performing the request for a key
+     *
+     * @param key The cache key
+     * @param future The future the caller will complete
+     * @return The already in-flight future to wait on instead, or null if the caller must perform the request
+     */
+    public static CompletableFuture<HttpTaskResponse> joinInFlight(String key, CompletableFuture<HttpTaskResponse> future) {
+        CompletableFuture<HttpTaskResponse> existing = IN_FLIGHT.putIfAbsent(key, future);
+        if (existing == null) {
+            future.whenComplete((response, error) -> IN_FLIGHT.remove(key, future));
+        }
+        return existing;
+    }
+
+    /**
+     * Add conditional headers so a stale entry can be revalidated instead of re-downloaded
+     *
+     * @param key The cache key
+     * @param request The outgoing request
+     * @return The request, with If-None-Match / If-Modified-Since when a stale entry exists
+     */
+    public static HttpRequest conditional(String key, HttpRequest request) {
+        Entry entry;
+        synchronized (ENTRIES) {
+            entry = ENTRIES.get(key);
+        }
+        if (entry == null || (entry.etag == null && entry.lastModified == null)) {
+            return request;
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+        if (entry.etag != null) {
+            builder.header("If-None-Match", entry.etag);
+        }
+        if (entry.lastModified != null) {
+            builder.header("If-Modified-Since", entry.lastModified);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Store a response, resolving 304 Not Modified against the cached entry
+     *
+     * @param key The cache key
+     * @param response The response received
+     * @param ttlSeconds The task's TTL
+     * @return The response to hand to the task, or null for a 304 whose entry is no longer cached
+     */
+    public static HttpTaskResponse store(String key, HttpTaskResponse response, int ttlSeconds) {
+        synchronized (ENTRIES) {
+            Entry previous = ENTRIES.get(key);
+            HttpTaskResponse effective = response;
+            if (response.getStatusCode() == 304) {
+                if (previous == null) {
+                    // Evicted while the revalidation was in flight
+                    return null;
+                }
+                effective = previous.response;
+            }
+
+            String cacheControl = response.firstHeader("Cache-Control").orElse("").toLowerCase();
+            BoundedBodySubscriber.Body body = effective.getBody();
+            if (cacheControl.contains("no-store") || effective.getStatusCode() != 200
+                    || body.isSpilled() || body.isTruncated()) {
+                return effective;
+            }
+
+            long ttlMillis = ttlSeconds * 1000L;
+            if (cacheControl.contains("no-cache")) {
+                ttlMillis = 0; // Store for revalidation only
+            } else {
+                long maxAge = parseMaxAge(cacheControl);
+                if (maxAge >= 0) {
+                    ttlMillis = Math.min(ttlMillis, maxAge * 1000L);
+                }
+            }
+
+            Entry entry = new Entry(effective, System.currentTimeMillis() + ttlMillis,
+                    response.firstHeader("ETag").orElse(previous != null ? previous.etag : null),
+                    response.firstHeader("Last-Modified").orElse(previous != null ? previous.lastModified : null));
+            put(key, entry);
+            return effective;
+        }
+    }
+
+    private static void put(String key, Entry entry) {
+        Entry previous = ENTRIES.put(key, entry);
+        if (previous != null) {
+            totalBytes -= previous.size();
+        }
+        totalBytes += entry.size();
+
+        Iterator<Map.Entry<String, Entry>> eldest = ENTRIES.entrySet().iterator();
+        while ((ENTRIES.size() > MAX_ENTRIES || totalBytes > MAX_BYTES) && eldest.hasNext()) {
+            Map.Entry<String, Entry> evicted = eldest.next();
+            totalBytes -= evicted.getValue().size();
+            eldest.remove();
+            LOGGER.fine("Evicted cached HTTP response: " + evicted.getKey());
+        }
+    }
+
+    private static long parseMaxAge(String cacheControl) {
+        for (String directive : cacheControl.split(",")) {
+            String trimmed = directive.trim();
+            if (trimmed.startsWith("max-age=")) {
+                try {
+                    return Long.parseLong(trimmed.substring("max-age=".length()));
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * A cached response with its freshness and validators
+     */
+    private static class Entry {
+        private final HttpTaskResponse response;
+        private final long expiresAt;
+        private final String etag;
+        private final String lastModified;
+
+        Entry(HttpTaskResponse response, long expiresAt, String etag, String lastModified) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        long size() {
+            return response.getBody().getSize();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.workday.pwe.handler;
+
+import com.workday.pwe.model.TaskInstance;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Storage for HTTP response bodies too large to keep in a task's output.
+ * <p>
+ * Bodies are written under {@code http.spill.dir} as
+ * {@code <tenant>/<workflow instance id>/<task instance id>-<attempt>.body} and referenced from the
+ * task output by URI, so a retried attempt never overwrites the body of an earlier one. The directory
+ * must be shared by every node (for example a network mount), since the workflow may continue on a
+ * node other than the one that made the call; the default under the temp directory only suits a
+ * single node. The archiver deletes a workflow's bodies once the workflow has left the live tables.
+ */
+public class HttpSpillStore {
+
+    private static final Logger LOGGER = Logger.getLogger(HttpSpillStore.class.getName());
+
+    private static final String DEFAULT_TENANT = "default";
+    private static final Path SPILL_DIR;
+
+    // Load configuration properties
+    static {
+        Properties properties = new Properties();
+        // In a real implementation, we would load from a properties file
+        // For now, we'll use default values
+        String spillDir = properties.getProperty("http.spill.dir");
+        if (spillDir == null) {
+            spillDir = System.getProperty("java.io.tmpdir") + "/pwe-http-bodies";
+            LOGGER.warning("http.spill.dir is not set, spilling HTTP response bodies to node-local " + spillDir);
+        }
+        SPILL_DIR = Paths.get(spillDir);
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private HttpSpillStore() {
+        // Do not instantiate
+    }
+
+    /**
+     * Get the file an attempt of a task spills its response body to
+     *
+     * @param tenant The tenant the task belongs to, may be null
+     * @param task The task instance
+     * @param attempt The attempt number
+     * @return The spill file
+     */
+    public static Path fileFor(String tenant, TaskInstance task, int attempt) {
+        return tenantDir(tenant).resolve(task.getWorkflowInstanceId().toString())
+                .resolve(task.getId() + "-" + attempt + ".body");
+    }
+
+    /**
+     * Copy a spilled body to another task's spill file
+     *
+     * @param source The spilled body
+     * @param target The other task's spill file
+     * @throws IOException If the body cannot be copied
+     */
+    public static void copy(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Get the workflows of a tenant that have spilled bodies
+     *
+     * @param tenant The tenant, may be null
+     * @return IDs of the workflows with a spill directory
+     * @throws IOException If the directory cannot be listed
+     */
+    public static List<UUID> getWorkflowIds(String tenant) throws IOException {
+        List<UUID> workflowIds = new ArrayList<>();
+        Path dir = tenantDir(tenant);
+        if (!Files.isDirectory(dir)) {
+            return workflowIds;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, Files::isDirectory)) {
+            for (Path entry : entries) {
+                try {
+                    workflowIds.add(UUID.fromString(entry.getFileName().toString()));
+                } catch (IllegalArgumentException e) {
+                    // Not a workflow directory; leave it alone
+                }
+            }
+        }
+        return workflowIds;
+    }
+
+    /**
+     * Delete every spilled body of a workflow. Safe to call from several nodes at once.
+     *
+     * @param tenant The tenant, may be null
+     * @param workflowInstanceId The workflow instance ID
+     * @throws IOException If a file cannot be deleted
+     */
+    public static void deleteWorkflow(String tenant, UUID workflowInstanceId) throws IOException {
+        Path dir = tenantDir(tenant).resolve(workflowInstanceId.toString());
+        try (Stream<Path> paths = Files.walk(dir)) {
+            // Files before the directory that holds them
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        } catch (NoSuchFileException e) {
+            // Already deleted by another node
+        }
+    }
+
+    private static Path tenantDir(String tenant) {
+        return SPILL_DIR.resolve(tenant != null ? tenant : DEFAULT_TENANT);
+    }
+}
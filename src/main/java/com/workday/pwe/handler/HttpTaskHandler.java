@@ -3,16 +3,36 @@ package com.workday.pwe.handler;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.workday.pwe.dao.TaskInstanceDAO;
 import com.workday.pwe.enums.TaskStatus;
 import com.workday.pwe.enums.TaskType;
+import com.workday.pwe.execution.AsyncTaskCompletion;
+import com.workday.pwe.execution.RetryPolicy;
 import com.workday.pwe.model.TaskInstance;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -26,6 +46,32 @@ public class HttpTaskHandler extends TaskHandler {
     private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
             .connectTimeout(Duration.ofSeconds(10))
             .build();
+    
+    private static final long BASE_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 60_000;
+    private static final int DEFAULT_MAX_DEFERRALS = 20;
+    private static final int DEFAULT_MAX_RESPONSE_BYTES = 1024 * 1024;
+    private static final long REDISPATCH_MARGIN_MS;
+    
+    // Load configuration properties
+    static {
+        Properties properties = new Properties();
+        // In a real implementation, we would load from a properties file
+        // For now, we'll use default values
+        REDISPATCH_MARGIN_MS = Long.parseLong(properties.getProperty("http.redispatch.margin.ms", "300000"));
+    }
+    
+    // Re-dispatches calls rejected by a host limiter; holds no DB resources while waiting
+    private static final ScheduledExecutorService RETRY_SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "http-task-retry");
+        t.setDaemon(true);
+        return t;
+    });
+    
+    // Wire calls owned by a single task, so they can be aborted when the task is cancelled
+    private static final Map<UUID, CompletableFuture<?>> IN_FLIGHT_CALLS = new ConcurrentHashMap<>();
+    // Tasks waiting on a response on this node, each with whether it was cancelled meanwhile
+    private static final Map<UUID, AtomicBoolean> PENDING_TASKS = new ConcurrentHashMap<>();
 
     /**
      * Constructor with task instance
@@ -110,43 +156,347 @@ public class HttpTaskHandler extends TaskHandler {
             
             HttpRequest request = requestBuilder.build();
             
-            // Execute the HTTP request
-            HttpResponse<String> response = HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
-            
-            // Process the response
-            int statusCode = response.statusCode();
-            String responseBody = response.body();
+            // Issue the request without blocking; the decide's connection and sweeper permit are released
+            // as soon as this method returns, and the task stays IN_PROGRESS until the callback completes it
+            String tenant = AsyncTaskCompletion.currentTenant();
+            HttpHostLimiter limiter = HttpHostLimiter.forHost(request.uri().getHost(), inputJson);
+            int maxDeferrals = getIntParam(inputJson, "maxDeferrals", DEFAULT_MAX_DEFERRALS);
+            CompletableFuture<HttpTaskResponse> outcome = new CompletableFuture<>();
             
-            // Create output JSON with response data
-            ObjectNode outputJson = OBJECT_MAPPER.createObjectNode();
-            outputJson.put("statusCode", statusCode);
-            outputJson.put("responseBody", responseBody);
+            // If this node stops before the callback, the sweeper runs the task again once the time passes
+            setRedispatchTime(connection, task, timeout, maxDeferrals);
             
-            // Headers as a JSON object
-            ObjectNode headersJson = outputJson.putObject("headers");
-            response.headers().map().forEach((key, values) -> {
-                if (values.size() == 1) {
-                    headersJson.put(key, values.get(0));
-                } else if (values.size() > 1) {
-                    headersJson.putPOJO(key, values);
-                }
-            });
+            // Each attempt spills to its own file, so a retry does not overwrite an earlier body
+            int maxResponseBytes = getIntParam(inputJson, "maxResponseBytes", DEFAULT_MAX_RESPONSE_BYTES);
+            boolean spillOversized = getBooleanParam(inputJson, "spillOversized", true);
+            Path spillFile = spillOversized
+                    ? HttpSpillStore.fileFor(tenant, task, new TaskInstanceDAO(connection).getAttemptCount(task.getId()))
+                    : null;
             
-            if (statusCode >= 200 && statusCode < 300) {
-                // Success case
-                completeTask(connection, outputJson);
+            PENDING_TASKS.put(task.getId(), new AtomicBoolean());
+            int cacheTtl = HttpResponseCache.ttlSeconds(method, inputJson);
+            if (cacheTtl < 0) {
+                dispatch(task, request, spillFile, limiter, 0, maxDeferrals, false, outcome);
             } else {
-                // Error case - we still complete the task but with error details
-                // This allows the workflow to handle HTTP errors appropriately
-                completeTask(connection, outputJson);
+                String cacheKey = HttpResponseCache.key(tenant, method, url, body, maxResponseBytes, spillOversized);
+                HttpTaskResponse cached = HttpResponseCache.getFresh(cacheKey);
+                
+                if (cached != null) {
+                    LOGGER.info("Serving HTTP task from cache: " + task.getId());
+                    outcome.complete(cached);
+                } else {
+                    CompletableFuture<HttpTaskResponse> inFlight = HttpResponseCache.joinInFlight(cacheKey, outcome);
+                    if (inFlight != null) {
+                        // An identical request is already on the wire, share its response
+                        LOGGER.info("Coalescing HTTP task with in-flight request: " + task.getId());
+                        outcome = inFlight.thenApplyAsync(shared -> ownCopy(task, shared, spillFile),
+                                                          AsyncTaskCompletion.getExecutor());
+                    } else {
+                        // This task performs the request; coalesced tasks wait on the same future
+                        fetchForCache(task, request, spillFile, cacheKey, cacheTtl, true, limiter, maxDeferrals, outcome);
+                    }
+                }
             }
             
+            outcome.whenCompleteAsync((response, error) -> onResponse(tenant, task, response, error),
+                                      AsyncTaskCompletion.getExecutor());
+            
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error executing HTTP task", e);
+            PENDING_TASKS.remove(getTaskInstance().getId());
             failTask(connection, "Error executing HTTP task: " + e.getMessage());
         }
     }
     
+    @Override
+    protected void onCancel(Connection connection) {
+        UUID taskId = getTaskInstance().getId();
+        AtomicBoolean cancelled = PENDING_TASKS.get(taskId);
+        if (cancelled == null) {
+            // Nothing is waiting on this node; the callback elsewhere finds the task no longer IN_PROGRESS
+            return;
+        }
+        cancelled.set(true);
+        
+        CompletableFuture<?> call = IN_FLIGHT_CALLS.remove(taskId);
+        if (call != null) {
+            call.cancel(true);
+            LOGGER.info("Aborted in-flight HTTP call for cancelled task: " + taskId);
+        }
+    }
+    
+    /**
+     * Record when the task should be run again if its callback never arrives, which happens when the
+     * node stops or crashes while the call is in flight. The time covers every deferral and the
+     * request timeout, so a call that is still running is not re-dispatched. A call that reached the
+     * destination before the node went down is sent again, so HTTP tasks are delivered at least once.
+     * 
+     * @param connection Database connection
+     * @param task The task instance
+     * @param timeoutSeconds The request timeout
+     * @param maxDeferrals Number of limiter rejections before the call fails
+     * @throws SQLException If a database error occurs
+     */
+    private static void setRedispatchTime(Connection connection, TaskInstance task, int timeoutSeconds,
+                                          int maxDeferrals) throws SQLException {
+        long worstCaseMs = timeoutSeconds * 1000L + REDISPATCH_MARGIN_MS;
+        for (int i = 0; i < maxDeferrals; i++) {
+            worstCaseMs += BASE_BACKOFF_MS / 2 + Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(i, 20));
+        }
+        new TaskInstanceDAO(connection).setRedispatchTime(task.getId(),
+                new Timestamp(System.currentTimeMillis() + worstCaseMs));
+    }
+    
+    /**
+     * Perform a cacheable request for this task and every task coalesced with it, revalidating a
+     * stale entry when one exists. A 304 that arrives after its entry was evicted has no body to
+     * resolve to, so the request is sent again without conditional headers.
+     * 
+     * @param task The task performing the request
+     * @param request The HTTP request, without conditional headers
+     * @param spillFile File to spill an oversized body to, or null to truncate it
+     * @param cacheKey The cache key
+     * @param cacheTtl The task's TTL in seconds
+     * @param conditional true to revalidate a stale entry
+     * @param limiter The limiter for the destination host
+     * @param maxDeferrals Number of limiter rejections after which the call fails
+     * @param shared Future the coalesced tasks wait on
+     */
+    private void fetchForCache(TaskInstance task, HttpRequest request, Path spillFile, String cacheKey, int cacheTtl,
+                               boolean conditional, HttpHostLimiter limiter, int maxDeferrals,
+                               CompletableFuture<HttpTaskResponse> shared) {
+        CompletableFuture<HttpTaskResponse> wire = new CompletableFuture<>();
+        wire.whenComplete((response, error) -> {
+            if (error != null) {
+                shared.completeExceptionally(error);
+                return;
+            }
+            HttpTaskResponse effective = HttpResponseCache.store(cacheKey, response, cacheTtl);
+            if (effective == null && conditional) {
+                LOGGER.info("Cached response evicted during revalidation, fetching it again for task: " + task.getId());
+                fetchForCache(task, request, spillFile, cacheKey, cacheTtl, false, limiter, maxDeferrals, shared);
+            } else {
+                shared.complete(effective != null ? effective : response);
+            }
+        });
+        HttpRequest outgoing = conditional ? HttpResponseCache.conditional(cacheKey, request) : request;
+        dispatch(task, outgoing, spillFile, limiter, 0, maxDeferrals, true, wire);
+    }
+    
+    /**
+     * Give a coalesced task its own copy of a spilled body. The leader's file belongs to the leader's
+     * workflow and is deleted when that workflow is archived, so the follower must not reference it.
+     * In-memory and truncated bodies can be shared as they are: the coalescing key includes the body
+     * limits, so the follower would have received the same result itself.
+     * 
+     * @param task The coalesced task
+     * @param shared The response of the shared call
+     * @param spillFile The coalesced task's own spill file
+     * @return The response to complete the task with
+     */
+    private static HttpTaskResponse ownCopy(TaskInstance task, HttpTaskResponse shared, Path spillFile) {
+        BoundedBodySubscriber.Body body = shared.getBody();
+        if (!body.isSpilled()) {
+            return shared;
+        }
+        try {
+            HttpSpillStore.copy(body.getSpillFile(), spillFile);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+        LOGGER.fine("Copied spilled HTTP body for coalesced task: " + task.getId());
+        return new HttpTaskResponse(shared.getStatusCode(), shared.getHeaders(),
+                new BoundedBodySubscriber.Body(null, spillFile, body.getSize(), false));
+    }
+    
+    /**
+     * Send the request if the host limiter allows it, otherwise reschedule it with backoff
+     * 
+     * @param task The task instance
+     * @param request The HTTP request
+     * @param spillFile File to spill an oversized body to, or null to truncate it
+     * @param limiter The limiter for the destination host
+     * @param deferrals Number of times the call has already been rejected
+     * @param maxDeferrals Number of rejections after which the call fails
+     * @param shared true if other tasks wait on the same call, so it must not be aborted on cancellation
+     * @param outcome Future completed with the response or failure
+     */
+    private void dispatch(TaskInstance task, HttpRequest request, Path spillFile, HttpHostLimiter limiter,
+                          int deferrals, int maxDeferrals, boolean shared, CompletableFuture<HttpTaskResponse> outcome) {
+        // A shared call is still awaited by the coalesced tasks after this one is cancelled
+        if (!shared && isCancelled(task.getId())) {
+            outcome.completeExceptionally(new CancellationException("HTTP task cancelled: " + task.getId()));
+            return;
+        }
+        
+        String rejection = limiter.tryAcquire();
+        
+        if (rejection != null) {
+            if (deferrals >= maxDeferrals) {
+                LOGGER.warning("HTTP call rejected " + deferrals + " times, failing task: " + task.getId());
+                outcome.completeExceptionally(new RejectedExecutionException(rejection));
+                return;
+            }
+            
+            long delay = backoffMillis(deferrals);
+            LOGGER.info(rejection + ", retrying task " + task.getId() + " in " + delay + "ms");
+            RETRY_SCHEDULER.schedule(() -> dispatch(task, request, spillFile, limiter, deferrals + 1, maxDeferrals, shared, outcome),
+                                     delay, TimeUnit.MILLISECONDS);
+            return;
+        }
+        
+        JsonNode inputJson = task.getInputJson();
+        int maxResponseBytes = getIntParam(inputJson, "maxResponseBytes", DEFAULT_MAX_RESPONSE_BYTES);
+        
+        CompletableFuture<HttpResponse<BoundedBodySubscriber.Body>> call =
+                HTTP_CLIENT.sendAsync(request, responseInfo -> new BoundedBodySubscriber(maxResponseBytes, spillFile));
+        if (!shared) {
+            IN_FLIGHT_CALLS.put(task.getId(), call);
+        }
+        
+        call.whenComplete((response, error) -> {
+            IN_FLIGHT_CALLS.remove(task.getId(), call);
+            if (error instanceof CancellationException) {
+                // A cancelled call says nothing about the destination's health
+                limiter.releaseWithoutOutcome();
+            } else {
+                limiter.release(error == null && response.statusCode() < 500 && response.statusCode() != 429);
+            }
+            if (error != null) {
+                outcome.completeExceptionally(error);
+            } else {
+                outcome.complete(HttpTaskResponse.of(response));
+            }
+        });
+        
+        LOGGER.info("HTTP request dispatched for task: " + task.getId());
+    }
+    
+    private static boolean isCancelled(UUID taskId) {
+        AtomicBoolean cancelled = PENDING_TASKS.get(taskId);
+        return cancelled != null && cancelled.get();
+    }
+    
+    /**
+     * Exponential backoff with full jitter
+     * 
+     * @param attempt Zero-based attempt number
+     * @return Delay in milliseconds
+     */
+    private static long backoffMillis(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(attempt, 20));
+        return BASE_BACKOFF_MS / 2 + ThreadLocalRandom.current().nextLong(ceiling);
+    }
+    
+    /**
+     * Statuses that signal an overloaded or briefly unavailable destination rather than a bad request
+     * 
+     * @param statusCode The HTTP status code
+     * @return true if the request is worth retrying
+     */
+    private static boolean isRetryableStatus(int statusCode) {
+        return statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+    
+    /**
+     * Complete the task from the HTTP response on a fresh connection
+     * 
+     * @param tenant The tenant the task belongs to
+     * @param task The task instance
+     * @param response The HTTP response, or null if the request failed
+     * @param error The request failure, or null if a response was received
+     */
+    private void onResponse(String tenant, TaskInstance task, HttpTaskResponse response, Throwable error) {
+        AtomicBoolean cancelled = PENDING_TASKS.remove(task.getId());
+        if (cancelled != null && cancelled.get()) {
+            LOGGER.info("Ignoring HTTP response for cancelled task: " + task.getId());
+            return;
+        }
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error != null) {
+            if (RetryPolicy.isTransient(error)
+                    && AsyncTaskCompletion.retry(tenant, task, "Error executing HTTP task: " + error.getMessage())) {
+                return;
+            }
+            LOGGER.log(Level.SEVERE, "Error executing HTTP task", error);
+            AsyncTaskCompletion.complete(tenant, task, "Error executing HTTP task: " + error.getMessage());
+            return;
+        }
+        if (isRetryableStatus(response.getStatusCode())
+                && AsyncTaskCompletion.retry(tenant, task, "HTTP status " + response.getStatusCode())) {
+            return;
+        }
+        
+        // Create output JSON with response data
+        ObjectNode outputJson = OBJECT_MAPPER.createObjectNode();
+        outputJson.put("statusCode", response.getStatusCode());
+        writeBody(outputJson, response.getBody(), task.getInputJson());
+        
+        // Headers as a JSON object
+        ObjectNode headersJson = outputJson.putObject("headers");
+        response.getHeaders().forEach((key, values) -> {
+            if (values.size() == 1) {
+                headersJson.put(key, values.get(0));
+            } else if (values.size() > 1) {
+                headersJson.putPOJO(key, values);
+            }
+        });
+        
+        // Non-2xx responses still complete the task with error details
+        // This allows the workflow to handle HTTP errors appropriately
+        task.setOutputJson(outputJson);
+        AsyncTaskCompletion.complete(tenant, task, null);
+    }
+    
+    /**
+     * Write the response body into the output according to the task's response options:
+     * spilled bodies are referenced by location, "responseFormat": "json" parses the body
+     * and "selectPointers" keeps only the listed JSON pointers.
+     * 
+     * @param outputJson The task output
+     * @param body The bounded response body
+     * @param inputJson The task input parameters
+     */
+    private void writeBody(ObjectNode outputJson, BoundedBodySubscriber.Body body, JsonNode inputJson) {
+        outputJson.put("responseSize", body.getSize());
+        
+        if (body.isSpilled()) {
+            outputJson.put("responseBodyRef", body.getSpillFile().toUri().toString());
+            return;
+        }
+        if (body.isTruncated()) {
+            outputJson.put("responseTruncated", true);
+        }
+        
+        JsonNode pointers = inputJson != null ? inputJson.get("selectPointers") : null;
+        boolean parseJson = "json".equalsIgnoreCase(getStringParam(inputJson, "responseFormat", "text"))
+                || (pointers != null && pointers.isArray());
+        
+        if (parseJson && !body.isTruncated()) {
+            try {
+                JsonNode parsed = OBJECT_MAPPER.readTree(body.getBytes());
+                if (pointers != null && pointers.isArray()) {
+                    ObjectNode selected = outputJson.putObject("responseSelected");
+                    for (JsonNode pointer : pointers) {
+                        JsonNode value = parsed.at(pointer.asText());
+                        if (!value.isMissingNode()) {
+                            selected.set(pointer.asText(), value);
+                        }
+                    }
+                } else {
+                    outputJson.set("responseJson", parsed);
+                }
+                return;
+            } catch (IOException e) {
+                outputJson.put("responseParseError", e.getMessage());
+            }
+        }
+        
+        outputJson.put("responseBody", body.asString());
+    }
+    
     // Helper methods to extract parameters from input JSON
     
     private String getStringParam(JsonNode json, String paramName) {
@@ -154,12 +504,17 @@ public class HttpTaskHandler extends TaskHandler {
     }
     
     private String getStringParam(JsonNode json, String paramName, String defaultValue) {
-        JsonNode node = json.get(paramName);
+        JsonNode node = json != null ? json.get(paramName) : null;
         return (node != null && !node.isNull()) ? node.asText() : defaultValue;
     }
     
     private int getIntParam(JsonNode json, String paramName, int defaultValue) {
-        JsonNode node = json.get(paramName);
+        JsonNode node = json != null ? json.get(paramName) : null;
         return (node != null && !node.isNull()) ? node.asInt() : defaultValue;
     }
+    
+    private boolean getBooleanParam(JsonNode json, String paramName, boolean defaultValue) {
+        JsonNode node = json != null ? json.get(paramName) : null;
+        return (node != null && !node.isNull()) ? node.asBoolean() : defaultValue;
+    }
 }
\ No newline at end of file
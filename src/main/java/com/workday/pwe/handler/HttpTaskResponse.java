@@ -0,0 +1,62 @@
+package com.workday.pwe.handler;
+
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable HTTP response as seen by an HTTP task, independent of whether it came from the wire or the cache.
+ */
+public class HttpTaskResponse {
+
+    private final int statusCode;
+    private final Map<String, List<String>> headers;
+    private final BoundedBodySubscriber.Body body;
+
+    // Constructor with required fields
+    public HttpTaskResponse(int statusCode, Map<String, List<String>> headers, BoundedBodySubscriber.Body body) {
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    /**
+     * Create from a client response
+     *
+     * @param response The client response
+     * @return The task response
+     */
+    public static HttpTaskResponse of(HttpResponse<BoundedBodySubscriber.Body> response) {
+        return new HttpTaskResponse(response.statusCode(), response.headers().map(), response.body());
+    }
+
+    // Getters
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    public BoundedBodySubscriber.Body getBody() {
+        return body;
+    }
+
+    /**
+     * Get the first value of a header, ignoring case
+     *
+     * @param name The header name
+     * @return The header value, if present
+     */
+    public Optional<String> firstHeader(String name) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty()) {
+                return Optional.of(entry.getValue().get(0));
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,199 @@
+package com.workday.pwe.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.workday.pwe.dao.TaskInstanceDAO;
+import com.workday.pwe.dao.WorkflowDefinitionDAO;
+import com.workday.pwe.dao.WorkflowInstanceDAO;
+import com.workday.pwe.enums.TaskStatus;
+import com.workday.pwe.enums.TaskType;
+import com.workday.pwe.enums.WorkflowStatus;
+import com.workday.pwe.model.TaskInstance;
+import com.workday.pwe.model.WorkflowDefinition;
+import com.workday.pwe.model.WorkflowInstance;
+import com.workday.pwe.service.WorkflowControlService;
+import com.workday.pwe.service.WorkflowInstanceService;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handler for sub-workflow (call activity) tasks.
+ * Starts a child workflow instance of the definition named by "workflow" (and optionally "version",
+ * latest otherwise) with "input" (or the parent workflow's input). The task stays IN_PROGRESS until
+ * the child reaches a terminal status, at which point {@link #propagateToParent(Connection, UUID)}
+ * completes it and queues the parent workflow.
+ */
+public class SubWorkflowTaskHandler extends TaskHandler {
+
+    private static final Logger LOGGER = Logger.getLogger(SubWorkflowTaskHandler.class.getName());
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final int MAX_DEPTH;
+
+    // Load configuration properties
+    static {
+        Properties properties = new Properties();
+        // In a real implementation, we would load from a properties file
+        // For now, we'll use default values
+        MAX_DEPTH = Integer.parseInt(properties.getProperty("subworkflow.max.depth", "10"));
+    }
+
+    /**
+     * Constructor with task instance
+     *
+     * @param taskInstance The task instance to handle
+     */
+    protected SubWorkflowTaskHandler(TaskInstance taskInstance) {
+        super(taskInstance);
+    }
+
+    @Override
+    protected String getTaskType() {
+        return TaskType.SUBWORKFLOW.name();
+    }
+
+    @Override
+    protected boolean isStateful() {
+        return true; // Needs the connection to start the child workflow
+    }
+
+    @Override
+    protected TaskStatus getCompletionStatus() {
+        return TaskStatus.COMPLETED;
+    }
+
+    @Override
+    protected void execute(Connection connection) {
+        TaskInstance task = getTaskInstance();
+        JsonNode inputJson = task.getInputJson();
+        String workflowName = inputJson != null ? inputJson.path("workflow").asText("") : "";
+
+        try {
+            if (workflowName.isEmpty()) {
+                failTask(connection, "Sub-workflow task requires a workflow name");
+                return;
+            }
+
+            WorkflowInstanceDAO workflowDAO = new WorkflowInstanceDAO(connection);
+            if (workflowDAO.getWorkflowInstanceByParentTask(task.getId()) != null) {
+                // Re-run after recovery; the child is already running
+                LOGGER.info("Sub-workflow already started for task: " + task.getId());
+                return;
+            }
+
+            WorkflowDefinitionDAO definitionDAO = new WorkflowDefinitionDAO(connection);
+            JsonNode version = inputJson.get("version");
+            WorkflowDefinition definition = version != null && !version.isNull()
+                    ? definitionDAO.getWorkflowDefinitionByNameAndVersion(workflowName, version.asInt())
+                    : definitionDAO.getLatestWorkflowDefinitionByName(workflowName);
+            if (definition == null) {
+                failTask(connection, "Sub-workflow definition not found: " + workflowName +
+                        (version != null ? " version " + version.asText() : ""));
+                return;
+            }
+
+            WorkflowInstance parent = workflowDAO.getWorkflowInstance(task.getWorkflowInstanceId());
+            if (getDepth(connection, parent) >= MAX_DEPTH) {
+                failTask(connection, "Sub-workflow nesting exceeds maximum depth of " + MAX_DEPTH);
+                return;
+            }
+
+            JsonNode childInput = inputJson.has("input")
+                    ? inputJson.get("input")
+                    : (parent != null ? parent.getInputJson() : null);
+
+            WorkflowInstance child = new WorkflowInstanceService()
+                    .startWorkflow(connection, definition.getId(), childInput, task.getId());
+            LOGGER.info("Started sub-workflow " + child.getId() + " (" + workflowName + " v" +
+                       definition.getVersion() + ") for task: " + task.getId());
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error starting sub-workflow for task: " + task.getId(), e);
+            failTask(connection, "Error starting sub-workflow: " + e.getMessage());
+        }
+    }
+
+    @Override
+    protected void onCancel(Connection connection) {
+        try {
+            WorkflowInstance child = new WorkflowInstanceDAO(connection).getWorkflowInstanceByParentTask(getTaskInstance().getId());
+            if (child != null && (child.getStatus() == WorkflowStatus.RUNNING || child.getStatus() == WorkflowStatus.PAUSED)) {
+                new WorkflowControlService().terminateWorkflow(connection, child.getId(), "Parent task cancelled");
+                LOGGER.info("Terminated sub-workflow " + child.getId() + " of cancelled task: " + getTaskInstance().getId());
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error terminating sub-workflow of task: " + getTaskInstance().getId(), e);
+        }
+    }
+
+    /**
+     * Complete the parent task of a workflow that has reached a terminal status and queue the parent
+     * workflow for state management. Does nothing for workflows that are not sub-workflows.
+     *
+     * @param connection Database connection
+     * @param workflowInstanceId The workflow instance that may be a sub-workflow
+     */
+    public static void propagateToParent(Connection connection, UUID workflowInstanceId) {
+        try {
+            WorkflowInstance child = new WorkflowInstanceDAO(connection).getWorkflowInstance(workflowInstanceId);
+            if (child == null || child.getParentTaskInstId() == null) {
+                return;
+            }
+
+            WorkflowStatus status = child.getStatus();
+            if (status != WorkflowStatus.COMPLETED && status != WorkflowStatus.FAILED && status != WorkflowStatus.TERMINATED) {
+                return;
+            }
+
+            TaskInstance parentTask = new TaskInstanceDAO(connection).getTaskInstance(child.getParentTaskInstId());
+            if (parentTask == null || parentTask.getStatus() != TaskStatus.IN_PROGRESS) {
+                // Parent task was cancelled or already completed
+                return;
+            }
+
+            if (status == WorkflowStatus.COMPLETED) {
+                ObjectNode outputJson = OBJECT_MAPPER.createObjectNode();
+                outputJson.put("workflowInstanceId", child.getId().toString());
+                outputJson.put("status", status.name());
+                outputJson.set("output", child.getOutputJson());
+                parentTask.setOutputJson(outputJson);
+                completeAndClose(connection, parentTask, null);
+            } else {
+                completeAndClose(connection, parentTask, "Sub-workflow " + child.getId() + " ended with status " + status);
+            }
+            LOGGER.info("Sub-workflow " + child.getId() + " ended with status " + status +
+                       ", parent task completed: " + parentTask.getId());
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error propagating sub-workflow completion: " + workflowInstanceId, e);
+            throw new RuntimeException("Error propagating sub-workflow completion", e);
+        }
+    }
+
+    /**
+     * Count how many sub-workflow levels sit above a workflow
+     *
+     * @param connection Database connection
+     * @param workflow The workflow instance
+     * @return The nesting depth, 0 for a top-level workflow
+     * @throws SQLException If a database error occurs
+     */
+    private static int getDepth(Connection connection, WorkflowInstance workflow) throws SQLException {
+        WorkflowInstanceDAO workflowDAO = new WorkflowInstanceDAO(connection);
+        TaskInstanceDAO taskDAO = new TaskInstanceDAO(connection);
+
+        int depth = 0;
+        while (workflow != null && workflow.getParentTaskInstId() != null && depth < MAX_DEPTH) {
+            TaskInstance parentTask = taskDAO.getTaskInstance(workflow.getParentTaskInstId());
+            workflow = parentTask != null ? workflowDAO.getWorkflowInstance(parentTask.getWorkflowInstanceId()) : null;
+            depth++;
+        }
+        return depth;
+    }
+}
@@ -7,6 +7,7 @@ import com.workday.pwe.enums.TaskStatus;
 import com.workday.pwe.model.TaskGroupDefinition;
 import com.workday.pwe.model.TaskGroupInstance;
 import com.workday.pwe.model.TaskInstance;
+import com.workday.pwe.model.TaskStatusView;
 
 import java.sql.Connection;
 import java.util.List;
@@ -119,6 +120,20 @@ public abstract class TaskGroupHandler {
         }
     }
     
+    /**
+     * Get the id, status and order of all tasks in this group, without loading the full rows
+     * 
+     * @return List of task status views in task order
+     */
+    protected List<TaskStatusView> getTaskStatusesInGroup() {
+        try {
+            return taskInstanceDAO.getTaskStatusesByGroupId(groupInstance.getId());
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error retrieving task statuses in group", e);
+            throw new RuntimeException("Error retrieving task statuses in group", e);
+        }
+    }
+    
     /**
      * Start the execution of a task
      * 
@@ -146,6 +161,16 @@ public abstract class TaskGroupHandler {
      */
     public abstract boolean evaluateCompletion();
     
+    /**
+     * Continue a running group after one of its children reached a terminal state.
+     * Groups that manage their own completion return true; the rest leave it to GroupCompletionEvaluator.
+     * 
+     * @return true if the handler took care of the group's progress and completion
+     */
+    public boolean advance() {
+        return false;
+    }
+    
     /**
      * Factory method to get the appropriate handler based on group type
      * 
@@ -167,6 +192,8 @@ public abstract class TaskGroupHandler {
                     return new HorizontalGroupHandler(connection, groupInstance);
                 case VERTICAL:
                     return new VerticalGroupHandler(connection, groupInstance);
+                case FOR_EACH:
+                    return new ForEachGroupHandler(connection, groupInstance);
                 default:
                     throw new IllegalArgumentException("Unknown group type: " + groupDef.getGroupType());
             }
@@ -1,12 +1,15 @@
 package com.workday.pwe.handler;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.workday.pwe.dao.TaskInstanceDAP;
+import com.workday.pwe.dao.TaskInstanceDAO;
 import com.workday.pwe.enums.TaskStatus;
 import com.workday.pwe.execution.ExecutionQueuingInterceptor;
+import com.workday.pwe.execution.RetryPolicy;
 import com.workday.pwe.model.TaskInstance;
 
 import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.logging.Logger;
@@ -68,21 +71,36 @@ public abstract class TaskHandler {
     }
 
     /**
-     * Updates the task to a completion state
+     * Updates the task to a completion state, if it is still IN_PROGRESS
      * 
      * @param connection Database connection
      * @param reasonForFailure Optional failure reason, null for success
+     * @return true if the task was completed, false if it had already left IN_PROGRESS
      */
-    private final void moveToComplete(Connection connection, String reasonForFailure) {
+    private final boolean moveToComplete(Connection connection, String reasonForFailure) {
         try {
-            TaskDAO taskDAO = new TaskDAO(connection);
+            TaskInstanceDAO taskDAO = new TaskInstanceDAO(connection);
+            int updated;
+            // Written back as text, so an output that was never read is not parsed
+            if (reasonForFailure == null && taskInstance.getOutputJsonRaw() != null) {
+                updated = taskDAO.updateOutputAndStatus(taskInstance.getId(), taskInstance.getOutputJsonRaw(), getCompletionStatus());
+            } else if (reasonForFailure == null) {
+                updated = taskDAO.finishTask(taskInstance.getId(), getCompletionStatus(), null);
+            } else {
+                updated = taskDAO.finishTask(taskInstance.getId(), getFailureStatus(), reasonForFailure);
+            }
+            
+            if (updated == 0) {
+                // Skipped, expired or completed by an earlier callback while the work was running
+                LOGGER.info("Task no longer in progress, ignoring completion: " + taskInstance.getId());
+                return false;
+            }
             if (reasonForFailure == null) {
-                taskDAO.updateTask(taskInstance.getId(), getCompletionStatus());
                 LOGGER.info("Task completed successfully: " + taskInstance.getId());
             } else {
-                taskDAO.updateTask(taskInstance.getId(), getFailureStatus(), reasonForFailure);
                 LOGGER.warning("Task failed: " + taskInstance.getId() + ", Reason: " + reasonForFailure);
             }
+            return true;
         } catch (Exception e) {
             throw new RuntimeException("Error updating task completion state", e);
         }
@@ -108,6 +126,16 @@ public abstract class TaskHandler {
         // Default empty implementation
     }
 
+    /**
+     * Cancellation hook invoked when a running task is skipped because its group no longer needs it
+     * Can be overridden by stateful subclasses to abandon external work
+     * 
+     * @param connection Database connection
+     */
+    protected void onCancel(Connection connection) {
+        // Default empty implementation
+    }
+
     /**
      * Execute the task-specific logic
      * Must be implemented by subclasses
@@ -152,23 +180,75 @@ public abstract class TaskHandler {
      */
     public static void run(Connection connection, TaskInstance taskInstance) {
         TaskHandler handler = TaskHandlerRegistry.getHandler(connection, taskInstance);
+        RetryPolicy.recordAttempt();
         handler.prepare(connection);
         handler.moveToInProgress(connection);
         handler.execute(handler.getConnection());
     }
 
     /**
-     * Static method to complete and close a task
+     * Static method to complete and close a task. Nothing happens if the task is no longer
+     * IN_PROGRESS, so a late completion cannot overwrite a skipped or expired task.
      * 
      * @param connection Database connection
      * @param taskInstance The task instance to complete
      * @param reasonForFailure Optional failure reason, null for success
+     * @return true if the task was completed, false if it had already left IN_PROGRESS
      */
-    public static void completeAndClose(Connection connection, TaskInstance taskInstance, String reasonForFailure) {
+    public static boolean completeAndClose(Connection connection, TaskInstance taskInstance, String reasonForFailure) {
         TaskHandler handler = TaskHandlerRegistry.getHandler(connection, taskInstance);
-        handler.moveToComplete(connection, reasonForFailure);
+        if (!handler.moveToComplete(connection, reasonForFailure)) {
+            return false;
+        }
         handler.cleanup(connection);
         handler.close(connection);
+        return true;
+    }
+
+    /**
+     * Static method to schedule another attempt of a failed task according to its retry policy.
+     * The task stays IN_PROGRESS and is run again by the sweeper once the backoff has elapsed.
+     * 
+     * @param connection Database connection
+     * @param taskInstance The task instance that failed
+     * @param reason The failure
+     * @return true if a retry was scheduled, false if the caller should fail the task
+     */
+    public static boolean retryLater(Connection connection, TaskInstance taskInstance, String reason) {
+        try {
+            TaskHandler handler = TaskHandlerRegistry.getHandler(connection, taskInstance);
+            RetryPolicy policy = RetryPolicy.forTask(connection, handler.getTaskType(),
+                    taskInstance.getInputJson(), taskInstance.getWorkflowInstanceId());
+            
+            TaskInstanceDAO taskDAO = new TaskInstanceDAO(connection);
+            int attempts = taskDAO.getAttemptCount(taskInstance.getId()) + 1;
+            if (!policy.allowRetry(attempts)) {
+                return false;
+            }
+            
+            long delay = policy.nextDelayMillis(attempts);
+            Timestamp nextAttemptAt = Timestamp.valueOf(LocalDateTime.now().plusNanos(delay * 1_000_000));
+            if (taskDAO.scheduleTaskRetry(taskInstance.getId(), nextAttemptAt, reason) == 0) {
+                return false;
+            }
+            LOGGER.info("Task " + taskInstance.getId() + " attempt " + attempts + " failed (" + reason +
+                       "), retrying in " + delay + "ms");
+            return true;
+        } catch (Exception e) {
+            throw new RuntimeException("Error scheduling task retry", e);
+        }
+    }
+
+    /**
+     * Static method to notify the handler of a task that was cancelled (already marked SKIPPED)
+     * 
+     * @param connection Database connection
+     * @param taskInstance The cancelled task instance
+     */
+    public static void cancel(Connection connection, TaskInstance taskInstance) {
+        TaskHandler handler = TaskHandlerRegistry.getHandler(connection, taskInstance);
+        handler.onCancel(connection);
+        LOGGER.info("Task cancelled: " + taskInstance.getId());
     }
 
     /**
@@ -2,14 +2,18 @@ package com.workday.pwe.handler;
 
 import com.workday.pwe.dao.TaskDefinitionDAO;
 import com.workday.pwe.enums.TaskType;
+import com.workday.pwe.execution.WorkflowDefinitionValidator;
 import com.workday.pwe.model.TaskDefinition;
 import com.workday.pwe.model.TaskInstance;
 
 import java.lang.reflect.Constructor;
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -20,15 +24,22 @@ public class TaskHandlerRegistry {
 
     private static final Logger LOGGER = Logger.getLogger(TaskHandlerRegistry.class.getName());
     
+    private static final int MAX_CACHED_TASK_TYPES = 10000;
+    
     private static final Map<String, Class<? extends TaskHandler>> HANDLER_MAP = new ConcurrentHashMap<>();
+    private static final Map<String, Function<TaskInstance, ? extends TaskHandler>> FACTORY_MAP = new ConcurrentHashMap<>();
+    
+    // Task definitions are immutable once created, so their task type can be cached by definition ID
+    private static final Map<UUID, String> TASK_TYPE_CACHE = new ConcurrentHashMap<>();
     
     // Initialize the registry with default handlers
     static {
-        registerHandler(TaskType.TODO.name(), ToDoTaskHandler.class);
-        registerHandler(TaskType.SUBMIT.name(), SubmitTaskHandler.class);
-        registerHandler(TaskType.APPROVE.name(), ApproveTaskHandler.class);
-        registerHandler(TaskType.REVIEW.name(), ReviewTaskHandler.class);
-        registerHandler(TaskType.HTTP.name(), HttpTaskHandler.class);
+        registerHandler(TaskType.TODO.name(), ToDoTaskHandler.class, ToDoTaskHandler::new);
+        registerHandler(TaskType.SUBMIT.name(), SubmitTaskHandler.class, SubmitTaskHandler::new);
+        registerHandler(TaskType.APPROVE.name(), ApproveTaskHandler.class, ApproveTaskHandler::new);
+        registerHandler(TaskType.REVIEW.name(), ReviewTaskHandler.class, ReviewTaskHandler::new);
+        registerHandler(TaskType.HTTP.name(), HttpTaskHandler.class, HttpTaskHandler::new);
+        registerHandler(TaskType.SUBWORKFLOW.name(), SubWorkflowTaskHandler.class, SubWorkflowTaskHandler::new);
     }
     
     /**
@@ -39,16 +50,53 @@ public class TaskHandlerRegistry {
     }
     
     /**
-     * Register a task handler for a specific task type
+     * Register a task handler for a specific task type.
+     * The constructor is resolved once here; prefer the factory overload to avoid reflection entirely.
      * 
      * @param taskType The task type
      * @param handlerClass The handler class for the task type
      */
     public static void registerHandler(String taskType, Class<? extends TaskHandler> handlerClass) {
+        try {
+            Constructor<? extends TaskHandler> constructor = handlerClass.getDeclaredConstructor(TaskInstance.class);
+            constructor.setAccessible(true); // Make constructor accessible even if protected
+            registerHandler(taskType, handlerClass, taskInstance -> {
+                try {
+                    return constructor.newInstance(taskInstance);
+                } catch (ReflectiveOperationException e) {
+                    throw new RuntimeException("Error instantiating task handler " + handlerClass.getName(), e);
+                }
+            });
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Handler " + handlerClass.getName() + " has no (TaskInstance) constructor", e);
+        }
+    }
+    
+    /**
+     * Register a task handler factory for a specific task type
+     * 
+     * @param taskType The task type
+     * @param handlerClass The handler class the factory produces
+     * @param factory Factory creating a handler for a task instance
+     */
+    public static void registerHandler(String taskType, Class<? extends TaskHandler> handlerClass,
+                                       Function<TaskInstance, ? extends TaskHandler> factory) {
         HANDLER_MAP.put(taskType, handlerClass);
+        FACTORY_MAP.put(taskType, factory);
+        WorkflowDefinitionValidator.invalidateCache();
         LOGGER.info("Registered handler " + handlerClass.getName() + " for task type " + taskType);
     }
     
+    /**
+     * Check whether a handler is registered for a task type
+     * 
+     * @param taskType The task type
+     * @return true if a handler is registered, false otherwise
+     */
+    public static boolean hasHandler(String taskType) {
+        return HANDLER_MAP.containsKey(taskType);
+    }
+    
     /**
      * Get the appropriate task handler for a task instance
      * 
@@ -58,27 +106,15 @@ public class TaskHandlerRegistry {
      */
     public static TaskHandler getHandler(Connection connection, TaskInstance taskInstance) {
         try {
-            // Get the task definition to determine the task type
-            TaskDefinitionDAO taskDefDAO = new TaskDefinitionDAO(connection);
-            TaskDefinition taskDef = taskDefDAO.getTaskDefinition(taskInstance.getTaskDefId());
-            
-            if (taskDef == null) {
-                throw new IllegalArgumentException("Task definition not found for task instance: " + taskInstance.getId());
-            }
-            
-            String taskType = taskDef.getTaskType().name();
+            String taskType = getTaskType(connection, taskInstance);
             
-            // Get the handler class for the task type
-            Class<? extends TaskHandler> handlerClass = HANDLER_MAP.get(taskType);
+            Function<TaskInstance, ? extends TaskHandler> factory = FACTORY_MAP.get(taskType);
             
-            if (handlerClass == null) {
+            if (factory == null) {
                 throw new IllegalArgumentException("No handler registered for task type: " + taskType);
             }
             
-            // Create an instance of the handler using reflection
-            Constructor<? extends TaskHandler> constructor = handlerClass.getDeclaredConstructor(TaskInstance.class);
-            constructor.setAccessible(true); // Make constructor accessible even if protected
-            TaskHandler handler = constructor.newInstance(taskInstance);
+            TaskHandler handler = factory.apply(taskInstance);
             
             // Set connection for stateful handlers
             if (handler.isStateful()) {
@@ -93,6 +129,35 @@ public class TaskHandlerRegistry {
         }
     }
     
+    /**
+     * Resolve the task type of a task instance, querying its definition only on first use
+     * 
+     * @param connection Database connection
+     * @param taskInstance The task instance
+     * @return The task type name
+     * @throws SQLException If a database error occurs
+     */
+    private static String getTaskType(Connection connection, TaskInstance taskInstance) throws SQLException {
+        String taskType = TASK_TYPE_CACHE.get(taskInstance.getTaskDefId());
+        if (taskType != null) {
+            return taskType;
+        }
+        
+        TaskDefinitionDAO taskDefDAO = new TaskDefinitionDAO(connection);
+        TaskDefinition taskDef = taskDefDAO.getTaskDefinition(taskInstance.getTaskDefId());
+        
+        if (taskDef == null) {
+            throw new IllegalArgumentException("Task definition not found for task instance: " + taskInstance.getId());
+        }
+        
+        taskType = taskDef.getTaskType().name();
+        if (TASK_TYPE_CACHE.size() >= MAX_CACHED_TASK_TYPES) {
+            TASK_TYPE_CACHE.clear();
+        }
+        TASK_TYPE_CACHE.put(taskDef.getId(), taskType);
+        return taskType;
+    }
+    
     /**
      * Get all registered task types and their handlers
      * 
@@ -4,6 +4,7 @@ import com.workday.pwe.enums.TaskStatus;
 import com.workday.pwe.model.TaskGroupDefinition;
 import com.workday.pwe.model.TaskGroupInstance;
 import com.workday.pwe.model.TaskInstance;
+import com.workday.pwe.model.TaskStatusView;
 
 import java.sql.Connection;
 import java.util.Comparator;
@@ -93,7 +94,7 @@ public class VerticalGroupHandler extends TaskGroupHandler {
     @Override
     public boolean evaluateCompletion() {
         try {
-            List<TaskInstance> tasks = getTasksInGroup();
+            List<TaskStatusView> tasks = getTaskStatusesInGroup();
             
             if (tasks.isEmpty()) {
                 // Empty groups are considered complete
@@ -101,7 +102,7 @@ public class VerticalGroupHandler extends TaskGroupHandler {
             }
             
             // For a vertical group, all tasks must be complete
-            for (TaskInstance task : tasks) {
+            for (TaskStatusView task : tasks) {
                 TaskStatus status = task.getStatus();
                 
                 if (status != TaskStatus.COMPLETED && 
@@ -132,9 +133,9 @@ public class VerticalGroupHandler extends TaskGroupHandler {
      */
     public boolean hasFailedTasks() {
         try {
-            List<TaskInstance> tasks = getTasksInGroup();
+            List<TaskStatusView> tasks = getTaskStatusesInGroup();
             
-            for (TaskInstance task : tasks) {
+            for (TaskStatusView task : tasks) {
                 if (task.getStatus() == TaskStatus.FAILED || task.getStatus() == TaskStatus.EXPIRED) {
                     return true;
                 }
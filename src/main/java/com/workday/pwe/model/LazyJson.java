@@ -0,0 +1,81 @@
+package com.workday.pwe.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A JSON column value that is parsed on first access.
+ * <p>
+ * Row mappers keep the text read from the database, so rows loaded only for their status never pay
+ * for building a Jackson tree. Once parsed, the tree is the value: changes made to it are what gets
+ * written back.
+ */
+public final class LazyJson {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private String raw;
+    private JsonNode node;
+
+    private LazyJson(String raw, JsonNode node) {
+        this.raw = raw;
+        this.node = node;
+    }
+
+    /**
+     * Wrap JSON text read from the database
+     *
+     * @param raw The JSON text
+     * @return The holder, or null if the text is null
+     */
+    public static LazyJson ofRaw(String raw) {
+        return raw != null ? new LazyJson(raw, null) : null;
+    }
+
+    /**
+     * Wrap an already parsed tree
+     *
+     * @param node The JSON tree
+     * @return The holder, or null if the tree is null
+     */
+    public static LazyJson of(JsonNode node) {
+        return node != null ? new LazyJson(null, node) : null;
+    }
+
+    /**
+     * Get the JSON tree, parsing the text on first access
+     *
+     * @return The JSON tree
+     * @throws IllegalStateException If the stored text is not valid JSON
+     */
+    public JsonNode get() {
+        if (node == null) {
+            try {
+                node = OBJECT_MAPPER.readTree(raw);
+                raw = null;
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Error parsing JSON data", e);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Get the JSON text, without parsing it if it has not been parsed yet
+     *
+     * @return The JSON text
+     */
+    public String toJson() {
+        return node != null ? node.toString() : raw;
+    }
+
+    /**
+     * Whether the text has been parsed into a tree
+     *
+     * @return true if parsed, false otherwise
+     */
+    public boolean isParsed() {
+        return node != null;
+    }
+}
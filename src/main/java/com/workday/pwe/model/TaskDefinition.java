@@ -2,6 +2,7 @@ package com.workday.pwe.model;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.workday.pwe.enums.TaskType;
+import com.workday.pwe.util.UUIDUtil;
 
 import java.util.UUID;
 
@@ -23,7 +24,7 @@ public class TaskDefinition {
     
     // Constructor with required fields
     public TaskDefinition(UUID workflowDefId, String name, TaskType taskType, int taskOrder) {
-        this.id = UUID.randomUUID();
+        this.id = UUIDUtil.newUUIDv7();
         this.workflowDefId = workflowDefId;
         this.name = name;
         this.taskType = taskType;
@@ -3,6 +3,7 @@ package com.workday.pwe.model;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.workday.pwe.enums.CompletionCriteria;
 import com.workday.pwe.enums.TaskGroupType;
+import com.workday.pwe.util.UUIDUtil;
 
 import java.util.UUID;
 
@@ -26,7 +27,7 @@ public class TaskGroupDefinition {
     // Constructor with required fields
     public TaskGroupDefinition(UUID workflowDefId, String name, TaskGroupType groupType, 
                              CompletionCriteria completionCriteria, int groupOrder) {
-        this.id = UUID.randomUUID();
+        this.id = UUIDUtil.newUUIDv7();
         this.workflowDefId = workflowDefId;
         this.name = name;
         this.groupType = groupType;
@@ -113,4 +114,9 @@ public class TaskGroupDefinition {
     public boolean isHorizontal() {
         return groupType == TaskGroupType.HORIZONTAL;
     }
+    
+    // Check if this is a for-each (dynamic fan-out) group
+    public boolean isForEach() {
+        return groupType == TaskGroupType.FOR_EACH;
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.workday.pwe.model;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.workday.pwe.enums.TaskStatus;
+import com.workday.pwe.util.UUIDUtil;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -16,7 +17,7 @@ public class TaskGroupInstance {
     private UUID parentGroupInstId; // nullable, null if this is a root group
     private TaskStatus status;
     private int minCompletion; // Used for N_OF_M completion criteria
-    private JsonNode parametersJson;
+    private LazyJson parametersJson; // Parsed on first access
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     
@@ -26,7 +27,7 @@ public class TaskGroupInstance {
     
     // Constructor with required fields
     public TaskGroupInstance(UUID workflowInstanceId, UUID taskGroupDefId, TaskStatus status) {
-        this.id = UUID.randomUUID();
+        this.id = UUIDUtil.newUUIDv7();
         this.workflowInstanceId = workflowInstanceId;
         this.taskGroupDefId = taskGroupDefId;
         this.status = status;
@@ -88,11 +89,21 @@ public class TaskGroupInstance {
     }
     
     public JsonNode getParametersJson() {
-        return parametersJson;
+        return parametersJson != null ? parametersJson.get() : null;
     }
     
     public void setParametersJson(JsonNode parametersJson) {
-        this.parametersJson = parametersJson;
+        this.parametersJson = LazyJson.of(parametersJson);
+    }
+    
+    // The JSON text, without parsing it
+    public String getParametersJsonRaw() {
+        return parametersJson != null ? parametersJson.toJson() : null;
+    }
+    
+    // Set from JSON text read from the database; parsed on first access
+    public void setParametersJsonRaw(String parametersJson) {
+        this.parametersJson = LazyJson.ofRaw(parametersJson);
     }
     
     public LocalDateTime getStartTime() {
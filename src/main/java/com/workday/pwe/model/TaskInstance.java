@@ -2,6 +2,7 @@ package com.workday.pwe.model;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.workday.pwe.enums.TaskStatus;
+import com.workday.pwe.util.UUIDUtil;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -16,12 +17,13 @@ public class TaskInstance {
     private UUID taskGroupInstanceId; // nullable, null if not part of a group
     private String assignee;
     private TaskStatus status;
-    private JsonNode inputJson;
-    private JsonNode outputJson;
+    private LazyJson inputJson; // JSON columns are parsed on first access
+    private LazyJson outputJson;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private LocalDateTime dueDate; // optional, for tasks with deadline
     private String failureReason; // optional, populated if task fails
+    private LocalDateTime escalatedAt; // set once the due date escalation has reassigned the task
     
     // Default constructor
     public TaskInstance() {
@@ -29,7 +31,7 @@ public class TaskInstance {
     
     // Constructor with required fields
     public TaskInstance(UUID workflowInstanceId, UUID taskDefId, String assignee) {
-        this.id = UUID.randomUUID();
+        this.id = UUIDUtil.newUUIDv7();
         this.workflowInstanceId = workflowInstanceId;
         this.taskDefId = taskDefId;
         this.assignee = assignee;
@@ -93,19 +95,39 @@ public class TaskInstance {
     }
     
     public JsonNode getInputJson() {
-        return inputJson;
+        return inputJson != null ? inputJson.get() : null;
     }
     
     public void setInputJson(JsonNode inputJson) {
-        this.inputJson = inputJson;
+        this.inputJson = LazyJson.of(inputJson);
+    }
+    
+    // The JSON text, without parsing it
+    public String getInputJsonRaw() {
+        return inputJson != null ? inputJson.toJson() : null;
+    }
+    
+    // Set from JSON text read from the database; parsed on first access
+    public void setInputJsonRaw(String inputJson) {
+        this.inputJson = LazyJson.ofRaw(inputJson);
     }
     
     public JsonNode getOutputJson() {
-        return outputJson;
+        return outputJson != null ? outputJson.get() : null;
     }
     
     public void setOutputJson(JsonNode outputJson) {
-        this.outputJson = outputJson;
+        this.outputJson = LazyJson.of(outputJson);
+    }
+    
+    // The JSON text, without parsing it
+    public String getOutputJsonRaw() {
+        return outputJson != null ? outputJson.toJson() : null;
+    }
+    
+    // Set from JSON text read from the database; parsed on first access
+    public void setOutputJsonRaw(String outputJson) {
+        this.outputJson = LazyJson.ofRaw(outputJson);
     }
     
     public LocalDateTime getStartTime() {
@@ -139,6 +161,14 @@ public class TaskInstance {
     public void setFailureReason(String failureReason) {
         this.failureReason = failureReason;
     }
+
+    public LocalDateTime getEscalatedAt() {
+        return escalatedAt;
+    }
+
+    public void setEscalatedAt(LocalDateTime escalatedAt) {
+        this.escalatedAt = escalatedAt;
+    }
     
     // Check if part of a group
     public boolean isPartOfGroup() {
@@ -179,7 +209,7 @@ public class TaskInstance {
     public void complete(JsonNode output) {
         if (this.status == TaskStatus.IN_PROGRESS) {
             this.status = TaskStatus.COMPLETED;
-            this.outputJson = output;
+            this.outputJson = LazyJson.of(output);
             this.endTime = LocalDateTime.now();
         }
     }
@@ -188,7 +218,7 @@ public class TaskInstance {
     public void submit(JsonNode output) {
         if (this.status == TaskStatus.IN_PROGRESS) {
             this.status = TaskStatus.SUBMITTED;
-            this.outputJson = output;
+            this.outputJson = LazyJson.of(output);
             this.endTime = LocalDateTime.now();
         }
     }
@@ -197,7 +227,7 @@ public class TaskInstance {
     public void approve(JsonNode output) {
         if (this.status == TaskStatus.IN_PROGRESS) {
             this.status = TaskStatus.APPROVED;
-            this.outputJson = output;
+            this.outputJson = LazyJson.of(output);
             this.endTime = LocalDateTime.now();
         }
     }
@@ -206,7 +236,7 @@ public class TaskInstance {
     public void review(JsonNode output) {
         if (this.status == TaskStatus.IN_PROGRESS) {
             this.status = TaskStatus.REVIEWED;
-            this.outputJson = output;
+            this.outputJson = LazyJson.of(output);
             this.endTime = LocalDateTime.now();
         }
     }
@@ -215,7 +245,7 @@ public class TaskInstance {
     public void completeApiCall(JsonNode output) {
         if (this.status == TaskStatus.IN_PROGRESS) {
             this.status = TaskStatus.API_CALL_COMPLETE;
-            this.outputJson = output;
+            this.outputJson = LazyJson.of(output);
             this.endTime = LocalDateTime.now();
         }
     }
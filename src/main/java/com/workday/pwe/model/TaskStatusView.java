@@ -0,0 +1,33 @@
+package com.workday.pwe.model;
+
+import com.workday.pwe.enums.TaskStatus;
+
+import java.util.UUID;
+
+/**
+ * Status-only projection of a task or task group instance, for code that evaluates completion and
+ * does not need the rest of the row.
+ */
+public final class TaskStatusView {
+    private final UUID id;
+    private final TaskStatus status;
+    private final int order; // task_order or group_order of the definition
+
+    public TaskStatusView(UUID id, TaskStatus status, int order) {
+        this.id = id;
+        this.status = status;
+        this.order = order;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public TaskStatus getStatus() {
+        return status;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+}
@@ -3,6 +3,7 @@ package com.workday.pwe.model;
 import java.time.LocalDateTime;
 import java.util.UUID;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.workday.pwe.util.UUIDUtil;
 
 /**
  * Represents the definition of a workflow. 
@@ -23,7 +24,7 @@ public class WorkflowDefinition {
     
     // Constructor with required fields
     public WorkflowDefinition(String name, JsonNode definitionJson) {
-        this.id = UUID.randomUUID();
+        this.id = UUIDUtil.newUUIDv7();
         this.name = name;
         this.version = 1;
         this.definitionJson = definitionJson;
@@ -91,7 +92,7 @@ public class WorkflowDefinition {
     // Create a new version based on this definition
     public WorkflowDefinition createNewVersion(JsonNode newDefinitionJson) {
         WorkflowDefinition newVersion = new WorkflowDefinition();
-        newVersion.setId(UUID.randomUUID());
+        newVersion.setId(UUIDUtil.newUUIDv7());
         newVersion.setName(this.name);
         newVersion.setVersion(this.version + 1);
         newVersion.setDefinitionJson(newDefinitionJson);
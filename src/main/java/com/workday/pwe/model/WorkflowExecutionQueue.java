@@ -1,6 +1,7 @@
 package com.workday.pwe.model;
 
 import com.workday.pwe.enums.QueueStatus;
+import com.workday.pwe.util.UUIDUtil;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -13,6 +14,9 @@ public class WorkflowExecutionQueue {
     private UUID workflowInstanceId;
     private QueueStatus status;
     private int priority;
+    private int shard;                // Hash bucket of the workflow instance ID, see WorkflowExecutionQueueDAO.shardOf
+    private int attemptCount;
+    private LocalDateTime nextAttemptAt;
     private LocalDateTime lastUpdated;
     private LocalDateTime createdAt;
     
@@ -22,7 +26,7 @@ public class WorkflowExecutionQueue {
     
     // Constructor with required fields
     public WorkflowExecutionQueue(UUID workflowInstanceId) {
-        this.id = UUID.randomUUID();
+        this.id = UUIDUtil.newUUIDv7();
         this.workflowInstanceId = workflowInstanceId;
         this.status = QueueStatus.PENDING;
         this.priority = 0; // Default priority
@@ -32,7 +36,7 @@ public class WorkflowExecutionQueue {
     
     // Constructor with priority
     public WorkflowExecutionQueue(UUID workflowInstanceId, int priority) {
-        this.id = UUID.randomUUID();
+        this.id = UUIDUtil.newUUIDv7();
         this.workflowInstanceId = workflowInstanceId;
         this.status = QueueStatus.PENDING;
         this.priority = priority;
@@ -75,6 +79,30 @@ public class WorkflowExecutionQueue {
         this.lastUpdated = LocalDateTime.now();
     }
     
+    public int getShard() {
+        return shard;
+    }
+    
+    public void setShard(int shard) {
+        this.shard = shard;
+    }
+    
+    public int getAttemptCount() {
+        return attemptCount;
+    }
+    
+    public void setAttemptCount(int attemptCount) {
+        this.attemptCount = attemptCount;
+    }
+    
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+    
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+    
     public LocalDateTime getLastUpdated() {
         return lastUpdated;
     }
@@ -1,6 +1,7 @@
 package com.workday.pwe.model;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.workday.pwe.util.UUIDUtil;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -25,7 +26,7 @@ public class WorkflowHistory {
     // Constructor with required fields
     public WorkflowHistory(UUID workflowInstanceId, String entityType, UUID entityId, 
                          String changeType, JsonNode detailsJson) {
-        this.id = UUID.randomUUID();
+        this.id = UUIDUtil.newUUIDv7();
         this.workflowInstanceId = workflowInstanceId;
         this.entityType = entityType;
         this.entityId = entityId;
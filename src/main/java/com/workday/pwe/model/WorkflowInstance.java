@@ -2,6 +2,7 @@ package com.workday.pwe.model;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.workday.pwe.enums.WorkflowStatus;
+import com.workday.pwe.util.UUIDUtil;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -12,11 +13,13 @@ import java.util.UUID;
 public class WorkflowInstance {
     private UUID id;
     private UUID workflowDefId;
+    private UUID parentTaskInstId;
     private WorkflowStatus status;
-    private JsonNode inputJson;
-    private JsonNode outputJson;
+    private LazyJson inputJson; // JSON columns are parsed on first access
+    private LazyJson outputJson;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
+    private LocalDateTime lastDecidedAt;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
@@ -26,10 +29,10 @@ public class WorkflowInstance {
     
     // Constructor with required fields
     public WorkflowInstance(UUID workflowDefId, JsonNode inputJson) {
-        this.id = UUID.randomUUID();
+        this.id = UUIDUtil.newUUIDv7();
         this.workflowDefId = workflowDefId;
         this.status = WorkflowStatus.NOT_STARTED;
-        this.inputJson = inputJson;
+        this.inputJson = LazyJson.of(inputJson);
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
     }
@@ -51,6 +54,22 @@ public class WorkflowInstance {
         this.workflowDefId = workflowDefId;
     }
     
+    public LocalDateTime getLastDecidedAt() {
+        return lastDecidedAt;
+    }
+    
+    public void setLastDecidedAt(LocalDateTime lastDecidedAt) {
+        this.lastDecidedAt = lastDecidedAt;
+    }
+    
+    public UUID getParentTaskInstId() {
+        return parentTaskInstId;
+    }
+    
+    public void setParentTaskInstId(UUID parentTaskInstId) {
+        this.parentTaskInstId = parentTaskInstId;
+    }
+    
     public WorkflowStatus getStatus() {
         return status;
     }
@@ -61,19 +80,39 @@ public class WorkflowInstance {
     }
     
     public JsonNode getInputJson() {
-        return inputJson;
+        return inputJson != null ? inputJson.get() : null;
     }
     
     public void setInputJson(JsonNode inputJson) {
-        this.inputJson = inputJson;
+        this.inputJson = LazyJson.of(inputJson);
+    }
+    
+    // The JSON text, without parsing it
+    public String getInputJsonRaw() {
+        return inputJson != null ? inputJson.toJson() : null;
+    }
+    
+    // Set from JSON text read from the database; parsed on first access
+    public void setInputJsonRaw(String inputJson) {
+        this.inputJson = LazyJson.ofRaw(inputJson);
     }
     
     public JsonNode getOutputJson() {
-        return outputJson;
+        return outputJson != null ? outputJson.get() : null;
     }
     
     public void setOutputJson(JsonNode outputJson) {
-        this.outputJson = outputJson;
+        this.outputJson = LazyJson.of(outputJson);
+    }
+    
+    // The JSON text, without parsing it
+    public String getOutputJsonRaw() {
+        return outputJson != null ? outputJson.toJson() : null;
+    }
+    
+    // Set from JSON text read from the database; parsed on first access
+    public void setOutputJsonRaw(String outputJson) {
+        this.outputJson = LazyJson.ofRaw(outputJson);
     }
     
     public LocalDateTime getStartTime() {
@@ -121,7 +160,7 @@ public class WorkflowInstance {
     public void complete(JsonNode output) {
         if (this.status == WorkflowStatus.RUNNING) {
             this.status = WorkflowStatus.COMPLETED;
-            this.outputJson = output;
+            this.outputJson = LazyJson.of(output);
             this.endTime = LocalDateTime.now();
             this.updatedAt = LocalDateTime.now();
         }
@@ -0,0 +1,130 @@
+package com.workday.pwe.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.workday.pwe.util.UUIDUtil;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Represents a recurring start of a workflow definition on a cron schedule.
+ */
+public class WorkflowSchedule {
+    private UUID id;
+    private UUID workflowDefId;
+    private String name;
+    private String cronExpression;
+    private String timeZone;          // Zone the cron expression is evaluated in
+    private JsonNode inputJson;       // An array starts one workflow per element
+    private boolean enabled;
+    private LocalDateTime nextFireTime;
+    private LocalDateTime lastFireTime;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    // Default constructor
+    public WorkflowSchedule() {
+    }
+
+    // Constructor with required fields
+    public WorkflowSchedule(UUID workflowDefId, String name, String cronExpression, String timeZone, JsonNode inputJson) {
+        this.id = UUIDUtil.newUUIDv7();
+        this.workflowDefId = workflowDefId;
+        this.name = name;
+        this.cronExpression = cronExpression;
+        this.timeZone = timeZone;
+        this.inputJson = inputJson;
+        this.enabled = true;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and setters
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getWorkflowDefId() {
+        return workflowDefId;
+    }
+
+    public void setWorkflowDefId(UUID workflowDefId) {
+        this.workflowDefId = workflowDefId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getCronExpression() {
+        return cronExpression;
+    }
+
+    public void setCronExpression(String cronExpression) {
+        this.cronExpression = cronExpression;
+    }
+
+    public String getTimeZone() {
+        return timeZone;
+    }
+
+    public void setTimeZone(String timeZone) {
+        this.timeZone = timeZone;
+    }
+
+    public JsonNode getInputJson() {
+        return inputJson;
+    }
+
+    public void setInputJson(JsonNode inputJson) {
+        this.inputJson = inputJson;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public LocalDateTime getNextFireTime() {
+        return nextFireTime;
+    }
+
+    public void setNextFireTime(LocalDateTime nextFireTime) {
+        this.nextFireTime = nextFireTime;
+    }
+
+    public LocalDateTime getLastFireTime() {
+        return lastFireTime;
+    }
+
+    public void setLastFireTime(LocalDateTime lastFireTime) {
+        this.lastFireTime = lastFireTime;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -20,6 +20,7 @@ public class HistoryAndAuditService {
 
     private static final Logger LOGGER = Logger.getLogger(HistoryAndAuditService.class.getName());
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int ARCHIVE_CHUNK_SIZE = 1000;
 
     /**
      * Records a status change event
@@ -131,7 +132,8 @@ public class HistoryAndAuditService {
     }
     
     /**
-     * Archives old history records
+     * Moves history records older than a date to the archive table, one chunk at a time without
+     * pausing. The periodic archiver moves history with a rate limit instead.
      * 
      * @param connection Database connection
      * @param olderThan Records older than this date will be archived
@@ -140,7 +142,14 @@ public class HistoryAndAuditService {
     public int archiveOldHistory(Connection connection, LocalDateTime olderThan) {
         try {
             WorkflowHistoryDAO historyDAO = new WorkflowHistoryDAO(connection);
-            return historyDAO.archiveOldHistory(olderThan);
+            historyDAO.createArchivePartitions(olderThan);
+            int archived = 0;
+            int moved;
+            do {
+                moved = historyDAO.archiveOldHistory(olderThan, ARCHIVE_CHUNK_SIZE);
+                archived += moved;
+            } while (moved == ARCHIVE_CHUNK_SIZE);
+            return archived;
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error archiving old history", e);
             throw new RuntimeException("Error archiving old history", e);
@@ -4,6 +4,7 @@ import com.workday.pwe.dao.*;
 import com.workday.pwe.enums.TaskStatus;
 import com.workday.pwe.enums.WorkflowStatus;
 import com.workday.pwe.model.*;
+import com.workday.pwe.util.EnumLookup;
 import com.workday.pwe.util.SQLUtil;
 
 import java.sql.Connection;
@@ -22,9 +23,10 @@ import java.util.logging.Logger;
 public class QueryService {
 
     private static final Logger LOGGER = Logger.getLogger(QueryService.class.getName());
+    private static final EnumLookup<TaskStatus> TASK_STATUSES = EnumLookup.of(TaskStatus.class);
 
     /**
-     * Finds workflows by status
+     * Finds workflows by status, live and archived
      * 
      * @param connection Database connection
      * @param status Workflow status
@@ -33,7 +35,7 @@ public class QueryService {
     public List<WorkflowInstance> findWorkflowsByStatus(Connection connection, WorkflowStatus status) {
         try {
             WorkflowInstanceDAO workflowInstDAO = new WorkflowInstanceDAO(connection);
-            return workflowInstDAO.getWorkflowInstancesByStatus(status);
+            return workflowInstDAO.getWorkflowInstancesByStatusIncludingArchived(status);
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error finding workflows by status", e);
             throw new RuntimeException("Error finding workflows by status", e);
@@ -41,7 +43,7 @@ public class QueryService {
     }
     
     /**
-     * Finds tasks by status
+     * Finds tasks by status, live and archived
      * 
      * @param connection Database connection
      * @param status Task status
@@ -51,7 +53,11 @@ public class QueryService {
         try {
             String sql = "SELECT id, workflow_instance_id, task_def_id, task_group_instance_id, " +
                          "assignee, status, input_json, output_json, start_time, end_time, due_date, failure_reason " +
-                         "FROM task_instances WHERE status = ?";
+                         "FROM task_instances WHERE status = " + status.getCode() + " " +
+                         "UNION ALL " +
+                         "SELECT id, workflow_instance_id, task_def_id, task_group_instance_id, " +
+                         "assignee, status, input_json, output_json, start_time, end_time, due_date, failure_reason " +
+                         "FROM task_instances_archive WHERE status = " + status.getCode();
             
             return SQLUtil.executeQuery(connection, sql, rs -> {
                 try {
@@ -66,7 +72,7 @@ public class QueryService {
                     }
                     
                     taskInst.setAssignee(rs.getString("assignee"));
-                    taskInst.setStatus(TaskStatus.valueOf(rs.getString("status")));
+                    taskInst.setStatus(TASK_STATUSES.fromCode(rs.getShort("status")));
                     taskInst.setFailureReason(rs.getString("failure_reason"));
                     
                     // Parse timestamps
@@ -98,7 +104,7 @@ public class QueryService {
     }
     
     /**
-     * Finds tasks by assignee
+     * Finds tasks by assignee, live and archived
      * 
      * @param connection Database connection
      * @param assignee Task assignee
@@ -108,10 +114,15 @@ public class QueryService {
         try {
             String sql = "SELECT id, workflow_instance_id, task_def_id, task_group_instance_id, " +
                          "assignee, status, input_json, output_json, start_time, end_time, due_date, failure_reason " +
-                         "FROM task_instances WHERE assignee = ?";
+                         "FROM task_instances WHERE assignee = ? " +
+                         "UNION ALL " +
+                         "SELECT id, workflow_instance_id, task_def_id, task_group_instance_id, " +
+                         "assignee, status, input_json, output_json, start_time, end_time, due_date, failure_reason " +
+                         "FROM task_instances_archive WHERE assignee = ?";
             
             List<Object> params = new ArrayList<>();
             params.add(assignee);
+            params.add(assignee);
             
             PreparedStatement stmt = connection.prepareStatement(sql);
             SQLUtil.setParameters(stmt, params);
@@ -136,7 +147,7 @@ public class QueryService {
         try {
             String sql = "SELECT id, workflow_instance_id, task_def_id, task_group_instance_id, " +
                          "assignee, status, input_json, output_json, start_time, end_time, due_date, failure_reason " +
-                         "FROM task_instances WHERE status IN ('NOT_STARTED', 'IN_PROGRESS', 'BLOCKED') " +
+                         "FROM task_instances WHERE status IN (" + SQLUtil.codes(TaskStatus.NOT_STARTED, TaskStatus.IN_PROGRESS, TaskStatus.BLOCKED) + ") " +
                          "AND due_date < ?";
             
             List<Object> params = new ArrayList<>();
@@ -156,7 +167,7 @@ public class QueryService {
     }
     
     /**
-     * Finds tasks for a workflow
+     * Finds tasks for a workflow, reading the archive table once the workflow has been archived
      * 
      * @param connection Database connection
      * @param workflowInstanceId Workflow instance ID
@@ -165,7 +176,9 @@ public class QueryService {
     public List<TaskInstance> findTasksForWorkflow(Connection connection, UUID workflowInstanceId) {
         try {
             TaskInstanceDAO taskInstDAO = new TaskInstanceDAO(connection);
-            return taskInstDAO.getTaskInstancesByWorkflowId(workflowInstanceId);
+            List<TaskInstance> taskInsts = taskInstDAO.getTaskInstancesByWorkflowId(workflowInstanceId);
+            // A workflow's tasks are archived together with it, so they are all in one table or the other
+            return !taskInsts.isEmpty() ? taskInsts : taskInstDAO.getArchivedTaskInstancesByWorkflowId(workflowInstanceId);
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error finding tasks for workflow", e);
             throw new RuntimeException("Error finding tasks for workflow", e);
@@ -45,8 +45,16 @@ public class TaskCompletionService {
                         taskInst.getStatus());
             }
 
+            // Completion only applies to running tasks
+            if (taskInst.getStatus() == TaskStatus.NOT_STARTED) {
+                taskInstDAO.updateTask(taskId, TaskStatus.IN_PROGRESS);
+            }
+
             // Use TaskHandler to complete the task
-            TaskHandler.completeAndClose(connection, taskInst, null);
+            if (!TaskHandler.completeAndClose(connection, taskInst, null)) {
+                LOGGER.warning("Task left IN_PROGRESS before it could be completed: " + taskId);
+                return false;
+            }
 
             // Record history
             recordTaskCompletion(connection, taskInst, outputJson);
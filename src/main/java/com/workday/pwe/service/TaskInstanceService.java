@@ -6,6 +6,8 @@ import com.workday.pwe.dao.TaskInstanceDAO;
 import com.workday.pwe.dao.WorkflowInstanceDAO;
 import com.workday.pwe.enums.TaskStatus;
 import com.workday.pwe.enums.WorkflowStatus;
+import com.workday.pwe.execution.AsyncTaskCompletion;
+import com.workday.pwe.execution.TaskTimerService;
 import com.workday.pwe.model.TaskDefinition;
 import com.workday.pwe.model.TaskInstance;
 import com.workday.pwe.model.WorkflowInstance;
@@ -165,6 +167,9 @@ public class TaskInstanceService {
                 
                 taskInst.setDueDate(newDueDate);
                 taskInstDAO.updateTaskInstance(taskInst);
+                
+                // Move the expiry and escalation timers
+                TaskTimerService.getInstance().onDueDateChanged(AsyncTaskCompletion.currentTenant(), taskInst);
             } else {
                 LOGGER.warning("Cannot update due date for task with status: " + taskInst.getStatus());
             }
@@ -3,6 +3,7 @@ package com.workday.pwe.service;
 import com.workday.pwe.dao.WorkflowInstanceDAO;
 import com.workday.pwe.enums.WorkflowStatus;
 import com.workday.pwe.execution.ExecutionQueuingInterceptor;
+import com.workday.pwe.handler.SubWorkflowTaskHandler;
 import com.workday.pwe.model.WorkflowInstance;
 
 import java.sql.Connection;
@@ -115,10 +116,36 @@ public class WorkflowControlService {
             // Remove from execution queue if present
             ExecutionQueuingInterceptor.removeFromQueue(connection, workflowInstanceId);
             
+            // Fail the parent task if this is a sub-workflow
+            SubWorkflowTaskHandler.propagateToParent(connection, workflowInstanceId);
+            
+            // Sub-workflows started by this workflow have no one left to report to
+            terminateChildWorkflows(connection, workflowInstanceId, reason);
+            
             return true;
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error terminating workflow", e);
             throw new RuntimeException("Error terminating workflow", e);
         }
     }
+    
+    /**
+     * Terminates the unfinished sub-workflows of a terminated workflow, and theirs in turn.
+     * The parent tasks are left as they are, since their workflow is already terminated.
+     * 
+     * @param connection Database connection
+     * @param workflowInstanceId The terminated workflow instance ID
+     * @param reason Reason for termination
+     * @throws Exception If a child cannot be terminated
+     */
+    private void terminateChildWorkflows(Connection connection, UUID workflowInstanceId, String reason) throws Exception {
+        WorkflowInstanceDAO workflowInstDAO = new WorkflowInstanceDAO(connection);
+        for (WorkflowInstance child : workflowInstDAO.getActiveChildWorkflows(workflowInstanceId)) {
+            workflowInstDAO.updateWorkflowStatus(child.getId(), WorkflowStatus.TERMINATED);
+            ExecutionQueuingInterceptor.removeFromQueue(connection, child.getId());
+            LOGGER.info("Terminated sub-workflow " + child.getId() + " of workflow " + workflowInstanceId + ": " + reason);
+            
+            terminateChildWorkflows(connection, child.getId(), reason);
+        }
+    }
 }
\ No newline at end of file
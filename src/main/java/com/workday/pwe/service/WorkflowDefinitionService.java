@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.workday.pwe.dao.TaskDefinitionDAO;
 import com.workday.pwe.dao.TaskGroupDefinitionDAO;
 import com.workday.pwe.dao.WorkflowDefinitionDAO;
+import com.workday.pwe.execution.WorkflowDefinitionValidator;
 import com.workday.pwe.execution.WorkflowJsonParser;
 import com.workday.pwe.model.TaskDefinition;
 import com.workday.pwe.model.TaskGroupDefinition;
@@ -36,7 +37,8 @@ public class WorkflowDefinitionService {
      */
     public WorkflowDefinition createWorkflowDefinition(Connection connection, String name, String jsonDefinition) throws Exception {
         try {
-            // Parse and validate the JSON definition
+            // Validate and parse the JSON definition
+            requireValidDefinition(jsonDefinition);
             JsonNode definitionJson = OBJECT_MAPPER.readTree(jsonDefinition);
             
             // Check if a workflow with this name already exists
@@ -121,7 +123,8 @@ public class WorkflowDefinitionService {
      */
     public WorkflowDefinition updateWorkflowDefinition(Connection connection, UUID id, String jsonDefinition) throws Exception {
         try {
-            // Parse and validate the JSON definition
+            // Validate and parse the JSON definition
+            requireValidDefinition(jsonDefinition);
             JsonNode definitionJson = OBJECT_MAPPER.readTree(jsonDefinition);
             
             WorkflowDefinitionDAO workflowDefDAO = new WorkflowDefinitionDAO(connection);
@@ -215,20 +218,19 @@ public class WorkflowDefinitionService {
      * @return true if the definition is valid, false otherwise
      */
     public boolean validateWorkflowDefinition(String jsonDefinition) {
-        try {
-            JsonNode definitionJson = OBJECT_MAPPER.readTree(jsonDefinition);
-            
-            // Perform validation checks - this is a simplified validation
-            if (!definitionJson.has("id") || 
-                !definitionJson.has("type") || 
-                !"group".equals(definitionJson.get("type").asText())) {
-                return false;
-            }
-            
-            return true;
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error validating workflow definition", e);
-            return false;
+        return WorkflowDefinitionValidator.validate(jsonDefinition).isValid();
+    }
+    
+    /**
+     * Reject a workflow definition that fails validation
+     * 
+     * @param jsonDefinition The JSON workflow definition to validate
+     * @throws IllegalArgumentException If the definition is invalid
+     */
+    private void requireValidDefinition(String jsonDefinition) {
+        WorkflowDefinitionValidator.ValidationResult result = WorkflowDefinitionValidator.validate(jsonDefinition);
+        if (!result.isValid()) {
+            throw new IllegalArgumentException("Invalid workflow definition: " + String.join("; ", result.getErrors()));
         }
     }
 }
@@ -6,14 +6,23 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.workday.pwe.dao.*;
 import com.workday.pwe.enums.TaskStatus;
 import com.workday.pwe.enums.WorkflowStatus;
+import com.workday.pwe.execution.AsyncTaskCompletion;
 import com.workday.pwe.execution.ExecutionQueuingInterceptor;
+import com.workday.pwe.execution.TaskTimerService;
 import com.workday.pwe.execution.WorkflowStateManager;
+import com.workday.pwe.handler.SubWorkflowTaskHandler;
 import com.workday.pwe.model.*;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -25,6 +34,7 @@ public class WorkflowInstanceService {
 
     private static final Logger LOGGER = Logger.getLogger(WorkflowInstanceService.class.getName());
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int ARCHIVE_BATCH_SIZE = 500;
 
     /**
      * Start a new workflow instance
@@ -36,6 +46,21 @@ public class WorkflowInstanceService {
      * @throws Exception If an error occurs
      */
     public WorkflowInstance startWorkflow(Connection connection, UUID workflowDefId, JsonNode inputJson) throws Exception {
+        return startWorkflow(connection, workflowDefId, inputJson, null);
+    }
+    
+    /**
+     * Start a new workflow instance, optionally as the sub-workflow of a task
+     * 
+     * @param connection Database connection
+     * @param workflowDefId The workflow definition ID
+     * @param inputJson The input data
+     * @param parentTaskInstId The task instance that starts the workflow as a sub-workflow, or null
+     * @return The created workflow instance
+     * @throws Exception If an error occurs
+     */
+    public WorkflowInstance startWorkflow(Connection connection, UUID workflowDefId, JsonNode inputJson,
+                                          UUID parentTaskInstId) throws Exception {
         try {
             // Check if the workflow definition exists
             WorkflowDefinitionDAO workflowDefDAO = new WorkflowDefinitionDAO(connection);
@@ -47,16 +72,17 @@ public class WorkflowInstanceService {
             
             // Create the workflow instance
             WorkflowInstance workflowInst = new WorkflowInstance(workflowDefId, inputJson);
+            workflowInst.setParentTaskInstId(parentTaskInstId);
             
             WorkflowInstanceDAO workflowInstDAO = new WorkflowInstanceDAO(connection);
             UUID workflowInstId = workflowInstDAO.createWorkflowInstance(workflowInst);
             workflowInst.setId(workflowInstId);
             
             // Create the task group instances
-            createTaskGroupInstances(connection, workflowInst, workflowDef);
+            Map<UUID, TaskGroupInstance> groupsByDefId = createTaskGroupInstances(connection, workflowInst, workflowDef);
             
             // Create the task instances
-            createTaskInstances(connection, workflowInst, workflowDef);
+            createTaskInstances(connection, workflowInst, workflowDef, groupsByDefId);
             
             // Start the workflow
             workflowInst.start();
@@ -72,22 +98,105 @@ public class WorkflowInstanceService {
         }
     }
     
+    /**
+     * Start many workflow instances of one definition in bulk: the definition is read once and
+     * workflows, groups, tasks and queue entries are each written in a single JDBC batch.
+     * 
+     * @param connection Database connection
+     * @param workflowDefId The workflow definition ID
+     * @param inputs The input data, one workflow per element
+     * @return The created workflow instances, in input order
+     * @throws Exception If an error occurs
+     */
+    public List<WorkflowInstance> startWorkflows(Connection connection, UUID workflowDefId, List<JsonNode> inputs) throws Exception {
+        try {
+            WorkflowDefinition workflowDef = new WorkflowDefinitionDAO(connection).getWorkflowDefinition(workflowDefId);
+            if (workflowDef == null) {
+                throw new IllegalArgumentException("Workflow definition not found: " + workflowDefId);
+            }
+            
+            List<TaskGroupDefinition> groupDefs = parentsFirst(
+                    new TaskGroupDefinitionDAO(connection).getTaskGroupsByWorkflowId(workflowDefId));
+            List<TaskDefinition> taskDefs = new TaskDefinitionDAO(connection).getTaskDefinitionsByWorkflowId(workflowDefId);
+            
+            List<WorkflowInstance> workflowInsts = new ArrayList<>(inputs.size());
+            List<TaskGroupInstance> groupInsts = new ArrayList<>();
+            List<TaskInstance> taskInsts = new ArrayList<>();
+            List<WorkflowExecutionQueue> queueEntries = new ArrayList<>(inputs.size());
+            
+            for (JsonNode inputJson : inputs) {
+                WorkflowInstance workflowInst = new WorkflowInstance(workflowDefId, inputJson);
+                workflowInst.start();
+                workflowInsts.add(workflowInst);
+                
+                Map<UUID, TaskGroupInstance> groupsByDefId = buildTaskGroupInstances(workflowInst, groupDefs);
+                groupInsts.addAll(groupsByDefId.values());
+                taskInsts.addAll(buildTaskInstances(workflowInst, groupDefs, taskDefs, groupsByDefId));
+                queueEntries.add(new WorkflowExecutionQueue(workflowInst.getId()));
+            }
+            
+            new WorkflowInstanceDAO(connection).createWorkflowInstances(workflowInsts);
+            new TaskGroupInstanceDAO(connection).createTaskGroupInstances(groupInsts);
+            new TaskInstanceDAO(connection).createTaskInstances(taskInsts);
+            new WorkflowExecutionQueueDAO(connection).addToQueue(queueEntries);
+            scheduleDueDates(taskInsts);
+            
+            LOGGER.info("Started " + workflowInsts.size() + " workflows of definition " + workflowDefId + " in bulk");
+            return workflowInsts;
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error starting workflows in bulk", e);
+            throw e;
+        }
+    }
+    
     /**
      * Create task group instances for a workflow
      * 
      * @param connection Database connection
      * @param workflowInst The workflow instance
      * @param workflowDef The workflow definition
+     * @return The created group instances by group definition ID
+     * @throws SQLException If a database error occurs
+     */
+    private Map<UUID, TaskGroupInstance> createTaskGroupInstances(Connection connection, WorkflowInstance workflowInst,
+                                                                  WorkflowDefinition workflowDef) throws SQLException {
+        List<TaskGroupDefinition> groupDefs = parentsFirst(
+                new TaskGroupDefinitionDAO(connection).getTaskGroupsByWorkflowId(workflowDef.getId()));
+        
+        Map<UUID, TaskGroupInstance> groupsByDefId = buildTaskGroupInstances(workflowInst, groupDefs);
+        new TaskGroupInstanceDAO(connection).createTaskGroupInstances(new ArrayList<>(groupsByDefId.values()));
+        return groupsByDefId;
+    }
+    
+    /**
+     * Create task instances for a workflow
+     * 
+     * @param connection Database connection
+     * @param workflowInst The workflow instance
+     * @param workflowDef The workflow definition
+     * @param groupsByDefId The workflow's group instances by group definition ID
      * @throws SQLException If a database error occurs
      */
-    private void createTaskGroupInstances(Connection connection, WorkflowInstance workflowInst, WorkflowDefinition workflowDef) throws SQLException {
-        TaskGroupDefinitionDAO groupDefDAO = new TaskGroupDefinitionDAO(connection);
-        TaskGroupInstanceDAO groupInstDAO = new TaskGroupInstanceDAO(connection);
+    private void createTaskInstances(Connection connection, WorkflowInstance workflowInst, WorkflowDefinition workflowDef,
+                                     Map<UUID, TaskGroupInstance> groupsByDefId) throws SQLException {
+        List<TaskGroupDefinition> groupDefs = new TaskGroupDefinitionDAO(connection).getTaskGroupsByWorkflowId(workflowDef.getId());
+        List<TaskDefinition> taskDefs = new TaskDefinitionDAO(connection).getTaskDefinitionsByWorkflowId(workflowDef.getId());
         
-        // Get all task group definitions for this workflow
-        List<TaskGroupDefinition> groupDefs = groupDefDAO.getTaskGroupsByWorkflowId(workflowDef.getId());
+        List<TaskInstance> taskInsts = buildTaskInstances(workflowInst, groupDefs, taskDefs, groupsByDefId);
+        new TaskInstanceDAO(connection).createTaskInstances(taskInsts);
+        scheduleDueDates(taskInsts);
+    }
+    
+    /**
+     * Build the group instances of a workflow in memory, with IDs assigned and parents linked
+     * 
+     * @param workflowInst The workflow instance
+     * @param groupDefs The group definitions, parents before children
+     * @return The group instances by group definition ID, parents before children
+     */
+    private Map<UUID, TaskGroupInstance> buildTaskGroupInstances(WorkflowInstance workflowInst, List<TaskGroupDefinition> groupDefs) {
+        Map<UUID, TaskGroupInstance> groupsByDefId = new LinkedHashMap<>();
         
-        // Create instances for all groups
         for (TaskGroupDefinition groupDef : groupDefs) {
             TaskGroupInstance groupInst = new TaskGroupInstance(workflowInst.getId(), groupDef.getId(), TaskStatus.NOT_STARTED);
             
@@ -103,8 +212,7 @@ public class WorkflowInstanceService {
             
             // Set the parent group instance if applicable
             if (groupDef.getParentGroupDefId() != null) {
-                // Find the parent group instance ID
-                TaskGroupInstance parentGroupInst = findParentGroupInstance(connection, workflowInst.getId(), groupDef.getParentGroupDefId());
+                TaskGroupInstance parentGroupInst = groupsByDefId.get(groupDef.getParentGroupDefId());
                 if (parentGroupInst != null) {
                     groupInst.setParentGroupInstId(parentGroupInst.getId());
                 }
@@ -115,55 +223,37 @@ public class WorkflowInstanceService {
                 groupInst.setParametersJson(groupDef.getParametersJson());
             }
             
-            // Create the group instance
-            UUID groupInstId = groupInstDAO.createTaskGroupInstance(groupInst);
-            groupInst.setId(groupInstId);
-        }
-    }
-    
-    /**
-     * Find a parent group instance
-     * 
-     * @param connection Database connection
-     * @param workflowInstId The workflow instance ID
-     * @param parentGroupDefId The parent group definition ID
-     * @return The parent group instance, or null if not found
-     * @throws SQLException If a database error occurs
-     */
-    private TaskGroupInstance findParentGroupInstance(Connection connection, UUID workflowInstId, UUID parentGroupDefId) throws SQLException {
-        TaskGroupInstanceDAO groupInstDAO = new TaskGroupInstanceDAO(connection);
-        
-        // Get all group instances for this workflow
-        List<TaskGroupInstance> groupInsts = groupInstDAO.getTaskGroupsByWorkflowId(workflowInstId);
-        
-        // Find the one with the matching definition ID
-        for (TaskGroupInstance groupInst : groupInsts) {
-            if (groupInst.getTaskGroupDefId().equals(parentGroupDefId)) {
-                return groupInst;
-            }
+            groupsByDefId.put(groupDef.getId(), groupInst);
         }
         
-        return null;
+        return groupsByDefId;
     }
     
     /**
-     * Create task instances for a workflow
+     * Build the task instances of a workflow in memory
      * 
-     * @param connection Database connection
      * @param workflowInst The workflow instance
-     * @param workflowDef The workflow definition
-     * @throws SQLException If a database error occurs
+     * @param groupDefs The workflow's group definitions
+     * @param taskDefs The workflow's task definitions
+     * @param groupsByDefId The workflow's group instances by group definition ID
+     * @return The task instances
      */
-    private void createTaskInstances(Connection connection, WorkflowInstance workflowInst, WorkflowDefinition workflowDef) throws SQLException {
-        TaskDefinitionDAO taskDefDAO = new TaskDefinitionDAO(connection);
-        TaskInstanceDAO taskInstDAO = new TaskInstanceDAO(connection);
-        TaskGroupInstanceDAO groupInstDAO = new TaskGroupInstanceDAO(connection);
-        
-        // Get all task definitions for this workflow
-        List<TaskDefinition> taskDefs = taskDefDAO.getTaskDefinitionsByWorkflowId(workflowDef.getId());
+    private List<TaskInstance> buildTaskInstances(WorkflowInstance workflowInst, List<TaskGroupDefinition> groupDefs,
+                                                  List<TaskDefinition> taskDefs, Map<UUID, TaskGroupInstance> groupsByDefId) {
+        // Tasks inside forEach groups are templates, instantiated at runtime by ForEachGroupHandler
+        Set<UUID> forEachGroupDefIds = new HashSet<>();
+        for (TaskGroupDefinition groupDef : groupDefs) {
+            if (groupDef.isForEach()) {
+                forEachGroupDefIds.add(groupDef.getId());
+            }
+        }
         
-        // Create instances for all tasks
+        List<TaskInstance> taskInsts = new ArrayList<>(taskDefs.size());
         for (TaskDefinition taskDef : taskDefs) {
+            if (taskDef.getTaskGroupDefId() != null && forEachGroupDefIds.contains(taskDef.getTaskGroupDefId())) {
+                continue;
+            }
+            
             // Get assignee from task definition parameters
             String assignee = null;
             if (taskDef.getParametersJson() != null && taskDef.getParametersJson().has("assignee")) {
@@ -174,8 +264,7 @@ public class WorkflowInstanceService {
             
             // Set the task group instance if applicable
             if (taskDef.getTaskGroupDefId() != null) {
-                // Find the group instance ID
-                TaskGroupInstance groupInst = findGroupInstance(connection, workflowInst.getId(), taskDef.getTaskGroupDefId());
+                TaskGroupInstance groupInst = groupsByDefId.get(taskDef.getTaskGroupDefId());
                 if (groupInst != null) {
                     taskInst.setTaskGroupInstanceId(groupInst.getId());
                 }
@@ -200,35 +289,55 @@ public class WorkflowInstanceService {
                 taskInst.setInputJson(taskDef.getParametersJson());
             }
             
-            // Create the task instance
-            UUID taskInstId = taskInstDAO.createTaskInstance(taskInst);
-            taskInst.setId(taskInstId);
+            taskInsts.add(taskInst);
         }
+        
+        return taskInsts;
     }
     
     /**
-     * Find a group instance
+     * Register the due dates of newly created tasks with the timer service
      * 
-     * @param connection Database connection
-     * @param workflowInstId The workflow instance ID
-     * @param groupDefId The group definition ID
-     * @return The group instance, or null if not found
-     * @throws SQLException If a database error occurs
+     * @param taskInsts The created task instances
      */
-    private TaskGroupInstance findGroupInstance(Connection connection, UUID workflowInstId, UUID groupDefId) throws SQLException {
-        TaskGroupInstanceDAO groupInstDAO = new TaskGroupInstanceDAO(connection);
-        
-        // Get all group instances for this workflow
-        List<TaskGroupInstance> groupInsts = groupInstDAO.getTaskGroupsByWorkflowId(workflowInstId);
-        
-        // Find the one with the matching definition ID
-        for (TaskGroupInstance groupInst : groupInsts) {
-            if (groupInst.getTaskGroupDefId().equals(groupDefId)) {
-                return groupInst;
+    private void scheduleDueDates(List<TaskInstance> taskInsts) {
+        for (TaskInstance taskInst : taskInsts) {
+            if (taskInst.getDueDate() != null) {
+                TaskTimerService.getInstance().onDueDateChanged(AsyncTaskCompletion.currentTenant(), taskInst);
             }
         }
+    }
+    
+    /**
+     * Order group definitions so that every parent comes before its children
+     * 
+     * @param groupDefs The group definitions
+     * @return The ordered group definitions
+     */
+    private static List<TaskGroupDefinition> parentsFirst(List<TaskGroupDefinition> groupDefs) {
+        Map<UUID, TaskGroupDefinition> byId = new HashMap<>();
+        for (TaskGroupDefinition groupDef : groupDefs) {
+            byId.put(groupDef.getId(), groupDef);
+        }
         
-        return null;
+        Set<UUID> placed = new HashSet<>();
+        List<TaskGroupDefinition> ordered = new ArrayList<>(groupDefs.size());
+        for (TaskGroupDefinition groupDef : groupDefs) {
+            placeAfterParent(groupDef, byId, placed, ordered);
+        }
+        return ordered;
+    }
+    
+    private static void placeAfterParent(TaskGroupDefinition groupDef, Map<UUID, TaskGroupDefinition> byId,
+                                         Set<UUID> placed, List<TaskGroupDefinition> ordered) {
+        if (!placed.add(groupDef.getId())) {
+            return;
+        }
+        TaskGroupDefinition parent = groupDef.getParentGroupDefId() != null ? byId.get(groupDef.getParentGroupDefId()) : null;
+        if (parent != null) {
+            placeAfterParent(parent, byId, placed, ordered);
+        }
+        ordered.add(groupDef);
     }
     
     /**
@@ -345,6 +454,7 @@ public class WorkflowInstanceService {
             
             // Update the output and status
             workflowInstDAO.updateOutputAndStatus(id, outputJson, WorkflowStatus.COMPLETED);
+            SubWorkflowTaskHandler.propagateToParent(connection, id);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error completing workflow", e);
             throw e;
@@ -387,6 +497,7 @@ public class WorkflowInstanceService {
                 // Just update the status
                 workflowInstDAO.updateWorkflowStatus(id, WorkflowStatus.FAILED);
             }
+            SubWorkflowTaskHandler.propagateToParent(connection, id);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error failing workflow", e);
             throw e;
@@ -434,7 +545,8 @@ public class WorkflowInstanceService {
     }
     
     /**
-     * Archive old workflow instances
+     * Move finished workflow instances older than a date, with their tasks and history, to the
+     * archive tables, one batch at a time
      * 
      * @param connection Database connection
      * @param olderThan The date before which to archive workflows
@@ -444,7 +556,15 @@ public class WorkflowInstanceService {
     public int archiveOldWorkflows(Connection connection, LocalDateTime olderThan) throws SQLException {
         try {
             WorkflowInstanceDAO workflowInstDAO = new WorkflowInstanceDAO(connection);
-            return workflowInstDAO.archiveOldWorkflows(olderThan);
+            // History records of the workflows go to the partition of the month they were written in
+            new WorkflowHistoryDAO(connection).createArchivePartitions(LocalDateTime.now());
+            int archived = 0;
+            int moved;
+            do {
+                moved = workflowInstDAO.archiveOldWorkflows(olderThan, ARCHIVE_BATCH_SIZE);
+                archived += moved;
+            } while (moved == ARCHIVE_BATCH_SIZE);
+            return archived;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error archiving old workflows", e);
             throw e;
@@ -0,0 +1,185 @@
+package com.workday.pwe.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.workday.pwe.dao.WorkflowDefinitionDAO;
+import com.workday.pwe.dao.WorkflowScheduleDAO;
+import com.workday.pwe.execution.AsyncTaskCompletion;
+import com.workday.pwe.execution.CronExpression;
+import com.workday.pwe.execution.WorkflowScheduler;
+import com.workday.pwe.model.WorkflowSchedule;
+
+import java.sql.Connection;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Service for scheduled and recurring workflow starts.
+ */
+public class WorkflowScheduleService {
+
+    private static final Logger LOGGER = Logger.getLogger(WorkflowScheduleService.class.getName());
+
+    /**
+     * Create a schedule that starts a workflow definition on a cron expression
+     *
+     * @param connection Database connection
+     * @param workflowDefId The workflow definition ID
+     * @param name Unique schedule name
+     * @param cronExpression Five-field cron expression
+     * @param timeZone Zone the expression is evaluated in, UTC if null
+     * @param inputJson Input data; an array starts one workflow per element on every firing
+     * @return The created schedule
+     */
+    public WorkflowSchedule createSchedule(Connection connection, UUID workflowDefId, String name, String cronExpression,
+                                          String timeZone, JsonNode inputJson) {
+        try {
+            if (!new WorkflowDefinitionDAO(connection).workflowDefinitionExists(workflowDefId)) {
+                throw new IllegalArgumentException("Workflow definition not found: " + workflowDefId);
+            }
+
+            WorkflowSchedule schedule = new WorkflowSchedule(workflowDefId, name, cronExpression,
+                                                             timeZone != null ? timeZone : "UTC", inputJson);
+            validate(schedule);
+            schedule.setNextFireTime(WorkflowScheduler.nextFireTime(schedule, LocalDateTime.now()));
+
+            new WorkflowScheduleDAO(connection).createSchedule(schedule);
+            WorkflowScheduler.getInstance().onScheduleChanged(AsyncTaskCompletion.currentTenant(), schedule);
+
+            LOGGER.info("Created workflow schedule " + name + " (" + cronExpression + "), next fire time: " +
+                       schedule.getNextFireTime());
+            return schedule;
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error creating workflow schedule", e);
+            throw new RuntimeException("Error creating workflow schedule", e);
+        }
+    }
+
+    /**
+     * Change the cron expression, zone or input of a schedule
+     *
+     * @param connection Database connection
+     * @param scheduleId The schedule ID
+     * @param cronExpression The new cron expression
+     * @param timeZone The new zone, unchanged if null
+     * @param inputJson The new input data
+     * @return The updated schedule, or null if not found
+     */
+    public WorkflowSchedule updateSchedule(Connection connection, UUID scheduleId, String cronExpression,
+                                          String timeZone, JsonNode inputJson) {
+        try {
+            WorkflowScheduleDAO scheduleDAO = new WorkflowScheduleDAO(connection);
+            WorkflowSchedule schedule = scheduleDAO.getSchedule(scheduleId);
+            if (schedule == null) {
+                LOGGER.warning("Workflow schedule not found: " + scheduleId);
+                return null;
+            }
+
+            schedule.setCronExpression(cronExpression);
+            if (timeZone != null) {
+                schedule.setTimeZone(timeZone);
+            }
+            schedule.setInputJson(inputJson);
+            validate(schedule);
+            schedule.setNextFireTime(WorkflowScheduler.nextFireTime(schedule, LocalDateTime.now()));
+
+            scheduleDAO.updateSchedule(schedule);
+            WorkflowScheduler.getInstance().onScheduleChanged(AsyncTaskCompletion.currentTenant(), schedule);
+            return schedule;
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error updating workflow schedule", e);
+            throw new RuntimeException("Error updating workflow schedule", e);
+        }
+    }
+
+    /**
+     * Enable or disable a schedule. A re-enabled schedule resumes from the current time.
+     *
+     * @param connection Database connection
+     * @param scheduleId The schedule ID
+     * @param enabled true to enable, false to disable
+     * @return True if the schedule was found, false otherwise
+     */
+    public boolean setScheduleEnabled(Connection connection, UUID scheduleId, boolean enabled) {
+        try {
+            WorkflowScheduleDAO scheduleDAO = new WorkflowScheduleDAO(connection);
+            WorkflowSchedule schedule = scheduleDAO.getSchedule(scheduleId);
+            if (schedule == null) {
+                LOGGER.warning("Workflow schedule not found: " + scheduleId);
+                return false;
+            }
+
+            schedule.setEnabled(enabled);
+            schedule.setNextFireTime(enabled ? WorkflowScheduler.nextFireTime(schedule, LocalDateTime.now()) : null);
+
+            scheduleDAO.updateSchedule(schedule);
+            WorkflowScheduler.getInstance().onScheduleChanged(AsyncTaskCompletion.currentTenant(), schedule);
+            return true;
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error changing workflow schedule state", e);
+            throw new RuntimeException("Error changing workflow schedule state", e);
+        }
+    }
+
+    /**
+     * Delete a schedule
+     *
+     * @param connection Database connection
+     * @param scheduleId The schedule ID
+     * @return True if the schedule was deleted, false otherwise
+     */
+    public boolean deleteSchedule(Connection connection, UUID scheduleId) {
+        try {
+            int deleted = new WorkflowScheduleDAO(connection).deleteSchedule(scheduleId);
+
+            WorkflowSchedule removed = new WorkflowSchedule();
+            removed.setId(scheduleId);
+            WorkflowScheduler.getInstance().onScheduleChanged(AsyncTaskCompletion.currentTenant(), removed);
+            return deleted > 0;
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error deleting workflow schedule", e);
+            throw new RuntimeException("Error deleting workflow schedule", e);
+        }
+    }
+
+    /**
+     * Get the schedules of a workflow definition
+     *
+     * @param connection Database connection
+     * @param workflowDefId The workflow definition ID
+     * @return List of schedules
+     */
+    public List<WorkflowSchedule> getSchedules(Connection connection, UUID workflowDefId) {
+        try {
+            return new WorkflowScheduleDAO(connection).getSchedulesByDefinitionId(workflowDefId);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error getting workflow schedules", e);
+            throw new RuntimeException("Error getting workflow schedules", e);
+        }
+    }
+
+    /**
+     * Check the cron expression and time zone of a schedule
+     *
+     * @param schedule The schedule
+     * @throws IllegalArgumentException If either is invalid
+     */
+    private void validate(WorkflowSchedule schedule) {
+        if (!CronExpression.isValid(schedule.getCronExpression())) {
+            throw new IllegalArgumentException("Invalid cron expression: " + schedule.getCronExpression());
+        }
+        try {
+            ZoneId.of(schedule.getTimeZone());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid time zone: " + schedule.getTimeZone(), e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.workday.pwe.util;
+
+import com.workday.pwe.enums.CodedEnum;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Precomputed code-to-constant and name-to-constant tables for an enum stored in the database as a
+ * SMALLINT code, used by the row mappers in place of {@code Enum.valueOf}. The tables are built once
+ * per enum and never change, so lookups need no reflection or synchronization.
+ *
+ * @param <E> The enum type
+ */
+public final class EnumLookup<E extends Enum<E> & CodedEnum> {
+
+    private final Class<E> type;
+    private final Object[] byCode;
+    private final Map<String, E> byName;
+
+    private EnumLookup(Class<E> type) {
+        E[] constants = type.getEnumConstants();
+        int maxCode = -1;
+        for (E constant : constants) {
+            if (constant.getCode() < 0) {
+                throw new IllegalArgumentException("Negative code for " + type.getName() + "." + constant.name());
+            }
+            maxCode = Math.max(maxCode, constant.getCode());
+        }
+
+        this.type = type;
+        this.byCode = new Object[maxCode + 1];
+        this.byName = new HashMap<>(constants.length * 2);
+        for (E constant : constants) {
+            if (byCode[constant.getCode()] != null) {
+                throw new IllegalArgumentException("Duplicate code " + constant.getCode() + " in " + type.getName());
+            }
+            byCode[constant.getCode()] = constant;
+            byName.put(constant.name(), constant);
+        }
+    }
+
+    /**
+     * Build the lookup tables of an enum
+     *
+     * @param <E> The enum type
+     * @param type The enum class
+     * @return The lookup tables
+     * @throws IllegalArgumentException If two constants share a code or a code is negative
+     */
+    public static <E extends Enum<E> & CodedEnum> EnumLookup<E> of(Class<E> type) {
+        return new EnumLookup<>(type);
+    }
+
+    /**
+     * Get the constant stored as the given code
+     *
+     * @param code The code read from the database
+     * @return The constant
+     * @throws IllegalArgumentException If the enum has no constant with that code
+     */
+    @SuppressWarnings("unchecked")
+    public E fromCode(int code) {
+        if (code < 0 || code >= byCode.length || byCode[code] == null) {
+            throw new IllegalArgumentException("No " + type.getName() + " with code " + code);
+        }
+        return (E) byCode[code];
+    }
+
+    /**
+     * Get the constant with the given name
+     *
+     * @param name The constant name, may be null
+     * @return The constant, or null if the name is null
+     * @throws IllegalArgumentException If the enum has no constant with that name
+     */
+    public E fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        E constant = byName.get(name);
+        if (constant == null) {
+            throw new IllegalArgumentException("No enum constant " + type.getName() + "." + name);
+        }
+        return constant;
+    }
+}
@@ -2,6 +2,7 @@ package com.workday.pwe.util;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.workday.pwe.enums.CodedEnum;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -105,6 +106,8 @@ public class SQLUtil {
                 stmt.setDouble(paramIndex++, (Double) value);
             } else if (value instanceof Boolean) {
                 stmt.setBoolean(paramIndex++, (Boolean) value);
+            } else if (value instanceof CodedEnum) {
+                stmt.setShort(paramIndex++, ((CodedEnum) value).getCode());
             } else if (value instanceof UUID) {
                 stmt.setObject(paramIndex++, value);
             } else if (value instanceof java.time.LocalDateTime) {
@@ -144,6 +147,25 @@ public class SQLUtil {
         return sb.toString();
     }
     
+    /**
+     * Build the comma separated codes of enum constants, for an IN list in SQL text
+     *
+     * @param values The constants
+     * @return The codes, e.g. "0, 1, 10"
+     */
+    public static String codes(CodedEnum... values) {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(values[i].getCode());
+        }
+
+        return sb.toString();
+    }
+
     /**
      * Get a JSON path value from a result set
      * 
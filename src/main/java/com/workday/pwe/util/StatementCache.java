@@ -0,0 +1,227 @@
+package com.workday.pwe.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Per-connection cache of prepared statements.
+ * <p>
+ * DAOs prepare a statement on every call and close it when done. On a connection wrapped by
+ * {@link #wrap}, {@code prepareStatement(String)} returns the statement prepared earlier for the
+ * same SQL, and closing it only returns it to the cache, so the driver's server-side prepare
+ * threshold (e.g. PostgreSQL's {@code prepareThreshold}) is reached and repeated statements skip
+ * parsing and planning. The least recently used statements are closed once the cache is full.
+ * Statements prepared with other arguments (generated keys, result set options) are not cached.
+ */
+public class StatementCache implements InvocationHandler {
+
+    private static final Logger LOGGER = Logger.getLogger(StatementCache.class.getName());
+
+    private final Connection connection;
+    private final int maxSize;
+    private final Metrics metrics;
+    private final Map<String, CachedStatement> statements;
+    private Connection proxy;
+
+    private StatementCache(Connection connection, int maxSize, Metrics metrics) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+        this.metrics = metrics;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Wrap a connection so its prepared statements are cached until the connection is closed
+     *
+     * @param connection The connection to wrap
+     * @param maxSize Maximum number of statements kept per connection
+     * @param metrics Counters to record hits, misses and evictions in; may be shared across connections
+     * @return The wrapping connection
+     */
+    public static Connection wrap(Connection connection, int maxSize, Metrics metrics) {
+        StatementCache cache = new StatementCache(connection, maxSize, metrics);
+        cache.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                          new Class<?>[] {Connection.class}, cache);
+        return cache.proxy;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "prepareStatement":
+                if (args.length == 1) {
+                    return prepare((String) args[0]);
+                }
+                break;
+            case "close":
+                closeAll();
+                break;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                break;
+        }
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Get the cached statement for a SQL string, preparing it on a miss
+     *
+     * @param sql The SQL
+     * @return A statement whose close() returns it to the cache
+     * @throws SQLException If a database error occurs
+     */
+    private synchronized PreparedStatement prepare(String sql) throws SQLException {
+        CachedStatement cached = statements.get(sql);
+        if (cached != null && !cached.inUse && !cached.statement.isClosed()) {
+            metrics.hits.increment();
+            return cached.lease();
+        }
+        metrics.misses.increment();
+
+        PreparedStatement statement = connection.prepareStatement(sql);
+        if (cached != null && cached.inUse) {
+            // The same SQL is already open on this connection, e.g. an outer loop; don't cache the second one
+            return statement;
+        }
+        cached = new CachedStatement(sql, statement);
+        statements.put(sql, cached);
+        evict();
+        return cached.lease();
+    }
+
+    private void evict() {
+        Iterator<CachedStatement> leastRecentFirst = statements.values().iterator();
+        while (statements.size() > maxSize && leastRecentFirst.hasNext()) {
+            CachedStatement cached = leastRecentFirst.next();
+            leastRecentFirst.remove();
+            metrics.evictions.increment();
+            cached.evicted = true;
+            if (!cached.inUse) {
+                cached.closeQuietly();
+            }
+        }
+    }
+
+    private synchronized void release(CachedStatement cached) {
+        cached.inUse = false;
+        if (cached.evicted) {
+            cached.closeQuietly();
+            return;
+        }
+        try {
+            cached.statement.clearParameters();
+            cached.statement.clearBatch();
+        } catch (SQLException e) {
+            statements.remove(cached.sql);
+            cached.closeQuietly();
+        }
+    }
+
+    private synchronized void closeAll() {
+        for (CachedStatement cached : statements.values()) {
+            cached.closeQuietly();
+        }
+        statements.clear();
+    }
+
+    /**
+     * A cached statement; each lease is a proxy whose close() hands the statement back
+     */
+    private final class CachedStatement {
+        private final String sql;
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(String sql, PreparedStatement statement) {
+            this.sql = sql;
+            this.statement = statement;
+        }
+
+        PreparedStatement lease() {
+            inUse = true;
+            boolean[] closed = {false};
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                                                              new Class<?>[] {PreparedStatement.class}, (p, method, args) -> {
+                switch (method.getName()) {
+                    case "close":
+                        if (!closed[0]) {
+                            closed[0] = true;
+                            release(this);
+                        }
+                        return null;
+                    case "isClosed":
+                        return closed[0];
+                    case "getConnection":
+                        return proxy;
+                    case "equals":
+                        return p == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(p);
+                    default:
+                        if (closed[0]) {
+                            throw new SQLException("Statement is closed");
+                        }
+                        try {
+                            return method.invoke(statement, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                }
+            });
+        }
+
+        void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.FINE, "Error closing cached statement", e);
+            }
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counters of one or more statement caches
+     */
+    public static final class Metrics {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        public long getEvictions() {
+            return evictions.sum();
+        }
+
+        public double getHitRatio() {
+            long hitCount = hits.sum();
+            long total = hitCount + misses.sum();
+            return total == 0 ? 0 : (double) hitCount / total;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+-- migrate_archive_tables.sql
+-- Adds the archive tables that terminal workflows are moved to after the retention window, and
+-- replaces the full status indexes of the live instance tables with partial indexes on the
+-- active statuses. Run once after migrate_status_codes.sql; the engine may keep running.
+
+BEGIN;
+
+CREATE TABLE workflow_instances_archive (LIKE workflow_instances INCLUDING DEFAULTS, PRIMARY KEY (id));
+CREATE TABLE task_group_instances_archive (LIKE task_group_instances INCLUDING DEFAULTS, PRIMARY KEY (id));
+CREATE TABLE task_instances_archive (LIKE task_instances INCLUDING DEFAULTS, PRIMARY KEY (id));
+CREATE TABLE workflow_history_archive (LIKE workflow_history INCLUDING DEFAULTS, PRIMARY KEY (id));
+
+CREATE INDEX idx_workflow_inst_archive_status ON workflow_instances_archive(status);
+CREATE INDEX idx_workflow_inst_archive_end_time ON workflow_instances_archive(end_time);
+CREATE INDEX idx_task_group_inst_archive_workflow ON task_group_instances_archive(workflow_instance_id);
+CREATE INDEX idx_task_inst_archive_workflow ON task_instances_archive(workflow_instance_id);
+CREATE INDEX idx_task_inst_archive_status ON task_instances_archive(status);
+CREATE INDEX idx_task_inst_archive_assignee ON task_instances_archive(assignee);
+CREATE INDEX idx_workflow_history_archive_workflow ON workflow_history_archive(workflow_instance_id);
+CREATE INDEX idx_workflow_history_archive_entity ON workflow_history_archive(entity_type, entity_id);
+
+COMMIT;
+
+-- The partial indexes are built without blocking writes, so they cannot run inside the transaction.
+-- The full indexes are only dropped once their replacements exist.
+CREATE INDEX CONCURRENTLY idx_workflow_inst_active ON workflow_instances(status) WHERE status IN (0, 1, 2); -- WorkflowStatus NOT_STARTED, RUNNING, PAUSED
+CREATE INDEX CONCURRENTLY idx_workflow_inst_finished ON workflow_instances(end_time) WHERE status IN (3, 4, 5, 6); -- WorkflowStatus COMPLETED, FAILED, TERMINATED, ARCHIVED
+CREATE INDEX CONCURRENTLY idx_task_group_inst_active ON task_group_instances(status) WHERE status IN (0, 1, 10); -- TaskStatus NOT_STARTED, IN_PROGRESS, BLOCKED
+CREATE INDEX CONCURRENTLY idx_task_inst_active ON task_instances(status) WHERE status IN (0, 1, 10); -- TaskStatus NOT_STARTED, IN_PROGRESS, BLOCKED
+CREATE INDEX CONCURRENTLY idx_task_inst_due_date_active ON task_instances(due_date) WHERE status IN (0, 1, 10);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_workflow_inst_status;
+DROP INDEX CONCURRENTLY IF EXISTS idx_workflow_inst_end_time;
+DROP INDEX CONCURRENTLY IF EXISTS idx_task_group_inst_status;
+DROP INDEX CONCURRENTLY IF EXISTS idx_task_inst_status;
+DROP INDEX CONCURRENTLY IF EXISTS idx_task_inst_due_date;
+ALTER INDEX idx_task_inst_due_date_active RENAME TO idx_task_inst_due_date;
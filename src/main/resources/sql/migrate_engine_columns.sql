@@ -0,0 +1,91 @@
+-- migrate_engine_columns.sql
+-- Adds the columns and tables the engine's execution features rely on: queue shards, decide and
+-- task retries, decide watermarks, sub-workflow parents, cluster membership, workflow schedules and
+-- time-ordered IDs. Run once before every other migrate_*.sql script, with the engine stopped: the
+-- queue's shards are backfilled here, and an older engine would keep queueing into shard 0.
+-- The added columns are nullable or have constant defaults, so no table is rewritten.
+
+BEGIN;
+
+-- Time-ordered version 7 UUID: a v4 UUID with its first 48 bits replaced by the Unix time in
+-- milliseconds and its version set to 7. New keys append to the right edge of primary key indexes.
+CREATE OR REPLACE FUNCTION uuid_generate_v7() RETURNS UUID AS $$
+SELECT encode(
+           set_bit(
+               set_bit(
+                   overlay(uuid_send(uuid_generate_v4())
+                           PLACING substring(int8send((EXTRACT(EPOCH FROM clock_timestamp()) * 1000)::BIGINT) FROM 3)
+                           FROM 1 FOR 6),
+                   52, 1),
+               53, 1),
+           'hex')::UUID;
+$$ LANGUAGE SQL VOLATILE;
+
+ALTER TABLE workflow_definitions ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+ALTER TABLE workflow_instances ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+ALTER TABLE task_group_definitions ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+ALTER TABLE task_definitions ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+ALTER TABLE task_group_instances ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+ALTER TABLE task_instances ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+ALTER TABLE workflow_execution_queue ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+ALTER TABLE workflow_history ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+
+-- migrate_archive_tables.sql creates the archive tables from these with LIKE, so they take the columns too
+ALTER TABLE workflow_instances
+    ADD COLUMN parent_task_inst_id UUID,
+    ADD COLUMN last_decided_at TIMESTAMP;
+
+ALTER TABLE task_instances
+    ADD COLUMN attempt_count INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN next_attempt_at TIMESTAMP;
+
+ALTER TABLE workflow_execution_queue
+    ADD COLUMN shard INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN attempt_count INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN next_attempt_at TIMESTAMP;
+
+-- The low 10 bits of the workflow instance ID, as WorkflowExecutionQueueDAO.shardOf computes them
+UPDATE workflow_execution_queue SET shard = ('x' || right(workflow_instance_id::text, 3))::bit(12)::int & 1023;
+
+CREATE TABLE cluster_nodes (
+    node_id VARCHAR(255) PRIMARY KEY,
+    host_name VARCHAR(255),
+    started_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    last_heartbeat TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE TABLE workflow_schedules (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
+    workflow_def_id UUID NOT NULL REFERENCES workflow_definitions(id),
+    name VARCHAR(255) NOT NULL,
+    cron_expression VARCHAR(255) NOT NULL,
+    time_zone VARCHAR(64) NOT NULL DEFAULT 'UTC',
+    input_json JSONB, -- an array starts one workflow per element
+    enabled BOOLEAN NOT NULL DEFAULT TRUE,
+    next_fire_time TIMESTAMP,
+    last_fire_time TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    UNIQUE (name)
+);
+
+CREATE INDEX idx_cluster_nodes_heartbeat ON cluster_nodes(last_heartbeat);
+CREATE INDEX idx_workflow_schedule_def ON workflow_schedules(workflow_def_id);
+CREATE INDEX idx_workflow_schedule_next_fire ON workflow_schedules(next_fire_time) WHERE enabled;
+
+COMMIT;
+
+-- Indexes on the existing tables are built without blocking writes, so they cannot run inside the
+-- transaction. The queue's shard and processing indexes compare the status, so migrate_status_codes.sql
+-- creates them.
+CREATE INDEX CONCURRENTLY idx_workflow_inst_parent_task ON workflow_instances(parent_task_inst_id) WHERE parent_task_inst_id IS NOT NULL;
+CREATE INDEX CONCURRENTLY idx_task_group_def_id_order ON task_group_definitions(id) INCLUDE (group_order);
+CREATE INDEX CONCURRENTLY idx_task_def_id_order ON task_definitions(id) INCLUDE (task_order);
+CREATE INDEX CONCURRENTLY idx_task_group_inst_root_status ON task_group_instances(workflow_instance_id) INCLUDE (status, task_group_def_id) WHERE parent_group_inst_id IS NULL;
+CREATE INDEX CONCURRENTLY idx_task_inst_group_covering ON task_instances(task_group_instance_id) INCLUDE (status, task_def_id);
+CREATE INDEX CONCURRENTLY idx_task_inst_next_attempt ON task_instances(next_attempt_at) WHERE next_attempt_at IS NOT NULL;
+CREATE INDEX CONCURRENTLY idx_task_inst_top_level_status ON task_instances(workflow_instance_id) INCLUDE (status, task_def_id) WHERE task_group_instance_id IS NULL;
+CREATE INDEX CONCURRENTLY idx_workflow_queue_next_attempt ON workflow_execution_queue(next_attempt_at) WHERE next_attempt_at IS NOT NULL;
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_task_inst_group;
+ALTER INDEX idx_task_inst_group_covering RENAME TO idx_task_inst_group;
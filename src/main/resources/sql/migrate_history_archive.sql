@@ -0,0 +1,45 @@
+-- migrate_history_archive.sql
+-- Partitions workflow_history_archive by month and adds the archive_progress cursor table used by
+-- history archival. Run once after migrate_archive_tables.sql, with the engine stopped: the rows
+-- already archived are copied into the new partitioned table.
+
+BEGIN;
+
+CREATE TABLE archive_progress (
+    name VARCHAR(64) PRIMARY KEY,
+    last_timestamp TIMESTAMP,
+    last_id UUID,
+    rows_archived BIGINT NOT NULL DEFAULT 0, -- over all passes
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Free the names the partitioned table and its indexes take over
+ALTER TABLE workflow_history_archive RENAME TO workflow_history_archive_unpartitioned;
+ALTER TABLE workflow_history_archive_unpartitioned RENAME CONSTRAINT workflow_history_archive_pkey TO workflow_history_archive_unpartitioned_pkey;
+DROP INDEX IF EXISTS idx_workflow_history_archive_workflow;
+DROP INDEX IF EXISTS idx_workflow_history_archive_entity;
+
+CREATE TABLE workflow_history_archive (LIKE workflow_history INCLUDING DEFAULTS, PRIMARY KEY (id, timestamp)) PARTITION BY RANGE (timestamp);
+
+DO $$
+DECLARE
+    month DATE;
+BEGIN
+    FOR month IN SELECT DISTINCT date_trunc('month', timestamp)::DATE FROM workflow_history_archive_unpartitioned LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF workflow_history_archive FOR VALUES FROM (%L) TO (%L)',
+                       'workflow_history_archive_' || to_char(month, 'YYYY_MM'), month, (month + INTERVAL '1 month')::DATE);
+    END LOOP;
+END $$;
+
+INSERT INTO workflow_history_archive SELECT * FROM workflow_history_archive_unpartitioned;
+DROP TABLE workflow_history_archive_unpartitioned;
+
+CREATE INDEX idx_workflow_history_archive_workflow ON workflow_history_archive(workflow_instance_id);
+CREATE INDEX idx_workflow_history_archive_entity ON workflow_history_archive(entity_type, entity_id);
+
+COMMIT;
+
+-- History archival walks the live table in (timestamp, id) order
+CREATE INDEX CONCURRENTLY idx_workflow_history_timestamp_id ON workflow_history(timestamp, id);
+DROP INDEX CONCURRENTLY IF EXISTS idx_workflow_history_timestamp;
+ALTER INDEX idx_workflow_history_timestamp_id RENAME TO idx_workflow_history_timestamp;
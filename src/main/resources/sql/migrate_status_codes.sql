@@ -0,0 +1,103 @@
+-- migrate_status_codes.sql
+-- Converts the status and type columns of an existing database from enum names stored as
+-- VARCHAR(50) to the SMALLINT codes defined in com.workday.pwe.enums (see CodedEnum).
+-- Run once after migrate_engine_columns.sql, with the engine stopped. Each table is rewritten and its indexes rebuilt; an
+-- unknown name maps to NULL and aborts the whole migration on the NOT NULL constraint.
+
+BEGIN;
+
+-- Partial indexes whose predicates compare the status to a name
+DROP INDEX IF EXISTS idx_workflow_queue_processing;
+DROP INDEX IF EXISTS idx_workflow_queue_shard;
+
+ALTER TABLE workflow_instances
+    ALTER COLUMN status TYPE SMALLINT USING CASE status
+        WHEN 'NOT_STARTED' THEN 0
+        WHEN 'RUNNING' THEN 1
+        WHEN 'PAUSED' THEN 2
+        WHEN 'COMPLETED' THEN 3
+        WHEN 'FAILED' THEN 4
+        WHEN 'TERMINATED' THEN 5
+        WHEN 'ARCHIVED' THEN 6
+        END;
+
+ALTER TABLE task_group_definitions
+    ALTER COLUMN group_type TYPE SMALLINT USING CASE group_type
+        WHEN 'VERTICAL' THEN 0
+        WHEN 'HORIZONTAL' THEN 1
+        WHEN 'FOR_EACH' THEN 2
+        END,
+    ALTER COLUMN completion_criteria TYPE SMALLINT USING CASE completion_criteria
+        WHEN 'ALL' THEN 0
+        WHEN 'ANY' THEN 1
+        WHEN 'N_OF_M' THEN 2
+        END;
+
+ALTER TABLE task_definitions
+    ALTER COLUMN task_type TYPE SMALLINT USING CASE task_type
+        WHEN 'TODO' THEN 0
+        WHEN 'SUBMIT' THEN 1
+        WHEN 'APPROVE' THEN 2
+        WHEN 'REVIEW' THEN 3
+        WHEN 'HTTP' THEN 4
+        WHEN 'SUBWORKFLOW' THEN 5
+        END;
+
+ALTER TABLE task_group_instances
+    ALTER COLUMN status TYPE SMALLINT USING CASE status
+        WHEN 'NOT_STARTED' THEN 0
+        WHEN 'IN_PROGRESS' THEN 1
+        WHEN 'COMPLETED' THEN 2
+        WHEN 'SUBMITTED' THEN 3
+        WHEN 'APPROVED' THEN 4
+        WHEN 'REVIEWED' THEN 5
+        WHEN 'API_CALL_COMPLETE' THEN 6
+        WHEN 'FAILED' THEN 7
+        WHEN 'EXPIRED' THEN 8
+        WHEN 'SKIPPED' THEN 9
+        WHEN 'BLOCKED' THEN 10
+        END;
+
+ALTER TABLE task_instances
+    ALTER COLUMN status TYPE SMALLINT USING CASE status
+        WHEN 'NOT_STARTED' THEN 0
+        WHEN 'IN_PROGRESS' THEN 1
+        WHEN 'COMPLETED' THEN 2
+        WHEN 'SUBMITTED' THEN 3
+        WHEN 'APPROVED' THEN 4
+        WHEN 'REVIEWED' THEN 5
+        WHEN 'API_CALL_COMPLETE' THEN 6
+        WHEN 'FAILED' THEN 7
+        WHEN 'EXPIRED' THEN 8
+        WHEN 'SKIPPED' THEN 9
+        WHEN 'BLOCKED' THEN 10
+        END;
+
+ALTER TABLE workflow_execution_queue
+    ALTER COLUMN status TYPE SMALLINT USING CASE status
+        WHEN 'PENDING' THEN 0
+        WHEN 'PROCESSING' THEN 1
+        WHEN 'COMPLETED' THEN 2
+        WHEN 'FAILED' THEN 3
+        END;
+
+ALTER TABLE workflow_history
+    ALTER COLUMN entity_type TYPE SMALLINT USING CASE entity_type
+        WHEN 'WORKFLOW' THEN 0
+        WHEN 'TASK_GROUP' THEN 1
+        WHEN 'TASK' THEN 2
+        END,
+    ALTER COLUMN change_type TYPE SMALLINT USING CASE change_type
+        WHEN 'STATUS_CHANGE' THEN 0
+        WHEN 'ASSIGNMENT_CHANGE' THEN 1
+        WHEN 'PARAMETER_CHANGE' THEN 2
+        WHEN 'COMPLETION' THEN 3
+        END;
+
+CREATE INDEX idx_workflow_queue_processing ON workflow_execution_queue(priority DESC, created_at ASC) WHERE status = 1; -- QueueStatus.PROCESSING
+CREATE INDEX idx_workflow_queue_shard ON workflow_execution_queue(shard, priority DESC, created_at ASC) WHERE status = 0; -- QueueStatus.PENDING
+
+COMMIT;
+
+ANALYZE workflow_instances, task_group_definitions, task_definitions, task_group_instances,
+        task_instances, workflow_execution_queue, workflow_history;
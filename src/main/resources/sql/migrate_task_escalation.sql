@@ -0,0 +1,7 @@
+-- migrate_task_escalation.sql
+-- Records when a task's due date escalation reassigned it, so the escalation is applied once.
+-- Run once after migrate_history_archive.sql; the engine may keep running. The archive table takes
+-- the column too, since archived tasks are copied over column for column.
+
+ALTER TABLE task_instances ADD COLUMN escalated_at TIMESTAMP;
+ALTER TABLE task_instances_archive ADD COLUMN escalated_at TIMESTAMP;
@@ -0,0 +1,16 @@
+-- migrate_task_timers.sql
+-- Adds escalate_at, the time a task's pending due date escalation fires, so the timer service can
+-- load tasks whose escalation falls in its horizon even when their due date is further out.
+-- Run once after migrate_task_escalation.sql with the engine stopped: adding the generated column
+-- rewrites task_instances. The archive table takes a plain column, since archived tasks are copied
+-- over column for column. The index is built concurrently, so run it outside a transaction block.
+
+ALTER TABLE task_instances ADD COLUMN escalate_at TIMESTAMP GENERATED ALWAYS AS (
+    CASE WHEN escalated_at IS NULL AND input_json->'escalation'->>'assignee' IS NOT NULL
+         THEN due_date - INTERVAL '1 minute' *
+              CASE WHEN jsonb_typeof(input_json->'escalation'->'leadMinutes') = 'number'
+                   THEN trunc((input_json->'escalation'->>'leadMinutes')::float8) ELSE 0 END
+    END) STORED;
+ALTER TABLE task_instances_archive ADD COLUMN escalate_at TIMESTAMP;
+
+CREATE INDEX CONCURRENTLY idx_task_inst_timer ON task_instances((LEAST(due_date, escalate_at))) WHERE status IN (0, 1, 10);
@@ -4,9 +4,23 @@
 -- Create UUID extension if not exists (PostgreSQL)
 CREATE EXTENSION IF NOT EXISTS "uuid-ossp";
 
+-- Time-ordered version 7 UUID: a v4 UUID with its first 48 bits replaced by the Unix time in
+-- milliseconds and its version set to 7. New keys append to the right edge of primary key indexes.
+CREATE OR REPLACE FUNCTION uuid_generate_v7() RETURNS UUID AS $$
+SELECT encode(
+           set_bit(
+               set_bit(
+                   overlay(uuid_send(uuid_generate_v4())
+                           PLACING substring(int8send((EXTRACT(EPOCH FROM clock_timestamp()) * 1000)::BIGINT) FROM 3)
+                           FROM 1 FOR 6),
+                   52, 1),
+               53, 1),
+           'hex')::UUID;
+$$ LANGUAGE SQL VOLATILE;
+
 -- Workflow Definitions
 CREATE TABLE workflow_definitions (
-                                      id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+                                      id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
                                       name VARCHAR(255) NOT NULL,
                                       version INTEGER NOT NULL,
                                       definition_json JSONB NOT NULL,
@@ -18,47 +32,49 @@ CREATE TABLE workflow_definitions (
 
 -- Workflow Instances
 CREATE TABLE workflow_instances (
-                                    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+                                    id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
                                     workflow_def_id UUID NOT NULL REFERENCES workflow_definitions(id),
-                                    status VARCHAR(50) NOT NULL,
+                                    parent_task_inst_id UUID, -- task instance that started this workflow as a sub-workflow
+                                    status SMALLINT NOT NULL, -- WorkflowStatus code
                                     input_json JSONB,
                                     output_json JSONB,
                                     start_time TIMESTAMP,
                                     end_time TIMESTAMP,
+                                    last_decided_at TIMESTAMP, -- start of the last successful decide; later completions are unprocessed
                                     created_at TIMESTAMP NOT NULL DEFAULT NOW(),
                                     updated_at TIMESTAMP NOT NULL DEFAULT NOW()
 );
 
 -- Task Group Definitions
 CREATE TABLE task_group_definitions (
-                                        id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+                                        id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
                                         workflow_def_id UUID NOT NULL REFERENCES workflow_definitions(id),
                                         parent_group_def_id UUID REFERENCES task_group_definitions(id),
                                         name VARCHAR(255) NOT NULL,
-                                        group_type VARCHAR(50) NOT NULL,
-                                        completion_criteria VARCHAR(50) NOT NULL,
+                                        group_type SMALLINT NOT NULL, -- TaskGroupType code
+                                        completion_criteria SMALLINT NOT NULL, -- CompletionCriteria code
                                         group_order INTEGER NOT NULL,
                                         parameters_json JSONB
 );
 
 -- Task Definitions
 CREATE TABLE task_definitions (
-                                  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+                                  id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
                                   workflow_def_id UUID NOT NULL REFERENCES workflow_definitions(id),
                                   task_group_def_id UUID REFERENCES task_group_definitions(id),
                                   name VARCHAR(255) NOT NULL,
-                                  task_type VARCHAR(50) NOT NULL,
+                                  task_type SMALLINT NOT NULL, -- TaskType code
                                   task_order INTEGER NOT NULL,
                                   parameters_json JSONB
 );
 
 -- Task Group Instances
 CREATE TABLE task_group_instances (
-                                      id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+                                      id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
                                       workflow_instance_id UUID NOT NULL REFERENCES workflow_instances(id),
                                       task_group_def_id UUID NOT NULL REFERENCES task_group_definitions(id),
                                       parent_group_inst_id UUID REFERENCES task_group_instances(id),
-                                      status VARCHAR(50) NOT NULL,
+                                      status SMALLINT NOT NULL, -- TaskStatus code
                                       min_completion INTEGER NOT NULL DEFAULT 1,
                                       parameters_json JSONB,
                                       start_time TIMESTAMP,
@@ -67,38 +83,94 @@ CREATE TABLE task_group_instances (
 
 -- Task Instances
 CREATE TABLE task_instances (
-                                id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+                                id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
                                 workflow_instance_id UUID NOT NULL REFERENCES workflow_instances(id),
                                 task_def_id UUID NOT NULL REFERENCES task_definitions(id),
                                 task_group_instance_id UUID REFERENCES task_group_instances(id),
                                 assignee VARCHAR(255),
-                                status VARCHAR(50) NOT NULL,
+                                status SMALLINT NOT NULL, -- TaskStatus code
                                 input_json JSONB,
                                 output_json JSONB,
                                 start_time TIMESTAMP,
                                 end_time TIMESTAMP,
                                 due_date TIMESTAMP,
-                                failure_reason TEXT
+                                failure_reason TEXT,
+                                attempt_count INTEGER NOT NULL DEFAULT 0,
+                                next_attempt_at TIMESTAMP, -- set while a retry is scheduled
+                                escalated_at TIMESTAMP, -- set once the due date escalation has reassigned the task
+                                escalate_at TIMESTAMP GENERATED ALWAYS AS ( -- when a pending due date escalation fires
+                                    CASE WHEN escalated_at IS NULL AND input_json->'escalation'->>'assignee' IS NOT NULL
+                                         THEN due_date - INTERVAL '1 minute' *
+                                              CASE WHEN jsonb_typeof(input_json->'escalation'->'leadMinutes') = 'number'
+                                                   THEN trunc((input_json->'escalation'->>'leadMinutes')::float8) ELSE 0 END
+                                    END) STORED
 );
 
 -- Workflow Execution Queue
 CREATE TABLE workflow_execution_queue (
-                                          id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+                                          id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
                                           workflow_instance_id UUID NOT NULL REFERENCES workflow_instances(id),
-                                          status VARCHAR(50) NOT NULL,
+                                          status SMALLINT NOT NULL, -- QueueStatus code
                                           priority INTEGER NOT NULL DEFAULT 0,
+                                          shard INTEGER NOT NULL DEFAULT 0, -- low bits of workflow_instance_id, owned by one node
+                                          attempt_count INTEGER NOT NULL DEFAULT 0,
+                                          next_attempt_at TIMESTAMP, -- not claimed before this time
                                           last_updated TIMESTAMP NOT NULL DEFAULT NOW(),
                                           created_at TIMESTAMP NOT NULL DEFAULT NOW()
 );
 
+-- Cluster Nodes (membership by heartbeat, used to assign queue shards to nodes)
+CREATE TABLE cluster_nodes (
+                               node_id VARCHAR(255) PRIMARY KEY,
+                               host_name VARCHAR(255),
+                               started_at TIMESTAMP NOT NULL DEFAULT NOW(),
+                               last_heartbeat TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Workflow Schedules
+CREATE TABLE workflow_schedules (
+                                    id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
+                                    workflow_def_id UUID NOT NULL REFERENCES workflow_definitions(id),
+                                    name VARCHAR(255) NOT NULL,
+                                    cron_expression VARCHAR(255) NOT NULL,
+                                    time_zone VARCHAR(64) NOT NULL DEFAULT 'UTC',
+                                    input_json JSONB, -- an array starts one workflow per element
+                                    enabled BOOLEAN NOT NULL DEFAULT TRUE,
+                                    next_fire_time TIMESTAMP,
+                                    last_fire_time TIMESTAMP,
+                                    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+                                    updated_at TIMESTAMP NOT NULL DEFAULT NOW(),
+                                    UNIQUE (name)
+);
+
 -- Workflow History
 CREATE TABLE workflow_history (
-                                  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+                                  id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
                                   workflow_instance_id UUID NOT NULL REFERENCES workflow_instances(id),
-                                  entity_type VARCHAR(50) NOT NULL, -- "WORKFLOW", "TASK_GROUP", "TASK"
+                                  entity_type SMALLINT NOT NULL, -- HistoryEntityType code
                                   entity_id UUID NOT NULL,
-                                  change_type VARCHAR(50) NOT NULL, -- "STATUS_CHANGE", "ASSIGNMENT_CHANGE", etc.
+                                  change_type SMALLINT NOT NULL, -- HistoryChangeType code
                                   details_json JSONB,
                                   timestamp TIMESTAMP NOT NULL DEFAULT NOW(),
                                   username VARCHAR(255)
-);
\ No newline at end of file
+);
+
+-- Archive tables: terminal workflows past the retention window are moved here together with their
+-- task groups, tasks and history, keeping the live tables small. Each has the same columns in the
+-- same order as its live table (rows are moved with INSERT ... SELECT *), so a column added to a live
+-- table must be added to its archive table too. Archive tables have no foreign keys.
+CREATE TABLE workflow_instances_archive (LIKE workflow_instances INCLUDING DEFAULTS, PRIMARY KEY (id));
+CREATE TABLE task_group_instances_archive (LIKE task_group_instances INCLUDING DEFAULTS, PRIMARY KEY (id));
+CREATE TABLE task_instances_archive (LIKE task_instances INCLUDING DEFAULTS, PRIMARY KEY (id));
+-- History is also moved on its own once old enough, so its archive is partitioned by month: old months
+-- can be detached, exported or dropped as a whole. WorkflowHistoryDAO creates the partitions.
+CREATE TABLE workflow_history_archive (LIKE workflow_history INCLUDING DEFAULTS, PRIMARY KEY (id, timestamp)) PARTITION BY RANGE (timestamp);
+
+-- Archive Progress (keyset cursor of a resumable archival pass, cleared when the pass completes)
+CREATE TABLE archive_progress (
+                                  name VARCHAR(64) PRIMARY KEY,
+                                  last_timestamp TIMESTAMP,
+                                  last_id UUID,
+                                  rows_archived BIGINT NOT NULL DEFAULT 0, -- over all passes
+                                  updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
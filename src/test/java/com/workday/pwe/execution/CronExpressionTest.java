@@ -0,0 +1,129 @@
+package com.workday.pwe.execution;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CronExpressionTest {
+
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    private static ZonedDateTime at(String localDateTime, ZoneId zone) {
+        return ZonedDateTime.of(LocalDateTime.parse(localDateTime), zone);
+    }
+
+    private static ZonedDateTime next(String expression, String after) {
+        return new CronExpression(expression).next(at(after, UTC));
+    }
+
+    @Test
+    void nextIsStrictlyAfter() {
+        assertEquals(at("2026-01-05T09:15", UTC), next("*/15 * * * *", "2026-01-05T09:00"));
+        assertEquals(at("2026-01-05T09:15", UTC), next("*/15 * * * *", "2026-01-05T09:14:59"));
+    }
+
+    @Test
+    void parsesRangesListsStepsAndNames() {
+        // 09:00, 11:00, ..., 17:00 on weekdays
+        assertEquals(at("2026-01-05T09:00", UTC), next("0 9-17/2 * * MON-FRI", "2026-01-03T12:00"));
+        assertEquals(at("2026-01-05T11:00", UTC), next("0 9-17/2 * * MON-FRI", "2026-01-05T09:00"));
+        assertEquals(at("2026-01-15T00:00", UTC), next("0 0 1,15 * *", "2026-01-01T00:00"));
+        assertEquals(at("2026-03-01T00:00", UTC), next("0 0 1 mar *", "2026-01-01T00:00"));
+        // "5/20" means every 20 starting at 5
+        assertEquals(at("2026-01-01T00:25", UTC), next("5/20 * * * *", "2026-01-01T00:05"));
+    }
+
+    @Test
+    void sundayIsZeroAndSeven() {
+        // 2026-01-04 is a Sunday
+        assertEquals(at("2026-01-04T00:00", UTC), next("0 0 * * 0", "2026-01-01T00:00"));
+        assertEquals(at("2026-01-04T00:00", UTC), next("0 0 * * 7", "2026-01-01T00:00"));
+        assertEquals(at("2026-01-04T00:00", UTC), next("0 0 * * SUN", "2026-01-01T00:00"));
+    }
+
+    @Test
+    void expandsMacros() {
+        assertEquals(at("2027-01-01T00:00", UTC), next("@yearly", "2026-01-01T00:00"));
+        assertEquals(at("2027-01-01T00:00", UTC), next("@annually", "2026-06-01T00:00"));
+        assertEquals(at("2026-02-01T00:00", UTC), next("@monthly", "2026-01-01T00:00"));
+        assertEquals(at("2026-01-04T00:00", UTC), next("@weekly", "2026-01-01T00:00"));
+        assertEquals(at("2026-01-02T00:00", UTC), next("@daily", "2026-01-01T00:00"));
+        assertEquals(at("2026-01-02T00:00", UTC), next("@midnight", "2026-01-01T12:00"));
+        assertEquals(at("2026-01-01T01:00", UTC), next("@HOURLY", "2026-01-01T00:00"));
+    }
+
+    @Test
+    void restrictedDayFieldsMatchEither() {
+        // The 13th or any Friday: Friday 2026-01-02 comes before the 13th
+        assertEquals(at("2026-01-02T00:00", UTC), next("0 0 13 * FRI", "2026-01-01T00:00"));
+        // Tuesday 2026-01-13 matches by day of month though it is not a Friday
+        assertEquals(at("2026-01-13T00:00", UTC), next("0 0 13 * FRI", "2026-01-09T00:00"));
+    }
+
+    @Test
+    void wildcardDayFieldDefersToTheOther() {
+        assertEquals(at("2026-01-13T00:00", UTC), next("0 0 13 * *", "2026-01-01T00:00"));
+        assertEquals(at("2026-01-13T00:00", UTC), next("0 0 13 * ?", "2026-01-01T00:00"));
+        assertEquals(at("2026-01-02T00:00", UTC), next("0 0 * * FRI", "2026-01-01T00:00"));
+    }
+
+    @Test
+    void skipsMonthsWithoutTheDay() {
+        assertEquals(at("2026-03-31T00:00", UTC), next("0 0 31 * *", "2026-01-31T00:00"));
+        assertEquals(at("2028-02-29T00:00", UTC), next("0 0 29 2 *", "2026-01-01T00:00"));
+    }
+
+    @Test
+    void impossibleDateNeverFires() {
+        assertNull(next("0 0 30 2 *", "2026-01-01T00:00"));
+    }
+
+    @Test
+    void firesOnSpringForwardDay() {
+        // Clocks go from 02:00 to 03:00 on 2026-03-08 in New York
+        CronExpression cron = new CronExpression("0 5 * * *");
+
+        assertEquals(at("2026-03-08T05:00", NEW_YORK), cron.next(at("2026-03-07T05:00", NEW_YORK)));
+    }
+
+    @Test
+    void skippedTimeFiresShiftedPastTheGap() {
+        CronExpression cron = new CronExpression("30 2 * * *");
+
+        ZonedDateTime fire = cron.next(at("2026-03-07T02:30", NEW_YORK));
+        assertEquals(at("2026-03-08T03:30", NEW_YORK), fire);
+        assertEquals(at("2026-03-09T02:30", NEW_YORK), cron.next(fire));
+    }
+
+    @Test
+    void repeatedTimeFiresOnce() {
+        // Clocks go from 02:00 back to 01:00 on 2026-11-01 in New York
+        CronExpression cron = new CronExpression("30 1 * * *");
+
+        ZonedDateTime fire = cron.next(at("2026-10-31T12:00", NEW_YORK));
+        assertEquals(at("2026-11-01T01:30", NEW_YORK).withEarlierOffsetAtOverlap(), fire);
+        assertEquals(at("2026-11-02T01:30", NEW_YORK), cron.next(fire));
+    }
+
+    @Test
+    void rejectsMalformedExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> new CronExpression(null));
+        assertFalse(CronExpression.isValid("* * * *"));
+        assertFalse(CronExpression.isValid("60 * * * *"));
+        assertFalse(CronExpression.isValid("0 0 0 * *"));
+        assertFalse(CronExpression.isValid("0 0 * 13 *"));
+        assertFalse(CronExpression.isValid("0 17-9 * * *"));
+        assertFalse(CronExpression.isValid("*/0 * * * *"));
+        assertFalse(CronExpression.isValid("0 0 * * FUNDAY"));
+        assertTrue(CronExpression.isValid(" 0 0 * * * "));
+    }
+}
@@ -0,0 +1,124 @@
+package com.workday.pwe.execution;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.workday.pwe.enums.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DependencyGraphTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static JsonNode dependsOn(String... ids) {
+        ObjectNode parameters = MAPPER.createObjectNode();
+        if (ids.length == 1) {
+            parameters.put(DependencyGraph.DEPENDS_ON, ids[0]);
+        } else {
+            ArrayNode array = parameters.putArray(DependencyGraph.DEPENDS_ON);
+            for (String id : ids) {
+                array.add(id);
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * a -> b, a -> c, (b, c) -> d, added out of order to check readiness follows insertion order
+     */
+    private static DependencyGraph diamond() {
+        DependencyGraph graph = new DependencyGraph();
+        graph.addNode("d", dependsOn("b", "c"), TaskStatus.NOT_STARTED);
+        graph.addNode("c", dependsOn("a"), TaskStatus.NOT_STARTED);
+        graph.addNode("b", dependsOn("a"), TaskStatus.NOT_STARTED);
+        graph.addNode("a", null, TaskStatus.NOT_STARTED);
+        return graph;
+    }
+
+    @Test
+    void readsStringAndArrayDependencies() {
+        assertEquals(List.of("a"), DependencyGraph.getDependencies(dependsOn("a")));
+        assertEquals(List.of("a", "b"), DependencyGraph.getDependencies(dependsOn("a", "b")));
+        assertEquals(Collections.emptyList(), DependencyGraph.getDependencies(null));
+        assertEquals(Collections.emptyList(), DependencyGraph.getDependencies(MAPPER.createObjectNode()));
+    }
+
+    @Test
+    void nodesWithoutEdgesAreReadyTogether() {
+        DependencyGraph graph = new DependencyGraph();
+        graph.addNode("x", null, TaskStatus.NOT_STARTED);
+        graph.addNode("y", null, TaskStatus.NOT_STARTED);
+
+        assertEquals(List.of("x", "y"), graph.getReadyNodes());
+    }
+
+    @Test
+    void releasesNodesInDependencyOrder() {
+        DependencyGraph graph = diamond();
+        assertEquals(List.of("a"), graph.getReadyNodes());
+
+        graph.setStatus("a", TaskStatus.IN_PROGRESS);
+        assertEquals(Collections.emptyList(), graph.getReadyNodes());
+
+        graph.setStatus("a", TaskStatus.COMPLETED);
+        assertEquals(List.of("c", "b"), graph.getReadyNodes());
+
+        graph.setStatus("b", TaskStatus.APPROVED);
+        graph.setStatus("c", TaskStatus.IN_PROGRESS);
+        assertEquals(Collections.emptyList(), graph.getReadyNodes());
+
+        graph.setStatus("c", TaskStatus.API_CALL_COMPLETE);
+        assertEquals(List.of("d"), graph.getReadyNodes());
+    }
+
+    @Test
+    void failedOrSkippedDependencyBlocksDependents() {
+        DependencyGraph graph = diamond();
+        graph.setStatus("a", TaskStatus.COMPLETED);
+        graph.setStatus("b", TaskStatus.FAILED);
+
+        assertTrue(graph.isBlocked("d"));
+        assertFalse(graph.isBlocked("c"));
+        assertEquals(List.of("c"), graph.getReadyNodes());
+
+        graph.setStatus("b", TaskStatus.SKIPPED);
+        graph.setStatus("c", TaskStatus.COMPLETED);
+        assertTrue(graph.isBlocked("d"));
+        assertEquals(Collections.emptyList(), graph.getReadyNodes());
+    }
+
+    @Test
+    void pendingDependencyDoesNotBlock() {
+        DependencyGraph graph = diamond();
+
+        assertFalse(graph.isBlocked("b"));
+        assertFalse(graph.isBlocked("d"));
+    }
+
+    @Test
+    void cycleNeverBecomesReady() {
+        DependencyGraph graph = new DependencyGraph();
+        graph.addNode("a", dependsOn("b"), TaskStatus.NOT_STARTED);
+        graph.addNode("b", dependsOn("a"), TaskStatus.NOT_STARTED);
+        graph.addNode("c", null, TaskStatus.NOT_STARTED);
+
+        assertEquals(List.of("c"), graph.getReadyNodes());
+    }
+
+    @Test
+    void ignoresDependenciesOutsideTheGraph() {
+        DependencyGraph graph = new DependencyGraph();
+        graph.addNode("a", dependsOn("missing"), TaskStatus.NOT_STARTED);
+
+        assertEquals(List.of("a"), graph.getReadyNodes());
+        assertFalse(graph.isBlocked("a"));
+    }
+}
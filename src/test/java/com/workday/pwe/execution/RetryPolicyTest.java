@@ -0,0 +1,89 @@
+package com.workday.pwe.execution;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void backoffStaysBetweenHalfAndAllOfGrowingCeiling() {
+        RetryPolicy policy = new RetryPolicy(10, 1000, 10000, 2.0);
+        long[] ceilings = {1000, 2000, 4000, 8000, 10000, 10000};
+
+        for (int attempt = 1; attempt <= ceilings.length; attempt++) {
+            for (int sample = 0; sample < 200; sample++) {
+                long delay = policy.nextDelayMillis(attempt);
+                assertTrue(delay >= ceilings[attempt - 1] / 2 && delay <= ceilings[attempt - 1],
+                           "attempt " + attempt + " delay " + delay);
+            }
+        }
+    }
+
+    @Test
+    void zeroDelayPolicyNeverWaits() {
+        assertEquals(0, new RetryPolicy(3, 0, 0, 2.0).nextDelayMillis(2));
+    }
+
+    @Test
+    void stopsAtMaxAttempts() {
+        RetryPolicy policy = new RetryPolicy(2, 0, 0, 1);
+
+        assertFalse(policy.allowRetry(2));
+        assertFalse(policy.allowRetry(5));
+    }
+
+    @Test
+    void budgetRunsOutAndRefillsFromFirstAttempts() {
+        RetryPolicy policy = new RetryPolicy(Integer.MAX_VALUE, 0, 0, 1);
+        int allowed = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (policy.allowRetry(1)) {
+                allowed++;
+            }
+        }
+        assertTrue(allowed < 1000, "budget never ran out");
+
+        // Each first attempt earns a fifth of a retry
+        for (int i = 0; i < 5; i++) {
+            RetryPolicy.recordAttempt();
+        }
+        assertTrue(policy.allowRetry(1));
+    }
+
+    @Test
+    void taskParametersOverrideTypeDefaultsFieldByField() {
+        ObjectNode parameters = MAPPER.createObjectNode();
+        parameters.putObject(RetryPolicy.RETRY).put("maxAttempts", 7);
+
+        RetryPolicy policy = RetryPolicy.forTask(null, "HTTP", parameters, UUID.randomUUID());
+
+        assertEquals(7, policy.getMaxAttempts());
+        // initialDelayMs falls back to the HTTP default of 2000
+        long delay = policy.nextDelayMillis(1);
+        assertTrue(delay >= 1000 && delay <= 2000, "delay " + delay);
+    }
+
+    @Test
+    void classifiesTransientFailures() {
+        assertTrue(RetryPolicy.isTransient(new SQLTransientConnectionException("timeout")));
+        assertTrue(RetryPolicy.isTransient(new SQLException("deadlock", "40P01")));
+        assertTrue(RetryPolicy.isTransient(new SQLException("serialization", "40001")));
+        assertTrue(RetryPolicy.isTransient(new SQLException("connection lost", "08006")));
+        assertTrue(RetryPolicy.isTransient(new RuntimeException(new IOException("reset"))));
+
+        assertFalse(RetryPolicy.isTransient(new SQLException("unique violation", "23505")));
+        assertFalse(RetryPolicy.isTransient(new IllegalStateException("bug")));
+    }
+}
@@ -0,0 +1,109 @@
+package com.workday.pwe.execution;
+
+import com.workday.pwe.dao.WorkflowExecutionQueueDAO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardRingTest {
+
+    private static final int VIRTUAL_NODES = 160;
+    private static final int SHARDS = WorkflowExecutionQueueDAO.SHARD_COUNT;
+
+    private static List<String> nodes(int count) {
+        List<String> nodeIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            nodeIds.add("node-" + i);
+        }
+        return nodeIds;
+    }
+
+    @Test
+    void emptyRingOwnsNothing() {
+        ShardRing ring = new ShardRing(List.of(), VIRTUAL_NODES);
+
+        assertNull(ring.ownerOf(0));
+        assertEquals(0, ring.shardsOwnedBy("node-0").length);
+    }
+
+    @Test
+    void everyShardHasExactlyOneOwner() {
+        List<String> nodeIds = nodes(5);
+        ShardRing ring = new ShardRing(nodeIds, VIRTUAL_NODES);
+
+        Set<Integer> seen = new HashSet<>();
+        for (String nodeId : nodeIds) {
+            for (int shard : ring.shardsOwnedBy(nodeId)) {
+                assertTrue(seen.add(shard), "shard " + shard + " owned twice");
+            }
+        }
+        assertEquals(SHARDS, seen.size());
+    }
+
+    @Test
+    void spreadsShardsEvenly() {
+        for (int nodeCount : new int[] {2, 3, 5, 8}) {
+            List<String> nodeIds = nodes(nodeCount);
+            ShardRing ring = new ShardRing(nodeIds, VIRTUAL_NODES);
+            double fairShare = (double) SHARDS / nodeCount;
+            for (String nodeId : nodeIds) {
+                int owned = ring.shardsOwnedBy(nodeId).length;
+                assertTrue(owned > fairShare * 0.7 && owned < fairShare * 1.3,
+                           nodeId + " of " + nodeCount + " owns " + owned + " shards");
+            }
+        }
+    }
+
+    @Test
+    void ownershipDoesNotDependOnMembershipOrder() {
+        List<String> nodeIds = nodes(4);
+        List<String> reversed = new ArrayList<>(nodeIds);
+        Collections.reverse(reversed);
+        ShardRing ring = new ShardRing(nodeIds, VIRTUAL_NODES);
+        ShardRing other = new ShardRing(reversed, VIRTUAL_NODES);
+
+        for (String nodeId : nodeIds) {
+            assertArrayEquals(ring.shardsOwnedBy(nodeId), other.shardsOwnedBy(nodeId));
+        }
+    }
+
+    @Test
+    void joiningNodeOnlyTakesShards() {
+        List<String> nodeIds = nodes(4);
+        ShardRing before = new ShardRing(nodeIds, VIRTUAL_NODES);
+        nodeIds.add("node-new");
+        ShardRing after = new ShardRing(nodeIds, VIRTUAL_NODES);
+
+        int moved = 0;
+        for (int shard = 0; shard < SHARDS; shard++) {
+            if (!before.ownerOf(shard).equals(after.ownerOf(shard))) {
+                assertEquals("node-new", after.ownerOf(shard));
+                moved++;
+            }
+        }
+        assertTrue(moved > 0 && moved < SHARDS * 0.3, moved + " shards moved");
+    }
+
+    @Test
+    void leavingNodeOnlyGivesUpItsShards() {
+        List<String> nodeIds = nodes(5);
+        ShardRing before = new ShardRing(nodeIds, VIRTUAL_NODES);
+        nodeIds.remove("node-2");
+        ShardRing after = new ShardRing(nodeIds, VIRTUAL_NODES);
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            if (!"node-2".equals(before.ownerOf(shard))) {
+                assertEquals(before.ownerOf(shard), after.ownerOf(shard), "shard " + shard);
+            }
+        }
+    }
+}
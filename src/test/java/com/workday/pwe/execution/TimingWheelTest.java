@@ -0,0 +1,116 @@
+package com.workday.pwe.execution;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    /**
+     * 10 ms ticks, 8 slots, 3 levels: spans 5120 ms
+     */
+    private static TimingWheel<String> wheel() {
+        return new TimingWheel<>(10, 8, 3, START);
+    }
+
+    @Test
+    void spanCoversEveryLevel() {
+        assertEquals(10L * 8 * 8 * 8, wheel().getSpanMillis());
+    }
+
+    @Test
+    void firesAtDeadlineAndNotBefore() {
+        TimingWheel<String> wheel = wheel();
+        assertTrue(wheel.schedule("a", START + 35));
+
+        // Deadlines round up to the next tick so a timer never fires early
+        assertEquals(Collections.emptyList(), wheel.advanceTo(START + 39));
+        assertEquals(List.of("a"), wheel.advanceTo(START + 40));
+        assertEquals(0, wheel.size());
+        assertEquals(Collections.emptyList(), wheel.advanceTo(START + 1000));
+    }
+
+    @Test
+    void cascadesTimersFromCoarseLevels() {
+        TimingWheel<String> wheel = wheel();
+        wheel.schedule("level1", START + 700);
+        wheel.schedule("level2", START + 4000);
+
+        assertEquals(Collections.emptyList(), wheel.advanceTo(START + 690));
+        assertEquals(List.of("level1"), wheel.advanceTo(START + 700));
+        assertEquals(Collections.emptyList(), wheel.advanceTo(START + 3990));
+        assertEquals(List.of("level2"), wheel.advanceTo(START + 4000));
+    }
+
+    @Test
+    void rejectsDeadlinesBeyondSpan() {
+        TimingWheel<String> wheel = wheel();
+        wheel.schedule("a", START + 100);
+
+        assertFalse(wheel.schedule("a", START + wheel.getSpanMillis() + 10));
+        // The earlier deadline is dropped too, so the caller can keep the timer elsewhere
+        assertEquals(0, wheel.size());
+        assertEquals(Collections.emptyList(), wheel.advanceTo(START + 200));
+    }
+
+    @Test
+    void rescheduleReplacesEarlierDeadline() {
+        TimingWheel<String> wheel = wheel();
+        wheel.schedule("a", START + 100);
+        wheel.schedule("a", START + 300);
+
+        assertEquals(1, wheel.size());
+        assertEquals(Collections.emptyList(), wheel.advanceTo(START + 200));
+        assertEquals(List.of("a"), wheel.advanceTo(START + 300));
+    }
+
+    @Test
+    void cancelledTimerDoesNotFire() {
+        TimingWheel<String> wheel = wheel();
+        wheel.schedule("a", START + 100);
+        wheel.schedule("b", START + 100);
+        wheel.cancel("a");
+
+        assertEquals(List.of("b"), wheel.advanceTo(START + 100));
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextAdvance() {
+        TimingWheel<String> wheel = wheel();
+        wheel.advanceTo(START + 500);
+        wheel.schedule("late", START + 100);
+
+        assertEquals(List.of("late"), wheel.advanceTo(START + 500));
+    }
+
+    @Test
+    void matchesSortedDeadlinesForRandomTimers() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 8, 3, START);
+        Random random = new Random(42);
+        long[] deadlines = new long[500];
+        for (int i = 0; i < deadlines.length; i++) {
+            deadlines[i] = START + random.nextInt((int) wheel.getSpanMillis());
+            assertTrue(wheel.schedule(i, deadlines[i]));
+        }
+
+        List<Integer> fired = new ArrayList<>();
+        for (long now = START; now <= START + wheel.getSpanMillis(); now += 10) {
+            for (Integer key : wheel.advanceTo(now)) {
+                assertTrue(deadlines[key] <= now, "timer " + key + " fired early");
+                assertTrue(deadlines[key] > now - 10, "timer " + key + " fired late");
+                fired.add(key);
+            }
+        }
+        assertEquals(deadlines.length, fired.size());
+        assertEquals(0, wheel.size());
+    }
+}
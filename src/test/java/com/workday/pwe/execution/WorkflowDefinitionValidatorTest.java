@@ -0,0 +1,151 @@
+package com.workday.pwe.execution;
+
+import com.workday.pwe.execution.WorkflowDefinitionValidator.ValidationResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkflowDefinitionValidatorTest {
+
+    /**
+     * Write definitions with single quotes so they read without escaping
+     */
+    private static String json(String definition) {
+        return definition.replace('\'', '"');
+    }
+
+    private static List<String> errors(String definition) {
+        return WorkflowDefinitionValidator.validate(json(definition)).getErrors();
+    }
+
+    @Test
+    void acceptsValidDefinition() {
+        ValidationResult result = WorkflowDefinitionValidator.validate(json(
+                "{'id':'root','type':'group','groupType':'HORIZONTAL','children':[" +
+                "{'id':'a','type':'task','taskType':'TODO'}," +
+                "{'id':'b','type':'task','taskType':'APPROVE','dependsOn':'a'}]}"));
+
+        assertTrue(result.isValid(), () -> result.getErrors().toString());
+    }
+
+    @Test
+    void cachesResultsByContent() {
+        String definition = json("{'id':'root','type':'group','children':[{'id':'a','type':'task','taskType':'TODO'}]}");
+
+        assertSame(WorkflowDefinitionValidator.validate(definition), WorkflowDefinitionValidator.validate(definition));
+    }
+
+    @Test
+    void rejectsEmptyAndMalformedDefinitions() {
+        assertEquals(List.of("Workflow definition is empty"), WorkflowDefinitionValidator.validate("").getErrors());
+        assertEquals(List.of("Workflow definition root must be a JSON object"), errors("[]"));
+        assertTrue(errors("{'id':'root','type':'group'").get(0).startsWith("Malformed workflow definition JSON: "));
+    }
+
+    @Test
+    void rejectsTaskAsRoot() {
+        assertEquals(List.of("Workflow definition root must be a group"),
+                     errors("{'id':'root','type':'task','taskType':'TODO'}"));
+    }
+
+    @Test
+    void reportsEveryViolationInOnePass() {
+        List<String> errors = errors(
+                "{'id':'root','type':'group','children':[" +
+                "{'type':'task','taskType':'TODO'}," +
+                "{'id':'a','type':'task','taskType':'TODO'}," +
+                "{'id':'a','type':'task','taskType':'FAX'}," +
+                "{'id':'b','type':'widget'}]}");
+
+        assertEquals(List.of("Node is missing an id",
+                             "Duplicate node id 'a'",
+                             "Task 'a' has unknown taskType: FAX",
+                             "Node 'b' has unknown type: widget"), errors);
+    }
+
+    @Test
+    void rejectsTaskWithChildren() {
+        assertEquals(List.of("Task 't' cannot have children"), errors(
+                "{'id':'root','type':'group','children':[{'id':'t','type':'task','taskType':'TODO','children':[]}]}"));
+    }
+
+    @Test
+    void rejectsSubWorkflowWithoutWorkflowName() {
+        assertEquals(List.of("Sub-workflow task 's' requires a workflow name"), errors(
+                "{'id':'root','type':'group','children':[{'id':'s','type':'task','taskType':'SUBWORKFLOW'}]}"));
+    }
+
+    @Test
+    void rejectsUnknownGroupTypeAndCriteria() {
+        assertEquals(List.of("Group 'g' has unknown groupType: DIAGONAL"),
+                     errors("{'id':'g','type':'group','groupType':'DIAGONAL','children':[]}"));
+        assertEquals(List.of("Group 'g' has unknown completionCriteria: MOST"),
+                     errors("{'id':'g','type':'group','completionCriteria':'MOST','children':[]}"));
+    }
+
+    @Test
+    void rejectsMinCompletionOutsideChildCount() {
+        assertEquals(List.of("Group 'g' minCompletion 3 is outside 1..2"), errors(
+                "{'id':'g','type':'group','completionCriteria':'N_OF_M','minCompletion':3,'children':[" +
+                "{'id':'a','type':'task','taskType':'TODO'},{'id':'b','type':'task','taskType':'TODO'}]}"));
+        assertEquals(List.of("minCompletion must be an integer"), errors(
+                "{'id':'g','type':'group','completionCriteria':'N_OF_M','minCompletion':'two','children':[" +
+                "{'id':'a','type':'task','taskType':'TODO'}]}"));
+    }
+
+    @Test
+    void requiresForEachItemsAndSingleTemplate() {
+        assertEquals(List.of("forEach group 'f' requires an items JSON pointer into the workflow input",
+                             "forEach group 'f' must have exactly one task child as its template"), errors(
+                "{'id':'f','type':'group','groupType':'FOR_EACH','items':'lines','children':[" +
+                "{'id':'a','type':'task','taskType':'TODO'},{'id':'b','type':'task','taskType':'TODO'}]}"));
+    }
+
+    @Test
+    void rejectsDependencyOnNonSibling() {
+        assertEquals(List.of("Node 'a' depends on 'x', which is not a sibling"), errors(
+                "{'id':'root','type':'group','groupType':'HORIZONTAL','children':[" +
+                "{'id':'a','type':'task','taskType':'TODO','dependsOn':['x']}]}"));
+    }
+
+    @Test
+    void reportsCycleMembers() {
+        assertEquals(List.of("dependsOn edges form a cycle among [a, b]"), errors(
+                "{'id':'root','type':'group','groupType':'HORIZONTAL','children':[" +
+                "{'id':'a','type':'task','taskType':'TODO','dependsOn':'b'}," +
+                "{'id':'b','type':'task','taskType':'TODO','dependsOn':'a'}," +
+                "{'id':'c','type':'task','taskType':'TODO','dependsOn':'a'}]}"));
+    }
+
+    @Test
+    void rejectsDependsOnOutsideHorizontalGroups() {
+        String children = "'children':[{'id':'a','type':'task','taskType':'TODO'}," +
+                          "{'id':'b','type':'task','taskType':'TODO','dependsOn':'a'}]}";
+
+        assertEquals(List.of("Node 'b' uses dependsOn, which is only supported in horizontal groups, but 'g' is vertical"),
+                     errors("{'id':'g','type':'group'," + children));
+        assertEquals(List.of("Node 'b' uses dependsOn, which is only supported in horizontal groups, but 'g' is VERTICAL"),
+                     errors("{'id':'g','type':'group','groupType':'VERTICAL'," + children));
+    }
+
+    @Test
+    void skipsNonScalarFieldValuesWhole() {
+        // Without skipping, the nested "type" would overwrite the node's and the nested '}' end it early
+        assertEquals(List.of("taskType must be a string", "Task 'a' has unknown taskType: null"), errors(
+                "{'id':'root','type':'group','children':[" +
+                "{'id':'a','taskType':{'type':'group','id':'x'},'type':'task'}]}"));
+        assertEquals(List.of("id must be a string", "minCompletion must be an integer", "Node is missing an id"), errors(
+                "{'id':['root'],'type':'group','minCompletion':{'n':1},'children':[]}"));
+    }
+
+    @Test
+    void rejectsMalformedDependsOn() {
+        assertEquals(List.of("dependsOn must be a node id or an array of node ids"), errors(
+                "{'id':'root','type':'group','groupType':'HORIZONTAL','children':[" +
+                "{'id':'a','type':'task','taskType':'TODO','dependsOn':7}]}"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.workday.pwe.handler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedBodySubscriberTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Subscription that records whether the subscriber cancelled the download
+     */
+    private static class RecordingSubscription implements Flow.Subscription {
+        private boolean cancelled;
+
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private static List<ByteBuffer> chunk(String text) {
+        return List.of(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static BoundedBodySubscriber.Body body(BoundedBodySubscriber subscriber) throws Exception {
+        return subscriber.getBody().toCompletableFuture().get();
+    }
+
+    @Test
+    void keepsBodyUnderLimitInMemory() throws Exception {
+        BoundedBodySubscriber subscriber = new BoundedBodySubscriber(10, tempDir.resolve("body"));
+        subscriber.onSubscribe(new RecordingSubscription());
+        subscriber.onNext(chunk("hello "));
+        subscriber.onNext(chunk("you"));
+        subscriber.onComplete();
+
+        BoundedBodySubscriber.Body body = body(subscriber);
+        assertEquals("hello you", body.asString());
+        assertEquals(9, body.getSize());
+        assertFalse(body.isSpilled());
+        assertFalse(body.isTruncated());
+        assertFalse(Files.exists(tempDir.resolve("body")));
+    }
+
+    @Test
+    void bodyExactlyAtLimitStaysInMemory() throws Exception {
+        BoundedBodySubscriber subscriber = new BoundedBodySubscriber(5, null);
+        subscriber.onSubscribe(new RecordingSubscription());
+        subscriber.onNext(chunk("12345"));
+        subscriber.onComplete();
+
+        assertEquals("12345", body(subscriber).asString());
+        assertFalse(body(subscriber).isTruncated());
+    }
+
+    @Test
+    void truncatesAndCancelsWithoutSpillFile() throws Exception {
+        RecordingSubscription subscription = new RecordingSubscription();
+        BoundedBodySubscriber subscriber = new BoundedBodySubscriber(8, null);
+        subscriber.onSubscribe(subscription);
+        subscriber.onNext(chunk("12345"));
+        subscriber.onNext(chunk("67890"));
+
+        BoundedBodySubscriber.Body body = body(subscriber);
+        assertTrue(subscription.cancelled);
+        assertTrue(body.isTruncated());
+        assertEquals("12345678", body.asString());
+
+        // Chunks arriving after the cancel are ignored
+        subscriber.onNext(chunk("more"));
+        subscriber.onComplete();
+        assertSame(body, body(subscriber));
+    }
+
+    @Test
+    void spillsWholeBodyOnceOverLimit() throws Exception {
+        Path spillFile = tempDir.resolve("wf").resolve("task-1.body");
+        RecordingSubscription subscription = new RecordingSubscription();
+        BoundedBodySubscriber subscriber = new BoundedBodySubscriber(4, spillFile);
+        subscriber.onSubscribe(subscription);
+        subscriber.onNext(chunk("abc"));
+        subscriber.onNext(chunk("defg"));
+        subscriber.onNext(chunk("hij"));
+        subscriber.onComplete();
+
+        BoundedBodySubscriber.Body body = body(subscriber);
+        assertFalse(subscription.cancelled);
+        assertTrue(body.isSpilled());
+        assertFalse(body.isTruncated());
+        assertNull(body.getBytes());
+        assertEquals(10, body.getSize());
+        assertArrayEquals("abcdefghij".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(spillFile));
+    }
+
+    @Test
+    void deletesPartialSpillOnError() {
+        Path spillFile = tempDir.resolve("task-2.body");
+        BoundedBodySubscriber subscriber = new BoundedBodySubscriber(2, spillFile);
+        subscriber.onSubscribe(new RecordingSubscription());
+        subscriber.onNext(chunk("abcdef"));
+        assertTrue(Files.exists(spillFile));
+
+        subscriber.onError(new IOException("connection reset"));
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> body(subscriber));
+        assertEquals("connection reset", error.getCause().getMessage());
+        assertFalse(Files.exists(spillFile));
+    }
+}
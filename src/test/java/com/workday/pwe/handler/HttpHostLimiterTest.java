@@ -0,0 +1,66 @@
+package com.workday.pwe.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class HttpHostLimiterTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static String newHost() {
+        return UUID.randomUUID() + ".example.com";
+    }
+
+    @Test
+    void sharesLimiterForSameResolvedLimits() throws Exception {
+        String host = newHost();
+
+        HttpHostLimiter defaults = HttpHostLimiter.forHost(host, null);
+        assertSame(defaults, HttpHostLimiter.forHost(host, MAPPER.readTree("{}")));
+        assertSame(defaults, HttpHostLimiter.forHost(host, MAPPER.readTree("{\"limits\":{\"maxConcurrent\":50}}")));
+    }
+
+    @Test
+    void honoursEachTasksLimitsRegardlessOfOrder() throws Exception {
+        String host = newHost();
+        HttpHostLimiter loose = HttpHostLimiter.forHost(host, MAPPER.readTree("{\"limits\":{\"maxConcurrent\":10}}"));
+        HttpHostLimiter strict = HttpHostLimiter.forHost(host, MAPPER.readTree("{\"limits\":{\"maxConcurrent\":1}}"));
+
+        assertNotSame(loose, strict);
+        assertNull(strict.tryAcquire());
+        assertNotNull(strict.tryAcquire());
+        assertNull(loose.tryAcquire());
+
+        strict.release(true);
+        loose.release(true);
+    }
+
+    @Test
+    void rateLimitRejectsBeyondBurst() throws Exception {
+        HttpHostLimiter limiter = HttpHostLimiter.forHost(newHost(),
+                MAPPER.readTree("{\"limits\":{\"ratePerSecond\":0.001,\"burst\":1}}"));
+
+        assertNull(limiter.tryAcquire());
+        limiter.release(true);
+        assertNotNull(limiter.tryAcquire());
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailures() throws Exception {
+        HttpHostLimiter limiter = HttpHostLimiter.forHost(newHost(),
+                MAPPER.readTree("{\"limits\":{\"failureThreshold\":2,\"openSeconds\":60}}"));
+
+        for (int i = 0; i < 2; i++) {
+            assertNull(limiter.tryAcquire());
+            limiter.release(false);
+        }
+        assertNotNull(limiter.tryAcquire());
+    }
+}
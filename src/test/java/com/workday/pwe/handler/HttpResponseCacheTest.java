@@ -0,0 +1,173 @@
+package com.workday.pwe.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpResponseCacheTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * A key no other test uses, since the cache is shared by the whole JVM
+     */
+    private static String newKey() {
+        return HttpResponseCache.key("tenant-" + UUID.randomUUID(), "GET", "https://example.com/rates", null, 1024, true);
+    }
+
+    private static HttpTaskResponse response(int status, String body, Map<String, List<String>> headers) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        return new HttpTaskResponse(status, headers, new BoundedBodySubscriber.Body(bytes, null, bytes.length, false));
+    }
+
+    private static HttpTaskResponse ok(String body, String... headers) {
+        Map<String, List<String>> headerMap = new HashMap<>();
+        for (int i = 0; i < headers.length; i += 2) {
+            headerMap.put(headers[i], List.of(headers[i + 1]));
+        }
+        return response(200, body, headerMap);
+    }
+
+    private static HttpRequest request() {
+        return HttpRequest.newBuilder(URI.create("https://example.com/rates")).GET().build();
+    }
+
+    @Test
+    void cachesOnlyOptedInGets() throws Exception {
+        assertEquals(-1, HttpResponseCache.ttlSeconds("GET", MAPPER.readTree("{}")));
+        assertEquals(-1, HttpResponseCache.ttlSeconds("POST", MAPPER.readTree("{\"cache\":true}")));
+        assertEquals(-1, HttpResponseCache.ttlSeconds("GET", MAPPER.readTree("{\"cache\":false}")));
+        assertEquals(60, HttpResponseCache.ttlSeconds("get", MAPPER.readTree("{\"cache\":true}")));
+        assertEquals(5, HttpResponseCache.ttlSeconds("GET", MAPPER.readTree("{\"cache\":{\"ttlSeconds\":5}}")));
+    }
+
+    @Test
+    void keySeparatesTenantsBodiesAndBodyLimits() {
+        String key = HttpResponseCache.key("acme", "get", "https://example.com", null, 1024, true);
+
+        assertEquals(key, HttpResponseCache.key("acme", "GET", "https://example.com", null, 1024, true));
+        assertNotEquals(key, HttpResponseCache.key("globex", "GET", "https://example.com", null, 1024, true));
+        assertNotEquals(key, HttpResponseCache.key("acme", "GET", "https://example.com", "{}", 1024, true));
+        assertNotEquals(key, HttpResponseCache.key("acme", "GET", "https://example.com", null, 2048, true));
+        assertNotEquals(key, HttpResponseCache.key("acme", "GET", "https://example.com", null, 1024, false));
+    }
+
+    @Test
+    void servesStoredEntryWhileFresh() {
+        String key = newKey();
+        HttpTaskResponse response = ok("{\"rate\":1.1}", "Cache-Control", "max-age=600");
+
+        assertNull(HttpResponseCache.getFresh(key));
+        assertSame(response, HttpResponseCache.store(key, response, 60));
+        assertSame(response, HttpResponseCache.getFresh(key));
+    }
+
+    @Test
+    void doesNotServeNoCacheOrStoreNoStore() {
+        String noCache = newKey();
+        HttpResponseCache.store(noCache, ok("a", "Cache-Control", "no-cache", "ETag", "\"v1\""), 60);
+        assertNull(HttpResponseCache.getFresh(noCache));
+
+        String noStore = newKey();
+        HttpResponseCache.store(noStore, ok("a", "Cache-Control", "no-store", "ETag", "\"v1\""), 60);
+        assertFalse(HttpResponseCache.conditional(noStore, request()).headers().firstValue("If-None-Match").isPresent());
+    }
+
+    @Test
+    void doesNotCacheErrorsOrPartialBodies() {
+        String error = newKey();
+        HttpResponseCache.store(error, response(500, "oops", Map.of()), 60);
+        assertNull(HttpResponseCache.getFresh(error));
+
+        String truncated = newKey();
+        HttpTaskResponse partial = new HttpTaskResponse(200, Map.of(),
+                new BoundedBodySubscriber.Body(new byte[4], null, 100, true));
+        HttpResponseCache.store(truncated, partial, 60);
+        assertNull(HttpResponseCache.getFresh(truncated));
+
+        String spilled = newKey();
+        HttpTaskResponse onDisk = new HttpTaskResponse(200, Map.of(),
+                new BoundedBodySubscriber.Body(null, Path.of("body"), 100, false));
+        HttpResponseCache.store(spilled, onDisk, 60);
+        assertNull(HttpResponseCache.getFresh(spilled));
+    }
+
+    @Test
+    void revalidatesStaleEntryWithValidators() {
+        String key = newKey();
+        HttpTaskResponse original = ok("{\"rate\":1.1}", "ETag", "\"v1\"", "Last-Modified", "Mon, 05 Jan 2026 09:00:00 GMT");
+        HttpResponseCache.store(key, original, 0);
+        assertNull(HttpResponseCache.getFresh(key));
+
+        HttpRequest conditional = HttpResponseCache.conditional(key, request());
+        assertEquals("\"v1\"", conditional.headers().firstValue("If-None-Match").orElse(null));
+        assertEquals("Mon, 05 Jan 2026 09:00:00 GMT", conditional.headers().firstValue("If-Modified-Since").orElse(null));
+
+        // 304 hands back the cached body and refreshes the entry, keeping the validators
+        HttpTaskResponse notModified = response(304, "", Map.of("Cache-Control", List.of("max-age=600")));
+        assertSame(original, HttpResponseCache.store(key, notModified, 60));
+        assertSame(original, HttpResponseCache.getFresh(key));
+        assertEquals("\"v1\"", HttpResponseCache.conditional(key, request()).headers().firstValue("If-None-Match").orElse(null));
+    }
+
+    @Test
+    void notModifiedAfterEvictionAsksForRefetch() {
+        String key = newKey();
+        HttpResponseCache.store(key, ok("{\"rate\":1.1}", "ETag", "\"v1\""), 0);
+        HttpRequest conditional = HttpResponseCache.conditional(key, request());
+        assertTrue(conditional.headers().firstValue("If-None-Match").isPresent());
+
+        // Push the entry out while the revalidation is in flight
+        for (int i = 0; i < 1000; i++) {
+            HttpResponseCache.store(newKey(), ok("x"), 60);
+        }
+
+        assertNull(HttpResponseCache.store(key, response(304, "", Map.of()), 60));
+        assertFalse(HttpResponseCache.conditional(key, request()).headers().firstValue("If-None-Match").isPresent());
+    }
+
+    @Test
+    void coalescesConcurrentIdenticalRequests() {
+        String key = newKey();
+        CompletableFuture<HttpTaskResponse> leader = new CompletableFuture<>();
+        CompletableFuture<HttpTaskResponse> follower = new CompletableFuture<>();
+
+        assertNull(HttpResponseCache.joinInFlight(key, leader));
+        assertSame(leader, HttpResponseCache.joinInFlight(key, follower));
+
+        leader.complete(ok("done"));
+
+        // Once the call finishes the next request performs its own
+        assertNull(HttpResponseCache.joinInFlight(key, follower));
+        follower.complete(ok("done"));
+    }
+
+    @Test
+    void failedCallIsNotSharedWithLaterRequests() {
+        String key = newKey();
+        CompletableFuture<HttpTaskResponse> leader = new CompletableFuture<>();
+        HttpResponseCache.joinInFlight(key, leader);
+
+        leader.completeExceptionally(new RuntimeException("timeout"));
+
+        CompletableFuture<HttpTaskResponse> retry = new CompletableFuture<>();
+        assertNull(HttpResponseCache.joinInFlight(key, retry));
+        retry.complete(ok("done"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.workday.pwe.handler;
+
+import com.workday.pwe.model.TaskInstance;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpSpillStoreTest {
+
+    private static TaskInstance task(UUID workflowInstanceId) {
+        TaskInstance task = new TaskInstance();
+        task.setId(UUID.randomUUID());
+        task.setWorkflowInstanceId(workflowInstanceId);
+        return task;
+    }
+
+    @Test
+    void givesEveryAttemptItsOwnFile() {
+        TaskInstance task = task(UUID.randomUUID());
+
+        Path first = HttpSpillStore.fileFor("acme", task, 1);
+        Path second = HttpSpillStore.fileFor("acme", task, 2);
+
+        assertNotEquals(first, second);
+        assertEquals(first.getParent(), second.getParent());
+        assertEquals(task.getWorkflowInstanceId().toString(), first.getParent().getFileName().toString());
+        assertEquals("acme", first.getParent().getParent().getFileName().toString());
+        assertEquals("default", HttpSpillStore.fileFor(null, task, 1).getParent().getParent().getFileName().toString());
+    }
+
+    @Test
+    void listsAndDeletesWorkflowBodies() throws Exception {
+        // A tenant of its own so the test only sees what it wrote
+        String tenant = "spill-test-" + UUID.randomUUID();
+        UUID workflowId = UUID.randomUUID();
+        Path body = HttpSpillStore.fileFor(tenant, task(workflowId), 1);
+        Files.createDirectories(body.getParent());
+        Files.write(body, new byte[] {1, 2, 3});
+        Files.createDirectories(body.getParent().getParent().resolve("not-a-workflow"));
+
+        try {
+            assertEquals(List.of(workflowId), HttpSpillStore.getWorkflowIds(tenant));
+
+            // A coalesced task's copy lives under its own workflow and survives the leader's deletion
+            UUID followerWorkflowId = UUID.randomUUID();
+            Path copy = HttpSpillStore.fileFor(tenant, task(followerWorkflowId), 1);
+            HttpSpillStore.copy(body, copy);
+
+            HttpSpillStore.deleteWorkflow(tenant, workflowId);
+            assertFalse(Files.exists(body.getParent()));
+            assertEquals(3, Files.size(copy));
+            assertEquals(List.of(followerWorkflowId), HttpSpillStore.getWorkflowIds(tenant));
+
+            HttpSpillStore.deleteWorkflow(tenant, followerWorkflowId);
+            assertTrue(HttpSpillStore.getWorkflowIds(tenant).isEmpty());
+
+            // Another node may already have deleted it
+            HttpSpillStore.deleteWorkflow(tenant, workflowId);
+        } finally {
+            Files.deleteIfExists(body.getParent().getParent().resolve("not-a-workflow"));
+            Files.deleteIfExists(body.getParent().getParent());
+        }
+    }
+}
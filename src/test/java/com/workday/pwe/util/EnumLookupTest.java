@@ -0,0 +1,103 @@
+package com.workday.pwe.util;
+
+import com.workday.pwe.enums.CodedEnum;
+import com.workday.pwe.enums.CompletionCriteria;
+import com.workday.pwe.enums.HistoryChangeType;
+import com.workday.pwe.enums.HistoryEntityType;
+import com.workday.pwe.enums.QueueStatus;
+import com.workday.pwe.enums.TaskGroupType;
+import com.workday.pwe.enums.TaskStatus;
+import com.workday.pwe.enums.TaskType;
+import com.workday.pwe.enums.WorkflowStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EnumLookupTest {
+
+    private enum DuplicateCode implements CodedEnum {
+        FIRST(1), SECOND(1);
+
+        private final short code;
+
+        DuplicateCode(int code) {
+            this.code = (short) code;
+        }
+
+        @Override
+        public short getCode() {
+            return code;
+        }
+    }
+
+    private enum NegativeCode implements CodedEnum {
+        BROKEN(-1);
+
+        private final short code;
+
+        NegativeCode(int code) {
+            this.code = (short) code;
+        }
+
+        @Override
+        public short getCode() {
+            return code;
+        }
+    }
+
+    private static <E extends Enum<E> & CodedEnum> void assertRoundTrips(Class<E> type) {
+        EnumLookup<E> lookup = EnumLookup.of(type);
+        for (E constant : type.getEnumConstants()) {
+            assertSame(constant, lookup.fromCode(constant.getCode()));
+            assertSame(constant, lookup.fromName(constant.name()));
+        }
+    }
+
+    @Test
+    void everyStoredEnumRoundTrips() {
+        // Also checks that no stored enum reuses a code, which of() rejects
+        assertRoundTrips(CompletionCriteria.class);
+        assertRoundTrips(HistoryChangeType.class);
+        assertRoundTrips(HistoryEntityType.class);
+        assertRoundTrips(QueueStatus.class);
+        assertRoundTrips(TaskGroupType.class);
+        assertRoundTrips(TaskStatus.class);
+        assertRoundTrips(TaskType.class);
+        assertRoundTrips(WorkflowStatus.class);
+    }
+
+    @Test
+    void statusCodesMatchPartialIndexes() {
+        // migrate_archive_tables.sql hardcodes these codes in the active and finished index predicates
+        assertEquals(0, TaskStatus.NOT_STARTED.getCode());
+        assertEquals(1, TaskStatus.IN_PROGRESS.getCode());
+        assertEquals(10, TaskStatus.BLOCKED.getCode());
+        assertEquals(0, WorkflowStatus.NOT_STARTED.getCode());
+        assertEquals(1, WorkflowStatus.RUNNING.getCode());
+        assertEquals(2, WorkflowStatus.PAUSED.getCode());
+        assertEquals(3, WorkflowStatus.COMPLETED.getCode());
+        assertEquals(4, WorkflowStatus.FAILED.getCode());
+        assertEquals(5, WorkflowStatus.TERMINATED.getCode());
+        assertEquals(6, WorkflowStatus.ARCHIVED.getCode());
+    }
+
+    @Test
+    void rejectsUnknownCodesAndNames() {
+        EnumLookup<TaskStatus> lookup = EnumLookup.of(TaskStatus.class);
+
+        assertThrows(IllegalArgumentException.class, () -> lookup.fromCode(-1));
+        assertThrows(IllegalArgumentException.class, () -> lookup.fromCode(11));
+        assertThrows(IllegalArgumentException.class, () -> lookup.fromCode(Short.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> lookup.fromName("in_progress"));
+        assertNull(lookup.fromName(null));
+    }
+
+    @Test
+    void rejectsDuplicateAndNegativeCodes() {
+        assertThrows(IllegalArgumentException.class, () -> EnumLookup.of(DuplicateCode.class));
+        assertThrows(IllegalArgumentException.class, () -> EnumLookup.of(NegativeCode.class));
+    }
+}
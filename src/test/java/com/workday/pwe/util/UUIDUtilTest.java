@@ -0,0 +1,78 @@
+package com.workday.pwe.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UUIDUtilTest {
+
+    @Test
+    void setsVersionAndVariant() {
+        UUID uuid = UUIDUtil.newUUIDv7();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    void embedsCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UUIDUtil.newUUIDv7();
+        long after = System.currentTimeMillis();
+
+        long millis = uuid.getMostSignificantBits() >>> 16;
+        // Bursts from other tests may have run the counter a few milliseconds ahead of the clock
+        assertTrue(millis >= before && millis <= after + 1000, millis + " not in " + before + ".." + after);
+    }
+
+    @Test
+    void increasesMonotonicallyWithinAMillisecond() {
+        // Far more than the 4096 IDs a millisecond's counter holds, so the timestamp rolls forward too
+        String previous = UUIDUtil.newUUIDv7().toString();
+        for (int i = 0; i < 20000; i++) {
+            // The text form sorts the way PostgreSQL orders uuid values
+            String current = UUIDUtil.newUUIDv7().toString();
+            assertTrue(current.compareTo(previous) > 0, current + " after " + previous);
+            previous = current;
+        }
+    }
+
+    @Test
+    void staysUniqueAndOrderedPerThreadUnderContention() throws Exception {
+        Set<UUID> all = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> {
+                    String previous = "";
+                    for (int i = 0; i < 5000; i++) {
+                        UUID uuid = UUIDUtil.newUUIDv7();
+                        all.add(uuid);
+                        if (uuid.toString().compareTo(previous) <= 0) {
+                            return false;
+                        }
+                        previous = uuid.toString();
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(8 * 5000, all.size());
+    }
+}
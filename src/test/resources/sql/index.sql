@@ -7,46 +7,75 @@ CREATE INDEX idx_workflow_def_name_version ON workflow_definitions(name, version
 
 -- Workflow Instances Indexes
 CREATE INDEX idx_workflow_inst_def_id ON workflow_instances(workflow_def_id);
-CREATE INDEX idx_workflow_inst_status ON workflow_instances(status);
+CREATE INDEX idx_workflow_inst_active ON workflow_instances(status) WHERE status IN (0, 1, 2); -- WorkflowStatus NOT_STARTED, RUNNING, PAUSED
 CREATE INDEX idx_workflow_inst_created ON workflow_instances(created_at);
-CREATE INDEX idx_workflow_inst_end_time ON workflow_instances(end_time);
+CREATE INDEX idx_workflow_inst_finished ON workflow_instances(end_time) WHERE status IN (3, 4, 5, 6); -- WorkflowStatus COMPLETED, FAILED, TERMINATED, ARCHIVED; scanned by the archiver
+CREATE INDEX idx_workflow_inst_parent_task ON workflow_instances(parent_task_inst_id) WHERE parent_task_inst_id IS NOT NULL;
 
 -- Task Group Definitions Indexes
 CREATE INDEX idx_task_group_def_workflow ON task_group_definitions(workflow_def_id);
 CREATE INDEX idx_task_group_def_parent ON task_group_definitions(parent_group_def_id);
 CREATE INDEX idx_task_group_def_order ON task_group_definitions(workflow_def_id, group_order);
+CREATE INDEX idx_task_group_def_id_order ON task_group_definitions(id) INCLUDE (group_order);
 
 -- Task Definitions Indexes
 CREATE INDEX idx_task_def_workflow ON task_definitions(workflow_def_id);
 CREATE INDEX idx_task_def_group ON task_definitions(task_group_def_id);
 CREATE INDEX idx_task_def_order ON task_definitions(workflow_def_id, task_order);
+CREATE INDEX idx_task_def_id_order ON task_definitions(id) INCLUDE (task_order);
 CREATE INDEX idx_task_def_type ON task_definitions(task_type);
 
 -- Task Group Instances Indexes
 CREATE INDEX idx_task_group_inst_workflow ON task_group_instances(workflow_instance_id);
 CREATE INDEX idx_task_group_inst_def ON task_group_instances(task_group_def_id);
 CREATE INDEX idx_task_group_inst_parent ON task_group_instances(parent_group_inst_id);
-CREATE INDEX idx_task_group_inst_status ON task_group_instances(status);
+CREATE INDEX idx_task_group_inst_active ON task_group_instances(status) WHERE status IN (0, 1, 10); -- TaskStatus NOT_STARTED, IN_PROGRESS, BLOCKED
 CREATE INDEX idx_task_group_inst_end_time ON task_group_instances(end_time);
+-- Covering index for status-only reads of the root groups of a workflow
+CREATE INDEX idx_task_group_inst_root_status ON task_group_instances(workflow_instance_id) INCLUDE (status, task_group_def_id) WHERE parent_group_inst_id IS NULL;
 
 -- Task Instances Indexes
 CREATE INDEX idx_task_inst_workflow ON task_instances(workflow_instance_id);
 CREATE INDEX idx_task_inst_def ON task_instances(task_def_id);
-CREATE INDEX idx_task_inst_group ON task_instances(task_group_instance_id);
-CREATE INDEX idx_task_inst_status ON task_instances(status);
+CREATE INDEX idx_task_inst_group ON task_instances(task_group_instance_id) INCLUDE (status, task_def_id); -- covers status-only reads of a group
+CREATE INDEX idx_task_inst_active ON task_instances(status) WHERE status IN (0, 1, 10); -- TaskStatus NOT_STARTED, IN_PROGRESS, BLOCKED
 CREATE INDEX idx_task_inst_assignee ON task_instances(assignee);
-CREATE INDEX idx_task_inst_due_date ON task_instances(due_date);
+CREATE INDEX idx_task_inst_due_date ON task_instances(due_date) WHERE status IN (0, 1, 10); -- only active tasks can expire
+CREATE INDEX idx_task_inst_timer ON task_instances((LEAST(due_date, escalate_at))) WHERE status IN (0, 1, 10); -- first timer of active tasks
 CREATE INDEX idx_task_inst_end_time ON task_instances(end_time);
+CREATE INDEX idx_task_inst_next_attempt ON task_instances(next_attempt_at) WHERE next_attempt_at IS NOT NULL;
+-- Covering index for status-only reads of the top-level tasks of a workflow
+CREATE INDEX idx_task_inst_top_level_status ON task_instances(workflow_instance_id) INCLUDE (status, task_def_id) WHERE task_group_instance_id IS NULL;
 
 -- Workflow Execution Queue Indexes
 CREATE INDEX idx_workflow_queue_workflow ON workflow_execution_queue(workflow_instance_id);
 CREATE INDEX idx_workflow_queue_status ON workflow_execution_queue(status);
 CREATE INDEX idx_workflow_queue_priority ON workflow_execution_queue(priority DESC, created_at ASC);
 CREATE INDEX idx_workflow_queue_created ON workflow_execution_queue(created_at);
+CREATE INDEX idx_workflow_queue_next_attempt ON workflow_execution_queue(next_attempt_at) WHERE next_attempt_at IS NOT NULL;
+CREATE INDEX idx_workflow_queue_processing ON workflow_execution_queue(priority DESC, created_at ASC) WHERE status = 1; -- QueueStatus.PROCESSING
+CREATE INDEX idx_workflow_queue_shard ON workflow_execution_queue(shard, priority DESC, created_at ASC) WHERE status = 0; -- QueueStatus.PENDING
+
+-- Cluster Nodes Indexes
+CREATE INDEX idx_cluster_nodes_heartbeat ON cluster_nodes(last_heartbeat);
+
+-- Workflow Schedules Indexes
+CREATE INDEX idx_workflow_schedule_def ON workflow_schedules(workflow_def_id);
+CREATE INDEX idx_workflow_schedule_next_fire ON workflow_schedules(next_fire_time) WHERE enabled;
 
 -- Workflow History Indexes
 CREATE INDEX idx_workflow_history_workflow ON workflow_history(workflow_instance_id);
 CREATE INDEX idx_workflow_history_entity ON workflow_history(entity_type, entity_id);
 CREATE INDEX idx_workflow_history_change ON workflow_history(change_type);
-CREATE INDEX idx_workflow_history_timestamp ON workflow_history(timestamp);
-CREATE INDEX idx_workflow_history_username ON workflow_history(username);
\ No newline at end of file
+CREATE INDEX idx_workflow_history_timestamp ON workflow_history(timestamp, id); -- keyset order of history archival
+CREATE INDEX idx_workflow_history_username ON workflow_history(username);
+
+-- Archive Table Indexes (only the lookups QueryService and the audit history make)
+CREATE INDEX idx_workflow_inst_archive_status ON workflow_instances_archive(status);
+CREATE INDEX idx_workflow_inst_archive_end_time ON workflow_instances_archive(end_time);
+CREATE INDEX idx_task_group_inst_archive_workflow ON task_group_instances_archive(workflow_instance_id);
+CREATE INDEX idx_task_inst_archive_workflow ON task_instances_archive(workflow_instance_id);
+CREATE INDEX idx_task_inst_archive_status ON task_instances_archive(status);
+CREATE INDEX idx_task_inst_archive_assignee ON task_instances_archive(assignee);
+CREATE INDEX idx_workflow_history_archive_workflow ON workflow_history_archive(workflow_instance_id);
+CREATE INDEX idx_workflow_history_archive_entity ON workflow_history_archive(entity_type, entity_id);